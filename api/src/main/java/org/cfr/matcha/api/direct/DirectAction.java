@@ -53,4 +53,16 @@ import java.lang.annotation.Target;
 @Target({ ElementType.TYPE })
 public @interface DirectAction {
 
+    /**
+     * Maximum number of calls of the methods of this action running at the same time, zero or less for no limit.
+     * A call over the limit waits in a queue of {@link #maxQueuedCalls()} calls, or fails at once with an error
+     * response when the queue is full.
+     */
+    int maxConcurrentCalls() default 0;
+
+    /**
+     * Maximum number of calls of the methods of this action waiting for the end of a running call, when
+     * {@link #maxConcurrentCalls()} is reached. Zero by default: calls over the limit fail at once.
+     */
+    int maxQueuedCalls() default 0;
 }
\ No newline at end of file
@@ -18,8 +18,66 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 
+/**
+ * Identifies a method of a {@link DirectAction} callable through the Direct API.
+ * @author devacfr
+ * @since 1.0
+ */
 @Retention(RetentionPolicy.RUNTIME)
 @Target({ ElementType.METHOD })
 public @interface DirectMethod {
 
+    /**
+     * Maximum number of calls of this method running at the same time, zero or less for no limit. A call over the
+     * limit waits in a queue of {@link #maxQueuedCalls()} calls, or fails at once with an error response when the
+     * queue is full. The limit of the action, if any, applies as well.
+     */
+    int maxConcurrentCalls() default 0;
+
+    /**
+     * Maximum number of calls of this method waiting for the end of a running call, when
+     * {@link #maxConcurrentCalls()} is reached. Zero by default: calls over the limit fail at once.
+     */
+    int maxQueuedCalls() default 0;
+
+    /**
+     * <code>true</code> if the method does not change any state, so that the calls of a batch can run at the same
+     * time as the other calls of the batch when batch multithreading is enabled. The other methods are considered as
+     * changing state: their calls run one after the other, in the order of the batch.
+     */
+    boolean parallelSafe() default false;
+
+    /**
+     * <code>true</code> to coalesce the identical calls of the method running at the same time: the calls with the
+     * same JSON arguments as a call in flight do not invoke the method, they receive the result of the call in
+     * flight. Only for methods returning the same result to all callers.
+     */
+    boolean coalesce() default false;
+
+    /**
+     * <code>true</code> for a long running method called in the background, such as a report: when batch
+     * multithreading is enabled, its calls run in a separate, smaller pool of low priority threads, so that they never
+     * take the threads of the interactive calls.
+     */
+    boolean background() default false;
+
+    /**
+     * Time to live in milliseconds of the cached results of the method, zero or less for no caching. The results are
+     * cached by arguments, already serialized to JSON: a hit neither invokes the method nor serializes its result.
+     * Only for methods returning the same result for the same arguments, whoever the caller.
+     */
+    long cacheTtlMillis() default 0;
+
+    /**
+     * Maximum number of cached results of the method, the least recently used result being evicted when the cache is
+     * full. Used only if {@link #cacheTtlMillis()} is greater than zero.
+     */
+    int cacheMaxEntries() default 1000;
+
+    /**
+     * Deadline in milliseconds of a call of the method, zero to use the default call timeout of the context, negative
+     * for no deadline. A call still running at its deadline receives a timeout error response, the other calls of its
+     * batch being answered as usual. The client may shorten the deadline of a call, never extend it.
+     */
+    long timeoutMillis() default 0;
 }
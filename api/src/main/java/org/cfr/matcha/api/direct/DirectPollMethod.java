@@ -18,8 +18,32 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 
+/**
+ * Identifies a method of a {@link DirectAction} answering the polls of an event, the event being named after the
+ * method.
+ * <p>
+ * A poll method returning a {@link java.util.concurrent.CompletionStage} is long-polled: the poll is answered when
+ * the stage completes, typically when an event is available, or with a <code>null</code> result when
+ * {@link #longPollTimeoutMillis()} expires first.
+ * </p>
+ * @author devacfr
+ * @since 1.0
+ */
 @Retention(RetentionPolicy.RUNTIME)
 @Target({ ElementType.METHOD })
 public @interface DirectPollMethod {
 
+    /**
+     * Maximum time in milliseconds a long poll is held, zero or less to hold it until the stage completes. When the
+     * time expires, the poll is answered with a <code>null</code> result and the stage is cancelled if it is a
+     * {@link java.util.concurrent.Future}, so that the action can stop waiting for an event.
+     */
+    long longPollTimeoutMillis() default 30000;
+
+    /**
+     * <code>true</code> to answer a client with an empty response, instead of the event, when the result is the same
+     * as the last one sent to the client. The client is identified by the <code>clientId</code> poll parameter, the
+     * polls without it being always answered with the event.
+     */
+    boolean suppressUnchanged() default false;
 }
@@ -0,0 +1,62 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.cfr.matcha.api.form;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Form parameter whose value is decoded from the form data when it is first read.
+ * @author devacfr
+ * @since 1.0
+ */
+@ThreadSafe
+final class DeferredParameter extends Parameter {
+
+    /** The reader of the form, <code>null</code> once the value is decoded or set. */
+    private FormReader reader;
+
+    private final int start;
+
+    private final int end;
+
+    /**
+     * Constructor.
+     * 
+     * @param name The name.
+     * @param reader The reader of the form.
+     * @param start The position of the first byte of the encoded value.
+     * @param end The position following the last byte of the encoded value.
+     */
+    public DeferredParameter(final String name, final FormReader reader, final int start, final int end) {
+        super(name, null);
+        this.reader = reader;
+        this.start = start;
+        this.end = end;
+    }
+
+    @Override
+    public synchronized String getValue() {
+        if (reader != null) {
+            super.setValue(reader.decodeDeferred(start, end));
+            reader = null;
+        }
+        return super.getValue();
+    }
+
+    @Override
+    public synchronized void setValue(final String value) {
+        reader = null;
+        super.setValue(value);
+    }
+}
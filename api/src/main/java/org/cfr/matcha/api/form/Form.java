@@ -14,15 +14,37 @@
 package org.cfr.matcha.api.form;
 
 import java.io.IOException;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
+import java.util.ListIterator;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
 import org.cfr.commons.util.Assert;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
- * 
+ * Parameters of a Web form, in the order they are posted.
+ * <p>
+ * A form created from the encoded bytes of a request body is parsed on demand: {@link #getFirst(String, boolean)}
+ * and {@link #get(int)} read the parameters only as far as needed, and the value of a parameter is decoded only when
+ * it is first read. Any other access, an iteration for instance, parses the remaining parameters first. A parameter
+ * that can not be parsed or decoded is skipped along with the remaining parameters, its malformed escapes being
+ * detected when it is parsed rather than when its value is read.
+ * </p>
+ * <p>
+ * A form is used by a single thread: as any {@link java.util.ArrayList}, it is not thread-safe, and even its reads
+ * change it while the form is parsed on demand. A form shared with other threads has to be fully parsed first, by
+ * calling {@link #size()} for instance, and then only read.
+ * </p>
  * @author devacfr
  * @since 1.0
  */
@@ -33,6 +55,14 @@ public class Form extends Parameters<Parameter> {
      */
     private static final long serialVersionUID = -6342711205961938554L;
 
+    /**
+     * Static logger.
+     */
+    private static Logger logger = LoggerFactory.getLogger(Form.class);
+
+    /** Reads the parameters not parsed yet, <code>null</code> once the form is fully parsed. */
+    private transient FormReader pending;
+
     /**
      * Empty constructor.
      */
@@ -111,6 +141,258 @@ public class Form extends Parameters<Parameter> {
         parse(this, parametersString, characterSet, true, separator);
     }
 
+    /**
+     * Constructor, parsing the form on demand.
+     * 
+     * @param data The form data, URL encoded with the character set. It must not be modified afterwards.
+     * @param offset The position of the first byte of the form.
+     * @param length The number of bytes of the form.
+     * @param characterSet The supported character encoding.
+     */
+    public Form(
+            @Nonnull final byte[] data, final int offset, final int length, @Nonnull final String characterSet) {
+        this.pending = new FormReader(data, offset, length, characterSet, '&');
+    }
+
+    /**
+     * Reads the next pending parameter. As when the parameters are added to a form as they are read, a parameter that
+     * can not be parsed or decoded is skipped along with the remaining parameters.
+     * 
+     * @return The parameter read, <code>null</code> if the form is fully parsed.
+     */
+    private Parameter readPending() {
+        Parameter param = null;
+        try {
+            param = pending.readNextDeferredParameter();
+        } catch (IOException ioe) {
+            logger.warn("Unable to parse a form parameter. Skipping the remaining parameters.", ioe);
+        } catch (IllegalArgumentException iae) {
+            logger.warn("Unable to decode a form parameter. Skipping the remaining parameters.", iae);
+        }
+        if (param == null) {
+            pending = null;
+        } else {
+            super.add(param);
+        }
+        return param;
+    }
+
+    /**
+     * Parses the remaining parameters, if any.
+     */
+    private void parseAll() {
+        while (pending != null) {
+            readPending();
+        }
+    }
+
+    /**
+     * Returns the first parameter found with the given name, reading the pending parameters only until it is found.
+     * 
+     * @param name The parameter name.
+     * @param ignoreCase Indicates if the name comparison is case insensitive.
+     * @return The first parameter found with the given name.
+     */
+    @Override
+    public Parameter getFirst(final String name, final boolean ignoreCase) {
+        if (pending == null) {
+            return super.getFirst(name, ignoreCase);
+        }
+        Parameter param = getFirstHeld(name, ignoreCase);
+        if (param != null) {
+            return param;
+        }
+        param = readPending();
+        while (param != null) {
+            if (equals(param.getName(), name, ignoreCase)) {
+                return param;
+            }
+            param = readPending();
+        }
+        return null;
+    }
+
+    @Override
+    public Parameter get(final int index) {
+        while (pending != null && super.size() <= index) {
+            readPending();
+        }
+        return super.get(index);
+    }
+
+    @Override
+    public int size() {
+        parseAll();
+        return super.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return super.size() == 0 && (pending == null || readPending() == null);
+    }
+
+    @Override
+    public boolean contains(final Object o) {
+        parseAll();
+        return super.contains(o);
+    }
+
+    @Override
+    public int indexOf(final Object o) {
+        parseAll();
+        return super.indexOf(o);
+    }
+
+    @Override
+    public int lastIndexOf(final Object o) {
+        parseAll();
+        return super.lastIndexOf(o);
+    }
+
+    @Override
+    public Object clone() {
+        parseAll();
+        return super.clone();
+    }
+
+    @Override
+    public Object[] toArray() {
+        parseAll();
+        return super.toArray();
+    }
+
+    @Override
+    public <T> T[] toArray(final T[] a) {
+        parseAll();
+        return super.toArray(a);
+    }
+
+    @Override
+    public Parameter set(final int index, final Parameter element) {
+        parseAll();
+        return super.set(index, element);
+    }
+
+    @Override
+    public boolean add(final Parameter e) {
+        parseAll();
+        return super.add(e);
+    }
+
+    @Override
+    public void add(final int index, final Parameter element) {
+        parseAll();
+        super.add(index, element);
+    }
+
+    @Override
+    public Parameter remove(final int index) {
+        parseAll();
+        return super.remove(index);
+    }
+
+    @Override
+    public boolean remove(final Object o) {
+        parseAll();
+        return super.remove(o);
+    }
+
+    @Override
+    public void clear() {
+        pending = null;
+        super.clear();
+    }
+
+    @Override
+    public boolean addAll(final Collection<? extends Parameter> c) {
+        parseAll();
+        return super.addAll(c);
+    }
+
+    @Override
+    public boolean addAll(final int index, final Collection<? extends Parameter> c) {
+        parseAll();
+        return super.addAll(index, c);
+    }
+
+    @Override
+    public boolean removeAll(final Collection<?> c) {
+        parseAll();
+        return super.removeAll(c);
+    }
+
+    @Override
+    public boolean retainAll(final Collection<?> c) {
+        parseAll();
+        return super.retainAll(c);
+    }
+
+    @Override
+    public ListIterator<Parameter> listIterator(final int index) {
+        parseAll();
+        return super.listIterator(index);
+    }
+
+    @Override
+    public ListIterator<Parameter> listIterator() {
+        parseAll();
+        return super.listIterator();
+    }
+
+    @Override
+    public Iterator<Parameter> iterator() {
+        parseAll();
+        return super.iterator();
+    }
+
+    @Override
+    public Parameters<Parameter> subList(final int fromIndex, final int toIndex) {
+        parseAll();
+        return super.subList(fromIndex, toIndex);
+    }
+
+    @Override
+    public void forEach(final Consumer<? super Parameter> action) {
+        parseAll();
+        super.forEach(action);
+    }
+
+    @Override
+    public Spliterator<Parameter> spliterator() {
+        parseAll();
+        return super.spliterator();
+    }
+
+    @Override
+    public boolean removeIf(final Predicate<? super Parameter> filter) {
+        parseAll();
+        return super.removeIf(filter);
+    }
+
+    @Override
+    public void replaceAll(final UnaryOperator<Parameter> operator) {
+        parseAll();
+        super.replaceAll(operator);
+    }
+
+    @Override
+    public void sort(final Comparator<? super Parameter> c) {
+        parseAll();
+        super.sort(c);
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        parseAll();
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        parseAll();
+        return super.hashCode();
+    }
+
     @Override
     public Parameter createParameter(@Nonnull final String name, @Nonnull final String value) {
         return new Parameter(name, value);
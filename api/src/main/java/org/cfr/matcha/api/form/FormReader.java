@@ -13,10 +13,11 @@
  */
 package org.cfr.matcha.api.form;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.UnsupportedCharsetException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -29,6 +30,11 @@ import org.slf4j.LoggerFactory;
 
 /**
  * Form reader.
+ * <p>
+ * The parameters are parsed in a single pass over the bytes of the form: the percent-escapes are decoded inline and
+ * the bytes of a name or value are turned directly into its final string with the character set, without
+ * intermediate buffers for the names and values holding no escape. A reader is used by a single thread.
+ * </p>
  * @author devacfr
  * @since 1.0
  */
@@ -39,17 +45,36 @@ public class FormReader {
      */
     private static Logger logger = LoggerFactory.getLogger(FormReader.class);
 
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final Charset ISO_8859_1 = Charset.forName("ISO-8859-1");
+
     /** The encoding to use, decoding is enabled, see {@link #decoding}. */
-    private volatile String characterSet;
+    private final String characterSet;
+
+    /** The resolved encoding, <code>null</code> if not decoding or not supported. */
+    private final Charset charset;
+
+    /** The encoding of the unescaped characters of the form. */
+    private final Charset textCharset;
 
     /** Indicates if the parameters should be decoded. */
-    private volatile boolean decoding;
+    private final boolean decoding;
+
+    /** The form data. */
+    private final byte[] data;
+
+    /** The position of the next byte to read. */
+    private int position;
 
-    /** The form stream. */
-    private volatile InputStream stream;
+    /** The end of the form data. */
+    private final int limit;
 
     /** The separator character used between parameters. */
-    private volatile char separator;
+    private final char separator;
+
+    /** Receives the decoded bytes of the names and values holding escapes, reused from one to the next. */
+    private byte[] decoded;
 
     /**
      * Constructor. Will leave the parsed data encoded.
@@ -60,8 +85,11 @@ public class FormReader {
     public FormReader(
             final String parametersString, final char separator) {
         this.decoding = false;
-        this.stream = new ByteArrayInputStream(parametersString.getBytes());
+        this.data = parametersString.getBytes(UTF_8);
+        this.limit = data.length;
         this.characterSet = null;
+        this.charset = null;
+        this.textCharset = UTF_8;
         this.separator = separator;
     }
 
@@ -75,12 +103,54 @@ public class FormReader {
     public FormReader(
             @Nonnull final String parametersString, @Nonnull final String characterSet, final char separator) {
         this.decoding = true;
-        this.stream = new ByteArrayInputStream(Assert.notNull(parametersString, "parametersString is required")
-                .getBytes());
+        this.data = Assert.notNull(parametersString, "parametersString is required").getBytes(UTF_8);
+        this.limit = data.length;
         this.characterSet = Assert.notNull(characterSet, "characterSet is required");
+        this.charset = forName(characterSet);
+        this.textCharset = UTF_8;
         this.separator = separator;
     }
 
+    /**
+     * Constructor, reading the form directly from its encoded bytes, such as a request body.
+     * 
+     * @param data The form data, URL encoded with the character set. It is neither copied nor modified.
+     * @param offset The position of the first byte of the form.
+     * @param length The number of bytes of the form.
+     * @param characterSet The supported character encoding, compatible with ASCII.
+     * @param separator character separator.
+     */
+    public FormReader(
+            @Nonnull final byte[] data, final int offset, final int length, @Nonnull final String characterSet,
+            final char separator) {
+        Assert.notNull(data, "data is required");
+        if (offset < 0 || length < 0 || offset + length > data.length) {
+            throw new IndexOutOfBoundsException("offset " + offset + ", length " + length + ", size " + data.length);
+        }
+        this.decoding = true;
+        this.data = data;
+        this.position = offset;
+        this.limit = offset + length;
+        this.characterSet = Assert.notNull(characterSet, "characterSet is required");
+        this.charset = forName(characterSet);
+        this.textCharset = charset;
+        this.separator = separator;
+    }
+
+    /**
+     * 
+     * @return the character set, <code>null</code> if not supported.
+     */
+    private static Charset forName(String characterSet) {
+        try {
+            return Charset.forName(characterSet);
+        } catch (IllegalCharsetNameException e) {
+            return null;
+        } catch (UnsupportedCharsetException e) {
+            return null;
+        }
+    }
+
     /**
      * Adds the parameters into a given form.
      * 
@@ -88,32 +158,15 @@ public class FormReader {
      */
     public void addParameters(@Nonnull final Form form) {
         Assert.notNull(form);
-        boolean readNext = true;
-        Parameter param = null;
-
-        if (this.stream != null) {
-            // Let's read all form parameters
-            try {
-                while (readNext) {
-                    param = readNextParameter();
-
-                    if (param != null) {
-                        // Add parsed parameter to the form
-                        form.add(param);
-                    } else {
-                        // Last parameter parsed
-                        readNext = false;
-                    }
-                }
-            } catch (IOException ioe) {
-                logger.warn("Unable to parse a form parameter. Skipping the remaining parameters.", ioe);
-            }
-
-            try {
-                this.stream.close();
-            } catch (IOException ioe) {
-                logger.warn("Unable to close the form input stream", ioe);
+        try {
+            Parameter param = readNextParameter();
+            while (param != null) {
+                // Add parsed parameter to the form
+                form.add(param);
+                param = readNextParameter();
             }
+        } catch (IOException ioe) {
+            logger.warn("Unable to parse a form parameter. Skipping the remaining parameters.", ioe);
         }
     }
 
@@ -132,7 +185,6 @@ public class FormReader {
             param = readNextParameter();
         }
 
-        this.stream.close();
         return result;
     }
 
@@ -145,19 +197,15 @@ public class FormReader {
      */
     public Parameter readFirstParameter(final String name) throws IOException {
         Parameter param = readNextParameter();
-        Parameter result = null;
 
-        while (param != null
-                && result == null) {
+        while (param != null) {
             if (param.getName().equals(name)) {
-                result = param;
+                return param;
             }
-
             param = readNextParameter();
         }
 
-        this.stream.close();
-        return result;
+        return null;
     }
 
     /**
@@ -167,57 +215,149 @@ public class FormReader {
      * @throws IOException If the next parameter could not be read.
      */
     public Parameter readNextParameter() throws IOException {
-        Parameter result = null;
+        return readNextParameter(false);
+    }
 
-        try {
-            boolean readingName = true;
-            boolean readingValue = false;
-            final StringBuilder nameBuffer = new StringBuilder();
-            final StringBuilder valueBuffer = new StringBuilder();
-
-            int nextChar = 0;
-            while (result == null
-                    && nextChar != -1) {
-                nextChar = this.stream.read();
-
-                if (readingName) {
-                    if (nextChar == '=') {
-                        if (nameBuffer.length() > 0) {
-                            readingName = false;
-                            readingValue = true;
-                        } else {
-                            throw new IOException("Empty parameter name detected. Please check your form data");
-                        }
-                    } else if (nextChar == this.separator
-                            || nextChar == -1) {
-                        if (nameBuffer.length() > 0) {
-                            result = Parameter.create(nameBuffer, null, this.decoding, this.characterSet);
-                        } else if (nextChar == -1) {
-                            // Do nothing return null preference
-                        } else {
-                            logger.info("Empty parameter name detected. Please check your form data");
-                        }
-                    } else {
-                        nameBuffer.append((char) nextChar);
-                    }
-                } else if (readingValue) {
-                    if (nextChar == this.separator
-                            || nextChar == -1) {
-                        if (valueBuffer.length() > 0) {
-                            result = Parameter.create(nameBuffer, valueBuffer, this.decoding, this.characterSet);
-                        } else {
-                            result = Parameter.create(nameBuffer, null, this.decoding, this.characterSet);
-                        }
-                    } else {
-                        valueBuffer.append((char) nextChar);
-                    }
+    /**
+     * Reads the next parameter available or null, its value being decoded only when it is first read.
+     * 
+     * @return The next parameter available or null.
+     * @throws IOException If the next parameter could not be read.
+     * @throws IllegalArgumentException If the name or the value of the next parameter holds a malformed escape.
+     */
+    Parameter readNextDeferredParameter() throws IOException {
+        return readNextParameter(true);
+    }
+
+    private Parameter readNextParameter(final boolean deferValue) throws IOException {
+        if (decoding && charset == null) {
+            throw new IOException("Unsupported encoding. Please contact the administrator");
+        }
+        while (position < limit) {
+            int nameStart = position;
+            int nameEnd = -1;
+            int end = position;
+            // a value holding a malformed escape is decoded right away, to fail as when it is not deferred
+            boolean malformed = false;
+            while (end < limit && data[end] != separator) {
+                if (nameEnd < 0 && data[end] == '=') {
+                    nameEnd = end;
+                } else if (deferValue && data[end] == '%' && !isEscape(end)) {
+                    malformed = true;
                 }
+                end++;
+            }
+            // skips the separator
+            position = end + 1;
+
+            if (nameEnd == nameStart) {
+                throw new IOException("Empty parameter name detected. Please check your form data");
+            }
+            if (nameEnd < 0) {
+                if (end > nameStart) {
+                    return new Parameter(decode(nameStart, end, true), null);
+                }
+                if (end < limit) {
+                    logger.info("Empty parameter name detected. Please check your form data");
+                }
+            } else {
+                String name = decode(nameStart, nameEnd, true);
+                if (nameEnd + 1 == end) {
+                    return new Parameter(name, null);
+                }
+                if (deferValue && !malformed) {
+                    return new DeferredParameter(name, this, nameEnd + 1, end);
+                }
+                return new Parameter(name, decode(nameEnd + 1, end, true));
             }
-        } catch (UnsupportedEncodingException uee) {
-            throw new IOException("Unsupported encoding. Please contact the administrator");
         }
+        return null;
+    }
 
-        return result;
+    /**
+     * 
+     * @param position The position of a percent sign.
+     * @return <code>true</code> if the percent sign is followed by two hexadecimal digits.
+     */
+    private boolean isEscape(final int position) {
+        return position + 2 < limit && Character.digit((char) data[position + 1], 16) >= 0
+                && Character.digit((char) data[position + 2], 16) >= 0;
+    }
+
+    /**
+     * Decodes the value of a {@link DeferredParameter}, possibly in another thread than the one reading the form.
+     * Its escapes are checked when it is read.
+     * 
+     * @param start The position of its first byte.
+     * @param end The position following its last byte.
+     * @return The decoded string.
+     */
+    String decodeDeferred(final int start, final int end) {
+        return decode(start, end, false);
+    }
+
+    /**
+     * Decodes a name or a value of the form.
+     * 
+     * @param start The position of its first byte.
+     * @param end The position following its last byte.
+     * @param shared Indicates if the escapes are decoded in the buffer of the reader.
+     * @return The decoded string.
+     */
+    private String decode(final int start, final int end, final boolean shared) {
+        // the leading bytes without escapes, most often the whole string
+        int escape = start;
+        boolean ascii = true;
+        while (escape < end) {
+            byte b = data[escape];
+            if (decoding && (b == '%' || b == '+')) {
+                break;
+            }
+            if (b < 0) {
+                ascii = false;
+            }
+            escape++;
+        }
+        if (escape == end) {
+            return new String(data, start, end - start, ascii ? ISO_8859_1 : textCharset);
+        }
+        if (!charset.equals(textCharset)) {
+            // a string holding characters not encoded in the character set of its escapes
+            try {
+                return URLDecoder.decode(new String(data, start, end - start, textCharset), characterSet);
+            } catch (java.io.UnsupportedEncodingException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        byte[] decoded = shared ? this.decoded : null;
+        if (decoded == null || decoded.length < end - start) {
+            decoded = new byte[Math.max(end - start, 64)];
+            if (shared) {
+                this.decoded = decoded;
+            }
+        }
+        int length = escape - start;
+        System.arraycopy(data, start, decoded, 0, length);
+        for (int i = escape; i < end; i++) {
+            byte b = data[i];
+            if (b == '+') {
+                decoded[length++] = ' ';
+            } else if (b == '%') {
+                if (i + 2 >= end) {
+                    throw new IllegalArgumentException("URLDecoder: Incomplete trailing escape (%) pattern");
+                }
+                int high = Character.digit((char) data[i + 1], 16);
+                int low = Character.digit((char) data[i + 2], 16);
+                if (high < 0 || low < 0) {
+                    throw new IllegalArgumentException("URLDecoder: Illegal hex characters in escape (%) pattern");
+                }
+                decoded[length++] = (byte) ((high << 4) + low);
+                i += 2;
+            } else {
+                decoded[length++] = b;
+            }
+        }
+        return new String(decoded, 0, length, charset);
     }
 
     /**
@@ -266,7 +406,6 @@ public class FormReader {
             param = readNextParameter();
         }
 
-        this.stream.close();
         return result;
     }
 
@@ -318,6 +457,5 @@ public class FormReader {
             param = readNextParameter();
         }
 
-        this.stream.close();
     }
 }
@@ -15,6 +15,7 @@ package org.cfr.matcha.api.form;
 
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.annotation.Nonnull;
 import javax.annotation.concurrent.ThreadSafe;
@@ -35,6 +36,9 @@ public class Parameter implements Comparable<Parameter> {
      */
     private static Logger logger = LoggerFactory.getLogger(Parameter.class);
 
+    /** The number of parameters renamed, outdating the indexes of the names built before. */
+    private static final AtomicInteger renameCount = new AtomicInteger();
+
     /** The first object. */
     private volatile String name;
 
@@ -129,6 +133,14 @@ public class Parameter implements Comparable<Parameter> {
      */
     public void setName(final String name) {
         this.name = name;
+        renameCount.incrementAndGet();
+    }
+
+    /**
+     * @return The number of parameters renamed so far, by {@link #setName(String)}.
+     */
+    static int getRenameCount() {
+        return renameCount.get();
     }
 
     /**
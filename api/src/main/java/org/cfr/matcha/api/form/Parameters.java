@@ -14,18 +14,25 @@
 package org.cfr.matcha.api.form;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Predicate;
 
 /**
  * Modifiable list of entries with many helper methods. Note that this class
  * uses the Parameter class as the template type. This allows you to use an
  * instance of this class as any other java.util.List, in particular all the
  * helper methods in java.util.Collections.
+ * <p>
+ * The lookups by name of a list of more than a few parameters use an index, built on the first lookup and kept up to
+ * date as parameters are appended: any other change of the list, or a parameter renamed with
+ * {@link Parameter#setName(String)}, rebuilds it on the next lookup. The insertion order is preserved.
+ * </p>
  * 
  * @param <E> The contained type
  * @see java.util.Collections
@@ -44,6 +51,17 @@ public abstract class Parameters<E extends Parameter> extends ArrayList<E> {
      */
     public static final Object EMPTY_VALUE = new Object();
 
+    /**
+     * The minimum size of a list whose lookups by name use an index, the smaller lists being scanned.
+     */
+    private static final int INDEX_THRESHOLD = 8;
+
+    /** The index of the names, <code>null</code> until the first lookup. */
+    private transient NameIndex<E> index;
+
+    /** The index of the names ignoring the case, <code>null</code> until the first lookup. */
+    private transient NameIndex<E> indexIgnoreCase;
+
     /**
      * Returns an unmodifiable view of the specified series. Attempts to call a
      * modification method will throw an UnsupportedOperationException.
@@ -92,6 +110,104 @@ public abstract class Parameters<E extends Parameter> extends ArrayList<E> {
         return add(createParameter(name, value));
     }
 
+    /**
+     * Appends a parameter, updating the indexes of the names.
+     * 
+     * @param param The parameter.
+     * @return True (as per the general contract of the Collection.add method).
+     */
+    @Override
+    public boolean add(final E param) {
+        boolean indexed = isCurrent(index);
+        boolean indexedIgnoreCase = isCurrent(indexIgnoreCase);
+        super.add(param);
+        if (indexed) {
+            index.add(param, modCount);
+        }
+        if (indexedIgnoreCase) {
+            indexIgnoreCase.add(param, modCount);
+        }
+        return true;
+    }
+
+    /**
+     * Replaces a parameter, the indexes of the names being rebuilt on the next lookup.
+     * 
+     * @param position The position of the parameter.
+     * @param param The new parameter.
+     * @return The replaced parameter.
+     */
+    @Override
+    public E set(final int position, final E param) {
+        index = null;
+        indexIgnoreCase = null;
+        return super.set(position, param);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Object clone() {
+        @SuppressWarnings("unchecked")
+        Parameters<E> clone = (Parameters<E>) super.clone();
+        clone.index = null;
+        clone.indexIgnoreCase = null;
+        return clone;
+    }
+
+    private boolean isCurrent(final NameIndex<E> nameIndex) {
+        return nameIndex != null && nameIndex.modCount == modCount
+                && nameIndex.renameCount == Parameter.getRenameCount();
+    }
+
+    /**
+     * Returns the parameters with a given name, in the order of the list.
+     * 
+     * @param name The parameter name.
+     * @param ignoreCase Indicates if the name comparison is case insensitive.
+     * @return The matching parameters, <code>null</code> if the list is too small to be indexed.
+     */
+    private Object lookup(final String name, final boolean ignoreCase) {
+        final int count = size();
+        if (count < INDEX_THRESHOLD) {
+            return null;
+        }
+        return lookup(name, ignoreCase, count);
+    }
+
+    /**
+     * Returns the parameters with a given name among the first parameters of the list, indexing them if needed.
+     * 
+     * @param name The parameter name.
+     * @param ignoreCase Indicates if the name comparison is case insensitive.
+     * @param count The number of parameters to index, the size of the list.
+     * @return The matching parameters.
+     */
+    private Object lookup(final String name, final boolean ignoreCase, final int count) {
+        NameIndex<E> nameIndex = ignoreCase ? indexIgnoreCase : index;
+        if (!isCurrent(nameIndex)) {
+            nameIndex = new NameIndex<E>(this, count, ignoreCase, modCount);
+            if (ignoreCase) {
+                indexIgnoreCase = nameIndex;
+            } else {
+                index = nameIndex;
+            }
+        }
+        return nameIndex.get(name);
+    }
+
+    /**
+     * Returns the first parameter of the result of {@link #lookup(String, boolean)}.
+     */
+    @SuppressWarnings("unchecked")
+    private E first(final Object matches) {
+        if (matches instanceof NameIndex.Matches) {
+            return ((NameIndex.Matches<E>) matches).get(0);
+        }
+        return (E) matches;
+    }
+
     /**
      * Copies the parameters whose name is a key in the given map.<br>
      * If a matching parameter is found, its value is put in the map.<br>
@@ -167,7 +283,7 @@ public abstract class Parameters<E extends Parameter> extends ArrayList<E> {
      *            Indicates if the test should be case insensitive.
      * @return True if both values are equal.
      */
-    private boolean equals(final String value1, final String value2, final boolean ignoreCase) {
+    boolean equals(final String value1, final String value2, final boolean ignoreCase) {
         boolean result = value1 == value2;
 
         if (!result) {
@@ -202,6 +318,9 @@ public abstract class Parameters<E extends Parameter> extends ArrayList<E> {
      * @return The first parameter found with the given name.
      */
     public E getFirst(final String name, final boolean ignoreCase) {
+        if (size() >= INDEX_THRESHOLD) {
+            return first(lookup(name, ignoreCase));
+        }
         for (final E param : this) {
             if (equals(param.getName(), name, ignoreCase)) {
                 return param;
@@ -211,6 +330,28 @@ public abstract class Parameters<E extends Parameter> extends ArrayList<E> {
         return null;
     }
 
+    /**
+     * Returns the first parameter found with the given name among the parameters held by the list, a list reading its
+     * parameters on demand not reading any further.
+     * 
+     * @param name The parameter name.
+     * @param ignoreCase Indicates if the name comparison is case insensitive.
+     * @return The first parameter held with the given name.
+     */
+    final E getFirstHeld(final String name, final boolean ignoreCase) {
+        final int count = super.size();
+        if (count >= INDEX_THRESHOLD) {
+            return first(lookup(name, ignoreCase, count));
+        }
+        for (int i = 0; i < count; i++) {
+            final E param = super.get(i);
+            if (equals(param.getName(), name, ignoreCase)) {
+                return param;
+            }
+        }
+        return null;
+    }
+
     /**
      * Returns the value of the first parameter found with the given name.
      * 
@@ -308,7 +449,7 @@ public abstract class Parameters<E extends Parameter> extends ArrayList<E> {
         String result = null;
         StringBuilder sb = null;
 
-        for (final E param : this) {
+        for (final E param : size() >= INDEX_THRESHOLD ? subList(name, ignoreCase) : this) {
             if (ignoreCase
                     && param.getName().equalsIgnoreCase(name) || param.getName().equals(name)) {
                 if (sb == null) {
@@ -403,18 +544,17 @@ public abstract class Parameters<E extends Parameter> extends ArrayList<E> {
      * @return True if the list changed.
      */
     public boolean removeAll(final String name, final boolean ignoreCase) {
-        boolean changed = false;
-        Parameter param = null;
-
-        for (final Iterator<E> iter = iterator(); iter.hasNext();) {
-            param = iter.next();
-            if (equals(param.getName(), name, ignoreCase)) {
-                iter.remove();
-                changed = true;
-            }
+        if (size() >= INDEX_THRESHOLD && lookup(name, ignoreCase) == null) {
+            return false;
         }
+        // a single pass, whatever the number of removed parameters
+        return removeIf(new Predicate<E>() {
 
-        return changed;
+            @Override
+            public boolean test(final E param) {
+                return Parameters.this.equals(param.getName(), name, ignoreCase);
+            }
+        });
     }
 
     /**
@@ -437,6 +577,18 @@ public abstract class Parameters<E extends Parameter> extends ArrayList<E> {
      * @return false if no entry has been removed, true otherwise.
      */
     public boolean removeFirst(final String name, final boolean ignoreCase) {
+        if (size() >= INDEX_THRESHOLD) {
+            final E first = first(lookup(name, ignoreCase));
+            if (first == null) {
+                return false;
+            }
+            for (int i = 0; i < size(); i++) {
+                if (get(i) == first) {
+                    remove(i);
+                    return true;
+                }
+            }
+        }
         boolean changed = false;
         Parameter param = null;
 
@@ -475,6 +627,26 @@ public abstract class Parameters<E extends Parameter> extends ArrayList<E> {
      * @return The parameter set or added.
      */
     public E set(final String name, final String value, final boolean ignoreCase) {
+        if (size() >= INDEX_THRESHOLD) {
+            final Object matches = lookup(name, ignoreCase);
+            if (matches == null) {
+                add(name, value);
+                return null;
+            }
+            final E result = first(matches);
+            result.setValue(value);
+            if (matches instanceof NameIndex.Matches) {
+                // Remove other entries with the same name
+                removeIf(new Predicate<E>() {
+
+                    @Override
+                    public boolean test(final E param) {
+                        return param != result && Parameters.this.equals(param.getName(), name, ignoreCase);
+                    }
+                });
+            }
+            return result;
+        }
         E result = null;
         E param = null;
         boolean found = false;
@@ -512,7 +684,7 @@ public abstract class Parameters<E extends Parameter> extends ArrayList<E> {
      */
     @Override
     public Parameters<E> subList(final int fromIndex, final int toIndex) {
-        return createSeries(subList(fromIndex, toIndex));
+        return createSeries(super.subList(fromIndex, toIndex));
     }
 
     /**
@@ -535,6 +707,17 @@ public abstract class Parameters<E extends Parameter> extends ArrayList<E> {
     public Parameters<E> subList(final String name, final boolean ignoreCase) {
         final Parameters<E> result = createSeries(null);
 
+        if (size() >= INDEX_THRESHOLD) {
+            Object matches = lookup(name, ignoreCase);
+            if (matches instanceof NameIndex.Matches) {
+                @SuppressWarnings("unchecked")
+                NameIndex.Matches<E> params = (NameIndex.Matches<E>) matches;
+                result.addAll(params);
+            } else if (matches != null) {
+                result.add(first(matches));
+            }
+            return result;
+        }
         for (final E param : this) {
             if (equals(param.getName(), name, ignoreCase)) {
                 result.add(param);
@@ -544,4 +727,89 @@ public abstract class Parameters<E extends Parameter> extends ArrayList<E> {
         return result;
     }
 
+    /**
+     * Index of the parameters of a list by name, in the order of the list.
+     * 
+     * @param <E> The contained type
+     */
+    private static final class NameIndex<E extends Parameter> {
+
+        /** The parameters sharing a name, a single parameter being kept as is. */
+        private final Map<String, Object> entries;
+
+        private final boolean ignoreCase;
+
+        /** The modification count of the list when the index was last updated. */
+        private int modCount;
+
+        /** The number of parameters renamed when the index was built, read before the names. */
+        private final int renameCount;
+
+        public NameIndex(final List<E> params, final int count, final boolean ignoreCase, final int modCount) {
+            this.renameCount = Parameter.getRenameCount();
+            this.entries = new HashMap<String, Object>(count * 4 / 3 + 1);
+            this.ignoreCase = ignoreCase;
+            for (int i = 0; i < count; i++) {
+                add(params.get(i), modCount);
+            }
+            this.modCount = modCount;
+        }
+
+        /**
+         * 
+         * @return The parameter, or the {@link Matches} of the name, <code>null</code> if none.
+         */
+        public Object get(final String name) {
+            return entries.get(key(name));
+        }
+
+        @SuppressWarnings("unchecked")
+        public void add(final E param, final int modCount) {
+            String key = key(param.getName());
+            Object previous = entries.put(key, param);
+            if (previous instanceof Matches) {
+                ((Matches<E>) previous).add(param);
+                entries.put(key, previous);
+            } else if (previous != null) {
+                Matches<E> matches = new Matches<E>();
+                matches.add((E) previous);
+                matches.add(param);
+                entries.put(key, matches);
+            }
+            this.modCount = modCount;
+        }
+
+        /**
+         * Folds the case the way {@link String#equalsIgnoreCase(String)} compares the characters.
+         */
+        private String key(final String name) {
+            if (!ignoreCase || name == null) {
+                return name;
+            }
+            StringBuilder key = null;
+            for (int i = 0; i < name.length(); i++) {
+                char c = name.charAt(i);
+                char folded = Character.toLowerCase(Character.toUpperCase(c));
+                if (key == null && folded != c) {
+                    key = new StringBuilder(name.length()).append(name, 0, i);
+                }
+                if (key != null) {
+                    key.append(folded);
+                }
+            }
+            return key == null ? name : key.toString();
+        }
+
+        /**
+         * The parameters sharing a name.
+         */
+        private static final class Matches<E> extends ArrayList<E> {
+
+            private static final long serialVersionUID = 1L;
+
+            public Matches() {
+                super(2);
+            }
+        }
+    }
 }
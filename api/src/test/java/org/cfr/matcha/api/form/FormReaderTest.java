@@ -0,0 +1,220 @@
+package org.cfr.matcha.api.form;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+
+import org.junit.Test;
+
+public class FormReaderTest {
+
+    private static FormReader reader(String form, String characterSet) throws Exception {
+        byte[] data = form.getBytes(characterSet);
+        return new FormReader(data, 0, data.length, characterSet, '&');
+    }
+
+    private static String value(FormReader reader, String name) throws IOException {
+        Parameter param = reader.readNextParameter();
+        assertEquals(name, param.getName());
+        return param.getValue();
+    }
+
+    private static void assertIllegalEscape(FormReader reader) throws IOException {
+        try {
+            reader.readNextParameter();
+            fail("illegal escape");
+        } catch (IllegalArgumentException ex) {
+            assertTrue(ex.getMessage(), ex.getMessage().startsWith("URLDecoder: "));
+        }
+    }
+
+    @Test
+    public void readRawMultiByteTest() throws Exception {
+        FormReader reader = reader("name=\u00e9t\u00e9&city=\u6771\u4eac&emoji=\ud83d\ude00", "UTF-8");
+        assertEquals("\u00e9t\u00e9", value(reader, "name"));
+        assertEquals("\u6771\u4eac", value(reader, "city"));
+        assertEquals("\ud83d\ude00", value(reader, "emoji"));
+        assertNull(reader.readNextParameter());
+
+        reader = new FormReader("name=\u00e9t\u00e9&city=\u6771\u4eac", "UTF-8", '&');
+        assertEquals("\u00e9t\u00e9", value(reader, "name"));
+        assertEquals("\u6771\u4eac", value(reader, "city"));
+        assertNull(reader.readNextParameter());
+    }
+
+    @Test
+    public void readEscapedMultiByteTest() throws Exception {
+        String form = "name=%C3%A9t%C3%A9&city=%E6%9D%B1%E4%BA%AC&emoji=%F0%9F%98%80&mixed=caf\u00e9+cr%C3%A8me";
+        FormReader reader = reader(form, "UTF-8");
+        assertEquals("\u00e9t\u00e9", value(reader, "name"));
+        assertEquals("\u6771\u4eac", value(reader, "city"));
+        assertEquals("\ud83d\ude00", value(reader, "emoji"));
+        assertEquals("caf\u00e9 cr\u00e8me", value(reader, "mixed"));
+        assertNull(reader.readNextParameter());
+
+        reader = new FormReader(form, "UTF-8", '&');
+        assertEquals("\u00e9t\u00e9", value(reader, "name"));
+        assertEquals("\u6771\u4eac", value(reader, "city"));
+        assertEquals("\ud83d\ude00", value(reader, "emoji"));
+        assertEquals("caf\u00e9 cr\u00e8me", value(reader, "mixed"));
+        assertNull(reader.readNextParameter());
+    }
+
+    @Test
+    public void readEscapedNameTest() throws Exception {
+        FormReader reader = reader("first+name=a&%C3%A9t%C3%A9=b&a%3Db=c", "UTF-8");
+        assertEquals("a", value(reader, "first name"));
+        assertEquals("b", value(reader, "\u00e9t\u00e9"));
+        assertEquals("c", value(reader, "a=b"));
+        assertNull(reader.readNextParameter());
+    }
+
+    @Test
+    public void readPlusTest() throws Exception {
+        FormReader reader = reader("q=a+b&plus=%2B&spaces=+++&both=1+%2B+1", "UTF-8");
+        assertEquals("a b", value(reader, "q"));
+        assertEquals("+", value(reader, "plus"));
+        assertEquals("   ", value(reader, "spaces"));
+        assertEquals("1 + 1", value(reader, "both"));
+        assertNull(reader.readNextParameter());
+    }
+
+    @Test
+    public void readWithoutDecodingTest() throws Exception {
+        FormReader reader = new FormReader("q=a+b%2B&name=%C3%A9", '&');
+        assertEquals("a+b%2B", value(reader, "q"));
+        assertEquals("%C3%A9", value(reader, "name"));
+        assertNull(reader.readNextParameter());
+    }
+
+    @Test
+    public void readTruncatedEscapeTest() throws Exception {
+        assertIllegalEscape(reader("a=%", "UTF-8"));
+        assertIllegalEscape(reader("a=%4", "UTF-8"));
+        assertIllegalEscape(reader("a=%4&b=1", "UTF-8"));
+        assertIllegalEscape(reader("a=caf%C3%A", "UTF-8"));
+        assertIllegalEscape(new FormReader("a=%4", "UTF-8", '&'));
+
+        // the escape is truncated by the end of the form, not by the end of the data
+        byte[] data = "a=%41&b=1".getBytes("UTF-8");
+        assertIllegalEscape(new FormReader(data, 0, 4, "UTF-8", '&'));
+        FormReader reader = new FormReader(data, 0, 5, "UTF-8", '&');
+        assertEquals("A", value(reader, "a"));
+        assertNull(reader.readNextParameter());
+    }
+
+    @Test
+    public void readInvalidEscapeTest() throws Exception {
+        assertIllegalEscape(reader("a=%zz", "UTF-8"));
+        assertIllegalEscape(reader("a=%4g", "UTF-8"));
+        assertIllegalEscape(reader("a=%-1", "UTF-8"));
+        assertIllegalEscape(reader("%zz=a", "UTF-8"));
+        assertIllegalEscape(new FormReader("a=%g4", "UTF-8", '&'));
+
+        // the parameters read before are kept
+        FormReader reader = reader("a=1&b=%zz&c=3", "UTF-8");
+        assertEquals("1", value(reader, "a"));
+        assertIllegalEscape(reader);
+        assertEquals("3", value(reader, "c"));
+    }
+
+    @Test
+    public void readEmptyNamesAndValuesTest() throws Exception {
+        FormReader reader = reader("a=&b&c=1", "UTF-8");
+        assertNull(value(reader, "a"));
+        assertNull(value(reader, "b"));
+        assertEquals("1", value(reader, "c"));
+        assertNull(reader.readNextParameter());
+
+        // the empty parameters are skipped
+        reader = reader("&a&&b=2&", "UTF-8");
+        assertNull(value(reader, "a"));
+        assertEquals("2", value(reader, "b"));
+        assertNull(reader.readNextParameter());
+
+        reader = reader("a=1&=2&c=3", "UTF-8");
+        assertEquals("1", value(reader, "a"));
+        try {
+            reader.readNextParameter();
+            fail("empty name");
+        } catch (IOException ex) {
+            assertTrue(ex.getMessage(), ex.getMessage().startsWith("Empty parameter name"));
+        }
+
+        assertNull(reader("", "UTF-8").readNextParameter());
+        assertNull(reader("&&", "UTF-8").readNextParameter());
+    }
+
+    @Test
+    public void readEmptyNameAddParametersTest() throws Exception {
+        // the parameters following an empty name are skipped
+        Form form = new Form();
+        reader("a=1&=2&c=3", "UTF-8").addParameters(form);
+        assertEquals(1, form.size());
+        assertEquals("1", form.getFirstValue("a"));
+    }
+
+    @Test
+    public void readOffsetAndLengthTest() throws Exception {
+        byte[] data = "a=0&b=%C3%A9t%C3%A9&c=2&d=3".getBytes("UTF-8");
+        FormReader reader = new FormReader(data, 4, 19, "UTF-8", '&');
+        assertEquals("\u00e9t\u00e9", value(reader, "b"));
+        assertEquals("2", value(reader, "c"));
+        assertNull(reader.readNextParameter());
+
+        // a value ending with the form
+        reader = new FormReader(data, 20, 3, "UTF-8", '&');
+        assertEquals("2", value(reader, "c"));
+        assertNull(reader.readNextParameter());
+
+        assertNull(new FormReader(data, 4, 0, "UTF-8", '&').readNextParameter());
+        assertNull(new FormReader(data, data.length, 0, "UTF-8", '&').readNextParameter());
+    }
+
+    @Test
+    public void readOffsetAndLengthOutOfBoundsTest() throws Exception {
+        byte[] data = "a=1".getBytes("UTF-8");
+        int[][] bounds = { { -1, 1 }, { 0, -1 }, { 0, 4 }, { 2, 2 }, { 4, 0 } };
+        for (int[] bound : bounds) {
+            try {
+                new FormReader(data, bound[0], bound[1], "UTF-8", '&');
+                fail("offset " + bound[0] + ", length " + bound[1]);
+            } catch (IndexOutOfBoundsException ex) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void readCharacterSetTest() throws Exception {
+        // the unescaped characters and the escapes are both encoded with the character set of the bytes
+        FormReader reader = reader("name=%E9t%E9+caf\u00e9", "ISO-8859-1");
+        assertEquals("\u00e9t\u00e9 caf\u00e9", value(reader, "name"));
+        assertNull(reader.readNextParameter());
+    }
+
+    @Test
+    public void readStringCharacterSetTest() throws Exception {
+        // the characters of a string are not encoded in the character set of its escapes
+        FormReader reader = new FormReader("name=%E9t%E9+caf\u00e9&city=\u6771\u4eac+%E9", "ISO-8859-1", '&');
+        assertEquals("\u00e9t\u00e9 caf\u00e9", value(reader, "name"));
+        assertEquals("\u6771\u4eac \u00e9", value(reader, "city"));
+        assertNull(reader.readNextParameter());
+
+        reader = new FormReader("a=%E9%", "ISO-8859-1", '&');
+        assertIllegalEscape(reader);
+    }
+
+    @Test
+    public void readUnsupportedCharacterSetTest() throws Exception {
+        try {
+            new FormReader("a=1", "unknown", '&').readNextParameter();
+            fail("unsupported encoding");
+        } catch (IOException ex) {
+            assertTrue(ex.getMessage(), ex.getMessage().startsWith("Unsupported encoding"));
+        }
+    }
+}
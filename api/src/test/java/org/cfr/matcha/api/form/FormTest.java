@@ -0,0 +1,518 @@
+package org.cfr.matcha.api.form;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+import org.junit.Test;
+
+public class FormTest {
+
+    private static final String FORM = "a=1&b=%C3%A9t%C3%A9&c=x+y&a=2&d&e=5";
+
+    /**
+     * An operation applied to a form parsed on demand and to the same form parsed eagerly.
+     */
+    private abstract static class Operation {
+
+        private final String name;
+
+        public Operation(String name) {
+            this.name = name;
+        }
+
+        /**
+         * @return the result of the operation, compared between both forms.
+         */
+        public abstract Object apply(Form form);
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    private static Form lazy(String form) throws Exception {
+        byte[] data = ("--" + form + "--").getBytes("UTF-8");
+        return new Form(data, 2, data.length - 4, "UTF-8");
+    }
+
+    private static Form eager(String form) {
+        return new Form(form);
+    }
+
+    private static List<Parameter> list(Form form) {
+        List<Parameter> list = new ArrayList<Parameter>();
+        for (int i = 0; i < form.size(); i++) {
+            list.add(form.get(i));
+        }
+        return list;
+    }
+
+    private static List<Object> list(Iterator<?> iterator) {
+        List<Object> list = new ArrayList<Object>();
+        while (iterator.hasNext()) {
+            list.add(iterator.next());
+        }
+        return list;
+    }
+
+    /**
+     * Applies an operation to a form untouched, partly parsed, and fully parsed, and checks it behaves as on the
+     * form parsed eagerly.
+     */
+    private static void assertSameAsEager(Operation operation) throws Exception {
+        String[] reads = { null, "a", "b", "e", "missing" };
+        for (String read : reads) {
+            String message = operation + (read == null ? "" : " after reading " + read);
+            Form lazy = lazy(FORM);
+            Form eager = eager(FORM);
+            if (read != null) {
+                assertEquals(message, eager.getFirst(read), lazy.getFirst(read));
+            }
+            Object expected = operation.apply(eager);
+            Object actual = operation.apply(lazy);
+            if (expected instanceof Object[]) {
+                expected = Arrays.asList((Object[]) expected);
+                actual = Arrays.asList((Object[]) actual);
+            } else if (expected instanceof Iterator) {
+                expected = list((Iterator<?>) expected);
+                actual = list((Iterator<?>) actual);
+            }
+            assertEquals(message, expected, actual);
+            assertEquals(message, list(eager), list(lazy));
+            assertEquals(message, eager.getQueryString(), lazy.getQueryString());
+        }
+    }
+
+    @Test
+    public void readTest() throws Exception {
+        Form form = lazy(FORM);
+        assertEquals("1", form.getFirstValue("a"));
+        assertEquals("\u00e9t\u00e9", form.getFirstValue("b"));
+        assertEquals("x y", form.getFirstValue("c"));
+        assertNull(form.getFirst("d").getValue());
+        assertEquals("5", form.getFirstValue("E", true));
+        assertNull(form.getFirst("missing"));
+        assertEquals(6, form.size());
+        assertEquals(eager(FORM), form);
+        assertEquals(eager(FORM).hashCode(), form.hashCode());
+    }
+
+    @Test
+    public void readOnDemandTest() throws Exception {
+        byte[] data = "a=1&b=2&c=3".getBytes("UTF-8");
+        Form form = new Form(data, 0, data.length, "UTF-8");
+        assertEquals("1", form.getFirstValue("a"));
+        assertEquals("1", form.get(0).getValue());
+
+        // the parameters following the one found are not read yet
+        data[4] = 'B';
+        assertNull(form.getFirst("b"));
+        Parameter c = form.getFirst("c");
+        assertEquals(3, form.size());
+        assertEquals("2", form.getFirstValue("B"));
+
+        // nor the value of a parameter until it is read
+        data[10] = '4';
+        assertEquals("4", c.getValue());
+        data[10] = '5';
+        assertEquals("4", c.getValue());
+    }
+
+    @Test
+    public void getFirstIndexedTest() throws Exception {
+        StringBuilder query = new StringBuilder("dup=first");
+        for (int i = 0; i < 20; i++) {
+            query.append("&p").append(i).append('=').append(i);
+        }
+        query.append("&dup=last&P3=upper");
+        Form form = lazy(query.toString());
+        Form eager = eager(query.toString());
+
+        // found among the parameters read, above the threshold of the index, or read further
+        String[] names = { "p15", "p3", "P3", "dup", "p0", "p19", "DUP", "P3", "missing", "p3" };
+        for (String name : names) {
+            for (boolean ignoreCase : new boolean[] { false, true }) {
+                assertEquals(name, eager.getFirst(name, ignoreCase), form.getFirst(name, ignoreCase));
+            }
+        }
+        assertEquals("upper", form.getFirstValue("P3"));
+        assertEquals("3", form.getFirstValue("P3", true));
+        assertEquals(eager, form);
+    }
+
+    @Test
+    public void malformedEscapeTest() throws Exception {
+        // the parameters preceding the malformed one are kept, as when the form is not parsed on demand
+        Form form = lazy("a=1&b=%zz&c=3");
+        assertEquals("1", form.getFirstValue("a"));
+        assertNull(form.getFirst("b"));
+        assertNull(form.getFirst("c"));
+        assertEquals(1, form.size());
+
+        String[] malformed = { "a=%", "a=%4", "a=%4g&b=1", "a=%%41", "%zz=1", "a=caf%C3%A" };
+        for (String query : malformed) {
+            form = lazy("x=0&" + query);
+            assertEquals(query, 1, form.size());
+            assertEquals(query, "0", form.get(0).getValue());
+            assertEquals(query, eager("x=0"), form);
+            assertEquals(query, eager("x=0").hashCode(), form.hashCode());
+        }
+
+        // an escape at the end of a value
+        form = lazy("a=%41&b=%4");
+        assertEquals("A", form.getFirstValue("a"));
+        assertEquals(1, form.size());
+    }
+
+    @Test
+    public void emptyNameTest() throws Exception {
+        Form form = lazy("a=1&=2&c=3");
+        assertEquals("1", form.getFirstValue("a"));
+        assertNull(form.getFirst("c"));
+        assertEquals(1, form.size());
+    }
+
+    @Test
+    public void isEmptyTest() throws Exception {
+        assertTrue(lazy("").isEmpty());
+        assertTrue(lazy("&&").isEmpty());
+        assertTrue(lazy("=1").isEmpty());
+        Form form = lazy("a=1&b=2");
+        assertFalse(form.isEmpty());
+        assertEquals(2, form.size());
+    }
+
+    @Test
+    public void queryOperationsTest() throws Exception {
+        final Parameter b = new Parameter("b", "\u00e9t\u00e9");
+        assertSameAsEager(new Operation("get") {
+
+            @Override
+            public Object apply(Form form) {
+                return Arrays.asList(form.get(2), form.get(0), form.get(5));
+            }
+        });
+        assertSameAsEager(new Operation("size") {
+
+            @Override
+            public Object apply(Form form) {
+                return form.size();
+            }
+        });
+        assertSameAsEager(new Operation("isEmpty") {
+
+            @Override
+            public Object apply(Form form) {
+                return form.isEmpty();
+            }
+        });
+        assertSameAsEager(new Operation("contains") {
+
+            @Override
+            public Object apply(Form form) {
+                return Arrays.asList(form.contains(b), form.contains(new Parameter("e", "5")),
+                        form.contains(new Parameter("e", "6")));
+            }
+        });
+        assertSameAsEager(new Operation("indexOf") {
+
+            @Override
+            public Object apply(Form form) {
+                return Arrays.asList(form.indexOf(new Parameter("a", "2")), form.indexOf(new Parameter("d", null)),
+                        form.indexOf(new Parameter("f", null)));
+            }
+        });
+        assertSameAsEager(new Operation("lastIndexOf") {
+
+            @Override
+            public Object apply(Form form) {
+                return Arrays.asList(form.lastIndexOf(b), form.lastIndexOf(new Parameter("e", "5")));
+            }
+        });
+        assertSameAsEager(new Operation("toArray") {
+
+            @Override
+            public Object apply(Form form) {
+                return form.toArray();
+            }
+        });
+        assertSameAsEager(new Operation("toArray(T[])") {
+
+            @Override
+            public Object apply(Form form) {
+                return form.toArray(new Parameter[0]);
+            }
+        });
+        assertSameAsEager(new Operation("iterator") {
+
+            @Override
+            public Object apply(Form form) {
+                return form.iterator();
+            }
+        });
+        assertSameAsEager(new Operation("listIterator") {
+
+            @Override
+            public Object apply(Form form) {
+                return form.listIterator();
+            }
+        });
+        assertSameAsEager(new Operation("listIterator(int)") {
+
+            @Override
+            public Object apply(Form form) {
+                return form.listIterator(3);
+            }
+        });
+        assertSameAsEager(new Operation("subList") {
+
+            @Override
+            public Object apply(Form form) {
+                return list((Form) form.subList(2, 5));
+            }
+        });
+        assertSameAsEager(new Operation("forEach") {
+
+            @Override
+            public Object apply(Form form) {
+                final List<Parameter> params = new ArrayList<Parameter>();
+                form.forEach(new Consumer<Parameter>() {
+
+                    @Override
+                    public void accept(Parameter param) {
+                        params.add(param);
+                    }
+                });
+                return params;
+            }
+        });
+        assertSameAsEager(new Operation("spliterator") {
+
+            @Override
+            public Object apply(Form form) {
+                Spliterator<Parameter> spliterator = form.spliterator();
+                final List<Parameter> params = new ArrayList<Parameter>();
+                spliterator.forEachRemaining(new Consumer<Parameter>() {
+
+                    @Override
+                    public void accept(Parameter param) {
+                        params.add(param);
+                    }
+                });
+                return params;
+            }
+        });
+        assertSameAsEager(new Operation("equals") {
+
+            @Override
+            public Object apply(Form form) {
+                return Arrays.asList(form.equals(eager(FORM)), form.equals(eager("a=1")));
+            }
+        });
+        assertSameAsEager(new Operation("hashCode") {
+
+            @Override
+            public Object apply(Form form) {
+                return form.hashCode();
+            }
+        });
+        assertSameAsEager(new Operation("clone") {
+
+            @Override
+            public Object apply(Form form) {
+                Form clone = (Form) form.clone();
+                assertNotSame(form, clone);
+                return list(clone);
+            }
+        });
+        assertSameAsEager(new Operation("getValuesMap") {
+
+            @Override
+            public Object apply(Form form) {
+                return form.getValuesMap();
+            }
+        });
+        assertSameAsEager(new Operation("getValues") {
+
+            @Override
+            public Object apply(Form form) {
+                return Arrays.asList(form.getValues("A"), Arrays.asList(form.getValuesArray("a")));
+            }
+        });
+    }
+
+    @Test
+    public void changeOperationsTest() throws Exception {
+        final Parameter added = new Parameter("f", "6");
+        assertSameAsEager(new Operation("set") {
+
+            @Override
+            public Object apply(Form form) {
+                return form.set(4, added);
+            }
+        });
+        assertSameAsEager(new Operation("add") {
+
+            @Override
+            public Object apply(Form form) {
+                return form.add(added);
+            }
+        });
+        assertSameAsEager(new Operation("add(int, E)") {
+
+            @Override
+            public Object apply(Form form) {
+                form.add(1, added);
+                return form.getFirst("f");
+            }
+        });
+        assertSameAsEager(new Operation("remove(int)") {
+
+            @Override
+            public Object apply(Form form) {
+                return form.remove(3);
+            }
+        });
+        assertSameAsEager(new Operation("remove(Object)") {
+
+            @Override
+            public Object apply(Form form) {
+                return Arrays.asList(form.remove(new Parameter("e", "5")), form.remove(added));
+            }
+        });
+        assertSameAsEager(new Operation("clear") {
+
+            @Override
+            public Object apply(Form form) {
+                form.clear();
+                return form.isEmpty();
+            }
+        });
+        assertSameAsEager(new Operation("addAll") {
+
+            @Override
+            public Object apply(Form form) {
+                return form.addAll(Arrays.asList(added, added));
+            }
+        });
+        assertSameAsEager(new Operation("addAll(int, Collection)") {
+
+            @Override
+            public Object apply(Form form) {
+                return form.addAll(2, Arrays.asList(added));
+            }
+        });
+        assertSameAsEager(new Operation("removeAll") {
+
+            @Override
+            public Object apply(Form form) {
+                return form.removeAll(Arrays.asList(new Parameter("a", "1"), new Parameter("e", "5")));
+            }
+        });
+        assertSameAsEager(new Operation("retainAll") {
+
+            @Override
+            public Object apply(Form form) {
+                return form.retainAll(Arrays.asList(new Parameter("a", "2"), new Parameter("d", null)));
+            }
+        });
+        assertSameAsEager(new Operation("removeIf") {
+
+            @Override
+            public Object apply(Form form) {
+                return form.removeIf(new Predicate<Parameter>() {
+
+                    @Override
+                    public boolean test(Parameter param) {
+                        return param.getName().equals("a");
+                    }
+                });
+            }
+        });
+        assertSameAsEager(new Operation("replaceAll") {
+
+            @Override
+            public Object apply(Form form) {
+                form.replaceAll(new UnaryOperator<Parameter>() {
+
+                    @Override
+                    public Parameter apply(Parameter param) {
+                        return new Parameter(param.getName().toUpperCase(), param.getValue());
+                    }
+                });
+                return form.getFirst("A");
+            }
+        });
+        assertSameAsEager(new Operation("sort") {
+
+            @Override
+            public Object apply(Form form) {
+                form.sort(Collections.reverseOrder(new Comparator<Parameter>() {
+
+                    @Override
+                    public int compare(Parameter param1, Parameter param2) {
+                        return param1.getName().compareTo(param2.getName());
+                    }
+                }));
+                return form.get(0);
+            }
+        });
+        assertSameAsEager(new Operation("listIterator.add") {
+
+            @Override
+            public Object apply(Form form) {
+                ListIterator<Parameter> iterator = form.listIterator(2);
+                iterator.add(added);
+                iterator.next();
+                iterator.remove();
+                return iterator.nextIndex();
+            }
+        });
+        assertSameAsEager(new Operation("set(String, String)") {
+
+            @Override
+            public Object apply(Form form) {
+                return form.set("a", "3");
+            }
+        });
+        assertSameAsEager(new Operation("removeAll(String)") {
+
+            @Override
+            public Object apply(Form form) {
+                return form.removeAll("A", true);
+            }
+        });
+        assertSameAsEager(new Operation("removeFirst") {
+
+            @Override
+            public Object apply(Form form) {
+                return form.removeFirst("a");
+            }
+        });
+    }
+
+    @Test
+    public void setValueTest() throws Exception {
+        Form form = lazy(FORM);
+        Parameter b = form.getFirst("b");
+        b.setValue("changed");
+        assertEquals("changed", b.getValue());
+        assertEquals("changed", form.getFirstValue("b"));
+    }
+}
@@ -0,0 +1,338 @@
+package org.cfr.matcha.api.form;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Iterator;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class ParametersTest {
+
+    /** Sizes below and above the threshold of the index. */
+    private static final int[] SIZES = { 4, 7, 8, 20 };
+
+    /**
+     * @return a form of the given size, its parameters <code>p0</code>, <code>p1</code>... valued with their position
+     *         and the parameter <code>Dup</code> duplicated at its start and end.
+     */
+    private static Form form(int size) {
+        Form form = new Form();
+        form.add("Dup", "first");
+        for (int i = 1; i < size - 1; i++) {
+            form.add("p" + i, String.valueOf(i));
+        }
+        form.add("dup", "last");
+        return form;
+    }
+
+    /**
+     * @return the first parameter with the given name, scanning the form.
+     */
+    private static Parameter scan(Form form, String name, boolean ignoreCase) {
+        for (Iterator<Parameter> iter = form.iterator(); iter.hasNext();) {
+            Parameter param = iter.next();
+            if (ignoreCase ? param.getName().equalsIgnoreCase(name) : param.getName().equals(name)) {
+                return param;
+            }
+        }
+        return null;
+    }
+
+    private static void assertLookups(Form form, String... names) {
+        for (String name : names) {
+            for (boolean ignoreCase : new boolean[] { false, true }) {
+                String message = name + (ignoreCase ? " ignoring case in " : " in ") + form;
+                Parameter expected = scan(form, name, ignoreCase);
+                assertSame(message, expected, form.getFirst(name, ignoreCase));
+                int count = 0;
+                for (Parameter param : form) {
+                    if (ignoreCase ? param.getName().equalsIgnoreCase(name) : param.getName().equals(name)) {
+                        assertSame(message, param, form.subList(name, ignoreCase).get(count++));
+                    }
+                }
+                assertEquals(message, count, form.subList(name, ignoreCase).size());
+            }
+        }
+    }
+
+    @Test
+    public void getFirstTest() {
+        for (int size : SIZES) {
+            Form form = form(size);
+            assertEquals("1", form.getFirstValue("p1"));
+            assertEquals(String.valueOf(size - 2), form.getFirstValue("p" + (size - 2)));
+            assertNull(form.getFirst("p" + (size - 1)));
+            assertNull(form.getFirst("P1"));
+            assertEquals("1", form.getFirstValue("P1", true));
+
+            assertEquals("first", form.getFirstValue("Dup"));
+            assertEquals("last", form.getFirstValue("dup"));
+            assertNull(form.getFirst("DUP"));
+            assertEquals("first", form.getFirstValue("DUP", true));
+            assertEquals("first", form.getFirstValue("dup", true));
+            assertArrayEquals(new String[] { "first", "last" }, form.getValuesArray("dUp", true));
+            assertEquals("first,last", form.getValues("DUP"));
+            assertLookups(form, "Dup", "dup", "p1", "missing");
+        }
+    }
+
+    @Test
+    public void getFirstIgnoreCaseFoldingTest() {
+        for (int size : SIZES) {
+            Form form = form(size);
+            form.add("stra\u00dfe", "1");
+            form.add("\u0131d", "2");
+            form.add("\u03a3", "3");
+            // the names equal ignoring the case per String#equalsIgnoreCase
+            assertEquals("1", form.getFirstValue("STRA\u00dfE", true));
+            assertEquals("2", form.getFirstValue("ID", true));
+            assertEquals("2", form.getFirstValue("id", true));
+            assertEquals("3", form.getFirstValue("\u03c2", true));
+            assertEquals("3", form.getFirstValue("\u03c3", true));
+            assertNull(form.getFirst("STRASSE", true));
+            assertLookups(form, "STRA\u00dfE", "STRASSE", "ID", "\u0131D", "\u03c2", "\u03a3");
+        }
+    }
+
+    @Test
+    public void addTest() {
+        for (int size : SIZES) {
+            Form form = form(size);
+            assertNull(form.getFirst("added"));
+            assertNull(form.getFirst("ADDED", true));
+            form.add("added", "1");
+            form.add("Added", "2");
+            form.add(new Parameter("p1", "again"));
+            assertEquals("1", form.getFirstValue("added"));
+            assertEquals("2", form.getFirstValue("Added"));
+            assertEquals("1", form.getFirstValue("ADDED", true));
+            assertEquals("1", form.getFirstValue("p1"));
+            assertArrayEquals(new String[] { "1", "again" }, form.getValuesArray("p1"));
+            assertLookups(form, "added", "Added", "p1", "Dup");
+
+            // inserted before the other parameters
+            form.add(0, new Parameter("p1", "inserted"));
+            assertEquals("inserted", form.getFirstValue("p1"));
+            assertEquals("inserted", form.getFirstValue("P1", true));
+            assertLookups(form, "p1", "added", "Dup");
+        }
+    }
+
+    @Test
+    public void setTest() {
+        for (int size : SIZES) {
+            Form form = form(size);
+            assertEquals("first", form.getFirstValue("Dup"));
+            assertEquals("first", form.getFirstValue("dup", true));
+            form.set(0, new Parameter("replaced", "0"));
+            assertNull(form.getFirst("Dup"));
+            assertEquals("last", form.getFirstValue("dup"));
+            assertEquals("last", form.getFirstValue("DUP", true));
+            assertEquals("0", form.getFirstValue("replaced"));
+            assertEquals("0", form.getFirstValue("REPLACED", true));
+            assertLookups(form, "replaced", "Dup", "dup", "p1");
+        }
+    }
+
+    @Test
+    public void renameTest() {
+        for (int size : SIZES) {
+            Form form = form(size);
+            Parameter param = form.getFirst("p1");
+            assertEquals("first", form.getFirstValue("DUP", true));
+            param.setName("renamed");
+            assertSame(param, form.getFirst("renamed"));
+            assertSame(param, form.getFirst("RENAMED", true));
+            assertNull(form.getFirst("p1"));
+            assertNull(form.getFirst("P1", true));
+            form.getFirst("Dup").setName("first");
+            assertEquals("last", form.getFirstValue("DUP", true));
+            assertLookups(form, "renamed", "p1", "first", "Dup", "dup");
+        }
+    }
+
+    @Test
+    public void setValueTest() {
+        for (int size : SIZES) {
+            Form form = form(size);
+            assertEquals("first", form.getFirstValue("dup", true));
+            form.set("DUP", "set", true);
+            assertEquals(size - 1, form.size());
+            assertEquals("set", form.getFirstValue("Dup"));
+            assertNull(form.getFirst("dup"));
+            assertArrayEquals(new String[] { "set" }, form.getValuesArray("dup", true));
+
+            assertNull(form.set("new", "1"));
+            assertEquals("1", form.getFirstValue("new"));
+            assertEquals("2", form.set("new", "2").getValue());
+            assertEquals(size, form.size());
+            assertLookups(form, "Dup", "dup", "new", "p1");
+        }
+    }
+
+    @Test
+    public void removeTest() {
+        for (int size : SIZES) {
+            Form form = form(size);
+            assertEquals("first", form.getFirstValue("dup", true));
+            form.remove(0);
+            assertNull(form.getFirst("Dup"));
+            assertEquals("last", form.getFirstValue("dup", true));
+            assertLookups(form, "Dup", "dup", "p1");
+
+            Parameter p1 = form.getFirst("p1");
+            assertTrue(form.remove(p1));
+            assertNull(form.getFirst("p1"));
+            assertNull(form.getFirst("P1", true));
+            assertLookups(form, "p1", "p2");
+
+            for (Iterator<Parameter> iter = form.iterator(); iter.hasNext();) {
+                if (iter.next().getName().equals("dup")) {
+                    iter.remove();
+                }
+            }
+            assertNull(form.getFirst("dup", true));
+            assertLookups(form, "dup", "p2");
+        }
+    }
+
+    @Test
+    public void removeFirstTest() {
+        for (int size : SIZES) {
+            Form form = form(size);
+            assertFalse(form.removeFirst("DUP"));
+            assertTrue(form.removeFirst("DUP", true));
+            assertEquals(size - 1, form.size());
+            assertNull(form.getFirst("Dup"));
+            assertEquals("last", form.getFirstValue("DUP", true));
+            assertTrue(form.removeFirst("dup"));
+            assertNull(form.getFirst("dup", true));
+            assertFalse(form.removeFirst("dup", true));
+            assertEquals(size - 2, form.size());
+            assertLookups(form, "Dup", "dup", "p1");
+        }
+    }
+
+    @Test
+    public void removeAllTest() {
+        for (int size : SIZES) {
+            Form form = form(size);
+            assertFalse(form.removeAll("missing"));
+            assertFalse(form.removeAll("DUP"));
+            assertEquals(size, form.size());
+            assertTrue(form.removeAll("DUP", true));
+            assertEquals(size - 2, form.size());
+            assertNull(form.getFirst("Dup"));
+            assertNull(form.getFirst("dup", true));
+            assertEquals("1", form.getFirstValue("p1"));
+            assertLookups(form, "Dup", "dup", "p1");
+
+            form.add("dup", "added");
+            assertEquals("added", form.getFirstValue("DUP", true));
+            assertTrue(form.removeAll("dup"));
+            assertNull(form.getFirst("dup", true));
+            assertLookups(form, "dup");
+        }
+    }
+
+    @Test
+    public void subListTest() {
+        for (int size : SIZES) {
+            Form form = form(size);
+            assertEquals("first", form.getFirstValue("Dup"));
+
+            Parameters<Parameter> head = form.subList(1, size);
+            assertEquals(size - 1, head.size());
+            assertNull(head.getFirst("Dup"));
+            assertEquals("last", head.getFirstValue("DUP", true));
+            assertEquals("1", head.getFirstValue("p1"));
+
+            Parameters<Parameter> dups = form.subList("DUP", true);
+            assertEquals(2, dups.size());
+            assertEquals("first", dups.getFirstValue("Dup"));
+            assertEquals("last", dups.getFirstValue("dup"));
+            dups.add("dup", "added");
+            assertEquals("first", dups.getFirstValue("DUP", true));
+            assertEquals("last", dups.getFirstValue("dup"));
+
+            // the sub-lists are copies
+            head.add("added", "1");
+            dups.removeAll("Dup");
+            assertNull(form.getFirst("added"));
+            assertEquals("first", form.getFirstValue("Dup"));
+            assertEquals(size, form.size());
+        }
+    }
+
+    @Test
+    public void cloneTest() {
+        for (int size : SIZES) {
+            Form form = form(size);
+            assertEquals("first", form.getFirstValue("Dup"));
+            assertEquals("first", form.getFirstValue("dup", true));
+
+            Form clone = (Form) form.clone();
+            assertEquals("first", clone.getFirstValue("Dup"));
+            assertEquals("first", clone.getFirstValue("DUP", true));
+
+            // the clone and the form are indexed apart
+            clone.add("added", "1");
+            clone.removeAll("Dup");
+            form.add("other", "2");
+            assertEquals("1", clone.getFirstValue("added"));
+            assertEquals("last", clone.getFirstValue("DUP", true));
+            assertNull(clone.getFirst("other"));
+            assertNull(form.getFirst("added"));
+            assertEquals("first", form.getFirstValue("DUP", true));
+            assertEquals("2", form.getFirstValue("OTHER", true));
+            assertLookups(clone, "Dup", "dup", "added", "other");
+            assertLookups(form, "Dup", "dup", "added", "other");
+        }
+    }
+
+    @Test
+    public void randomChangesTest() {
+        String[] names = { "a", "A", "b", "B", "c", "\u0131", "I", "i" };
+        Random random = new Random(42);
+        Form form = new Form();
+        for (int i = 0; i < 5000; i++) {
+            String name = names[random.nextInt(names.length)];
+            int position = form.isEmpty() ? 0 : random.nextInt(form.size());
+            switch (random.nextInt(form.size() < 16 ? 4 : 10)) {
+                case 0:
+                case 1:
+                case 2:
+                    form.add(name, String.valueOf(i));
+                    break;
+                case 3:
+                    form.add(position, new Parameter(name, String.valueOf(i)));
+                    break;
+                case 4:
+                    form.set(position, new Parameter(name, String.valueOf(i)));
+                    break;
+                case 5:
+                    form.remove(position);
+                    break;
+                case 6:
+                    form.removeFirst(name, random.nextBoolean());
+                    break;
+                case 7:
+                    form.removeAll(name, random.nextBoolean());
+                    break;
+                case 8:
+                    form.set(name, String.valueOf(i), random.nextBoolean());
+                    break;
+                default:
+                    form = (Form) form.clone();
+                    break;
+            }
+            assertLookups(form, names[random.nextInt(names.length)], names[random.nextInt(names.length)]);
+        }
+    }
+}
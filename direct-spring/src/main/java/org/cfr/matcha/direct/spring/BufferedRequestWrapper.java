@@ -2,32 +2,33 @@ package org.cfr.matcha.direct.spring;
 
 import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.nio.ByteBuffer;
 
 import javax.servlet.ServletInputStream;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletRequestWrapper;
 
-public class BufferedRequestWrapper extends HttpServletRequestWrapper {
+import org.cfr.matcha.direct.handler.processor.ProcessorUtil;
+
+import com.softwarementors.extjs.djn.EncodingUtils;
 
-    ByteArrayOutputStream baos;
+public class BufferedRequestWrapper extends HttpServletRequestWrapper {
 
     byte[] buffer;
 
+    int length;
+
     public BufferedRequestWrapper(HttpServletRequest req) throws IOException {
         super(req);
-        // Read InputStream and store its content in a buffer.
+        // Read InputStream and store its content in a buffer, sized with the content length if known.
         InputStream is = req.getInputStream();
-        baos = new ByteArrayOutputStream();
-        byte buf[] = new byte[1024];
-        int letti;
-        while ((letti = is.read(buf)) > 0)
-            baos.write(buf, 0, letti);
-        buffer = baos.toByteArray();
+        ByteBuffer body = ProcessorUtil.readBody(is, req.getContentLength());
+        buffer = body.array();
+        length = body.limit();
     }
 
     @Override
@@ -36,7 +37,7 @@ public class BufferedRequestWrapper extends HttpServletRequestWrapper {
         ByteArrayInputStream bais = null;
         try {
             // Generate a new InputStream by stored buffer
-            bais = new ByteArrayInputStream(buffer);
+            bais = new ByteArrayInputStream(buffer, 0, length);
             // Istantiate a subclass of ServletInputStream
             // (Only ServletInputStream or subclasses of it are accepted by the servlet engine!)
             bsis = new BufferedServletInputStream(bais);
@@ -52,7 +53,9 @@ public class BufferedRequestWrapper extends HttpServletRequestWrapper {
         Reader bais = null;
         try {
             // Generate a new InputStream by stored buffer
-            bais = new InputStreamReader(new ByteArrayInputStream(buffer));
+            String encoding = getCharacterEncoding();
+            bais = new InputStreamReader(new ByteArrayInputStream(buffer, 0, length),
+                    encoding != null ? encoding : EncodingUtils.UTF8);
             // Istantiate a subclass of ServletInputStream
             // (Only ServletInputStream or subclasses of it are accepted by the servlet engine!)
             bsis = new BufferedReader(bais);
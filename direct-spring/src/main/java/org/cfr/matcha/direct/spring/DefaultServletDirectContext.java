@@ -6,6 +6,7 @@ import org.cfr.matcha.direct.servlet.ServletDirectContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
 import org.springframework.beans.factory.support.BeanDefinitionRegistry;
 import org.springframework.beans.factory.support.BeanDefinitionRegistryPostProcessor;
@@ -19,7 +20,7 @@ import org.springframework.context.event.ContextRefreshedEvent;
  */
 @Named("DirectApplication")
 public class DefaultServletDirectContext extends ServletDirectContext implements BeanDefinitionRegistryPostProcessor,
-        ApplicationListener<ContextRefreshedEvent> {
+        ApplicationListener<ContextRefreshedEvent>, DisposableBean {
 
     /**
      * log instance.
@@ -1,5 +1,8 @@
 package org.cfr.matcha.direct;
 
+import org.cfr.matcha.direct.spi.BatchExecutionMode;
+import org.cfr.matcha.direct.spi.invoker.InvocationMode;
+
 import com.softwarementors.extjs.djn.gson.GsonBuilderConfigurator;
 import com.softwarementors.extjs.djn.router.dispatcher.Dispatcher;
 import com.softwarementors.extjs.djn.router.processor.standard.json.JsonRequestProcessorThread;
@@ -146,4 +149,43 @@ public interface IConfigurationSupport {
      */
     void setCreateSourceFiles(boolean createSourceFiles);
 
+    /**
+     * 
+     * @return the way the Direct methods are invoked.
+     */
+    InvocationMode getInvocationMode();
+
+    /**
+     * 
+     * @param invocationMode the way the Direct methods are invoked.
+     */
+    void setInvocationMode(InvocationMode invocationMode);
+
+    /**
+     * 
+     * @return the threads running the individual requests of a batch, when batch multithreading is enabled.
+     */
+    BatchExecutionMode getBatchExecutionMode();
+
+    /**
+     * 
+     * @param batchExecutionMode the threads running the individual requests of a batch, when batch
+     *            multithreading is enabled. The number of requests of a batch running at the same time is capped by
+     *            {@link #getBatchRequestsMaxThreadsPerRequest()} in every mode.
+     */
+    void setBatchExecutionMode(BatchExecutionMode batchExecutionMode);
+
+    /**
+     * 
+     * @return the default deadline of a Direct call in milliseconds, zero or less for no deadline.
+     */
+    long getCallTimeoutMillis();
+
+    /**
+     * 
+     * @param callTimeoutMillis the default deadline of a Direct call in milliseconds, zero or less for no deadline.
+     *            A method overrides it with {@code @DirectMethod(timeoutMillis = ...)}.
+     */
+    void setCallTimeoutMillis(long callTimeoutMillis);
+
 }
\ No newline at end of file
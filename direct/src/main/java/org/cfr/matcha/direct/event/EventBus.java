@@ -0,0 +1,144 @@
+package org.cfr.matcha.direct.event;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+/**
+ * Publishes the events of the application to named {@link EventChannel}s, read by the poll methods.
+ * <p>
+ * The application code publishes the events as they happen, instead of the poll methods computing their data on each
+ * poll:
+ * </p>
+ *
+ * <pre>
+ * &#064;DirectPollMethod
+ * public CompletableFuture&lt;List&lt;Object&gt;&gt; message(Map&lt;String, String&gt; parameters) {
+ *     return eventBus.getChannel(&quot;message&quot;).await(parameters.get(&quot;clientId&quot;));
+ * }
+ * </pre>
+ * @author devacfr
+ * @since 1.0
+ */
+@Named("EventBus")
+@Singleton
+public class EventBus {
+
+    /**
+     * the default number of events kept by a channel.
+     */
+    public static final int DEFAULT_CHANNEL_CAPACITY = 256;
+
+    /**
+     * the default time in milliseconds after which a subscriber which did not poll is removed.
+     */
+    public static final long DEFAULT_SUBSCRIBER_TIMEOUT = 10 * 60 * 1000;
+
+    private final ConcurrentMap<String, EventChannel> channels = new ConcurrentHashMap<String, EventChannel>();
+
+    private int channelCapacity = DEFAULT_CHANNEL_CAPACITY;
+
+    private long subscriberTimeout = DEFAULT_SUBSCRIBER_TIMEOUT;
+
+    /**
+     * Publishes an event to a channel, creating the channel if needed.
+     * @param channelName the name of the channel.
+     * @param event the event.
+     * @return the sequence number of the event in the channel.
+     */
+    public long publish(@Nonnull final String channelName, @Nonnull final Object event) {
+        return getChannel(channelName).publish(event);
+    }
+
+    /**
+     * Reads the events of a channel published since the previous call for the same subscriber.
+     * @param channelName the name of the channel.
+     * @param subscriberId identifies the subscriber.
+     * @return the new events.
+     * @see EventChannel#drain(String)
+     */
+    @Nonnull
+    public List<Object> drain(@Nonnull final String channelName, @Nonnull final String subscriberId) {
+        return getChannel(channelName).drain(subscriberId);
+    }
+
+    /**
+     * Waits for the events of a channel published since the previous call for the same subscriber.
+     * @param channelName the name of the channel.
+     * @param subscriberId identifies the subscriber.
+     * @return the new events, completed when an event is published if there is none.
+     * @see EventChannel#await(String)
+     */
+    @Nonnull
+    public CompletableFuture<List<Object>> await(@Nonnull final String channelName,
+                                                 @Nonnull final String subscriberId) {
+        return getChannel(channelName).await(subscriberId);
+    }
+
+    /**
+     *
+     * @param channelName the name of a channel.
+     * @return the channel, created with the current capacity and subscriber timeout if it does not exist.
+     */
+    @Nonnull
+    public EventChannel getChannel(@Nonnull final String channelName) {
+        EventChannel channel = channels.get(channelName);
+        if (channel == null) {
+            EventChannel created = new EventChannel(channelName, channelCapacity, subscriberTimeout);
+            channel = channels.putIfAbsent(channelName, created);
+            if (channel == null) {
+                channel = created;
+            }
+        }
+        return channel;
+    }
+
+    /**
+     *
+     * @param channelName the name of a channel.
+     * @return the channel, <code>null</code> if it does not exist.
+     */
+    @Nullable
+    public EventChannel findChannel(@Nonnull final String channelName) {
+        return channels.get(channelName);
+    }
+
+    /**
+     * Removes a channel, the subscribers of the channel losing their cursors.
+     * @param channelName the name of a channel.
+     */
+    public void removeChannel(@Nonnull final String channelName) {
+        channels.remove(channelName);
+    }
+
+    public int getChannelCapacity() {
+        return channelCapacity;
+    }
+
+    /**
+     * Sets the number of events kept by the channels created from now on.
+     * @param channelCapacity the number of events, greater than zero.
+     */
+    public void setChannelCapacity(int channelCapacity) {
+        this.channelCapacity = channelCapacity;
+    }
+
+    public long getSubscriberTimeout() {
+        return subscriberTimeout;
+    }
+
+    /**
+     * Sets the time in milliseconds after which a subscriber which did not poll is removed, for the channels created
+     * from now on.
+     * @param subscriberTimeout the time in milliseconds.
+     */
+    public void setSubscriberTimeout(long subscriberTimeout) {
+        this.subscriberTimeout = subscriberTimeout;
+    }
+}
@@ -0,0 +1,301 @@
+package org.cfr.matcha.direct.event;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.BiConsumer;
+
+import javax.annotation.Nonnull;
+
+import org.cfr.commons.util.Assert;
+
+/**
+ * Named channel of events, feeding the poll methods.
+ * <p>
+ * The events are kept in a bounded ring buffer: publishing an event overwrites the oldest one once the buffer is
+ * full, and takes no lock. Each subscriber, typically a client identified by a poll parameter, has its own cursor in
+ * the buffer: a poll simply reads the events published since the previous poll of the subscriber. A subscriber which
+ * falls behind by more than the capacity of the buffer misses the overwritten events.
+ * </p>
+ * <p>
+ * A long-polled method returns {@link #await(String)}, completed as soon as an event is published.
+ * </p>
+ * @author devacfr
+ * @since 1.0
+ * @see EventBus
+ */
+public final class EventChannel {
+
+    private final String name;
+
+    private final int capacity;
+
+    private final long subscriberTimeoutNanos;
+
+    private final AtomicReferenceArray<PublishedEvent> buffer;
+
+    /** the sequence of the next published event */
+    private final AtomicLong nextSequence = new AtomicLong();
+
+    private final ConcurrentMap<String, Subscriber> subscribers = new ConcurrentHashMap<String, Subscriber>();
+
+    private final Queue<Waiter> waiters = new ConcurrentLinkedQueue<Waiter>();
+
+    /**
+     *
+     * @param name the name of the channel.
+     * @param capacity the number of events kept in the buffer, greater than zero.
+     * @param subscriberTimeoutMillis the time in milliseconds after which a subscriber which did not poll is removed.
+     */
+    public EventChannel(@Nonnull final String name, final int capacity, final long subscriberTimeoutMillis) {
+        Assert.hasText(name);
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be greater than zero");
+        }
+        this.name = name;
+        this.capacity = capacity;
+        this.subscriberTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(subscriberTimeoutMillis);
+        this.buffer = new AtomicReferenceArray<PublishedEvent>(capacity);
+    }
+
+    /**
+     * Publishes an event to the subscribers of the channel, completing their pending long polls.
+     * @param event the event.
+     * @return the sequence number of the event.
+     */
+    public long publish(@Nonnull final Object event) {
+        Assert.notNull(event);
+        long sequence = nextSequence.getAndIncrement();
+        buffer.set(index(sequence), new PublishedEvent(sequence, event));
+        signalWaiters();
+        return sequence;
+    }
+
+    /**
+     * Reads the events published since the previous call for the same subscriber. The first call of a subscriber
+     * subscribes it: it returns no event, the following calls return the events published in between.
+     * @param subscriberId identifies the subscriber.
+     * @return the new events, in the order they were published.
+     */
+    @Nonnull
+    public List<Object> drain(@Nonnull final String subscriberId) {
+        Subscriber subscriber = getSubscriber(subscriberId);
+        synchronized (subscriber) {
+            List<Object> events = new ArrayList<Object>();
+            subscriber.cursor = read(subscriber.cursor, events);
+            return events;
+        }
+    }
+
+    /**
+     * Waits for the events published since the previous call for the same subscriber, to answer a long poll.
+     * <p>
+     * The returned future is completed at once if there are new events, or else when the next event is published.
+     * The events of a cancelled future, after a long poll timeout, are kept for the next call. A future completed or
+     * cancelled by the caller is no longer waiting.
+     * </p>
+     * @param subscriberId identifies the subscriber.
+     * @return the new events, in the order they were published.
+     */
+    @Nonnull
+    public CompletableFuture<List<Object>> await(@Nonnull final String subscriberId) {
+        final Waiter waiter = new Waiter(getSubscriber(subscriberId), new CompletableFuture<List<Object>>());
+        if (waiter.deliver()) {
+            return waiter.future;
+        }
+        waiters.add(waiter);
+        // a long poll timing out cancels the future before any event is published
+        waiter.future.whenComplete(new BiConsumer<List<Object>, Throwable>() {
+
+            @Override
+            public void accept(List<Object> events, Throwable failure) {
+                waiters.remove(waiter);
+            }
+        });
+        // an event published before the waiter was queued
+        waiter.deliver();
+        return waiter.future;
+    }
+
+    /**
+     * Removes a subscriber, its pending long polls being answered by the next published event.
+     * @param subscriberId identifies the subscriber.
+     */
+    public void unsubscribe(@Nonnull final String subscriberId) {
+        subscribers.remove(subscriberId);
+    }
+
+    /**
+     *
+     * @return the name of the channel.
+     */
+    @Nonnull
+    public String getName() {
+        return name;
+    }
+
+    /**
+     *
+     * @return the number of events kept in the buffer.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     *
+     * @return the number of events published to the channel.
+     */
+    public long getPublishedCount() {
+        return nextSequence.get();
+    }
+
+    /**
+     *
+     * @return the number of subscribers.
+     */
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     *
+     * @return the number of pending long polls.
+     */
+    public int getWaiterCount() {
+        return waiters.size();
+    }
+
+    private Subscriber getSubscriber(String subscriberId) {
+        Assert.hasText(subscriberId);
+        long now = System.nanoTime();
+        Subscriber subscriber = subscribers.get(subscriberId);
+        if (subscriber == null) {
+            removeIdleSubscribers(now);
+            Subscriber created = new Subscriber(nextSequence.get(), now);
+            subscriber = subscribers.putIfAbsent(subscriberId, created);
+            if (subscriber == null) {
+                return created;
+            }
+        }
+        subscriber.lastAccess = now;
+        return subscriber;
+    }
+
+    /**
+     * Removes the subscribers which did not poll for longer than the subscriber timeout, when a subscriber is added.
+     */
+    private void removeIdleSubscribers(long now) {
+        for (Iterator<Subscriber> it = subscribers.values().iterator(); it.hasNext();) {
+            if (now - it.next().lastAccess > subscriberTimeoutNanos) {
+                it.remove();
+            }
+        }
+    }
+
+    private void signalWaiters() {
+        // the waiters not answered are queued again: bounded to not spin on them
+        for (int i = waiters.size(); i > 0; i--) {
+            Waiter waiter = waiters.poll();
+            if (waiter == null) {
+                return;
+            }
+            if (!waiter.future.isDone() && !waiter.deliver()) {
+                waiters.add(waiter);
+                // cancelled while out of the queue
+                if (waiter.future.isDone()) {
+                    waiters.remove(waiter);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the events published from a sequence number.
+     * @param from the sequence number of the first event to read.
+     * @param events receives the events.
+     * @return the sequence number of the next event to read.
+     */
+    private long read(long from, List<Object> events) {
+        // skips the overwritten events
+        long next = Math.max(from, nextSequence.get() - capacity);
+        while (true) {
+            PublishedEvent event = buffer.get(index(next));
+            // not published yet, or overwritten while reading
+            if (event == null || event.sequence != next) {
+                return next;
+            }
+            events.add(event.event);
+            next++;
+        }
+    }
+
+    private int index(long sequence) {
+        return (int) (sequence % capacity);
+    }
+
+    private static final class PublishedEvent {
+
+        private final long sequence;
+
+        private final Object event;
+
+        public PublishedEvent(final long sequence, final Object event) {
+            this.sequence = sequence;
+            this.event = event;
+        }
+    }
+
+    private static final class Subscriber {
+
+        /** guarded by the subscriber */
+        private long cursor;
+
+        private volatile long lastAccess;
+
+        public Subscriber(final long cursor, final long lastAccess) {
+            this.cursor = cursor;
+            this.lastAccess = lastAccess;
+        }
+    }
+
+    private final class Waiter {
+
+        private final Subscriber subscriber;
+
+        private final CompletableFuture<List<Object>> future;
+
+        public Waiter(final Subscriber subscriber, final CompletableFuture<List<Object>> future) {
+            this.subscriber = subscriber;
+            this.future = future;
+        }
+
+        /**
+         * Completes the future with the new events of the subscriber, if any. The cursor of the subscriber moves only
+         * if the events are delivered, not if the future has been cancelled meanwhile.
+         * @return <code>true</code> if the future is done.
+         */
+        public boolean deliver() {
+            synchronized (subscriber) {
+                List<Object> events = new ArrayList<Object>();
+                long next = read(subscriber.cursor, events);
+                if (events.isEmpty()) {
+                    return future.isDone();
+                }
+                if (future.complete(Collections.unmodifiableList(events))) {
+                    subscriber.cursor = next;
+                }
+                return true;
+            }
+        }
+    }
+}
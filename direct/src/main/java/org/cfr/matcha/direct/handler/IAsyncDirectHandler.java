@@ -0,0 +1,32 @@
+package org.cfr.matcha.direct.handler;
+
+import java.util.concurrent.CompletionStage;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.cfr.matcha.direct.handler.context.IDirectHandlerContext;
+
+/**
+ * A handler able to write the response of some requests once it is ready, without holding the calling thread: a long
+ * poll waiting for an event.
+ * <p>
+ * A context processing a request asynchronously still runs every handler in order, calling
+ * {@link #processAsync(IDirectHandlerContext)} on this one and {@link #process(IDirectHandlerContext)} on the others,
+ * the handlers following this one running once its response is written.
+ * </p>
+ * @author devacfr
+ * @since 1.0
+ */
+public interface IAsyncDirectHandler extends IDirectHandler {
+
+    /**
+     * Processes a request asynchronously.
+     * @param handlerContext the context of the request.
+     * @return a stage completed once the response is written, exceptionally if the request fails, or
+     *         <code>null</code> if this handler processes the request synchronously, with
+     *         {@link #process(IDirectHandlerContext)}.
+     */
+    @Nullable
+    CompletionStage<Void> processAsync(@Nonnull IDirectHandlerContext handlerContext);
+}
@@ -2,6 +2,7 @@ package org.cfr.matcha.direct.handler.context;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.PrintWriter;
 
 import org.cfr.matcha.direct.IDirectContext;
@@ -25,6 +26,17 @@ public interface IDirectHandlerContext {
      */
     BufferedReader getReader() throws IOException;;
 
+    /**
+     * Gives the body of the request as bytes, instead of {@link #getReader()}: only one of them can be called.
+     * @return the InputStream, or <code>null</code> if the body is only available as characters
+     */
+    InputStream getInputStream() throws IOException;
+
+    /**
+     * @return the character encoding of the body, or <code>null</code> if the request does not specify it
+     */
+    String getCharacterEncoding();
+
     /**
      * @return the Writer
      */
@@ -0,0 +1,31 @@
+package org.cfr.matcha.direct.handler.context;
+
+import java.util.concurrent.Executor;
+
+import javax.annotation.Nullable;
+
+/**
+ * The context of a poll request answered by a stream of events, instead of a single response.
+ * @author devacfr
+ * @since 1.0
+ */
+public interface IEventStreamHandlerContext extends IDirectHandlerContext {
+
+    /**
+     * @return the poll parameters, URL encoded, or <code>null</code> if the request has none.
+     */
+    @Nullable
+    String getQueryString();
+
+    /**
+     * @return the time in milliseconds between two calls of a poll method which is not long-polled.
+     */
+    long getEventStreamPollInterval();
+
+    /**
+     * @return the executor streaming the events, or <code>null</code> to stream them in the calling thread, until
+     *         the client is gone.
+     */
+    @Nullable
+    Executor getExecutor();
+}
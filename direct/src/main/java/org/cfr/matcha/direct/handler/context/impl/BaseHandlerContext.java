@@ -1,5 +1,8 @@
 package org.cfr.matcha.direct.handler.context.impl;
 
+import java.io.IOException;
+import java.io.InputStream;
+
 import org.cfr.matcha.direct.handler.context.IDirectHandlerContext;
 import org.cfr.matcha.direct.spi.BaseDirectContext;
 
@@ -37,4 +40,20 @@ public abstract class BaseHandlerContext implements IDirectHandlerContext {
         return requestType;
     }
 
+    /**
+     * @return <code>null</code>, the body being read with {@link #getReader()}
+     */
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return null;
+    }
+
+    /**
+     * @return <code>null</code>
+     */
+    @Override
+    public String getCharacterEncoding() {
+        return null;
+    }
+
 }
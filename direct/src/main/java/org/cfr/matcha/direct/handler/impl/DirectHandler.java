@@ -1,18 +1,25 @@
 package org.cfr.matcha.direct.handler.impl;
 
 import java.io.BufferedReader;
+import java.io.InputStream;
 import java.io.PrintWriter;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
 
 import org.apache.commons.io.IOUtils;
 import org.cfr.matcha.direct.IDirectContext;
+import org.cfr.matcha.direct.handler.IAsyncDirectHandler;
 import org.cfr.matcha.direct.handler.context.IDirectHandlerContext;
+import org.cfr.matcha.direct.handler.context.IEventStreamHandlerContext;
+import org.cfr.matcha.direct.handler.processor.poll.PollEventStream;
 
 import com.softwarementors.extjs.djn.router.RequestType;
 
-public class DirectHandler extends BaseHandler {
+public class DirectHandler extends BaseHandler implements IAsyncDirectHandler {
 
     public final static List<RequestType> acceptedRequestTypeList = Collections.unmodifiableList(Arrays.asList(RequestType.FORM_SIMPLE_POST,
         RequestType.JSON,
@@ -24,18 +31,81 @@ public class DirectHandler extends BaseHandler {
         return acceptedRequestTypeList;
     }
 
+    /**
+     * Processes a poll request asynchronously, its response being written when the poll method completes, so that a
+     * long poll holds no thread while waiting for an event. A poll request with an
+     * {@link IEventStreamHandlerContext} is answered by a {@link PollEventStream}, until the client is gone.
+     * @return <code>null</code> for the other requests, processed by {@link #process(IDirectHandlerContext)}.
+     */
+    @Override
+    public CompletionStage<Void> processAsync(final IDirectHandlerContext handlerContext) {
+        if (handlerContext.getRequestType() != RequestType.POLL) {
+            return null;
+        }
+        if (handlerContext instanceof IEventStreamHandlerContext) {
+            return processEventStream((IEventStreamHandlerContext) handlerContext);
+        }
+        BufferedReader reader = null;
+        try {
+            reader = handlerContext.getReader();
+            handlerContext.setResponseContentType(JSON_CONTENT_TYPE);
+            // the response is written by the processor, recording what the client received once the write succeeds
+            return handlerContext.getContext().getRequestRouter().processPollRequestAsync(reader,
+                handlerContext.getWriter(), handlerContext.getPathInfo());
+        } catch (Exception e) {
+            return failed(e);
+        } finally {
+            IOUtils.closeQuietly(reader);
+        }
+    }
+
+    private CompletableFuture<Void> processEventStream(IEventStreamHandlerContext handlerContext) {
+        try {
+            handlerContext.setResponseContentType(PollEventStream.CONTENT_TYPE);
+            String requestString = handlerContext.getQueryString();
+            PollEventStream stream = handlerContext.getContext().getRequestRouter().createPollEventStream(
+                requestString != null ? requestString : "",
+                handlerContext.getPathInfo(),
+                handlerContext.getWriter(),
+                handlerContext.getEventStreamPollInterval());
+            Executor executor = handlerContext.getExecutor();
+            if (executor != null) {
+                return stream.start(executor);
+            }
+            stream.run();
+            return CompletableFuture.completedFuture(null);
+        } catch (Exception e) {
+            return failed(e);
+        }
+    }
+
+    private static CompletableFuture<Void> failed(Exception e) {
+        CompletableFuture<Void> failed = new CompletableFuture<Void>();
+        failed.completeExceptionally(new DirectHandlerException("Handler error during process", e));
+        return failed;
+    }
+
     @Override
     protected void doProcess(IDirectHandlerContext handlerContext) throws Exception {
 
         IDirectContext context = handlerContext.getContext();
-        BufferedReader reader = handlerContext.getReader();
+        // a simple form post is parsed from the bytes of the body, the reader can not be opened as well
+        InputStream input = handlerContext.getRequestType() == RequestType.FORM_SIMPLE_POST ? handlerContext.getInputStream()
+                : null;
+        BufferedReader reader = input == null ? handlerContext.getReader() : null;
         PrintWriter writer = handlerContext.getWriter();
 
         try {
             switch (handlerContext.getRequestType()) {
                 case FORM_SIMPLE_POST:
                     handlerContext.setResponseContentType(JSON_CONTENT_TYPE);
-                    context.getRequestRouter().processSimpleFormPostRequest(reader, writer);
+                    if (input != null) {
+                        context.getRequestRouter().processSimpleFormPostRequest(input,
+                            handlerContext.getCharacterEncoding(),
+                            writer);
+                    } else {
+                        context.getRequestRouter().processSimpleFormPostRequest(reader, writer);
+                    }
                     break;
                 case JSON:
                     handlerContext.setResponseContentType(JSON_CONTENT_TYPE);
@@ -55,6 +125,7 @@ public class DirectHandler extends BaseHandler {
                     break;
             }
         } finally {
+            IOUtils.closeQuietly(input);
             IOUtils.closeQuietly(reader);
         }
 
@@ -2,15 +2,22 @@ package org.cfr.matcha.direct.handler.impl;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.PrintWriter;
 import java.io.Reader;
 import java.io.Writer;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import org.apache.commons.fileupload.FileItem;
 import org.apache.commons.fileupload.FileUploadException;
 import org.cfr.matcha.direct.handler.processor.form.FormPostRequestProcessor;
 import org.cfr.matcha.direct.handler.processor.form.UploadFormPostRequestProcessor;
+import org.cfr.matcha.direct.handler.processor.json.JsonRequestProcessor;
+import org.cfr.matcha.direct.handler.processor.poll.IPollEventSink;
+import org.cfr.matcha.direct.handler.processor.poll.PollEventStream;
+import org.cfr.matcha.direct.handler.processor.poll.PollRequestProcessor;
+import org.cfr.matcha.direct.spi.BatchExecutionMode;
 import org.cfr.matcha.direct.spi.IRequestRouter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -19,11 +26,13 @@ import com.softwarementors.extjs.djn.api.Registry;
 import com.softwarementors.extjs.djn.config.GlobalConfiguration;
 import com.softwarementors.extjs.djn.router.dispatcher.Dispatcher;
 import com.softwarementors.extjs.djn.router.processor.RequestException;
-import com.softwarementors.extjs.djn.router.processor.poll.PollRequestProcessor;
-import com.softwarementors.extjs.djn.router.processor.standard.json.JsonRequestProcessor;
 
 /**
- * 
+ * Routes the Direct requests to the request processors.
+ * <p>
+ * All processors are thread-safe: each kind of processor is created once per registry, when the router is
+ * constructed, and shared by all requests.
+ * </p>
  * @author devacfr
  *
  */
@@ -37,10 +46,73 @@ public class DirectRequestRouter implements IRequestRouter {
 
     private GlobalConfiguration globalConfiguration;
 
+    private final BatchExecutionMode batchExecutionMode;
+
+    private final long callTimeoutMillis;
+
+    private final JsonRequestProcessor jsonRequestProcessor;
+
+    private final PollRequestProcessor pollRequestProcessor;
+
+    private final FormPostRequestProcessor formPostRequestProcessor;
+
+    private final UploadFormPostRequestProcessor uploadFormPostRequestProcessor;
+
     public DirectRequestRouter(Registry registry, GlobalConfiguration globalConfiguration, Dispatcher dispatcher) {
+        this(registry, globalConfiguration, dispatcher, BatchExecutionMode.THREAD_POOL);
+    }
+
+    public DirectRequestRouter(Registry registry, GlobalConfiguration globalConfiguration, Dispatcher dispatcher,
+            BatchExecutionMode batchExecutionMode) {
+        this(registry, globalConfiguration, dispatcher, batchExecutionMode, 0);
+    }
+
+    public DirectRequestRouter(Registry registry, GlobalConfiguration globalConfiguration, Dispatcher dispatcher,
+            BatchExecutionMode batchExecutionMode, long callTimeoutMillis) {
         this.registry = registry;
         this.dispatcher = dispatcher;
         this.globalConfiguration = globalConfiguration;
+        this.batchExecutionMode = batchExecutionMode;
+        this.callTimeoutMillis = callTimeoutMillis;
+        this.jsonRequestProcessor = createJsonRequestProcessor(registry, dispatcher, globalConfiguration);
+        this.pollRequestProcessor = createPollRequestProcessor(registry, dispatcher, globalConfiguration);
+        this.formPostRequestProcessor = createFormPostRequestProcessor(registry, dispatcher, globalConfiguration);
+        this.uploadFormPostRequestProcessor = createUploadFormPostRequestProcessor(registry,
+            dispatcher,
+            globalConfiguration);
+    }
+
+    protected JsonRequestProcessor createJsonRequestProcessor(Registry registry, Dispatcher dispatcher,
+                                                              GlobalConfiguration globalConfiguration) {
+        return new JsonRequestProcessor(registry, dispatcher, globalConfiguration, batchExecutionMode,
+            callTimeoutMillis);
+    }
+
+    protected PollRequestProcessor createPollRequestProcessor(Registry registry, Dispatcher dispatcher,
+                                                              GlobalConfiguration globalConfiguration) {
+        return new PollRequestProcessor(registry, dispatcher, globalConfiguration);
+    }
+
+    protected FormPostRequestProcessor createFormPostRequestProcessor(Registry registry, Dispatcher dispatcher,
+                                                                      GlobalConfiguration globalConfiguration) {
+        return new FormPostRequestProcessor(registry, dispatcher, globalConfiguration, callTimeoutMillis);
+    }
+
+    protected UploadFormPostRequestProcessor
+            createUploadFormPostRequestProcessor(Registry registry, Dispatcher dispatcher,
+                                                 GlobalConfiguration globalConfiguration) {
+        return new UploadFormPostRequestProcessor(registry, dispatcher, globalConfiguration, callTimeoutMillis);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Shuts down the executors of the multithreaded batches.
+     * </p>
+     */
+    @Override
+    public void destroy() {
+        this.jsonRequestProcessor.shutdown();
     }
 
     /**
@@ -48,17 +120,27 @@ public class DirectRequestRouter implements IRequestRouter {
      */
     @Override
     public void processSimpleFormPostRequest(Reader reader, Writer writer) throws IOException {
-        FormPostRequestProcessor processor = new FormPostRequestProcessor(this.registry, this.dispatcher,
-                this.globalConfiguration);
-        processor.process(reader, writer);
+        this.formPostRequestProcessor.process(reader, writer);
     }
 
     /**
      * {@inheritDoc}
      */
     @Override
+    public void processSimpleFormPostRequest(InputStream input, String characterSet, Writer writer)
+            throws IOException {
+        this.formPostRequestProcessor.process(input, characterSet, writer);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The upload processor is thread-safe, the same instance is returned for all requests.
+     * </p>
+     */
+    @Override
     public UploadFormPostRequestProcessor createUploadFromProcessor() {
-        return new UploadFormPostRequestProcessor(this.registry, this.dispatcher, this.globalConfiguration);
+        return this.uploadFormPostRequestProcessor;
     }
 
     /**
@@ -77,7 +159,7 @@ public class DirectRequestRouter implements IRequestRouter {
      */
     @Override
     public void processJsonRequest(Reader reader, Writer writer) throws IOException {
-        new JsonRequestProcessor(this.registry, this.dispatcher, this.globalConfiguration).process(reader, writer);
+        this.jsonRequestProcessor.process(reader, writer);
     }
 
     /**
@@ -85,9 +167,34 @@ public class DirectRequestRouter implements IRequestRouter {
      */
     @Override
     public void processPollRequest(Reader reader, Writer writer, String pathInfo) throws IOException {
-        new PollRequestProcessor(this.registry, this.dispatcher, this.globalConfiguration).process(reader,
-            writer,
-            pathInfo);
+        this.pollRequestProcessor.process(reader, writer, pathInfo);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public CompletableFuture<Void> processPollRequestAsync(Reader reader, Writer writer, String pathInfo)
+            throws IOException {
+        return this.pollRequestProcessor.processAsync(reader, writer, pathInfo);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public PollEventStream createPollEventStream(String requestString, String pathInfo, Writer writer,
+                                                 long pollInterval) {
+        return new PollEventStream(this.pollRequestProcessor, requestString, pathInfo, writer, pollInterval);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public PollEventStream createPollEventStream(String requestString, String pathInfo, IPollEventSink sink,
+                                                 long pollInterval) {
+        return new PollEventStream(this.pollRequestProcessor, requestString, pathInfo, sink, pollInterval);
     }
 
     /**
@@ -0,0 +1,109 @@
+package org.cfr.matcha.direct.handler.processor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import javax.annotation.Nonnull;
+
+import org.cfr.commons.util.Assert;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.softwarementors.extjs.djn.config.GlobalConfiguration;
+import com.softwarementors.extjs.djn.gson.GsonBuilderConfigurator;
+import com.softwarementors.extjs.djn.gson.GsonBuilderConfiguratorException;
+
+/**
+ * Helpers shared by the request processors.
+ * 
+ * @author devacfr
+ * @since 1.0
+ */
+public final class ProcessorUtil {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProcessorUtil.class);
+
+    /**
+     * the initial size of the buffer receiving a body of unknown length.
+     */
+    private static final int INITIAL_BUFFER_SIZE = 1024;
+
+    /**
+     * the largest initial size of the buffer receiving a body, whatever its announced length.
+     */
+    public static final int MAX_INITIAL_BUFFER_SIZE = 64 * 1024;
+
+    private ProcessorUtil() {
+    }
+
+    /**
+     * Reads a request body into a single buffer.
+     * <p>
+     * The buffer is sized with the announced length of the body, up to {@link #MAX_INITIAL_BUFFER_SIZE}: a forged
+     * length can not allocate more than the bytes actually sent. It grows by doubling only if the body is longer.
+     * </p>
+     * @param input the request body.
+     * @param expectedLength the announced length of the body, such as its content length, negative or zero if
+     *            unknown.
+     * @return a buffer wrapping the bytes read, from the start of its array to its limit.
+     * @throws IOException if an I/O error occurs.
+     */
+    @Nonnull
+    public static ByteBuffer readBody(@Nonnull final InputStream input, final int expectedLength) throws IOException {
+        Assert.notNull(input);
+        byte[] data = new byte[expectedLength > 0 ? Math.min(expectedLength, MAX_INITIAL_BUFFER_SIZE)
+                : INITIAL_BUFFER_SIZE];
+        int length = 0;
+        int count;
+        while ((count = input.read(data, length, data.length - length)) != -1) {
+            length += count;
+            if (length == data.length) {
+                // the buffer grows only if the body is longer than announced
+                int next = input.read();
+                if (next == -1) {
+                    break;
+                }
+                data = Arrays.copyOf(data, data.length * 2);
+                data[length++] = (byte) next;
+            }
+        }
+        return ByteBuffer.wrap(data, 0, length);
+    }
+
+    /**
+     * Creates a {@link Gson} instance configured by the {@link GsonBuilderConfigurator} of the given configuration.
+     * <p>
+     * {@link Gson} is thread-safe, the returned instance is meant to be created once per processor and shared by all
+     * requests, instead of relying on the <code>synchronized</code> accessor of DirectJNgine.
+     * </p>
+     * @param globalConfiguration the global configuration.
+     * @return a new configured {@link Gson} instance.
+     */
+    @Nonnull
+    public static Gson createGson(@Nonnull final GlobalConfiguration globalConfiguration) {
+        Assert.notNull(globalConfiguration);
+
+        Class<? extends GsonBuilderConfigurator> configuratorClass = globalConfiguration.getGsonBuilderConfiguratorClass();
+        GsonBuilderConfigurator configurator;
+        try {
+            configurator = configuratorClass.newInstance();
+        } catch (InstantiationException e) {
+            GsonBuilderConfiguratorException ex = GsonBuilderConfiguratorException.forUnableToInstantiateGsonBuilder(configuratorClass,
+                e);
+            logger.error(ex.getMessage(), ex);
+            throw ex;
+        } catch (IllegalAccessException e) {
+            GsonBuilderConfiguratorException ex = GsonBuilderConfiguratorException.forUnableToInstantiateGsonBuilder(configuratorClass,
+                e);
+            logger.error(ex.getMessage(), ex);
+            throw ex;
+        }
+        GsonBuilder builder = new GsonBuilder();
+        configurator.configure(builder, globalConfiguration);
+        return builder.create();
+    }
+}
@@ -27,18 +27,16 @@ public class FormPostRequestData extends StandardRequestData {
 
     transient private Map<String, FileItem> fileFields;
 
+    /**
+     * The form is kept as is, not copied: it is the one passed to the method.
+     */
     public FormPostRequestData(String type, String action, String method, Long tid, boolean isUpload, Form parameters,
             Map<String, FileItem> fileFields) {
         super(type, action, method, tid);
 
         Assert.notNull(parameters);
-        Assert.notNull(parameters.getFirst(ACTION_ELEMENT));
-        Assert.notNull(parameters.getFirst(METHOD_ELEMENT));
-        Assert.notNull(parameters.getFirst(TYPE_ELEMENT));
-        Assert.notNull(parameters.getFirst(TID_ELEMENT));
-        Assert.notNull(parameters.getFirst(UPLOAD_ELEMENT));
 
-        this.formParameters = new Form(parameters);
+        this.formParameters = parameters;
         this.isUpload = isUpload;
         this.fileFields = fileFields;
     }
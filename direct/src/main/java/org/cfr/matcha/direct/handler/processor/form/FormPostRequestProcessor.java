@@ -1,16 +1,20 @@
 package org.cfr.matcha.direct.handler.processor.form;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.Reader;
 import java.io.Writer;
+import java.nio.ByteBuffer;
 import java.util.HashMap;
 
 import org.apache.commons.fileupload.FileItem;
 import org.apache.commons.io.IOUtils;
 import org.cfr.matcha.api.form.Form;
+import org.cfr.matcha.direct.handler.processor.ProcessorUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.softwarementors.extjs.djn.EncodingUtils;
 import com.softwarementors.extjs.djn.api.Registry;
 import com.softwarementors.extjs.djn.config.GlobalConfiguration;
 import com.softwarementors.extjs.djn.router.dispatcher.Dispatcher;
@@ -23,6 +27,11 @@ public class FormPostRequestProcessor extends FormPostRequestProcessorBase {
         super(registry, dispatcher, globalConfiguration);
     }
 
+    public FormPostRequestProcessor(Registry registry, Dispatcher dispatcher, GlobalConfiguration globalConfiguration,
+            long callTimeoutMillis) {
+        super(registry, dispatcher, globalConfiguration, callTimeoutMillis);
+    }
+
     public void process(Reader reader, Writer writer) throws IOException {
         String requestString = IOUtils.toString(reader);
         if (logger.isDebugEnabled()) {
@@ -35,4 +44,30 @@ public class FormPostRequestProcessor extends FormPostRequestProcessorBase {
             logger.debug("ResponseData data (SIMPLE FORM)=>" + result);
         }
     }
+
+    /**
+     * Processes a form read from the bytes of the body: the body is copied once into a buffer owned by the form, whose
+     * parameters are decoded on demand.
+     * @param input the request body, URL encoded.
+     * @param characterSet the character encoding of the body, UTF-8 if <code>null</code>.
+     * @param writer the response writer.
+     * @throws IOException if an I/O error occurs.
+     */
+    public void process(InputStream input, String characterSet, Writer writer) throws IOException {
+        if (characterSet == null) {
+            characterSet = EncodingUtils.UTF8;
+        }
+        ByteBuffer body = ProcessorUtil.readBody(input, input.available());
+        byte[] data = body.array();
+        int length = body.limit();
+        if (logger.isDebugEnabled()) {
+            logger.debug("Request data (SIMPLE FORM)=>" + new String(data, 0, length, characterSet));
+        }
+        Form formParameters = new Form(data, 0, length, characterSet);
+        String result = process(formParameters, new HashMap<String, FileItem>());
+        writer.write(result);
+        if (logger.isDebugEnabled()) {
+            logger.debug("ResponseData data (SIMPLE FORM)=>" + result);
+        }
+    }
 }
\ No newline at end of file
@@ -3,16 +3,27 @@ package org.cfr.matcha.direct.handler.processor.form;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.apache.commons.fileupload.FileItem;
 import org.apache.log4j.Logger;
 import org.cfr.commons.util.Assert;
 import org.cfr.matcha.api.form.Form;
 import org.cfr.matcha.api.form.Parameter;
+import org.cfr.matcha.direct.handler.processor.ProcessorUtil;
+import org.cfr.matcha.direct.spi.CallTimeoutException;
+import org.cfr.matcha.direct.spi.DefaultDispatcher;
+import org.cfr.matcha.direct.spi.MethodEntry;
 
+import com.google.gson.Gson;
 import com.softwarementors.extjs.djn.api.Registry;
 import com.softwarementors.extjs.djn.config.GlobalConfiguration;
 import com.softwarementors.extjs.djn.router.dispatcher.Dispatcher;
+import com.softwarementors.extjs.djn.router.dispatcher.MethodExecutionException;
 import com.softwarementors.extjs.djn.router.processor.RequestException;
 import com.softwarementors.extjs.djn.router.processor.ResponseData;
 import com.softwarementors.extjs.djn.router.processor.standard.StandardErrorResponseData;
@@ -23,17 +34,85 @@ public abstract class FormPostRequestProcessorBase extends StandardRequestProces
 
     private static Logger logger = Logger.getLogger(FormPostRequestProcessorBase.class);
 
+    private final Gson gson;
+
+    private final long callTimeoutMillis;
+
     protected FormPostRequestProcessorBase(Registry registry, Dispatcher dispatcher,
             GlobalConfiguration globalConfiguration) {
+        this(registry, dispatcher, globalConfiguration, 0);
+    }
+
+    /**
+     * 
+     * @param registry the registry.
+     * @param dispatcher the dispatcher.
+     * @param globalConfiguration the configuration.
+     * @param callTimeoutMillis the default deadline of a call in milliseconds, zero or less for no deadline.
+     */
+    protected FormPostRequestProcessorBase(Registry registry, Dispatcher dispatcher,
+            GlobalConfiguration globalConfiguration, long callTimeoutMillis) {
         super(registry, dispatcher, globalConfiguration);
+        this.gson = ProcessorUtil.createGson(globalConfiguration);
+        this.callTimeoutMillis = callTimeoutMillis;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected Gson getGson() {
+        return gson;
+    }
+
+    /**
+     * Resolves the method with a single lookup in the method table of a {@link DefaultDispatcher}, and in the
+     * registry otherwise. The value of a {@link CompletionStage} returned by the method is waited for, until the
+     * deadline of the call: the deadline of the method, or else the default one.
+     */
+    @Override
+    protected Object dispatchStandardMethod(String actionName, String methodName, Object[] parameters) {
+        Dispatcher dispatcher = getDispatcher();
+        if (dispatcher instanceof DefaultDispatcher) {
+            DefaultDispatcher defaultDispatcher = (DefaultDispatcher) dispatcher;
+            MethodEntry entry = defaultDispatcher.getMethodEntry(actionName, methodName);
+            if (entry != null) {
+                Object result = defaultDispatcher.dispatch(entry, parameters);
+                return entry.isAsync() ? getAsyncResult(entry, (CompletionStage<?>) result) : result;
+            }
+        }
+        return super.dispatchStandardMethod(actionName, methodName, parameters);
+    }
+
+    private Object getAsyncResult(MethodEntry entry, CompletionStage<?> result) {
+        if (result == null) {
+            return null;
+        }
+        CompletableFuture<?> future = result.toCompletableFuture();
+        long timeout = entry.getTimeoutMillis() != 0 ? entry.getTimeoutMillis() : callTimeoutMillis;
+        try {
+            return timeout > 0 ? future.get(timeout, TimeUnit.MILLISECONDS) : future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw MethodExecutionException.forJavaMethodInvocationError(entry.getMethod(), ex);
+        } catch (ExecutionException ex) {
+            throw MethodExecutionException.forJavaMethodInvocationError(entry.getMethod(), ex.getCause());
+        } catch (TimeoutException ex) {
+            // the stage returned to the first of coalesced calls is shared with the others
+            if (!entry.isCoalesced()) {
+                future.cancel(true);
+            }
+            throw CallTimeoutException.forDeadlineExceeded(entry.getFullName(), timeout);
+        }
     }
 
     protected String process(Form formParameters, Map<String, FileItem> fileFields) {
         Assert.notNull(formParameters);
         Assert.notNull(fileFields);
 
-        checkNoMissingParameters(formParameters);
-        FormPostRequestData request = createRequestObject(formParameters, fileFields);
+        RequestFields fields = RequestFields.read(formParameters);
+        checkNoMissingParameters(fields);
+        FormPostRequestData request = createRequestObject(fields, formParameters, fileFields);
 
         ResponseData response = processRequest(request);
         StringBuilder result = new StringBuilder();
@@ -42,36 +121,31 @@ public abstract class FormPostRequestProcessorBase extends StandardRequestProces
         return result.toString();
     }
 
-    private static Parameter getAndRemove(Form keyValues, String key) {
-        Parameter result = keyValues.getFirst(key);
-        keyValues.remove(key);
-        return result;
-    }
-
-    private static FormPostRequestData createRequestObject(Form formParameters, Map<String, FileItem> fileFields) {
+    private static FormPostRequestData createRequestObject(RequestFields fields, Form formParameters,
+                                                           Map<String, FileItem> fileFields) {
+        Assert.notNull(fields);
         Assert.notNull(formParameters);
         Assert.notNull(fileFields);
 
-        Form parameters = new Form(formParameters);
-
-        String type = getAndRemove(parameters, FormPostRequestData.TYPE_ELEMENT).getValue();
-        String action = getAndRemove(parameters, FormPostRequestData.ACTION_ELEMENT).getValue();
-        String method = getAndRemove(parameters, FormPostRequestData.METHOD_ELEMENT).getValue();
-        Long tid = Long.valueOf(Long.parseLong(getAndRemove(parameters, FormPostRequestData.TID_ELEMENT).getValue()));
-        boolean isUpload = Boolean.parseBoolean(getAndRemove(parameters, FormPostRequestData.UPLOAD_ELEMENT).getValue());
+        String type = fields.type.getValue();
+        String action = fields.action.getValue();
+        String method = fields.method.getValue();
+        Long tid = Long.valueOf(Long.parseLong(fields.tid.getValue()));
+        boolean isUpload = Boolean.parseBoolean(fields.upload.getValue());
 
-        return new FormPostRequestData(type, action, method, tid, isUpload, parameters, fileFields);
+        // the method receives the form as posted, routing fields included
+        return new FormPostRequestData(type, action, method, tid, isUpload, formParameters, fileFields);
     }
 
-    private static void checkNoMissingParameters(Form parameters) {
-        Assert.notNull(parameters);
+    private static void checkNoMissingParameters(RequestFields fields) {
+        Assert.notNull(fields);
 
         List<String> missingParameters = new ArrayList<String>();
-        addParameterIfMissing(parameters, FormPostRequestData.ACTION_ELEMENT, missingParameters);
-        addParameterIfMissing(parameters, FormPostRequestData.METHOD_ELEMENT, missingParameters);
-        addParameterIfMissing(parameters, FormPostRequestData.TYPE_ELEMENT, missingParameters);
-        addParameterIfMissing(parameters, FormPostRequestData.TID_ELEMENT, missingParameters);
-        addParameterIfMissing(parameters, FormPostRequestData.UPLOAD_ELEMENT, missingParameters);
+        addParameterIfMissing(fields.action, FormPostRequestData.ACTION_ELEMENT, missingParameters);
+        addParameterIfMissing(fields.method, FormPostRequestData.METHOD_ELEMENT, missingParameters);
+        addParameterIfMissing(fields.type, FormPostRequestData.TYPE_ELEMENT, missingParameters);
+        addParameterIfMissing(fields.tid, FormPostRequestData.TID_ELEMENT, missingParameters);
+        addParameterIfMissing(fields.upload, FormPostRequestData.UPLOAD_ELEMENT, missingParameters);
 
         if (!missingParameters.isEmpty()) {
             RequestException ex = RequestException.forFormPostMissingParameters(missingParameters);
@@ -80,12 +154,12 @@ public abstract class FormPostRequestProcessorBase extends StandardRequestProces
         }
     }
 
-    private static void addParameterIfMissing(Form parameters, String parameterName, List<String> missingParameters) {
-        Assert.notNull(parameters);
+    private static void addParameterIfMissing(Parameter parameter, String parameterName,
+                                              List<String> missingParameters) {
         Assert.hasText(parameterName);
         Assert.notNull(missingParameters);
 
-        if (parameters.getFirst(parameterName) == null) {
+        if (parameter == null) {
             missingParameters.add(parameterName);
         }
     }
@@ -110,4 +184,36 @@ public abstract class FormPostRequestProcessorBase extends StandardRequestProces
         }
     }
 
+    /**
+     * The Ext Direct routing fields of a form post, the first parameter of each name.
+     */
+    private static final class RequestFields {
+
+        private Parameter action;
+
+        private Parameter method;
+
+        private Parameter type;
+
+        private Parameter tid;
+
+        private Parameter upload;
+
+        /**
+         * Picks the routing fields of the form. A form read on demand is only parsed until the last of them, the
+         * parameters following it being left for the method. The values are only decoded when they are used.
+         * @param parameters the form.
+         * @return the routing fields, <code>null</code> for the missing ones.
+         */
+        public static RequestFields read(Form parameters) {
+            RequestFields fields = new RequestFields();
+            fields.action = parameters.getFirst(FormPostRequestData.ACTION_ELEMENT);
+            fields.method = parameters.getFirst(FormPostRequestData.METHOD_ELEMENT);
+            fields.type = parameters.getFirst(FormPostRequestData.TYPE_ELEMENT);
+            fields.tid = parameters.getFirst(FormPostRequestData.TID_ELEMENT);
+            fields.upload = parameters.getFirst(FormPostRequestData.UPLOAD_ELEMENT);
+            return fields;
+        }
+    }
+
 }
\ No newline at end of file
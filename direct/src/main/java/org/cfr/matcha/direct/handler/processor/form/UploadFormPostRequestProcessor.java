@@ -27,6 +27,11 @@ public class UploadFormPostRequestProcessor extends FormPostRequestProcessorBase
         super(registry, dispatcher, globalConfiguration);
     }
 
+    public UploadFormPostRequestProcessor(Registry registry, Dispatcher dispatcher, GlobalConfiguration globalConfiguration,
+            long callTimeoutMillis) {
+        super(registry, dispatcher, globalConfiguration, callTimeoutMillis);
+    }
+
     public void process(List<FileItem> fileItems, Writer writer) throws IOException {
         assert fileItems != null;
         assert writer != null;
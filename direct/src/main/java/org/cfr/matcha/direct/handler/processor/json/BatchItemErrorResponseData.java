@@ -0,0 +1,69 @@
+package org.cfr.matcha.direct.handler.processor.json;
+
+import javax.annotation.Nullable;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.softwarementors.extjs.djn.router.processor.ErrorResponseData;
+
+/**
+ * Error response of an item of a JSON batch which is not a valid request, answering its transaction if the item has
+ * a transaction id.
+ *
+ * @author devacfr
+ * @since 1.0
+ */
+public class BatchItemErrorResponseData extends ErrorResponseData {
+
+    private final Long tid;
+
+    private final String action;
+
+    private final String method;
+
+    /**
+     *
+     * @param item the item, <code>null</code> if it could not be read.
+     * @param exception the failure.
+     * @param debugOn <code>true</code> to report where the failure occurred.
+     */
+    public BatchItemErrorResponseData(@Nullable JsonElement item, Throwable exception, boolean debugOn) {
+        super(exception, debugOn);
+        JsonObject request = item != null && item.isJsonObject() ? item.getAsJsonObject() : null;
+        JsonElement tid = getMember(request, JsonRequestData.TID_ELEMENT);
+        this.tid = tid != null && tid.getAsJsonPrimitive().isNumber() ? Long.valueOf(tid.getAsLong()) : null;
+        JsonElement action = getMember(request, JsonRequestData.ACTION_ELEMENT);
+        this.action = action != null ? action.getAsString() : null;
+        JsonElement method = getMember(request, JsonRequestData.METHOD_ELEMENT);
+        this.method = method != null ? method.getAsString() : null;
+    }
+
+    /**
+     *
+     * @return the transaction id of the item, <code>null</code> if it has none.
+     */
+    @Nullable
+    public Long getTid() {
+        return tid;
+    }
+
+    @Nullable
+    public String getAction() {
+        return action;
+    }
+
+    @Nullable
+    public String getMethod() {
+        return method;
+    }
+
+    /**
+     *
+     * @return the member of the request if it is a JSON primitive, <code>null</code> otherwise.
+     */
+    @Nullable
+    private static JsonElement getMember(@Nullable JsonObject request, String name) {
+        JsonElement member = request != null ? request.get(name) : null;
+        return member != null && member.isJsonPrimitive() ? member : null;
+    }
+}
@@ -0,0 +1,199 @@
+package org.cfr.matcha.direct.handler.processor.json;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+import javax.annotation.Nonnull;
+
+import org.cfr.matcha.api.direct.DirectMethod;
+
+/**
+ * Schedules the individual requests of a multithreaded batch on an executor, in the order they are read.
+ * <p>
+ * A call of a {@link DirectMethod#parallelSafe() parallel-safe} method starts as soon as it is submitted. The other
+ * calls may change state: each one starts when the previous one is finished, so that they run in the order of the
+ * batch, at the same time as the parallel-safe calls. A call is finished when its method has returned and its
+ * response is complete: a call answered by its deadline while its method still runs, the interruption of its thread
+ * being cooperative, holds the next ones until its method returns.
+ * </p>
+ * <p>
+ * A call ready to start takes one of the threads of the batch when it starts: if there are too many calls running, it
+ * waits for one of them to return, the waiting calls starting in the order they became ready. A call waiting for the
+ * previous sequential call holds no thread, and the batch is read without waiting for the calls.
+ * </p>
+ * <p>
+ * The calls of {@link DirectMethod#background() background} methods run on the background executor, without taking
+ * one of the threads of the batch: the interactive calls of the batch are never held behind them.
+ * </p>
+ * <p>
+ * A scheduler is used by a single batch, and {@link #submit(Supplier, boolean, boolean)} is called by the thread
+ * reading it.
+ * </p>
+ * @author devacfr
+ * @since 1.0
+ */
+final class BatchScheduler {
+
+    private final Executor executor;
+
+    private final Executor backgroundExecutor;
+
+    /** bounds the number of individual requests of the batch running at the same time */
+    private final Semaphore permits;
+
+    /** the calls ready to start, waiting for a permit */
+    private final Queue<Call> waitingCalls = new ConcurrentLinkedQueue<Call>();
+
+    /** completed when the last submitted call which is not parallel-safe is finished */
+    private CompletableFuture<Void> lastSequentialCall;
+
+    /**
+     *
+     * @param executor the executor running the individual requests.
+     * @param backgroundExecutor the executor running the individual requests of the background methods.
+     * @param maxThreads the maximum number of individual requests of the batch running at the same time.
+     */
+    public BatchScheduler(@Nonnull final Executor executor, @Nonnull final Executor backgroundExecutor,
+            final int maxThreads) {
+        this.executor = executor;
+        this.backgroundExecutor = backgroundExecutor;
+        this.permits = new Semaphore(maxThreads);
+    }
+
+    /**
+     * Schedules an individual request, without waiting for it to start.
+     * @param call processes the individual request, returning its response.
+     * @param parallelSafe <code>true</code> if the request can run at the same time as the other requests.
+     * @param background <code>true</code> if the request runs on the background executor.
+     * @return the response of the request, completed exceptionally if the executor rejects it.
+     */
+    @Nonnull
+    public CompletableFuture<String> submit(@Nonnull final Supplier<CompletableFuture<String>> call,
+                                            final boolean parallelSafe, final boolean background) {
+        final Call task = new Call(call, background);
+        if (parallelSafe || lastSequentialCall == null) {
+            ready(task);
+        } else {
+            lastSequentialCall.whenComplete(new BiConsumer<Void, Throwable>() {
+
+                @Override
+                public void accept(Void previousCall, Throwable error) {
+                    ready(task);
+                }
+            });
+        }
+        if (!parallelSafe) {
+            lastSequentialCall = task.finished;
+        }
+        return task.response;
+    }
+
+    /**
+     * Starts a call ready to start, or queues it until one of the running calls returns.
+     */
+    private void ready(Call call) {
+        if (call.background) {
+            execute(backgroundExecutor, call);
+            return;
+        }
+        waitingCalls.add(call);
+        startWaitingCalls();
+    }
+
+    /**
+     * Starts the waiting calls while there are permits left. Called when a call is queued and when a permit is
+     * released, so that a call queued while the last running call returns is not left waiting.
+     */
+    private void startWaitingCalls() {
+        while (!waitingCalls.isEmpty() && permits.tryAcquire()) {
+            Call call = waitingCalls.poll();
+            if (call == null) {
+                // started by another thread meanwhile
+                permits.release();
+            } else if (!execute(executor, call)) {
+                permits.release();
+            }
+        }
+    }
+
+    /**
+     * @return <code>false</code> if the executor rejects the call, its response being completed exceptionally.
+     */
+    private static boolean execute(Executor executor, Call call) {
+        try {
+            executor.execute(call);
+            return true;
+        } catch (RejectedExecutionException ex) {
+            call.response.completeExceptionally(ex);
+            call.finished.complete(null);
+            return false;
+        }
+    }
+
+    /**
+     * An individual request of the batch, holding one of the threads of the batch while its method runs, unless it
+     * runs on the background executor.
+     */
+    private final class Call implements Runnable {
+
+        private final Supplier<CompletableFuture<String>> call;
+
+        private final boolean background;
+
+        private final CompletableFuture<String> response = new CompletableFuture<String>();
+
+        private final CompletableFuture<Void> finished = new CompletableFuture<Void>();
+
+        public Call(final Supplier<CompletableFuture<String>> call, final boolean background) {
+            this.call = call;
+            this.background = background;
+        }
+
+        @Override
+        public void run() {
+            CompletableFuture<String> result = null;
+            try {
+                result = call.get();
+            } catch (RuntimeException ex) {
+                response.completeExceptionally(ex);
+                finished.complete(null);
+                return;
+            } catch (Error ex) {
+                response.completeExceptionally(ex);
+                finished.complete(null);
+                throw ex;
+            } finally {
+                // the permit is released when the method returns, not when an asynchronous result completes
+                if (!background) {
+                    permits.release();
+                    startWaitingCalls();
+                }
+            }
+            result.whenComplete(new BiConsumer<String, Throwable>() {
+
+                @Override
+                public void accept(String value, Throwable error) {
+                    if (error != null) {
+                        response.completeExceptionally(error);
+                    } else {
+                        response.complete(value);
+                    }
+                }
+            });
+            // completed by the result, or earlier by the deadline of the call
+            response.whenComplete(new BiConsumer<String, Throwable>() {
+
+                @Override
+                public void accept(String value, Throwable error) {
+                    finished.complete(null);
+                }
+            });
+        }
+    }
+}
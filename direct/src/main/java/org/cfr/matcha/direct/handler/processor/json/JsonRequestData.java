@@ -0,0 +1,66 @@
+package org.cfr.matcha.direct.handler.processor.json;
+
+import javax.annotation.Nullable;
+
+import com.google.gson.JsonArray;
+import com.softwarementors.extjs.djn.router.processor.standard.StandardRequestData;
+
+/**
+ * Individual request of a JSON batch.
+ * <p>
+ * Replaces the DirectJNgine class, which can not be created outside of its package.
+ * </p>
+ * @author devacfr
+ * @since 1.0
+ */
+public class JsonRequestData extends StandardRequestData {
+
+    public static final String ACTION_ELEMENT = com.softwarementors.extjs.djn.router.processor.standard.json.JsonRequestData.ACTION_ELEMENT;
+
+    public static final String METHOD_ELEMENT = com.softwarementors.extjs.djn.router.processor.standard.json.JsonRequestData.METHOD_ELEMENT;
+
+    public static final String TID_ELEMENT = com.softwarementors.extjs.djn.router.processor.standard.json.JsonRequestData.TID_ELEMENT;
+
+    public static final String TYPE_ELEMENT = com.softwarementors.extjs.djn.router.processor.standard.json.JsonRequestData.TYPE_ELEMENT;
+
+    public static final String DATA_ELEMENT = com.softwarementors.extjs.djn.router.processor.standard.json.JsonRequestData.DATA_ELEMENT;
+
+    /**
+     * the optional element of the deadline of the call requested by the client, in milliseconds.
+     */
+    public static final String TIMEOUT_ELEMENT = "timeout";
+
+    private final JsonArray jsonData;
+
+    private final Long timeout;
+
+    public JsonRequestData(String type, String action, String method, Long tid, @Nullable JsonArray jsonData) {
+        this(type, action, method, tid, jsonData, null);
+    }
+
+    public JsonRequestData(String type, String action, String method, Long tid, @Nullable JsonArray jsonData,
+            @Nullable Long timeout) {
+        super(type, action, method, tid);
+        this.jsonData = jsonData;
+        this.timeout = timeout;
+    }
+
+    /**
+     * 
+     * @return the method arguments, <code>null</code> if the request has no data.
+     */
+    @Nullable
+    public JsonArray getJsonData() {
+        return jsonData;
+    }
+
+    /**
+     * 
+     * @return the deadline of the call requested by the client in milliseconds, <code>null</code> if none.
+     */
+    @Nullable
+    public Long getTimeout() {
+        return timeout;
+    }
+
+}
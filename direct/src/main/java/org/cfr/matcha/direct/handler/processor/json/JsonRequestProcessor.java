@@ -0,0 +1,907 @@
+package org.cfr.matcha.direct.handler.processor.json;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+import javax.annotation.Nullable;
+
+import org.cfr.matcha.direct.handler.processor.ProcessorUtil;
+import org.cfr.matcha.direct.spi.BatchExecutionMode;
+import org.cfr.matcha.direct.spi.CallTimeoutException;
+import org.cfr.matcha.direct.spi.DefaultDispatcher;
+import org.cfr.matcha.direct.spi.MethodEntry;
+import org.cfr.matcha.direct.spi.ResultCache;
+import org.cfr.matcha.direct.spi.invoker.IJsonArgumentConverter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+import com.softwarementors.extjs.djn.ClassUtils;
+import com.softwarementors.extjs.djn.UnexpectedException;
+import com.softwarementors.extjs.djn.api.RegisteredStandardMethod;
+import com.softwarementors.extjs.djn.api.Registry;
+import com.softwarementors.extjs.djn.config.GlobalConfiguration;
+import com.softwarementors.extjs.djn.gson.JsonDeserializationManager;
+import com.softwarementors.extjs.djn.gson.JsonException;
+import com.softwarementors.extjs.djn.router.TransferType;
+import com.softwarementors.extjs.djn.router.dispatcher.Dispatcher;
+import com.softwarementors.extjs.djn.router.processor.RequestException;
+import com.softwarementors.extjs.djn.router.processor.standard.StandardErrorResponseData;
+import com.softwarementors.extjs.djn.router.processor.standard.StandardSuccessResponseData;
+import com.softwarementors.extjs.djn.router.processor.standard.json.DefaultJsonRequestProcessorThread;
+
+/**
+ * Thread-safe JSON request processor, a single instance is shared by all requests of a router.
+ * <p>
+ * The {@link Gson} instance is created once at construction and returned without synchronisation.
+ * </p>
+ * <p>
+ * The individual requests are processed here instead of in DirectJNgine, so that the JSON arguments of a method can
+ * be passed to a generated invoker of the {@link DefaultDispatcher} without converting them first to an array of
+ * objects. A batch using a custom {@link com.softwarementors.extjs.djn.router.processor.standard.json.JsonRequestProcessorThread
+ * JsonRequestProcessorThread} is still processed by DirectJNgine.
+ * </p>
+ * <p>
+ * The request body is read with a streaming {@link JsonReader}: each individual request of a batch is dispatched as
+ * soon as it has been read, so neither the request string nor the JSON tree of the whole batch is held in memory.
+ * Likewise each response is written to the writer as soon as it is ready, in the order of the requests.
+ * </p>
+ * <p>
+ * A method may return a {@link CompletionStage}: its response is completed when the stage completes, without
+ * holding a thread. All the calls of a batch are dispatched before waiting for the first response, so that
+ * asynchronous calls run in parallel even when the batch is processed in a single thread.
+ * </p>
+ * <p>
+ * When batch multithreading is enabled, the calls are scheduled by a {@link BatchScheduler}: the calls of
+ * parallel-safe methods run at the same time, the other calls keep the order of the batch. The calls of background
+ * methods run apart, in the background lane of {@link BatchExecutionMode}.
+ * </p>
+ * <p>
+ * The results of a method declared with {@code @DirectMethod(cacheTtlMillis = ...)} are kept serialized in its
+ * {@link ResultCache}: a hit is written as is in the response, without invoking the method.
+ * </p>
+ * <p>
+ * A call may have a deadline: the one of {@code @DirectMethod(timeoutMillis = ...)} or else the default call timeout,
+ * which the client may shorten with the <code>timeout</code> element of the call. A call not answered at its deadline
+ * receives a timeout error response, the other calls of the batch being answered as usual: an asynchronous result is
+ * cancelled, and the thread of a multithreaded batch running the call is interrupted. A call running in the thread of
+ * the request can not be stopped, its deadline applies only to the asynchronous result it returns.
+ * </p>
+ * @author devacfr
+ * @since 1.0
+ */
+public class JsonRequestProcessor extends com.softwarementors.extjs.djn.router.processor.standard.json.JsonRequestProcessor
+        implements IJsonArgumentConverter {
+
+    private static final Logger logger = LoggerFactory.getLogger(JsonRequestProcessor.class);
+
+    private final Gson gson;
+
+    private final JsonParser parser = new JsonParser();
+
+    /**
+     * the timer expiring the calls at their deadline, shared by all processors.
+     */
+    private static final ScheduledThreadPoolExecutor deadlineTimer = createDeadlineTimer();
+
+    private final BatchExecutionMode batchExecutionMode;
+
+    private final long callTimeoutMillis;
+
+    /** the executors of the multithreaded batches, created on first use and guarded by this processor */
+    private ExecutorService batchExecutor;
+
+    private ExecutorService backgroundExecutor;
+
+    private boolean shutdown;
+
+    public JsonRequestProcessor(Registry registry, Dispatcher dispatcher, GlobalConfiguration globalConfiguration) {
+        this(registry, dispatcher, globalConfiguration, BatchExecutionMode.THREAD_POOL);
+    }
+
+    public JsonRequestProcessor(Registry registry, Dispatcher dispatcher, GlobalConfiguration globalConfiguration,
+            BatchExecutionMode batchExecutionMode) {
+        this(registry, dispatcher, globalConfiguration, batchExecutionMode, 0);
+    }
+
+    /**
+     * 
+     * @param registry the registry.
+     * @param dispatcher the dispatcher.
+     * @param globalConfiguration the configuration.
+     * @param batchExecutionMode the threads running the individual requests of a multithreaded batch.
+     * @param callTimeoutMillis the default deadline of a call in milliseconds, zero or less for no deadline.
+     */
+    public JsonRequestProcessor(Registry registry, Dispatcher dispatcher, GlobalConfiguration globalConfiguration,
+            BatchExecutionMode batchExecutionMode, long callTimeoutMillis) {
+        super(registry, dispatcher, globalConfiguration);
+        this.gson = ProcessorUtil.createGson(globalConfiguration);
+        this.batchExecutionMode = batchExecutionMode;
+        this.callTimeoutMillis = callTimeoutMillis;
+    }
+
+    /**
+     * Shuts down the executors of the multithreaded batches, the calls already running being completed. A batch
+     * processed afterwards runs in the calling thread.
+     */
+    public synchronized void shutdown() {
+        shutdown = true;
+        if (batchExecutor != null) {
+            batchExecutor.shutdown();
+        }
+        if (backgroundExecutor != null) {
+            backgroundExecutor.shutdown();
+        }
+    }
+
+    /**
+     * 
+     * @return the scheduler of a multithreaded batch, <code>null</code> once the processor is shut down.
+     */
+    @Nullable
+    private synchronized BatchScheduler createBatchScheduler() {
+        if (shutdown) {
+            return null;
+        }
+        if (batchExecutor == null) {
+            batchExecutor = batchExecutionMode.createExecutor(getGlobalConfiguration());
+            backgroundExecutor = BatchExecutionMode.createBackgroundExecutor(getGlobalConfiguration());
+        }
+        return new BatchScheduler(batchExecutor, backgroundExecutor,
+                getGlobalConfiguration().getBatchRequestsMaxThreadsPerRequest());
+    }
+
+    private static ScheduledThreadPoolExecutor createDeadlineTimer() {
+        ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1,
+                new ThreadFactoryBuilder().setNameFormat("matcha-direct-deadline-timer-%d").setDaemon(true).build());
+        // the deadlines of the answered calls do not stay in the queue
+        timer.setRemoveOnCancelPolicy(true);
+        return timer;
+    }
+
+    /**
+     * Processes a JSON request, writing the responses to the writer as soon as they are ready.
+     * <p>
+     * The responses are not kept, <code>null</code> is returned unless the request is processed by DirectJNgine.
+     * </p>
+     * @param reader the request body.
+     * @param writer the response writer.
+     * @return <code>null</code>, or the response if the request is processed by DirectJNgine.
+     * @throws IOException if an I/O error occurs.
+     */
+    @Override
+    public String process(Reader reader, Writer writer) throws IOException {
+        GlobalConfiguration configuration = getGlobalConfiguration();
+        if (configuration.getBatchRequestsMultithreadingEnabled()
+                && !DefaultJsonRequestProcessorThread.class.equals(configuration.getJsonRequestProcessorThreadClass())) {
+            return super.process(reader, writer);
+        }
+
+        JsonReader jsonReader = new JsonReader(reader);
+        jsonReader.setLenient(true);
+        try {
+            processIndividualRequests(jsonReader, writer);
+        } catch (MalformedJsonException e) {
+            throw new JsonSyntaxException(e);
+        }
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected Gson getGson() {
+        return gson;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected JsonParser getJsonParser() {
+        return parser;
+    }
+
+    /**
+     * Processes an individual request.
+     * @param request the request.
+     * @param entry the entry of the method, <code>null</code> if not dispatched by a {@link DefaultDispatcher}.
+     * @param isBatched <code>true</code> if the request is part of a batch.
+     * @param requestNumber the position of the request in the batch.
+     * @return the JSON response, completed when the value returned by the method is available.
+     */
+    protected CompletableFuture<String> processIndividualRequest(final JsonRequestData request,
+                                                                 @Nullable final MethodEntry entry,
+                                                                 final boolean isBatched, final int requestNumber) {
+        Object result = null;
+        ResultCache cache = null;
+        String cacheKey = null;
+        long cacheGeneration = 0;
+        try {
+            if (logger.isDebugEnabled()) {
+                if (isBatched) {
+                    logger.debug("  - Individual request #" + requestNumber + " request data=>"
+                            + getGson().toJson(request));
+                } else {
+                    logger.debug("Request data (JSON)=>" + getGson().toJson(request));
+                }
+            }
+            cache = entry != null ? entry.getResultCache() : null;
+            if (cache != null) {
+                cacheKey = ResultCache.createKey(request.getJsonData());
+                // read before the call, a result computed while the cache is invalidated being dropped
+                cacheGeneration = cache.getGeneration();
+                String cachedResult = cache.get(cacheKey);
+                if (cachedResult != null) {
+                    return CompletableFuture.completedFuture(createSuccessResponse(request, cachedResult));
+                }
+            }
+            result = dispatchStandardMethod(request, entry);
+        } catch (Exception t) {
+            return CompletableFuture.completedFuture(createErrorResponse(request, t));
+        }
+        if (!(result instanceof CompletionStage)) {
+            return CompletableFuture.completedFuture(createSuccessResponse(request, result, isBatched, requestNumber,
+                cache, cacheKey, cacheGeneration));
+        }
+
+        final ResultCache resultCache = cache;
+        final String resultCacheKey = cacheKey;
+        final long resultCacheGeneration = cacheGeneration;
+        final CompletionStage<?> stage = (CompletionStage<?>) result;
+        final CompletableFuture<String> response = new CompletableFuture<String>();
+        // the stage returned to the first of coalesced calls is shared with the others, which have their own deadline
+        final boolean ownedStage = entry == null || !entry.isCoalesced();
+        final ScheduledFuture<?> expiration = scheduleDeadline(request, response, getCallTimeout(request, entry),
+            new Runnable() {
+
+                @Override
+                public void run() {
+                    if (ownedStage && stage instanceof Future) {
+                        ((Future<?>) stage).cancel(true);
+                    }
+                }
+            });
+        stage.whenComplete(new BiConsumer<Object, Throwable>() {
+
+            @Override
+            public void accept(Object value, Throwable error) {
+                if (expiration != null) {
+                    expiration.cancel(false);
+                }
+                if (response.isDone()) {
+                    return;
+                }
+                if (error != null) {
+                    response.complete(createErrorResponse(request, unwrapAsyncException(error)));
+                } else {
+                    response.complete(createSuccessResponse(request, value, isBatched, requestNumber, resultCache,
+                        resultCacheKey, resultCacheGeneration));
+                }
+            }
+        });
+        return response;
+    }
+
+    private String createSuccessResponse(JsonRequestData request, Object result, boolean isBatched,
+                                         int requestNumber, ResultCache cache, String cacheKey,
+                                         long cacheGeneration) {
+        try {
+            StandardSuccessResponseData response = new StandardSuccessResponseData(request.getTid(),
+                    request.getAction(), request.getMethod());
+            JsonDeserializationManager mgr = JsonDeserializationManager.getManager();
+            try {
+                mgr.friendOnlyAccess_setRoot(result);
+                String json = null;
+                if (cache != null) {
+                    String resultJson = getGson().toJson(result);
+                    cache.put(cacheKey, resultJson, cacheGeneration);
+                    json = createSuccessResponse(request, resultJson);
+                } else {
+                    response.setResult(result);
+                    json = getGson().toJson(response);
+                }
+                if (logger.isDebugEnabled()) {
+                    if (isBatched) {
+                        logger.debug("  - Individual request #" + requestNumber + " response data=>" + json);
+                    } else {
+                        logger.debug("ResponseData data (JSON)=>" + json);
+                    }
+                }
+                return json;
+            } finally {
+                mgr.friendOnlyAccess_dispose(); // Cleanup in case we are reusing thread
+            }
+        } catch (Exception t) {
+            return createErrorResponse(request, t);
+        }
+    }
+
+    /**
+     * Creates a success response around a result already serialized to JSON, with the members of a
+     * {@link StandardSuccessResponseData} in the order they are serialized.
+     */
+    private String createSuccessResponse(JsonRequestData request, String resultJson) {
+        StringBuilder json = new StringBuilder(resultJson.length() + 80);
+        json.append("{\"tid\":").append(request.getTid());
+        json.append(",\"action\":").append(getGson().toJson(request.getAction()));
+        json.append(",\"method\":").append(getGson().toJson(request.getMethod()));
+        json.append(",\"result\":").append(resultJson);
+        json.append(",\"type\":\"").append(TransferType.RPC).append("\"}");
+        return json.toString();
+    }
+
+    private String createErrorResponse(JsonRequestData request, Throwable t) {
+        StandardErrorResponseData response = createJsonServerErrorResponse(request, t);
+        String json = getGson().toJson(response);
+        logger.error("(Controlled) server error: " + t.getMessage() + " for Method '" + request.getFullMethodName()
+                + "'", t);
+        return json;
+    }
+
+    /**
+     * 
+     * @return the deadline of the call in milliseconds, zero for none: the deadline of the method, or else the default
+     *         one, shortened by the client.
+     */
+    private long getCallTimeout(JsonRequestData request, MethodEntry entry) {
+        long timeout = entry != null && entry.getTimeoutMillis() != 0 ? entry.getTimeoutMillis() : callTimeoutMillis;
+        Long requested = request.getTimeout();
+        if (requested != null && requested.longValue() > 0 && (timeout <= 0 || requested.longValue() < timeout)) {
+            return requested.longValue();
+        }
+        return Math.max(timeout, 0);
+    }
+
+    /**
+     * Completes the response of a call with a timeout error at its deadline, if it is not complete yet.
+     * @param onExpired run when the response is completed by the deadline, stopping the call.
+     * @return the deadline, to be cancelled when the call completes, <code>null</code> if the call has none.
+     */
+    private ScheduledFuture<?> scheduleDeadline(final JsonRequestData request, final CompletableFuture<String> response,
+                                                final long timeout, final Runnable onExpired) {
+        if (timeout <= 0) {
+            return null;
+        }
+        return deadlineTimer.schedule(new Runnable() {
+
+            @Override
+            public void run() {
+                CallTimeoutException ex = CallTimeoutException.forDeadlineExceeded(request.getFullMethodName(), timeout);
+                if (response.complete(createErrorResponse(request, ex))) {
+                    onExpired.run();
+                }
+            }
+        }, timeout, TimeUnit.MILLISECONDS);
+    }
+
+    private static Throwable unwrapAsyncException(Throwable error) {
+        if ((error instanceof CompletionException || error instanceof ExecutionException) && error.getCause() != null) {
+            return error.getCause();
+        }
+        return error;
+    }
+
+    /**
+     * Dispatches the method of a request with its JSON arguments.
+     * <p>
+     * With a {@link DefaultDispatcher}, the method is resolved with a single lookup in its method table, and the
+     * arguments are passed as is to a generated invoker when the method has one. Otherwise the method is resolved in
+     * the registry and the arguments are converted to the parameter types. A {@link DefaultDispatcher} also coalesces the
+     * identical calls of the methods declared with {@code @DirectMethod(coalesce = true)}.
+     * </p>
+     * @param request the request.
+     * @param entry the entry of the method in the table of the {@link DefaultDispatcher}, resolved once per call,
+     *            <code>null</code> if the method is resolved in the registry.
+     * @return the value returned by the method.
+     */
+    protected Object dispatchStandardMethod(JsonRequestData request, @Nullable MethodEntry entry) {
+        final JsonArray jsonData = request.getJsonData();
+        Dispatcher dispatcher = getDispatcher();
+        if (entry == null) {
+            RegisteredStandardMethod method = getStandardMethod(request.getAction(), request.getMethod());
+            if (method.getHandleParametersAsJsonArray()) {
+                return dispatcher.dispatch(method, new Object[] { jsonData });
+            }
+            Class<?>[] parameterTypes = method.getParameterTypes();
+            checkJsonArguments(method, jsonData, parameterTypes);
+            return dispatcher.dispatch(method,
+                jsonDataToMethodParameters(method, jsonData, parameterTypes, method.getGsonParameterTypes()));
+        }
+
+        final DefaultDispatcher defaultDispatcher = (DefaultDispatcher) dispatcher;
+        if (entry.isCoalesced()) {
+            final MethodEntry coalescedEntry = entry;
+            return defaultDispatcher.dispatchCoalesced(entry, jsonData, new Supplier<Object>() {
+
+                @Override
+                public Object get() {
+                    return dispatchEntry(defaultDispatcher, coalescedEntry, jsonData);
+                }
+            });
+        }
+        return dispatchEntry(defaultDispatcher, entry, jsonData);
+    }
+
+    private Object dispatchEntry(DefaultDispatcher defaultDispatcher, MethodEntry entry, JsonArray jsonData) {
+        RegisteredStandardMethod method = (RegisteredStandardMethod) entry.getMethod();
+        if (entry.isHandleParametersAsJsonArray()) {
+            return defaultDispatcher.dispatch(entry, new Object[] { jsonData });
+        }
+        checkJsonArguments(method, jsonData, entry.getParameterTypes());
+        if (entry.isJsonInvoker()) {
+            try {
+                return defaultDispatcher.dispatchJson(entry, jsonData, this);
+            } catch (JsonParseException ex) {
+                throw JsonException.forFailedConversionFromJsonStringToMethodParameters(method,
+                    String.valueOf(jsonData),
+                    entry.getParameterTypes(),
+                    entry.getGsonParameterTypes(),
+                    ex);
+            }
+        }
+        return defaultDispatcher.dispatch(entry,
+            jsonDataToMethodParameters(method, jsonData, entry.getParameterTypes(), entry.getGsonParameterTypes()));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Object convert(JsonElement jsonValue, Class<?> parameterType, Type gsonType) {
+        if (jsonValue.isJsonNull()) {
+            return null;
+        }
+
+        // Handle string in a special way, due to possibility of having a Java char type in the Java side
+        if (isString(jsonValue)) {
+            if (parameterType.equals(String.class)) {
+                return jsonValue.getAsString();
+            }
+            if (parameterType.equals(char.class) || parameterType.equals(Character.class)) {
+                return Character.valueOf(jsonValue.getAsString().charAt(0));
+            }
+        }
+
+        // If the Java parameter is an array, but we are receiving a single item, we try to convert
+        // the item to a single item array so that the Java method can digest it
+        boolean fakeJsonArrayForManyValuedClasses = JsonDeserializationManager.isManyValuedClass(parameterType)
+                && !jsonValue.isJsonArray();
+
+        Type typeToInstantiate = gsonType != null ? gsonType : parameterType;
+        JsonElement json = jsonValue;
+        if (fakeJsonArrayForManyValuedClasses) {
+            JsonArray fakeJson = new JsonArray();
+            fakeJson.add(jsonValue);
+            json = fakeJson;
+        }
+        return getGson().fromJson(json, typeToInstantiate);
+    }
+
+    private Object[] jsonDataToMethodParameters(RegisteredStandardMethod method, JsonArray jsonData,
+                                                Class<?>[] parameterTypes, Type[] gsonParameterTypes) {
+        if (jsonData == null) {
+            return new Object[0];
+        }
+        try {
+            Object[] result = new Object[jsonData.size()];
+            for (int i = 0; i < result.length; i++) {
+                Type gsonType = gsonParameterTypes != null ? gsonParameterTypes[i] : null;
+                result[i] = convert(jsonData.get(i), parameterTypes[i], gsonType);
+            }
+            return result;
+        } catch (JsonParseException ex) {
+            throw JsonException.forFailedConversionFromJsonStringToMethodParameters(method,
+                jsonData.toString(),
+                parameterTypes,
+                gsonParameterTypes,
+                ex);
+        }
+    }
+
+    private void processIndividualRequests(JsonReader jsonReader, Writer writer) throws IOException {
+        JsonToken token = null;
+        try {
+            token = jsonReader.peek();
+        } catch (EOFException e) {
+            // empty request body
+            token = JsonToken.END_DOCUMENT;
+        }
+        if (token == JsonToken.BEGIN_OBJECT) {
+            JsonRequestData request = readIndividualJsonRequest(jsonReader);
+            checkEndOfDocument(jsonReader);
+            processIndividualRequest(request, writer);
+            return;
+        }
+        if (token != JsonToken.BEGIN_ARRAY) {
+            RequestException ex = RequestException.forRequestMustBeAValidJsonObjectOrArray();
+            logger.error(ex.getMessage(), ex);
+            throw ex;
+        }
+
+        jsonReader.beginArray();
+        if (!jsonReader.hasNext()) {
+            RequestException ex = RequestException.forRequestBatchMustHaveAtLeastOneRequest();
+            logger.error(ex.getMessage(), ex);
+            throw ex;
+        }
+        // the first request is held until we know whether it is alone in the array
+        JsonRequestData first = createIndividualJsonRequest(readBatchItem(jsonReader, 0));
+        if (!jsonReader.hasNext()) {
+            jsonReader.endArray();
+            checkEndOfDocument(jsonReader);
+            processIndividualRequest(first, writer);
+            return;
+        }
+
+        writer.write("[\n");
+        processIndividualRequests(first, jsonReader, writer);
+        writer.write("]");
+    }
+
+    private void processIndividualRequest(JsonRequestData request, Writer writer) throws IOException {
+        CompletableFuture<String> response = processIndividualRequest(request, getMethodEntry(request), false, 1);
+        try {
+            writer.write(response.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            response.cancel(false);
+            writer.write(createErrorResponse(request, e));
+        } catch (ExecutionException e) {
+            UnexpectedException ex = UnexpectedException.forExecutionExceptionShouldNotHappenBecauseProcessorHandlesExceptionsAsServerErrorResponses(e);
+            logger.error(ex.getMessage(), ex);
+            throw ex;
+        }
+    }
+
+    private void processIndividualRequests(JsonRequestData first, JsonReader jsonReader, Writer writer)
+            throws IOException {
+        BatchScheduler scheduler = getGlobalConfiguration().getBatchRequestsMultithreadingEnabled()
+                ? createBatchScheduler() : null;
+        // the entries are cleared as soon as their response is written
+        List<JsonRequestData> requests = new ArrayList<JsonRequestData>();
+        List<CompletableFuture<String>> responses = new ArrayList<CompletableFuture<String>>();
+        int written = 0;
+        // the item which could not be read, answered after the calls read before it and ending the batch
+        JsonObject item = null;
+        Exception failure = null;
+        try {
+            JsonRequestData request = first;
+            while (request != null) {
+                requests.add(request);
+                if (scheduler != null) {
+                    responses.add(submitIndividualRequest(scheduler, request, requests.size()));
+                } else {
+                    responses.add(processIndividualRequest(request, getMethodEntry(request), true, requests.size()));
+                }
+                written = writeResponses(writer, requests, responses, written, false);
+                request = null;
+                item = null;
+                try {
+                    if (jsonReader.hasNext()) {
+                        item = readBatchItem(jsonReader, requests.size());
+                        request = createIndividualJsonRequest(item);
+                    } else {
+                        jsonReader.endArray();
+                        checkEndOfDocument(jsonReader);
+                    }
+                } catch (IOException e) {
+                    failure = e;
+                } catch (RuntimeException e) {
+                    failure = e;
+                }
+            }
+            logBatchSize(requests.size());
+            written = writeResponses(writer, requests, responses, written, true);
+            if (failure != null) {
+                // the array already begun is closed, the following items being left unanswered
+                logger.error("(Controlled) server error: " + failure.getMessage() + " for the batch item "
+                        + requests.size(), failure);
+                writer.write(",");
+                writer.write(getGson().toJson(new BatchItemErrorResponseData(item, failure, getDebug())));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.error("(Controlled) server error cancelled a batch of " + requests.size()
+                    + " individual requests due to an InterruptedException exception. " + e.getMessage(), e);
+            for (int i = written; i < requests.size(); i++) {
+                responses.get(i).cancel(false);
+                StandardErrorResponseData response = createJsonServerErrorResponse(requests.get(i), e);
+                if (i > 0) {
+                    writer.write(",");
+                }
+                writer.write(getGson().toJson(response));
+            }
+        } catch (ExecutionException e) {
+            UnexpectedException ex = UnexpectedException.forExecutionExceptionShouldNotHappenBecauseProcessorHandlesExceptionsAsServerErrorResponses(e);
+            logger.error(ex.getMessage(), ex);
+            throw ex;
+        }
+    }
+
+    /**
+     * Writes the responses following the last written one, in the order of the requests.
+     * @return the number of responses written so far.
+     */
+    private static int writeResponses(Writer writer, List<JsonRequestData> requests,
+                                      List<CompletableFuture<String>> responses, int written, boolean wait)
+            throws IOException, InterruptedException, ExecutionException {
+        int i = written;
+        while (i < responses.size() && (wait || responses.get(i).isDone())) {
+            if (i > 0) {
+                writer.write(",");
+            }
+            writer.write(responses.get(i).get());
+            requests.set(i, null);
+            responses.set(i, null);
+            i++;
+        }
+        return i;
+    }
+
+    private CompletableFuture<String> submitIndividualRequest(BatchScheduler scheduler,
+                                                              final JsonRequestData request, final int requestNumber) {
+        final MethodEntry entry = getMethodEntry(request);
+        final RunningCall call = new RunningCall();
+        final CompletableFuture<String> response = scheduler.submit(new Supplier<CompletableFuture<String>>() {
+
+            @Override
+            public CompletableFuture<String> get() {
+                if (!call.enter()) {
+                    // answered by its deadline while queued
+                    return CompletableFuture.completedFuture(null);
+                }
+                try {
+                    return processIndividualRequest(request, entry, true, requestNumber);
+                } finally {
+                    call.exit();
+                }
+            }
+        }, entry != null && entry.isParallelSafe(), entry != null && entry.isBackground());
+        // the deadline runs from the time the call is scheduled, waiting in the batch included
+        final ScheduledFuture<?> expiration = scheduleDeadline(request, response, getCallTimeout(request, entry),
+            new Runnable() {
+
+                @Override
+                public void run() {
+                    call.expire();
+                }
+            });
+        if (expiration != null) {
+            response.whenComplete(new BiConsumer<String, Throwable>() {
+
+                @Override
+                public void accept(String value, Throwable error) {
+                    expiration.cancel(false);
+                }
+            });
+        }
+        return response;
+    }
+
+    /**
+     * 
+     * @return the entry of the method of the request, <code>null</code> if not dispatched by a
+     *         {@link DefaultDispatcher}.
+     */
+    private MethodEntry getMethodEntry(JsonRequestData request) {
+        Dispatcher dispatcher = getDispatcher();
+        if (!(dispatcher instanceof DefaultDispatcher)) {
+            return null;
+        }
+        return ((DefaultDispatcher) dispatcher).getMethodEntry(request.getAction(), request.getMethod());
+    }
+
+    private static void logBatchSize(int size) {
+        if (logger.isDebugEnabled()) {
+            logger.debug("Batched request: " + size + " individual requests batched");
+        }
+    }
+
+    private JsonObject readBatchItem(JsonReader jsonReader, int index) throws IOException {
+        if (jsonReader.peek() != JsonToken.BEGIN_OBJECT) {
+            RequestException ex = RequestException.forRequestBatchItemMustBeAValidJsonObject(index);
+            logger.error(ex.getMessage(), ex);
+            throw ex;
+        }
+        return (JsonObject) getJsonParser().parse(jsonReader);
+    }
+
+    private JsonRequestData readIndividualJsonRequest(JsonReader jsonReader) {
+        return createIndividualJsonRequest((JsonObject) getJsonParser().parse(jsonReader));
+    }
+
+    private static void checkEndOfDocument(JsonReader jsonReader) throws IOException {
+        if (jsonReader.peek() != JsonToken.END_DOCUMENT) {
+            throw new JsonSyntaxException("Did not consume the entire document.");
+        }
+    }
+
+    private static JsonRequestData createIndividualJsonRequest(JsonObject element) {
+        String action = getNonEmptyJsonString(element, JsonRequestData.ACTION_ELEMENT);
+        String method = getNonEmptyJsonString(element, JsonRequestData.METHOD_ELEMENT);
+        Long tid = getNonEmptyJsonLong(element, JsonRequestData.TID_ELEMENT);
+        String type = getNonEmptyJsonString(element, JsonRequestData.TYPE_ELEMENT);
+        JsonArray jsonData = getMethodParametersJsonData(element);
+        return new JsonRequestData(type, action, method, tid, jsonData, getOptionalJsonLong(element,
+            JsonRequestData.TIMEOUT_ELEMENT));
+    }
+
+    private static Long getOptionalJsonLong(JsonObject object, String elementName) {
+        JsonElement element = object.get(elementName);
+        if (element == null || element.isJsonNull()) {
+            return null;
+        }
+        return getNonEmptyJsonLong(object, elementName);
+    }
+
+    private static JsonArray getMethodParametersJsonData(JsonObject object) {
+        JsonElement data = object.get(JsonRequestData.DATA_ELEMENT);
+        if (data == null) {
+            RequestException ex = RequestException.forJsonElementMissing(JsonRequestData.DATA_ELEMENT);
+            logger.error(ex.getMessage(), ex);
+            throw ex;
+        }
+        if (data.isJsonNull()) {
+            return null;
+        }
+        if (!data.isJsonArray()) {
+            RequestException ex = RequestException.forJsonElementMustBeAJsonArray(JsonRequestData.DATA_ELEMENT,
+                data.toString());
+            logger.error(ex.getMessage(), ex);
+            throw ex;
+        }
+        return (JsonArray) data;
+    }
+
+    private static JsonPrimitive getJsonPrimitive(JsonObject object, String elementName) {
+        JsonElement element = object.get(elementName);
+        if (element == null) {
+            RequestException ex = RequestException.forJsonElementMissing(elementName);
+            logger.error(ex.getMessage(), ex);
+            throw ex;
+        }
+        return element.isJsonPrimitive() ? (JsonPrimitive) element : null;
+    }
+
+    private static String getNonEmptyJsonString(JsonObject object, String elementName) {
+        JsonPrimitive value = getJsonPrimitive(object, elementName);
+        if (value == null || !value.isString() || value.getAsString().length() == 0) {
+            RequestException ex = RequestException.forJsonElementMustBeANonNullOrEmptyValue(elementName, String.class);
+            logger.error(ex.getMessage(), ex);
+            throw ex;
+        }
+        return value.getAsString();
+    }
+
+    private static Long getNonEmptyJsonLong(JsonObject object, String elementName) {
+        JsonPrimitive value = getJsonPrimitive(object, elementName);
+        if (value != null && value.isNumber()) {
+            try {
+                return Long.valueOf(value.toString());
+            } catch (NumberFormatException e) {
+                // reported below
+            }
+        }
+        RequestException ex = RequestException.forJsonElementMustBeANonNullOrEmptyValue(elementName, Long.class);
+        logger.error(ex.getMessage(), ex);
+        throw ex;
+    }
+
+    private static void checkJsonArguments(RegisteredStandardMethod method, JsonArray jsonData,
+                                           Class<?>[] parameterTypes) {
+        int argumentCount = jsonData == null ? 0 : jsonData.size();
+        if (argumentCount != parameterTypes.length) {
+            throw RequestException.forWrongMethodArgumentCount(method, argumentCount);
+        }
+        for (int i = 0; i < parameterTypes.length; i++) {
+            Class<?> parameterType = parameterTypes[i];
+            JsonElement jsonElement = jsonData.get(i);
+            if (!isValidJsonTypeForJavaType(jsonElement, parameterType)) {
+                throw new IllegalArgumentException("'" + jsonElement.toString()
+                        + "' is not a valid json text for the '" + parameterType.getName() + "' Java type");
+            }
+        }
+    }
+
+    private static boolean isValidJsonTypeForJavaType(JsonElement jsonElement, Class<?> parameterType) {
+        // Check json nulls
+        if (jsonElement.isJsonNull()) {
+            return !parameterType.isPrimitive();
+        }
+
+        if (parameterType.isArray()) {
+            // This is *always* ok because if the value is not a json array
+            // we will instantiate a single item array and attempt conversion
+            return true;
+        }
+
+        if (parameterType.equals(Boolean.class) || parameterType.equals(boolean.class)) {
+            return jsonElement.isJsonPrimitive() && ((JsonPrimitive) jsonElement).isBoolean();
+        } else if (parameterType.equals(char.class) || parameterType.equals(Character.class)) {
+            if (isString(jsonElement)) {
+                return jsonElement.getAsString().length() == 1;
+            }
+            return false;
+        } else if (parameterType.equals(String.class)) {
+            return isString(jsonElement);
+        } else if (ClassUtils.isNumericType(parameterType)) {
+            return jsonElement.isJsonPrimitive() && ((JsonPrimitive) jsonElement).isNumber();
+        }
+
+        // If we arrived here, assume somebody will know how to handle the json element, maybe customizing Gson's
+        // serialization
+        return true;
+    }
+
+    private static boolean isString(JsonElement element) {
+        return element.isJsonPrimitive() && ((JsonPrimitive) element).isString();
+    }
+
+    /**
+     * The thread running a call of a multithreaded batch, interrupted at the deadline of the call.
+     */
+    private static final class RunningCall {
+
+        /** guarded by the call */
+        private Thread thread;
+
+        /** guarded by the call */
+        private boolean expired;
+
+        /**
+         * 
+         * @return <code>false</code> if the call must not run, its deadline being past.
+         */
+        public synchronized boolean enter() {
+            if (expired) {
+                return false;
+            }
+            thread = Thread.currentThread();
+            return true;
+        }
+
+        public synchronized void exit() {
+            thread = null;
+            if (expired) {
+                // the pool thread is not left interrupted for the next call
+                Thread.interrupted();
+            }
+        }
+
+        public synchronized void expire() {
+            expired = true;
+            if (thread != null) {
+                thread.interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package org.cfr.matcha.direct.handler.processor.poll;
+
+import javax.annotation.Nullable;
+
+/**
+ * Receives the successive responses of a poll method streamed by a {@link PollEventStream}, and sends them to the
+ * client.
+ * @author devacfr
+ * @since 1.0
+ */
+public interface IPollEventSink {
+
+    /**
+     * Sends a poll response to the client.
+     * @param response the JSON poll response, <code>null</code> when a long poll expired without event or when the
+     *            result is unchanged.
+     * @return <code>false</code> if the client is gone, which ends the stream.
+     */
+    boolean send(@Nullable String response);
+}
@@ -0,0 +1,16 @@
+package org.cfr.matcha.direct.handler.processor.poll;
+
+import com.softwarementors.extjs.djn.router.processor.ErrorResponseData;
+
+/**
+ * Error response of a poll event.
+ * 
+ * @author devacfr
+ * @since 1.0
+ */
+public class PollErrorResponseData extends ErrorResponseData {
+
+    public PollErrorResponseData(Throwable exception, boolean debugOn) {
+        super(exception, debugOn);
+    }
+}
@@ -0,0 +1,267 @@
+package org.cfr.matcha.direct.handler.processor.poll;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BiConsumer;
+
+import javax.annotation.Nonnull;
+
+import org.cfr.commons.util.Assert;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.softwarementors.extjs.djn.UnexpectedException;
+
+/**
+ * Streams the events of a poll method over a single long-lived response, as Server-Sent Events or to any other
+ * {@link IPollEventSink}.
+ * <p>
+ * The poll method is called again as soon as its previous response has been written: at once if it is long-polled,
+ * after the poll interval otherwise. A long-polled method answering at once, its stage being already complete, or
+ * answering the same response as the previous one is called again after the poll interval as well, so that a client
+ * polling a cache or an idle source does not loop on a thread. Each response is sent as the data of an unnamed event, holding the JSON poll
+ * response DirectJNgine would have sent to a polling provider, so that the client-side provider can feed it as is into
+ * Ext Direct. An expired long poll or an unchanged result sends a comment instead, which keeps the connection alive
+ * and detects the clients gone. The stream ends when a write fails.
+ * </p>
+ * <p>
+ * The poll method and the poll parameters are resolved once, when the stream is created, and reused by every poll.
+ * </p>
+ * @author devacfr
+ * @since 1.0
+ */
+public class PollEventStream {
+
+    private static final Logger logger = LoggerFactory.getLogger(PollEventStream.class);
+
+    /**
+     * the content type of an event stream.
+     */
+    public static final String CONTENT_TYPE = "text/event-stream";
+
+    /**
+     * the default time in milliseconds between two calls of a poll method which is not long-polled.
+     */
+    public static final long DEFAULT_POLL_INTERVAL = 3000;
+
+    private final PollRequestProcessor processor;
+
+    private final PollRequest request;
+
+    private final String pathInfo;
+
+    private final IPollEventSink sink;
+
+    private final boolean longPolled;
+
+    private final long pollInterval;
+
+    private final CompletableFuture<Void> end = new CompletableFuture<Void>();
+
+    /**
+     * the last response sent, read and written by one poll at a time.
+     */
+    private String lastResponse;
+
+    /**
+     *
+     * @param processor the poll processor.
+     * @param requestString the poll parameters, URL encoded.
+     * @param pathInfo the path of the request, naming the event.
+     * @param writer the response writer, receiving the events as Server-Sent Events.
+     * @param pollInterval the time in milliseconds between two calls of a poll method which is not long-polled.
+     */
+    public PollEventStream(@Nonnull final PollRequestProcessor processor, @Nonnull final String requestString,
+            @Nonnull final String pathInfo, @Nonnull final Writer writer, final long pollInterval) {
+        this(processor, requestString, pathInfo, new ServerSentEventSink(writer, pathInfo), pollInterval);
+    }
+
+    /**
+     *
+     * @param processor the poll processor.
+     * @param requestString the poll parameters, URL encoded.
+     * @param pathInfo the path of the request, naming the event.
+     * @param sink sends the poll responses to the client.
+     * @param pollInterval the time in milliseconds between two calls of a poll method which is not long-polled.
+     */
+    public PollEventStream(@Nonnull final PollRequestProcessor processor, @Nonnull final String requestString,
+            @Nonnull final String pathInfo, @Nonnull final IPollEventSink sink, final long pollInterval) {
+        Assert.hasText(pathInfo);
+        Assert.notNull(sink);
+        this.processor = processor;
+        this.request = processor.resolve(requestString, pathInfo);
+        this.pathInfo = pathInfo;
+        this.sink = sink;
+        this.longPolled = request.isLongPolled();
+        this.pollInterval = pollInterval;
+    }
+
+    /**
+     * Streams the events without holding a thread: the responses are written by the executor when they are ready.
+     * @param executor the executor writing the responses and calling the poll method, so that neither the threads
+     *            publishing the events nor the timer of the polls write to the clients.
+     * @return completed when the stream ends, exceptionally if the executor rejects a task.
+     */
+    @Nonnull
+    public CompletableFuture<Void> start(@Nonnull final Executor executor) {
+        execute(executor, new Runnable() {
+
+            @Override
+            public void run() {
+                poll(executor);
+            }
+        });
+        return end;
+    }
+
+    /**
+     * Streams the events in the current thread, until a write fails.
+     * @throws IOException if the thread is interrupted.
+     */
+    public void run() throws IOException {
+        try {
+            while (true) {
+                CompletableFuture<PollResponse> pollResponse = processor.processAsync(request, true);
+                boolean immediate = pollResponse.isDone();
+                PollResponse response = pollResponse.get();
+                if (!sink.send(response.getJson())) {
+                    return;
+                }
+                response.delivered();
+                if (isDelayed(response.getJson(), immediate)) {
+                    Thread.sleep(pollInterval);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted event stream of '" + pathInfo + "'", e);
+        } catch (ExecutionException e) {
+            UnexpectedException ex = UnexpectedException.forExecutionExceptionShouldNotHappenBecauseProcessorHandlesExceptionsAsServerErrorResponses(e);
+            logger.error(ex.getMessage(), ex);
+            throw ex;
+        }
+    }
+
+    private void poll(final Executor executor) {
+        CompletableFuture<PollResponse> pollResponse = processor.processAsync(request, true);
+        final boolean immediate = pollResponse.isDone();
+        pollResponse.whenComplete(new BiConsumer<PollResponse, Throwable>() {
+
+            @Override
+            public void accept(final PollResponse response, final Throwable error) {
+                execute(executor, new Runnable() {
+
+                    @Override
+                    public void run() {
+                        send(executor, response, error, immediate);
+                    }
+                });
+            }
+        });
+    }
+
+    private void send(final Executor executor, PollResponse response, Throwable error, boolean immediate) {
+        if (error != null) {
+            end.completeExceptionally(error);
+            return;
+        }
+        if (!sink.send(response.getJson())) {
+            end.complete(null);
+            return;
+        }
+        response.delivered();
+        if (!isDelayed(response.getJson(), immediate)) {
+            poll(executor);
+        } else {
+            PollRequestProcessor.schedule(new Runnable() {
+
+                @Override
+                public void run() {
+                    // the timer only hands the poll over to the executor
+                    execute(executor, new Runnable() {
+
+                        @Override
+                        public void run() {
+                            poll(executor);
+                        }
+                    });
+                }
+            }, pollInterval);
+        }
+    }
+
+    /**
+     * @param response the response just sent, <code>null</code> for an expired long poll or an unchanged result.
+     * @param immediate <code>true</code> if the response was complete as soon as the poll method returned.
+     * @return <code>true</code> if the next poll waits for the poll interval.
+     */
+    private boolean isDelayed(String response, boolean immediate) {
+        boolean delayed = !longPolled || immediate || response != null && response.equals(lastResponse);
+        lastResponse = response;
+        return delayed;
+    }
+
+    /**
+     * Runs a task on the executor, ending the stream if the executor rejects it.
+     */
+    private void execute(Executor executor, Runnable task) {
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException ex) {
+            logger.warn("Event stream of '" + pathInfo + "' ended: " + ex.getMessage());
+            end.completeExceptionally(ex);
+        }
+    }
+
+    /**
+     * Writes the poll responses as Server-Sent Events.
+     */
+    private static final class ServerSentEventSink implements IPollEventSink {
+
+        private final Writer writer;
+
+        private final String pathInfo;
+
+        public ServerSentEventSink(final Writer writer, final String pathInfo) {
+            Assert.notNull(writer);
+            this.writer = writer;
+            this.pathInfo = pathInfo;
+        }
+
+        /**
+         * Writes a poll response as an event, or a comment if the response is <code>null</code>.
+         * @return <code>false</code> if the write failed, the client being gone.
+         */
+        @Override
+        public boolean send(String response) {
+            try {
+                if (response == null) {
+                    writer.write(": keep-alive\n\n");
+                } else {
+                    // a pretty printed response spans several data lines
+                    int start = 0;
+                    int end = 0;
+                    while ((end = response.indexOf('\n', start)) >= 0) {
+                        writer.write("data: ");
+                        writer.write(response, start, end - start);
+                        writer.write('\n');
+                        start = end + 1;
+                    }
+                    writer.write("data: ");
+                    writer.write(response, start, response.length() - start);
+                    writer.write("\n\n");
+                }
+                writer.flush();
+                return !(writer instanceof PrintWriter) || !((PrintWriter) writer).checkError();
+            } catch (IOException ex) {
+                logger.debug("Event stream of '" + pathInfo + "' closed", ex);
+                return false;
+            }
+        }
+    }
+}
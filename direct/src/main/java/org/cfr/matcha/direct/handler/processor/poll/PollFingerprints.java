@@ -0,0 +1,107 @@
+package org.cfr.matcha.direct.handler.processor.poll;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.annotation.Nonnull;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+/**
+ * Fingerprints of the last poll results delivered to each client for each event, to tell whether a new result has
+ * changed.
+ * <p>
+ * A fingerprint is recorded once its response is written, so that a result lost with a failed write is sent again.
+ * </p>
+ * <p>
+ * The number of fingerprints is bounded: the least recently polled one is forgotten when the limit is reached, its
+ * client being then sent the next result whatever it is.
+ * </p>
+ * @author devacfr
+ * @since 1.0
+ */
+final class PollFingerprints {
+
+    private static final HashFunction hashFunction = Hashing.murmur3_128();
+
+    private final int maxEntries;
+
+    /** in access order, guarded by itself */
+    private final LinkedHashMap<String, Long> fingerprints;
+
+    /**
+     *
+     * @param maxEntries the maximum number of fingerprints kept, greater than zero.
+     */
+    public PollFingerprints(final int maxEntries) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be greater than zero");
+        }
+        this.maxEntries = maxEntries;
+        this.fingerprints = new LinkedHashMap<String, Long>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > PollFingerprints.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     *
+     * @param clientId identifies the client.
+     * @param eventName the name of the event.
+     * @return the key of the fingerprints of the client for the event.
+     */
+    @Nonnull
+    public static String key(@Nonnull final String clientId, @Nonnull final String eventName) {
+        return eventName + '\n' + clientId;
+    }
+
+    /**
+     *
+     * @param json the JSON result.
+     * @return the fingerprint of the result.
+     */
+    public static long fingerprint(@Nonnull final String json) {
+        return hashFunction.hashString(json, Charsets.UTF_8).asLong();
+    }
+
+    /**
+     *
+     * @param key the key of a client and an event.
+     * @param fingerprint the fingerprint of a result.
+     * @return <code>true</code> if the result is the last one delivered to the client for the event.
+     */
+    public boolean isDelivered(@Nonnull final String key, final long fingerprint) {
+        synchronized (fingerprints) {
+            Long delivered = fingerprints.get(key);
+            return delivered != null && delivered.longValue() == fingerprint;
+        }
+    }
+
+    /**
+     * Records the result delivered to a client for an event.
+     * @param key the key of the client and the event.
+     * @param fingerprint the fingerprint of the result.
+     */
+    public void delivered(@Nonnull final String key, final long fingerprint) {
+        synchronized (fingerprints) {
+            fingerprints.put(key, Long.valueOf(fingerprint));
+        }
+    }
+
+    /**
+     *
+     * @return the number of fingerprints kept.
+     */
+    public int size() {
+        synchronized (fingerprints) {
+            return fingerprints.size();
+        }
+    }
+}
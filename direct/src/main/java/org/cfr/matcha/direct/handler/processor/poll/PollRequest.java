@@ -0,0 +1,107 @@
+package org.cfr.matcha.direct.handler.processor.poll;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import com.softwarementors.extjs.djn.api.RegisteredPollMethod;
+
+/**
+ * A poll request resolved once: the poll method of its event and its decoded parameters, reused by the successive
+ * polls of an event stream.
+ * @author devacfr
+ * @since 1.0
+ */
+final class PollRequest {
+
+    private final String eventName;
+
+    private final RegisteredPollMethod method;
+
+    private final Map<String, String> parameters;
+
+    private final RuntimeException failure;
+
+    /**
+     *
+     * @param eventName the name of the event.
+     * @param method the poll method of the event.
+     * @param parameters the decoded poll parameters.
+     */
+    public PollRequest(@Nonnull final String eventName, @Nonnull final RegisteredPollMethod method,
+            @Nonnull final Map<String, String> parameters) {
+        this.eventName = eventName;
+        this.method = method;
+        this.parameters = parameters;
+        this.failure = null;
+    }
+
+    /**
+     *
+     * @param eventName the name of the event.
+     * @param failure the reason the request can not be resolved, answered to each poll.
+     */
+    public PollRequest(@Nonnull final String eventName, @Nonnull final RuntimeException failure) {
+        this.eventName = eventName;
+        this.method = null;
+        this.parameters = null;
+        this.failure = failure;
+    }
+
+    /**
+     *
+     * @return the name of the event.
+     */
+    @Nonnull
+    public String getEventName() {
+        return eventName;
+    }
+
+    /**
+     *
+     * @return the poll method, <code>null</code> if the request can not be resolved.
+     */
+    @Nullable
+    public RegisteredPollMethod getMethod() {
+        return method;
+    }
+
+    /**
+     *
+     * @return a copy of the decoded poll parameters, which the poll method may change.
+     */
+    @Nonnull
+    public Map<String, String> copyParameters() {
+        return new HashMap<String, String>(parameters);
+    }
+
+    /**
+     *
+     * @param name the name of a parameter.
+     * @return the value of the parameter, <code>null</code> if none.
+     */
+    @Nullable
+    public String getParameter(@Nonnull final String name) {
+        return parameters.get(name);
+    }
+
+    /**
+     *
+     * @return the reason the request can not be resolved, <code>null</code> if resolved.
+     */
+    @Nullable
+    public RuntimeException getFailure() {
+        return failure;
+    }
+
+    /**
+     *
+     * @return <code>true</code> if the poll method is long-polled, returning a {@link CompletionStage}.
+     */
+    public boolean isLongPolled() {
+        return method != null && CompletionStage.class.isAssignableFrom(method.getMethod().getReturnType());
+    }
+}
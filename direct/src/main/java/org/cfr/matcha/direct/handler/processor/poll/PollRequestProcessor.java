@@ -0,0 +1,365 @@
+package org.cfr.matcha.direct.handler.processor.poll;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import org.apache.commons.io.IOUtils;
+import org.cfr.commons.util.Assert;
+import org.cfr.matcha.api.direct.DirectPollMethod;
+import org.cfr.matcha.direct.handler.processor.ProcessorUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.gson.Gson;
+import com.softwarementors.extjs.djn.UnexpectedException;
+import com.softwarementors.extjs.djn.api.RegisteredPollMethod;
+import com.softwarementors.extjs.djn.api.Registry;
+import com.softwarementors.extjs.djn.config.GlobalConfiguration;
+import com.softwarementors.extjs.djn.router.dispatcher.Dispatcher;
+import com.softwarementors.extjs.djn.router.processor.RequestException;
+import com.softwarementors.extjs.djn.router.processor.RequestProcessorBase;
+import com.softwarementors.extjs.djn.router.processor.RequestProcessorUtils;
+import com.softwarementors.extjs.djn.router.processor.ResponseData;
+import com.softwarementors.extjs.djn.router.processor.poll.PollSuccessResponseData;
+
+/**
+ * Thread-safe replacement of DirectJNgine poll processor.
+ * <p>
+ * DirectJNgine keeps the event name and the request in instance fields, so a new processor was needed for each
+ * request. This processor keeps the request state on the stack, a single instance is shared by all requests of a
+ * router.
+ * </p>
+ * <p>
+ * A poll method returning a {@link CompletionStage} is long-polled: {@link #processAsync(Reader, Writer, String)}
+ * writes the response when the stage completes, or when the {@link DirectPollMethod#longPollTimeoutMillis() timeout}
+ * of the method expires. No thread is held meanwhile, the timeouts being run by a single shared timer thread.
+ * </p>
+ * <p>
+ * A poll method {@link DirectPollMethod#suppressUnchanged() suppressing the unchanged results} answers a client with
+ * {@link #UNCHANGED_RESPONSE} when its result has the same fingerprint as the last one delivered to the client, the
+ * client being identified by the {@link #CLIENT_ID_PARAMETER} poll parameter. The fingerprint of a result is recorded
+ * once its response is written, a result lost with a failed write being sent again.
+ * </p>
+ * @author devacfr
+ * @since 1.0
+ */
+public class PollRequestProcessor extends RequestProcessorBase {
+
+    private static final Logger logger = LoggerFactory.getLogger(PollRequestProcessor.class);
+
+    public static final String PATHINFO_POLL_PREFIX = com.softwarementors.extjs.djn.router.processor.poll.PollRequestProcessor.PATHINFO_POLL_PREFIX;
+
+    /**
+     * the poll parameter identifying the client, for the methods suppressing the unchanged results.
+     */
+    public static final String CLIENT_ID_PARAMETER = "clientId";
+
+    /**
+     * the response of a poll whose result is unchanged: an empty list of events, ignored by the polling provider.
+     */
+    public static final String UNCHANGED_RESPONSE = "[]";
+
+    /**
+     * the maximum number of fingerprints of the results sent to the clients.
+     */
+    private static final int MAX_FINGERPRINTS = 10000;
+
+    /**
+     * the timeout of the long polls of a method registered without {@link DirectPollMethod}, as its default value.
+     */
+    private static final long DEFAULT_LONG_POLL_TIMEOUT_MILLIS = 30000;
+
+    /**
+     * the timer expiring the long polls, shared by all processors.
+     */
+    private static final ScheduledThreadPoolExecutor longPollTimer = createLongPollTimer();
+
+    private final Gson gson;
+
+    private final PollFingerprints fingerprints = new PollFingerprints(MAX_FINGERPRINTS);
+
+    public PollRequestProcessor(Registry registry, Dispatcher dispatcher, GlobalConfiguration globalConfiguration) {
+        super(registry, dispatcher, globalConfiguration);
+        this.gson = ProcessorUtil.createGson(globalConfiguration);
+    }
+
+    private static ScheduledThreadPoolExecutor createLongPollTimer() {
+        ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1,
+                new ThreadFactoryBuilder().setNameFormat("matcha-direct-long-poll-timer-%d").setDaemon(true).build());
+        // the timeouts of the answered polls do not stay in the queue
+        timer.setRemoveOnCancelPolicy(true);
+        return timer;
+    }
+
+    /**
+     * Processes a poll request, waiting for the response of a long poll.
+     * @param reader the request body.
+     * @param writer the response writer.
+     * @param pathInfo the path of the request, naming the event.
+     * @throws IOException if an I/O error occurs.
+     */
+    public void process(Reader reader, Writer writer, String pathInfo) throws IOException {
+        Assert.hasText(pathInfo);
+
+        CompletableFuture<PollResponse> response = processAsync(IOUtils.toString(reader), pathInfo, false);
+        try {
+            response.get().writeTo(writer);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            response.cancel(false);
+            writer.write(createErrorResponse(getEventName(pathInfo), e));
+        } catch (ExecutionException e) {
+            UnexpectedException ex = UnexpectedException.forExecutionExceptionShouldNotHappenBecauseProcessorHandlesExceptionsAsServerErrorResponses(e);
+            logger.error(ex.getMessage(), ex);
+            throw ex;
+        }
+    }
+
+    /**
+     * Processes a poll request without waiting for the response of a long poll. The request body is read before
+     * returning.
+     * @param reader the request body.
+     * @param writer the response writer, flushed once the response is written.
+     * @param pathInfo the path of the request, naming the event.
+     * @return completed when the response is written, once the value returned by the method is available, and
+     *         exceptionally if the write fails.
+     * @throws IOException if an I/O error occurs.
+     */
+    public CompletableFuture<Void> processAsync(Reader reader, final Writer writer, String pathInfo)
+            throws IOException {
+        Assert.hasText(pathInfo);
+
+        return processAsync(IOUtils.toString(reader), pathInfo, false).thenAccept(new Consumer<PollResponse>() {
+
+            @Override
+            public void accept(PollResponse response) {
+                try {
+                    response.writeTo(writer);
+                } catch (IOException e) {
+                    throw new CompletionException(e);
+                }
+            }
+        });
+    }
+
+    /**
+     * 
+     * @param requestString the poll parameters, URL encoded.
+     * @param pathInfo the path of the request, naming the event.
+     * @param nullIfNoEvent <code>true</code> to complete the response with <code>null</code> instead of a
+     *            <code>null</code> result when a long poll expires, or of {@link #UNCHANGED_RESPONSE}.
+     * @return the response, completed when the value returned by the method is available.
+     */
+    CompletableFuture<PollResponse> processAsync(String requestString, String pathInfo, final boolean nullIfNoEvent) {
+        return processAsync(resolve(requestString, pathInfo), nullIfNoEvent);
+    }
+
+    /**
+     * Resolves the poll method and decodes the parameters of a poll request, once for all the polls of an event
+     * stream.
+     * @param requestString the poll parameters, URL encoded.
+     * @param pathInfo the path of the request, naming the event.
+     * @return the resolved request, holding the failure answered to each poll if it can not be resolved.
+     */
+    PollRequest resolve(String requestString, String pathInfo) {
+        String eventName = getEventName(pathInfo);
+        if (logger.isDebugEnabled()) {
+            logger.debug("Request data (POLL)=>" + requestString + " Event name='" + eventName + "'");
+        }
+        try {
+            return new PollRequest(eventName, getMethod(eventName),
+                    RequestProcessorUtils.getDecodedRequestParameters(requestString));
+        } catch (RuntimeException ex) {
+            return new PollRequest(eventName, ex);
+        }
+    }
+
+    /**
+     * 
+     * @param request the resolved poll request.
+     * @param nullIfNoEvent <code>true</code> to complete the response with <code>null</code> instead of a
+     *            <code>null</code> result when a long poll expires, or of {@link #UNCHANGED_RESPONSE}.
+     * @return the response, completed when the value returned by the method is available.
+     */
+    CompletableFuture<PollResponse> processAsync(PollRequest request, final boolean nullIfNoEvent) {
+        final String eventName = request.getEventName();
+        if (request.getFailure() != null) {
+            return CompletableFuture.completedFuture(new PollResponse(createErrorResponse(eventName,
+                request.getFailure())));
+        }
+
+        RegisteredPollMethod method = request.getMethod();
+        String clientId = null;
+        Object result = null;
+        try {
+            if (isSuppressUnchanged(method)) {
+                clientId = request.getParameter(CLIENT_ID_PARAMETER);
+            }
+            result = getDispatcher().dispatch(method, new Object[] { request.copyParameters() });
+        } catch (Exception t) {
+            return CompletableFuture.completedFuture(new PollResponse(createErrorResponse(eventName, t)));
+        }
+        if (!(result instanceof CompletionStage)) {
+            return CompletableFuture.completedFuture(createSuccessResponse(eventName, clientId, result, nullIfNoEvent));
+        }
+        final String client = clientId;
+
+        final CompletionStage<?> stage = (CompletionStage<?>) result;
+        final CompletableFuture<PollResponse> response = new CompletableFuture<PollResponse>();
+        long timeout = getLongPollTimeout(method);
+        final ScheduledFuture<?> expiration = timeout > 0 ? longPollTimer.schedule(new Runnable() {
+
+            @Override
+            public void run() {
+                // nothing happened: the client polls again
+                String expired = nullIfNoEvent ? null : createSuccessResponse(eventName, null);
+                if (response.complete(new PollResponse(expired)) && stage instanceof Future) {
+                    ((Future<?>) stage).cancel(false);
+                }
+            }
+        }, timeout, TimeUnit.MILLISECONDS) : null;
+        stage.whenComplete(new BiConsumer<Object, Throwable>() {
+
+            @Override
+            public void accept(Object value, Throwable error) {
+                if (expiration != null) {
+                    expiration.cancel(false);
+                }
+                if (response.isDone()) {
+                    return;
+                }
+                if (error != null) {
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause()
+                            : error;
+                    response.complete(new PollResponse(createErrorResponse(eventName, cause)));
+                } else {
+                    response.complete(createSuccessResponse(eventName, client, value, nullIfNoEvent));
+                }
+            }
+        });
+        return response;
+    }
+
+    /**
+     * 
+     * @param pathInfo the path of a poll request, naming the event.
+     * @return <code>true</code> if the poll method of the event is long-polled, returning a {@link CompletionStage}.
+     */
+    public boolean isLongPolled(String pathInfo) {
+        RegisteredPollMethod method = getRegistry().getPollMethod(getEventName(pathInfo));
+        return method != null && CompletionStage.class.isAssignableFrom(method.getMethod().getReturnType());
+    }
+
+    /**
+     * Schedules a task on the timer of the long polls.
+     */
+    static ScheduledFuture<?> schedule(Runnable task, long delay) {
+        return longPollTimer.schedule(task, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private String createSuccessResponse(String eventName, Object result) {
+        PollSuccessResponseData response = new PollSuccessResponseData(eventName);
+        response.setResult(result);
+        return toJson(response);
+    }
+
+    /**
+     * 
+     * @param eventName the name of the event.
+     * @param clientId the client, <code>null</code> if the unchanged results are not suppressed.
+     * @param result the result of the poll method.
+     * @param nullIfUnchanged <code>true</code> to return <code>null</code> instead of {@link #UNCHANGED_RESPONSE}.
+     * @return the response, recording the fingerprint of the result once delivered.
+     */
+    private PollResponse createSuccessResponse(String eventName, String clientId, Object result,
+                                               boolean nullIfUnchanged) {
+        if (clientId == null) {
+            return new PollResponse(createSuccessResponse(eventName, result));
+        }
+        // the result is serialized once, to compute its fingerprint and if changed to build the response
+        String data = getGson().toJson(result);
+        String key = PollFingerprints.key(clientId, eventName);
+        long fingerprint = PollFingerprints.fingerprint(data);
+        if (fingerprints.isDelivered(key, fingerprint)) {
+            return new PollResponse(nullIfUnchanged ? null : UNCHANGED_RESPONSE);
+        }
+        StringBuilder json = new StringBuilder(data.length() + eventName.length() + 40);
+        json.append("{\"data\":").append(data);
+        json.append(",\"name\":").append(getGson().toJson(eventName));
+        json.append(",\"type\":\"event\"}");
+        String resultString = json.toString();
+        if (logger.isDebugEnabled()) {
+            logger.debug("ResponseData data (POLL)=>" + resultString);
+        }
+        return new PollResponse(resultString, fingerprints, key, fingerprint);
+    }
+
+    private String createErrorResponse(String eventName, Throwable t) {
+        logger.error("(Controlled) server error: " + t.getMessage() + " for Poll Event '" + eventName + "'", t);
+        return toJson(new PollErrorResponseData(t, getDebug()));
+    }
+
+    private String toJson(ResponseData response) {
+        StringBuilder result = new StringBuilder();
+        appendIndividualResponseJsonString(response, result);
+        String resultString = result.toString();
+        if (logger.isDebugEnabled()) {
+            logger.debug("ResponseData data (POLL)=>" + resultString);
+        }
+        return resultString;
+    }
+
+    /**
+     * 
+     * @param method a poll method.
+     * @return <code>true</code> if the unchanged results of the method are suppressed.
+     */
+    private static boolean isSuppressUnchanged(RegisteredPollMethod method) {
+        DirectPollMethod annotation = method.getMethod().getAnnotation(DirectPollMethod.class);
+        return annotation != null && annotation.suppressUnchanged();
+    }
+
+    /**
+     * 
+     * @param method a poll method.
+     * @return the maximum time in milliseconds a long poll of the method is held, zero or less for no limit.
+     */
+    private static long getLongPollTimeout(RegisteredPollMethod method) {
+        DirectPollMethod annotation = method.getMethod().getAnnotation(DirectPollMethod.class);
+        return annotation != null ? annotation.longPollTimeoutMillis() : DEFAULT_LONG_POLL_TIMEOUT_MILLIS;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected Gson getGson() {
+        return gson;
+    }
+
+    protected RegisteredPollMethod getMethod(String eventName) {
+        RegisteredPollMethod method = getRegistry().getPollMethod(eventName);
+        if (method == null) {
+            RequestException ex = RequestException.forPollEventNotFound(eventName);
+            logger.error(ex.getMessage(), ex);
+            throw ex;
+        }
+        return method;
+    }
+
+    private static String getEventName(String pathInfo) {
+        return pathInfo.replace(PATHINFO_POLL_PREFIX, "");
+    }
+}
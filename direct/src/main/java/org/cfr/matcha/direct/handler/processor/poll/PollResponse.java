@@ -0,0 +1,81 @@
+package org.cfr.matcha.direct.handler.processor.poll;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Response of a poll, recording the fingerprint of its result once it is delivered to the client.
+ * @author devacfr
+ * @since 1.0
+ */
+final class PollResponse {
+
+    private final String json;
+
+    /** <code>null</code> if the unchanged results are not suppressed */
+    private final PollFingerprints fingerprints;
+
+    private final String key;
+
+    private final long fingerprint;
+
+    /**
+     *
+     * @param json the JSON response, <code>null</code> if there is nothing to send.
+     */
+    public PollResponse(@Nullable final String json) {
+        this(json, null, null, 0);
+    }
+
+    /**
+     *
+     * @param json the JSON response.
+     * @param fingerprints the fingerprints of the results delivered.
+     * @param key the key of the client and the event.
+     * @param fingerprint the fingerprint of the result.
+     */
+    public PollResponse(@Nonnull final String json, @Nullable final PollFingerprints fingerprints,
+            @Nullable final String key, final long fingerprint) {
+        this.json = json;
+        this.fingerprints = fingerprints;
+        this.key = key;
+        this.fingerprint = fingerprint;
+    }
+
+    /**
+     *
+     * @return the JSON response, <code>null</code> if there is nothing to send.
+     */
+    @Nullable
+    public String getJson() {
+        return json;
+    }
+
+    /**
+     * Records the result as delivered, once the response is written.
+     */
+    public void delivered() {
+        if (fingerprints != null) {
+            fingerprints.delivered(key, fingerprint);
+        }
+    }
+
+    /**
+     * Writes the response and flushes the writer, recording the result as delivered if the write succeeds.
+     * @param writer the response writer.
+     * @throws IOException if the write fails.
+     */
+    public void writeTo(@Nonnull final Writer writer) throws IOException {
+        writer.write(json);
+        writer.flush();
+        // a print writer reports its failures only there
+        if (writer instanceof PrintWriter && ((PrintWriter) writer).checkError()) {
+            throw new IOException("Failed to write the poll response");
+        }
+        delivered();
+    }
+}
@@ -1,5 +1,8 @@
 package org.cfr.matcha.direct.rs;
 
+import java.io.IOException;
+import java.io.OutputStream;
+
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.ws.rs.Consumes;
@@ -9,10 +12,26 @@ import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.StreamingOutput;
 import javax.ws.rs.core.UriInfo;
 
+import org.cfr.matcha.direct.handler.processor.poll.PollEventStream;
+
 import com.softwarementors.extjs.djn.router.RequestType;
 
+/**
+ * JAX-RS resource routing the Direct requests to the {@link IJaxRsDirectApplication}.
+ * <p>
+ * <b>API change:</b> the request methods return a {@link StreamingOutput} instead of the response as a
+ * <code>String</code>, so that the response is written straight to the output stream of the container. The request
+ * is processed when the container writes the entity, once the status and the headers are sent: a Direct error, as
+ * an unknown method or an exception thrown by a method, is answered as usual by an exception response in the body,
+ * but an unexpected error can no longer turn into an error status. A caller of these methods reads the response by
+ * calling {@link StreamingOutput#write(OutputStream)}.
+ * </p>
+ * @author devacfr
+ * @since 1.0
+ */
 @Named
 @Path(IJaxRsDirectApplication.PROVIDER_URL)
 public class DirectHandlerResource {
@@ -34,7 +53,7 @@ public class DirectHandlerResource {
     @POST
     @Produces(MediaType.APPLICATION_JSON)
     @Consumes(MediaType.APPLICATION_JSON)
-    public String handleJSONPost(@Context UriInfo uriInfo, String json) {
+    public StreamingOutput handleJSONPost(@Context UriInfo uriInfo, String json) {
 
         return handle(json, uriInfo, RequestType.JSON);
     }
@@ -47,7 +66,7 @@ public class DirectHandlerResource {
      */
     @GET
     @Path("poll")
-    public String handlePollGet(@Context UriInfo uriInfo) {
+    public StreamingOutput handlePollGet(@Context UriInfo uriInfo) {
 
         return handle("", uriInfo, RequestType.POLL);
     }
@@ -60,11 +79,31 @@ public class DirectHandlerResource {
      */
     @POST
     @Path("poll")
-    public String handlePollPost(@Context UriInfo uriInfo) {
+    public StreamingOutput handlePollPost(@Context UriInfo uriInfo) {
 
         return handle("", uriInfo, RequestType.POLL);
     }
 
+    /**
+     * POLL method streaming the events as Server-Sent Events
+     * 
+     * @param uriInfo
+     * @return
+     */
+    @GET
+    @Path("poll/{event}")
+    @Produces(PollEventStream.CONTENT_TYPE)
+    public StreamingOutput handlePollEventStream(@Context final UriInfo uriInfo) {
+
+        return new StreamingOutput() {
+
+            @Override
+            public void write(OutputStream output) throws IOException {
+                directApplication.handleEventStream(uriInfo, output);
+            }
+        };
+    }
+
     /**
      * FileUpload method
      * 
@@ -74,13 +113,22 @@ public class DirectHandlerResource {
      */
     @POST
     @Consumes(MediaType.APPLICATION_FORM_URLENCODED)
-    public String handleFormUrlEncodedPost(@Context UriInfo uriInfo, String input) {
+    public StreamingOutput handleFormUrlEncodedPost(@Context UriInfo uriInfo, String input) {
 
         return handle(input, uriInfo, RequestType.FORM_SIMPLE_POST);
     }
 
-    protected String handle(String input, UriInfo uriInfo, RequestType requestType) {
-        return directApplication.handleProcess(input, uriInfo, requestType);
+    /**
+     * The response is written straight to the output stream of the container, instead of being built as a string.
+     */
+    protected StreamingOutput handle(final String input, final UriInfo uriInfo, final RequestType requestType) {
+        return new StreamingOutput() {
+
+            @Override
+            public void write(OutputStream output) throws IOException {
+                directApplication.handleProcess(input, uriInfo, requestType, output);
+            }
+        };
     }
 
     public void setDirectApplication(IJaxRsDirectApplication directManager) {
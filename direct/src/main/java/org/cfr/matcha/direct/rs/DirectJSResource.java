@@ -28,6 +28,10 @@ public class DirectJSResource {
 
     public static final String FILE_EJN_ASSERT = "ejn-assert.js";
 
+    public static final String FILE_EVENT_SOURCE_PROVIDER = "matcha-event-source-provider.js";
+
+    public static final String FILE_WEBSOCKET_PROVIDER = "matcha-websocket-provider.js";
+
     public static final String FILE_DIRECT_API = "direct-api.js";
 
     public static final String FILE_DIRECT_DEBUG_API = "direct-debug-api.js";
@@ -36,6 +40,10 @@ public class DirectJSResource {
 
     public static final String PATH_EJN_ASSERT = "classpath:ejn/" + FILE_EJN_ASSERT;
 
+    public static final String PATH_EVENT_SOURCE_PROVIDER = "classpath:matcha/" + FILE_EVENT_SOURCE_PROVIDER;
+
+    public static final String PATH_WEBSOCKET_PROVIDER = "classpath:matcha/" + FILE_WEBSOCKET_PROVIDER;
+
     public static final String NO_JS_FILE = "No js file found with name: ";
 
     /** Action Context  */
@@ -51,6 +59,10 @@ public class DirectJSResource {
             js = readFile(PATH_DJN_REMOTE_CALL_SUPPORT);
         } else if (FILE_EJN_ASSERT.equals(jsFileName)) {
             js = readFile(PATH_EJN_ASSERT);
+        } else if (FILE_EVENT_SOURCE_PROVIDER.equals(jsFileName)) {
+            js = readFile(PATH_EVENT_SOURCE_PROVIDER);
+        } else if (FILE_WEBSOCKET_PROVIDER.equals(jsFileName)) {
+            js = readFile(PATH_WEBSOCKET_PROVIDER);
         } else if (FILE_DIRECT_API.equals(jsFileName)) {
             js = generateApiCode(jsFileName, true);
         } else if (FILE_DIRECT_DEBUG_API.equals(jsFileName)) {
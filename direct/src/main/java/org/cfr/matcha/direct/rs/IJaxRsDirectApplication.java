@@ -1,5 +1,8 @@
 package org.cfr.matcha.direct.rs;
 
+import java.io.IOException;
+import java.io.OutputStream;
+
 import javax.ws.rs.core.UriInfo;
 
 import org.cfr.matcha.direct.IDirectContext;
@@ -19,6 +22,26 @@ public interface IJaxRsDirectApplication extends IDirectContext {
      */
     String handleProcess(String input, UriInfo uriInfo, RequestType requestType);
 
+    /**
+     * Processes a request, writing the response to the output stream in UTF-8 as soon as it is ready.
+     * @param input the request body.
+     * @param uriInfo the request URI.
+     * @param requestType the type of request.
+     * @param output the response stream.
+     * @throws IOException if an I/O error occurs.
+     */
+    void handleProcess(String input, UriInfo uriInfo, RequestType requestType, OutputStream output)
+            throws IOException;
+
+    /**
+     * Streams the events of a poll method as Server-Sent Events, until the client is gone. The calling thread is held
+     * as long as the stream lasts. The stream is written by the direct handlers, as any other request.
+     * @param uriInfo the request URI, naming the event, the poll parameters being read from the query string.
+     * @param output the response stream.
+     * @throws IOException if an I/O error occurs.
+     */
+    void handleEventStream(UriInfo uriInfo, OutputStream output) throws IOException;
+
     /**
      * 
      * @param jsFileName
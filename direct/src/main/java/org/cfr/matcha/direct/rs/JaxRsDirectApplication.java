@@ -1,10 +1,14 @@
 package org.cfr.matcha.direct.rs;
 
 import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.io.StringReader;
 import java.io.StringWriter;
 import java.util.Set;
+import java.util.concurrent.CompletionException;
 
 import javax.inject.Named;
 import javax.inject.Provider;
@@ -15,9 +19,13 @@ import javax.ws.rs.core.UriInfo;
 import org.apache.commons.io.IOUtils;
 import org.cfr.matcha.direct.handler.IDirectHandler;
 import org.cfr.matcha.direct.handler.context.IDirectHandlerContext;
+import org.cfr.matcha.direct.handler.processor.poll.PollEventStream;
+import org.cfr.matcha.direct.rs.context.DirectJaxRsEventStreamHandlerContext;
 import org.cfr.matcha.direct.rs.context.DirectJaxRsHandlerContext;
 import org.cfr.matcha.direct.spi.BaseDirectContext;
 
+import com.google.common.base.Charsets;
+import com.google.common.base.Throwables;
 import com.google.common.collect.Sets;
 import com.softwarementors.extjs.djn.api.RegisteredApi;
 import com.softwarementors.extjs.djn.jscodegen.ApiCodeGenerator;
@@ -30,6 +38,8 @@ public class JaxRsDirectApplication extends BaseDirectContext implements IJaxRsD
 
     private final Application rsApplication;
 
+    private long eventStreamPollInterval = PollEventStream.DEFAULT_POLL_INTERVAL;
+
     public JaxRsDirectApplication() {
         this.rsApplication = createApplicaton();
         super.setCreateSourceFiles(false);
@@ -53,24 +63,68 @@ public class JaxRsDirectApplication extends BaseDirectContext implements IJaxRsD
 
     @Override
     public String handleProcess(String input, UriInfo uriInfo, RequestType requestType) {
+        StringWriter stringWriter = new StringWriter();
+        PrintWriter writer = new PrintWriter(stringWriter);
+        try {
+            handleProcess(input, uriInfo, requestType, writer);
+            return stringWriter.toString();
+        } finally {
+            IOUtils.closeQuietly(writer);
+        }
+    }
+
+    @Override
+    public void handleProcess(String input, UriInfo uriInfo, RequestType requestType, OutputStream output)
+            throws IOException {
+        PrintWriter writer = new PrintWriter(new OutputStreamWriter(output, Charsets.UTF_8));
+        handleProcess(input, uriInfo, requestType, writer);
+        // the stream belongs to the container
+        writer.flush();
+        if (writer.checkError()) {
+            throw new IOException("Failed to write the Direct response");
+        }
+    }
+
+    @Override
+    public void handleEventStream(UriInfo uriInfo, OutputStream output) throws IOException {
+        PrintWriter writer = new PrintWriter(new OutputStreamWriter(output, Charsets.UTF_8));
+        IDirectHandlerContext handlerContext = new DirectJaxRsEventStreamHandlerContext(this, uriInfo.getPath(),
+                uriInfo.getRequestUri().getRawQuery(), writer, eventStreamPollInterval);
+        try {
+            // the stream is run in this thread, until the client is gone
+            processAsync(handlerContext).join();
+        } catch (CompletionException e) {
+            Throwables.propagateIfPossible(e.getCause(), IOException.class);
+            throw Throwables.propagate(e.getCause());
+        }
+    }
+
+    protected void handleProcess(String input, UriInfo uriInfo, RequestType requestType, PrintWriter writer) {
         BufferedReader reader = null;
-        PrintWriter writer = null;
         try {
             reader = new BufferedReader(new StringReader(input));
-            StringWriter stringWriter = new StringWriter();
-            writer = new PrintWriter(stringWriter);
             IDirectHandlerContext handlerContext = new DirectJaxRsHandlerContext(this, requestType, uriInfo.getPath(),
                     reader, writer);
             for (IDirectHandler handler : getDirectHandlers()) {
                 handler.process(handlerContext);
             }
-            return stringWriter.toString();
         } finally {
             IOUtils.closeQuietly(reader);
-            IOUtils.closeQuietly(writer);
         }
     }
 
+    public long getEventStreamPollInterval() {
+        return eventStreamPollInterval;
+    }
+
+    /**
+     * Sets the time in milliseconds between two calls of a poll method which is not long-polled, in an event stream.
+     * @param eventStreamPollInterval the time in milliseconds.
+     */
+    public void setEventStreamPollInterval(long eventStreamPollInterval) {
+        this.eventStreamPollInterval = eventStreamPollInterval;
+    }
+
     @Override
     public void setCreateSourceFiles(boolean createSourceFiles) {
         // do nothing
@@ -0,0 +1,45 @@
+package org.cfr.matcha.direct.rs.context;
+
+import java.io.BufferedReader;
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.util.concurrent.Executor;
+
+import org.cfr.matcha.direct.handler.context.IEventStreamHandlerContext;
+import org.cfr.matcha.direct.spi.BaseDirectContext;
+
+import com.softwarementors.extjs.djn.router.RequestType;
+
+public class DirectJaxRsEventStreamHandlerContext extends DirectJaxRsHandlerContext implements IEventStreamHandlerContext {
+
+	private final String queryString;
+
+	private final long eventStreamPollInterval;
+
+	public DirectJaxRsEventStreamHandlerContext(BaseDirectContext context, String pathInfo, String queryString, PrintWriter writer,
+			long eventStreamPollInterval) {
+		// the poll parameters are read from the query string, the body is empty
+		super(context, RequestType.POLL, pathInfo, new BufferedReader(new StringReader("")), writer);
+		this.queryString = queryString;
+		this.eventStreamPollInterval = eventStreamPollInterval;
+	}
+
+	@Override
+	public String getQueryString() {
+		return queryString;
+	}
+
+	@Override
+	public long getEventStreamPollInterval() {
+		return eventStreamPollInterval;
+	}
+
+	/**
+	 * @return <code>null</code>, the container holding a thread for the response anyway
+	 */
+	@Override
+	public Executor getExecutor() {
+		return null;
+	}
+
+}
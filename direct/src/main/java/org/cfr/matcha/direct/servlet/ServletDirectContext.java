@@ -1,22 +1,83 @@
 package org.cfr.matcha.direct.servlet;
 
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+import javax.annotation.PreDestroy;
 import javax.inject.Named;
 import javax.inject.Singleton;
+import javax.servlet.AsyncContext;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.cfr.commons.util.Assert;
+import org.cfr.matcha.direct.handler.IAsyncDirectHandler;
 import org.cfr.matcha.direct.handler.IDirectHandler;
 import org.cfr.matcha.direct.handler.context.IDirectHandlerContext;
+import org.cfr.matcha.direct.handler.processor.poll.PollEventStream;
 import org.cfr.matcha.direct.servlet.context.DirectHandlerContext;
+import org.cfr.matcha.direct.servlet.context.EventStreamHandlerContext;
 import org.cfr.matcha.direct.spi.BaseDirectContext;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.softwarementors.extjs.djn.router.RequestType;
 
 @Named("DirectContext")
 @Singleton
 public class ServletDirectContext extends BaseDirectContext implements IServletDirectContext {
 
+    /**
+     * <code>true</code> if the requests are processed asynchronously, off the container thread.
+     */
+    private boolean asyncEnabled = false;
+
+    /**
+     * the timeout in milliseconds of an asynchronous request, zero or less for no timeout.
+     */
+    private long asyncTimeout = 0;
+
+    /**
+     * the default maximum number of threads processing the asynchronous requests.
+     */
+    public static final int DEFAULT_ASYNC_MAX_THREADS = 200;
+
+    /**
+     * the default number of asynchronous requests waiting for a thread, before the next ones are rejected.
+     */
+    public static final int DEFAULT_ASYNC_QUEUE_CAPACITY = 1000;
+
+    /**
+     * the maximum number of threads of the executor created by this context.
+     */
+    private int asyncMaxThreads = DEFAULT_ASYNC_MAX_THREADS;
+
+    /**
+     * the number of requests waiting for a thread of the executor created by this context.
+     */
+    private int asyncQueueCapacity = DEFAULT_ASYNC_QUEUE_CAPACITY;
+
+    /**
+     * the executor processing the asynchronous requests.
+     */
+    private ExecutorService asyncExecutor;
+
+    /**
+     * <code>true</code> if the executor has been created by this context, and so must be shut down by it.
+     */
+    private boolean asyncExecutorOwned = false;
+
+    /**
+     * the time in milliseconds between two calls of a poll method which is not long-polled, in an event stream.
+     */
+    private long eventStreamPollInterval = PollEventStream.DEFAULT_POLL_INTERVAL;
+
     /**
      * {@inheritDoc}
      */
@@ -24,18 +85,257 @@ public class ServletDirectContext extends BaseDirectContext implements IServletD
     public void init() throws Exception {
         Assert.hasText(getJsApiPath(), "defaultJsApiPath is required");
         super.init();
+        if (asyncEnabled && asyncExecutor == null) {
+            asyncExecutor = createAsyncExecutor();
+            asyncExecutorOwned = true;
+        }
+    }
+
+    /**
+     * Shuts down the executor of the asynchronous requests, if it has been created by this context, and releases the
+     * threads of the request router. Called by the container when the context is destroyed.
+     */
+    @Override
+    @PreDestroy
+    public void destroy() {
+        if (asyncExecutorOwned && asyncExecutor != null) {
+            asyncExecutor.shutdown();
+            asyncExecutor = null;
+            asyncExecutorOwned = false;
+        }
+        super.destroy();
     }
 
     /**
      * {@inheritDoc}
+     * <p>
+     * In asynchronous mode, the request is put in asynchronous mode and processed by the executor, the container thread
+     * returns at once. The request is processed synchronously if the servlet or a filter does not support the
+     * asynchronous mode.
+     * </p>
+     * <p>
+     * A poll request is not handed to the executor: its handlers run at once and its response is written when it
+     * completes, so that a long poll holds no thread while waiting for an event. The handlers following the
+     * {@link IAsyncDirectHandler} writing the response run once it is written. The timeout of the asynchronous requests, if any, must be longer
+     * than the timeout of the long polls.
+     * </p>
+     * <p>
+     * A poll request accepting <code>text/event-stream</code> is answered by a stream of Server-Sent Events, carrying
+     * the successive responses of the poll method over a single response. The poll parameters are then read from the
+     * query string, as <code>EventSource</code> only sends GET requests. The stream is written by the handlers, with an
+     * {@link org.cfr.matcha.direct.handler.context.IEventStreamHandlerContext}.
+     * </p>
      */
     @Override
     public void handleProcess(HttpServletRequest request, HttpServletResponse response, RequestType type) {
+        if (asyncEnabled && type == RequestType.POLL && asyncExecutor != null && request.isAsyncSupported()
+                && isEventStreamRequest(request)) {
+            handleEventStream(request, response);
+            return;
+        }
+        if (asyncEnabled && type == RequestType.POLL && request.isAsyncSupported()) {
+            handleAsyncPoll(request, response);
+            return;
+        }
+        if (asyncEnabled && asyncExecutor != null && request.isAsyncSupported()) {
+            handleAsyncProcess(request, response, type);
+            return;
+        }
+        process(request, response, type);
+    }
+
+    /**
+     * Creates the executor processing the asynchronous requests, when none is set.
+     * <p>
+     * The executor runs at most {@link #getAsyncMaxThreads()} threads, idle threads ending after a minute, and queues
+     * at most {@link #getAsyncQueueCapacity()} requests: the following requests are rejected and answered by a
+     * <code>503</code> status.
+     * </p>
+     * @return a new executor.
+     */
+    protected ExecutorService createAsyncExecutor() {
+        BlockingQueue<Runnable> queue = asyncQueueCapacity > 0 ? new ArrayBlockingQueue<Runnable>(asyncQueueCapacity)
+                : new SynchronousQueue<Runnable>();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(asyncMaxThreads, asyncMaxThreads, 60L, TimeUnit.SECONDS,
+                queue, new ThreadFactoryBuilder().setNameFormat("matcha-direct-async-%d").setDaemon(true).build());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private void handleAsyncProcess(HttpServletRequest request, HttpServletResponse response, final RequestType type) {
+        final AsyncContext asyncContext = request.startAsync(request, response);
+        asyncContext.setTimeout(asyncTimeout);
+        try {
+            asyncExecutor.execute(new Runnable() {
+
+                @Override
+                public void run() {
+                    HttpServletResponse asyncResponse = (HttpServletResponse) asyncContext.getResponse();
+                    try {
+                        process((HttpServletRequest) asyncContext.getRequest(), asyncResponse, type);
+                    } catch (RuntimeException ex) {
+                        // the container can not report the error anymore
+                        logger.error(ex.getMessage(), ex);
+                        sendError(asyncResponse);
+                    } finally {
+                        complete(asyncContext);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            logger.error(ex.getMessage(), ex);
+            sendError(response, HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            complete(asyncContext);
+        }
+    }
+
+    private void handleAsyncPoll(HttpServletRequest request, HttpServletResponse response) {
+        final AsyncContext asyncContext = request.startAsync(request, response);
+        asyncContext.setTimeout(asyncTimeout);
+        final HttpServletResponse asyncResponse = (HttpServletResponse) asyncContext.getResponse();
+        IDirectHandlerContext handlerContext = new DirectHandlerContext(this, RequestType.POLL,
+                (HttpServletRequest) asyncContext.getRequest(), asyncResponse);
+        processAsync(handlerContext).whenComplete(new BiConsumer<Void, Throwable>() {
+
+            @Override
+            public void accept(Void value, Throwable error) {
+                try {
+                    if (error != null) {
+                        // the container can not report the error anymore
+                        logger.error(error.getMessage(), error);
+                        sendError(asyncResponse);
+                    }
+                } finally {
+                    complete(asyncContext);
+                }
+            }
+        });
+    }
+
+    private void handleEventStream(HttpServletRequest request, HttpServletResponse response) {
+        final AsyncContext asyncContext = request.startAsync(request, response);
+        // the stream lasts as long as the client is connected
+        asyncContext.setTimeout(0);
+        final HttpServletResponse asyncResponse = (HttpServletResponse) asyncContext.getResponse();
+        asyncResponse.setCharacterEncoding("UTF-8");
+        asyncResponse.setHeader("Cache-Control", "no-cache");
+        IDirectHandlerContext handlerContext = new EventStreamHandlerContext(this,
+                (HttpServletRequest) asyncContext.getRequest(), asyncResponse, eventStreamPollInterval, asyncExecutor);
+        processAsync(handlerContext).whenComplete(new BiConsumer<Void, Throwable>() {
+
+            @Override
+            public void accept(Void value, Throwable error) {
+                try {
+                    if (error != null) {
+                        logger.error(error.getMessage(), error);
+                        sendError(asyncResponse);
+                    }
+                } finally {
+                    complete(asyncContext);
+                }
+            }
+        });
+    }
+
+    private static boolean isEventStreamRequest(HttpServletRequest request) {
+        String accept = request.getHeader("Accept");
+        return accept != null && accept.contains(PollEventStream.CONTENT_TYPE);
+    }
+
+    private void complete(AsyncContext asyncContext) {
+        try {
+            asyncContext.complete();
+        } catch (IllegalStateException ex) {
+            // already completed by the container, after a timeout
+            logger.warn("The asynchronous request has already been completed", ex);
+        }
+    }
+
+    private void process(HttpServletRequest request, HttpServletResponse response, RequestType type) {
         IDirectHandlerContext handlerContext = new DirectHandlerContext(this, type, request, response);
         for (IDirectHandler handler : getDirectHandlers()) {
             handler.process(handlerContext);
         }
-        handlerContext = null;
+    }
+
+    private void sendError(HttpServletResponse response) {
+        sendError(response, HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+    }
+
+    private void sendError(HttpServletResponse response, int status) {
+        if (response.isCommitted()) {
+            return;
+        }
+        try {
+            response.sendError(status);
+        } catch (IOException ex) {
+            logger.warn("Failed to send the error response", ex);
+        }
+    }
+
+    public boolean isAsyncEnabled() {
+        return asyncEnabled;
+    }
+
+    public void setAsyncEnabled(boolean asyncEnabled) {
+        this.asyncEnabled = asyncEnabled;
+    }
+
+    public long getAsyncTimeout() {
+        return asyncTimeout;
+    }
+
+    public void setAsyncTimeout(long asyncTimeout) {
+        this.asyncTimeout = asyncTimeout;
+    }
+
+    public int getAsyncMaxThreads() {
+        return asyncMaxThreads;
+    }
+
+    /**
+     * Sets the maximum number of threads of the executor created by this context, when none is set.
+     * @param asyncMaxThreads the number of threads, greater than zero.
+     */
+    public void setAsyncMaxThreads(int asyncMaxThreads) {
+        this.asyncMaxThreads = asyncMaxThreads;
+    }
+
+    public int getAsyncQueueCapacity() {
+        return asyncQueueCapacity;
+    }
+
+    /**
+     * Sets the number of requests waiting for a thread of the executor created by this context, when none is set.
+     * @param asyncQueueCapacity the number of requests, zero to reject the requests as soon as all threads are busy.
+     */
+    public void setAsyncQueueCapacity(int asyncQueueCapacity) {
+        this.asyncQueueCapacity = asyncQueueCapacity;
+    }
+
+    public long getEventStreamPollInterval() {
+        return eventStreamPollInterval;
+    }
+
+    /**
+     * Sets the time in milliseconds between two calls of a poll method which is not long-polled, in an event stream.
+     * @param eventStreamPollInterval the time in milliseconds.
+     */
+    public void setEventStreamPollInterval(long eventStreamPollInterval) {
+        this.eventStreamPollInterval = eventStreamPollInterval;
+    }
+
+    public ExecutorService getAsyncExecutor() {
+        return asyncExecutor;
+    }
+
+    /**
+     * Sets the executor processing the asynchronous requests, its lifecycle is left to the caller.
+     * @param asyncExecutor an executor.
+     */
+    public void setAsyncExecutor(ExecutorService asyncExecutor) {
+        this.asyncExecutor = asyncExecutor;
+        this.asyncExecutorOwned = false;
     }
 
 }
@@ -2,6 +2,7 @@ package org.cfr.matcha.direct.servlet.context;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.PrintWriter;
 
 import javax.servlet.http.HttpServletRequest;
@@ -38,6 +39,16 @@ public class DirectHandlerContext extends BaseHandlerContext {
 		return request.getReader();
 	}
 
+	@Override
+	public InputStream getInputStream() throws IOException {
+		return request.getInputStream();
+	}
+
+	@Override
+	public String getCharacterEncoding() {
+		return request.getCharacterEncoding();
+	}
+
 	@Override
 	public PrintWriter getWriter() throws IOException {
 		return response.getWriter();
@@ -0,0 +1,41 @@
+package org.cfr.matcha.direct.servlet.context;
+
+import java.util.concurrent.Executor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.cfr.matcha.direct.handler.context.IEventStreamHandlerContext;
+import org.cfr.matcha.direct.spi.BaseDirectContext;
+
+import com.softwarementors.extjs.djn.router.RequestType;
+
+public class EventStreamHandlerContext extends DirectHandlerContext implements IEventStreamHandlerContext {
+
+	private final long eventStreamPollInterval;
+
+	private final Executor executor;
+
+	public EventStreamHandlerContext(BaseDirectContext context, HttpServletRequest request, HttpServletResponse response,
+			long eventStreamPollInterval, Executor executor) {
+		super(context, RequestType.POLL, request, response);
+		this.eventStreamPollInterval = eventStreamPollInterval;
+		this.executor = executor;
+	}
+
+	@Override
+	public String getQueryString() {
+		return getRequest().getQueryString();
+	}
+
+	@Override
+	public long getEventStreamPollInterval() {
+		return eventStreamPollInterval;
+	}
+
+	@Override
+	public Executor getExecutor() {
+		return executor;
+	}
+
+}
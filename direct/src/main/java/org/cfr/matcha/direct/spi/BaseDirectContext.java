@@ -6,16 +6,22 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Function;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import javax.annotation.PreDestroy;
 
 import org.apache.commons.lang.StringUtils;
 import org.cfr.commons.util.Assert;
 import org.cfr.commons.util.collection.CollectionUtil;
 import org.cfr.matcha.api.direct.DirectAction;
 import org.cfr.matcha.direct.IDirectContext;
+import org.cfr.matcha.direct.handler.IAsyncDirectHandler;
 import org.cfr.matcha.direct.handler.IDirectHandler;
+import org.cfr.matcha.direct.handler.context.IDirectHandlerContext;
 import org.cfr.matcha.direct.handler.impl.BaseHandler;
 import org.cfr.matcha.direct.handler.impl.DirectRequestRouter;
 import org.slf4j.Logger;
@@ -54,6 +60,9 @@ public class BaseDirectContext extends ConfigurationProvider implements IDirectC
 
     private IRequestRouter requestRouter;
 
+    /** <code>true</code> if the request router has been created by this context */
+    private boolean requestRouterOwned = false;
+
     private Registry registry;
 
     private String jsApiPath = org.apache.commons.lang.StringUtils.EMPTY;
@@ -120,8 +129,11 @@ public class BaseDirectContext extends ConfigurationProvider implements IDirectC
                 registry = createRegistry(getGlobalConfiguration(), apiConfigurations);
             }
 
+            directDispatcher.initialize(registry, getInvocationMode());
+
             if (requestRouter == null) {
                 requestRouter = createRequestRouter(registry, getGlobalConfiguration(), directDispatcher);
+                requestRouterOwned = true;
             }
 
             if (!CollectionUtil.isEmpty(getRegistry().getApis())) {
@@ -132,8 +144,21 @@ public class BaseDirectContext extends ConfigurationProvider implements IDirectC
         }
     }
 
+    /**
+     * Releases the threads of the request router, if it has been created by this context. Called by the container
+     * when the context is destroyed.
+     */
+    @PreDestroy
+    public void destroy() {
+        if (requestRouterOwned && requestRouter != null) {
+            requestRouter.destroy();
+        }
+    }
+
     public void reset() {
         // TODO [devacfr] this is wrong because the customization is not possible anymore.
+        destroy();
+        requestRouterOwned = false;
         initialized = false;
         this.directDispatcher = null;
         this.directHandlers = null;
@@ -156,7 +181,8 @@ public class BaseDirectContext extends ConfigurationProvider implements IDirectC
     public DirectRequestRouter createRequestRouter(@Nonnull Registry registry,
                                                    @Nonnull GlobalConfiguration configuration,
                                                    @Nonnull Dispatcher dispatcher) {
-        return new DirectRequestRouter(registry, configuration, dispatcher);
+        return new DirectRequestRouter(registry, configuration, dispatcher, getBatchExecutionMode(),
+                getCallTimeoutMillis());
 
     }
 
@@ -219,6 +245,35 @@ public class BaseDirectContext extends ConfigurationProvider implements IDirectC
         return directHandlers;
     }
 
+    /**
+     * Runs the handlers of a request in order, as a synchronous request does, without waiting for the response of an
+     * {@link IAsyncDirectHandler}: the handlers following it run once its response is written.
+     * @param handlerContext the context of the request.
+     * @return completed once every handler has run, exceptionally if one of them fails.
+     */
+    @Nonnull
+    protected CompletableFuture<Void> processAsync(@Nonnull final IDirectHandlerContext handlerContext) {
+        CompletableFuture<Void> processed = CompletableFuture.completedFuture(null);
+        for (final IDirectHandler handler : getDirectHandlers()) {
+            processed = processed.thenCompose(new Function<Void, CompletionStage<Void>>() {
+
+                @Override
+                public CompletionStage<Void> apply(Void value) {
+                    CompletionStage<Void> stage = null;
+                    if (handler instanceof IAsyncDirectHandler) {
+                        stage = ((IAsyncDirectHandler) handler).processAsync(handlerContext);
+                    }
+                    if (stage == null) {
+                        handler.process(handlerContext);
+                        stage = CompletableFuture.completedFuture(null);
+                    }
+                    return stage;
+                }
+            });
+        }
+        return processed;
+    }
+
     /**
      * @param directHandlers the directHandlers to set
      */
@@ -264,6 +319,7 @@ public class BaseDirectContext extends ConfigurationProvider implements IDirectC
 
     public void setRequestRouter(IRequestRouter requestRouter) {
         this.requestRouter = requestRouter;
+        this.requestRouterOwned = false;
     }
 
     /**
@@ -0,0 +1,122 @@
+package org.cfr.matcha.direct.spi;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nonnull;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.softwarementors.extjs.djn.config.GlobalConfiguration;
+
+/**
+ * Defines the threads running the individual requests of a batch, when batch multithreading is enabled.
+ * <p>
+ * In both modes, the number of requests of a single batch running at the same time is capped by
+ * {@link GlobalConfiguration#getBatchRequestsMaxThreadsPerRequest()}.
+ * </p>
+ * <p>
+ * The calls of {@link org.cfr.matcha.api.direct.DirectMethod#background() background} methods run apart, in the
+ * {@link #createBackgroundExecutor(GlobalConfiguration) background lane} of both modes.
+ * </p>
+ * <p>
+ * The executors are created for each request router, sized by its configuration, and shut down with its context.
+ * </p>
+ * @author devacfr
+ * @since 1.0
+ */
+public enum BatchExecutionMode {
+
+    /**
+     * Thread pool shared by all batches of a router, sized by the <code>batchRequests*ThreadsPoolSize</code> settings
+     * (default).
+     */
+    THREAD_POOL {
+
+        @Override
+        public ExecutorService createExecutor(GlobalConfiguration configuration) {
+            return new ThreadPoolExecutor(configuration.getBatchRequestsMinThreadsPoolSize(),
+                    configuration.getBatchRequestsMaxThreadsPoolSize(),
+                    configuration.getBatchRequestsThreadKeepAliveSeconds(), TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(),
+                    new ThreadFactoryBuilder().setNameFormat("matcha-direct-batch-%d").setDaemon(true).build());
+        }
+    },
+
+    /**
+     * A new virtual thread for each individual request, the pool settings are ignored. Falls back to
+     * {@link #THREAD_POOL} when the JVM does not support virtual threads.
+     */
+    VIRTUAL_THREADS {
+
+        @Override
+        public ExecutorService createExecutor(GlobalConfiguration configuration) {
+            ExecutorService executor = createVirtualThreadExecutor();
+            if (executor == null) {
+                logger.warn("Virtual threads are not supported by this JVM, the batch requests thread pool is used instead");
+                executor = THREAD_POOL.createExecutor(configuration);
+            }
+            return executor;
+        }
+    };
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchExecutionMode.class);
+
+    /**
+     * Creates the executor of the individual requests of the batches of a router.
+     * @param configuration the configuration of the router.
+     * @return a new executor, shut down by its owner.
+     */
+    @Nonnull
+    public abstract ExecutorService createExecutor(@Nonnull GlobalConfiguration configuration);
+
+    /**
+     * Creates the executor of the calls of the background methods of a router: a pool of low priority daemon threads,
+     * a quarter of the size of the batch requests thread pool. The background calls queue in this pool instead of
+     * taking the threads of the interactive calls, and are not counted in the threads of their batch.
+     * @param configuration the configuration of the router.
+     * @return a new executor, shut down by its owner.
+     */
+    @Nonnull
+    public static ExecutorService createBackgroundExecutor(@Nonnull GlobalConfiguration configuration) {
+        int size = Math.max(1, configuration.getBatchRequestsMaxThreadsPoolSize() / 4);
+        // the core threads time out too, the keep alive time must be positive
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(size, size,
+                Math.max(1, configuration.getBatchRequestsThreadKeepAliveSeconds()), TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(),
+                new ThreadFactoryBuilder().setNameFormat("matcha-direct-background-%d")
+                        .setDaemon(true)
+                        .setPriority(Thread.MIN_PRIORITY)
+                        .build());
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    /**
+     * Creates through reflection a virtual thread per task executor, as the sources are compiled for a JVM without
+     * virtual threads.
+     * @return a new executor, <code>null</code> if virtual threads are not supported.
+     */
+    private static ExecutorService createVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (NoSuchMethodException e) {
+            return null;
+        } catch (IllegalAccessException e) {
+            logger.warn(e.getMessage(), e);
+            return null;
+        } catch (InvocationTargetException e) {
+            // preview feature not enabled
+            logger.warn(e.getCause().getMessage(), e.getCause());
+            return null;
+        }
+    }
+}
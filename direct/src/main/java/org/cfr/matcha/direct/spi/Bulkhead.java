@@ -0,0 +1,121 @@
+package org.cfr.matcha.direct.spi;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Limits the number of calls of an action or a method running at the same time, so that an expensive method can not
+ * take all the threads processing the requests.
+ * <p>
+ * A free permit is taken with a single compare-and-set, without locking. A call over the limit takes a free slot of
+ * the queue, also with a compare-and-set, and waits for a permit; it fails at once with a
+ * {@link BulkheadFullException} if the queue is full.
+ * </p>
+ * @author devacfr
+ * @since 1.0
+ */
+public final class Bulkhead {
+
+    private final String name;
+
+    private final int maxConcurrentCalls;
+
+    private final int maxQueuedCalls;
+
+    private final Semaphore permits;
+
+    private final AtomicInteger queuedCalls = new AtomicInteger();
+
+    /**
+     * 
+     * @param name the name of the action or method, reported in the errors.
+     * @param maxConcurrentCalls the maximum number of calls running at the same time, greater than zero.
+     * @param maxQueuedCalls the maximum number of calls waiting for a permit.
+     */
+    public Bulkhead(@Nonnull final String name, final int maxConcurrentCalls, final int maxQueuedCalls) {
+        if (maxConcurrentCalls <= 0) {
+            throw new IllegalArgumentException("maxConcurrentCalls must be greater than zero");
+        }
+        this.name = name;
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        this.maxQueuedCalls = Math.max(maxQueuedCalls, 0);
+        this.permits = new Semaphore(maxConcurrentCalls);
+    }
+
+    /**
+     * Takes a permit, waiting in the queue if none is free. Each successful call must be followed by a call to
+     * {@link #release()}.
+     * @throws BulkheadFullException if no permit is free and the queue is full, or if the thread is interrupted
+     *             while waiting.
+     */
+    public void acquire() {
+        if (permits.tryAcquire()) {
+            return;
+        }
+        int queued;
+        do {
+            queued = queuedCalls.get();
+            if (queued >= maxQueuedCalls) {
+                throw BulkheadFullException.forMaxConcurrentCallsReached(name, maxConcurrentCalls, maxQueuedCalls);
+            }
+        } while (!queuedCalls.compareAndSet(queued, queued + 1));
+        try {
+            permits.acquire();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw BulkheadFullException.forInterruptedWhileQueued(name, ex);
+        } finally {
+            queuedCalls.decrementAndGet();
+        }
+    }
+
+    /**
+     * Gives back a permit taken by {@link #acquire()}.
+     */
+    public void release() {
+        permits.release();
+    }
+
+    /**
+     * 
+     * @return the name of the action or method.
+     */
+    @Nonnull
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 
+     * @return the maximum number of calls running at the same time.
+     */
+    public int getMaxConcurrentCalls() {
+        return maxConcurrentCalls;
+    }
+
+    /**
+     * 
+     * @return the maximum number of calls waiting for a permit.
+     */
+    public int getMaxQueuedCalls() {
+        return maxQueuedCalls;
+    }
+
+    /**
+     * 
+     * @return the number of free permits.
+     */
+    public int getAvailablePermits() {
+        return permits.availablePermits();
+    }
+
+    /**
+     * 
+     * @return the number of calls waiting for a permit.
+     */
+    public int getQueuedCalls() {
+        return queuedCalls.get();
+    }
+}
@@ -0,0 +1,32 @@
+package org.cfr.matcha.direct.spi;
+
+import com.softwarementors.extjs.djn.DirectJNgineException;
+
+/**
+ * Thrown when a call is rejected by a {@link Bulkhead}, the client receiving it as an error response.
+ * @author devacfr
+ * @since 1.0
+ */
+public class BulkheadFullException extends DirectJNgineException {
+
+    /** serialVersionUID */
+    private static final long serialVersionUID = -2766383393870719581L;
+
+    private BulkheadFullException(String message) {
+        super(message);
+    }
+
+    private BulkheadFullException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public static BulkheadFullException forMaxConcurrentCallsReached(String name, int maxConcurrentCalls,
+                                                                     int maxQueuedCalls) {
+        return new BulkheadFullException("Too many concurrent calls of '" + name + "': the maximum of "
+                + maxConcurrentCalls + " running calls and " + maxQueuedCalls + " queued calls is reached");
+    }
+
+    public static BulkheadFullException forInterruptedWhileQueued(String name, InterruptedException cause) {
+        return new BulkheadFullException("Interrupted while waiting for a call of '" + name + "' to end", cause);
+    }
+}
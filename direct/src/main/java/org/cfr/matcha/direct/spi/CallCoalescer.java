@@ -0,0 +1,108 @@
+package org.cfr.matcha.direct.spi;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.cfr.matcha.api.direct.DirectMethod;
+
+import com.google.gson.JsonArray;
+
+/**
+ * Coalesces identical calls running at the same time: while a call is in flight, the identical calls attach to it
+ * instead of invoking the method again, and receive the same result.
+ * <p>
+ * The first caller invokes the method and receives its result as usual. The other callers receive a
+ * {@link CompletableFuture} completed with the same result, or the same error, when the first call returns or when
+ * its asynchronous result completes. A call arriving after that invokes the method again: the results are not
+ * cached.
+ * </p>
+ * <p>
+ * Each of the other callers receives its own future: cancelling it, at the deadline of the call for instance, affects
+ * neither the call in flight nor the other callers.
+ * </p>
+ * @author devacfr
+ * @since 1.0
+ * @see DirectMethod#coalesce()
+ */
+public final class CallCoalescer {
+
+    private final ConcurrentMap<String, CompletableFuture<Object>> inFlightCalls = new ConcurrentHashMap<String, CompletableFuture<Object>>();
+
+    /**
+     * Invokes a call, unless an identical call is in flight.
+     * @param key identifies the identical calls, see {@link #createKey(String, JsonArray)}.
+     * @param call invokes the method.
+     * @return the value returned by the call, or a new {@link CompletableFuture} of the result of the call in flight.
+     */
+    public Object call(@Nonnull final String key, @Nonnull final Supplier<Object> call) {
+        final CompletableFuture<Object> flight = new CompletableFuture<Object>();
+        CompletableFuture<Object> inFlightCall = inFlightCalls.putIfAbsent(key, flight);
+        if (inFlightCall != null) {
+            return inFlightCall.thenApply(Function.<Object> identity());
+        }
+        Object result = null;
+        try {
+            result = call.get();
+        } catch (RuntimeException ex) {
+            land(key, flight, null, ex);
+            throw ex;
+        } catch (Error ex) {
+            land(key, flight, null, ex);
+            throw ex;
+        }
+        if (result instanceof CompletionStage) {
+            ((CompletionStage<?>) result).whenComplete(new BiConsumer<Object, Throwable>() {
+
+                @Override
+                public void accept(Object value, Throwable error) {
+                    land(key, flight, value, error);
+                }
+            });
+        } else {
+            land(key, flight, result, null);
+        }
+        return result;
+    }
+
+    /**
+     * Ends a call in flight: the calls arriving from now on invoke the method again.
+     */
+    private void land(String key, CompletableFuture<Object> flight, Object value, Throwable error) {
+        inFlightCalls.remove(key, flight);
+        if (error != null) {
+            flight.completeExceptionally(error);
+        } else {
+            flight.complete(value);
+        }
+    }
+
+    /**
+     * 
+     * @return the number of calls in flight.
+     */
+    public int getInFlightCallCount() {
+        return inFlightCalls.size();
+    }
+
+    /**
+     * Creates the key of a call from its canonical JSON arguments: the members of the JSON objects are sorted by name,
+     * so that arguments differing only by the order of their members are identical.
+     * @param fullName the "Action.method" name of the method.
+     * @param arguments the JSON arguments of the call.
+     * @return the key of the call.
+     */
+    @Nonnull
+    public static String createKey(@Nonnull final String fullName, @Nullable final JsonArray arguments) {
+        StringBuilder key = new StringBuilder(fullName).append(':');
+        CanonicalJson.append(key, arguments);
+        return key.toString();
+    }
+}
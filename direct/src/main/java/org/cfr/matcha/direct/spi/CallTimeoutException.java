@@ -0,0 +1,26 @@
+package org.cfr.matcha.direct.spi;
+
+import org.cfr.matcha.api.direct.DirectMethod;
+
+import com.softwarementors.extjs.djn.DirectJNgineException;
+
+/**
+ * Thrown when a call is still running at its deadline, the client receiving it as an error response.
+ * @author devacfr
+ * @since 1.0
+ * @see DirectMethod#timeoutMillis()
+ */
+public class CallTimeoutException extends DirectJNgineException {
+
+    /** serialVersionUID */
+    private static final long serialVersionUID = 4818512863329166904L;
+
+    private CallTimeoutException(String message) {
+        super(message);
+    }
+
+    public static CallTimeoutException forDeadlineExceeded(String name, long timeoutMillis) {
+        return new CallTimeoutException("The call of '" + name + "' did not complete within its deadline of "
+                + timeoutMillis + " ms");
+    }
+}
@@ -0,0 +1,63 @@
+package org.cfr.matcha.direct.spi;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+
+/**
+ * Writes JSON values in a canonical form: the members of the JSON objects are sorted by name, so that values
+ * differing only by the order of their members are written the same way.
+ * @author devacfr
+ * @since 1.0
+ */
+final class CanonicalJson {
+
+    private CanonicalJson() {
+    }
+
+    /**
+     * Appends the canonical form of a JSON value.
+     * @param json the string builder.
+     * @param element the JSON value, <code>null</code> is written as a JSON null.
+     */
+    public static void append(@Nonnull final StringBuilder json, @Nullable final JsonElement element) {
+        if (element == null || element.isJsonNull()) {
+            json.append("null");
+        } else if (element.isJsonArray()) {
+            json.append('[');
+            JsonArray array = element.getAsJsonArray();
+            for (int i = 0; i < array.size(); i++) {
+                if (i > 0) {
+                    json.append(',');
+                }
+                append(json, array.get(i));
+            }
+            json.append(']');
+        } else if (element.isJsonObject()) {
+            Map<String, JsonElement> members = new TreeMap<String, JsonElement>();
+            for (Map.Entry<String, JsonElement> member : ((JsonObject) element).entrySet()) {
+                members.put(member.getKey(), member.getValue());
+            }
+            json.append('{');
+            boolean first = true;
+            for (Map.Entry<String, JsonElement> member : members.entrySet()) {
+                if (!first) {
+                    json.append(',');
+                }
+                first = false;
+                json.append(new JsonPrimitive(member.getKey()).toString()).append(':');
+                append(json, member.getValue());
+            }
+            json.append('}');
+        } else {
+            json.append(element.toString());
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package org.cfr.matcha.direct.spi;
 
 import org.cfr.matcha.direct.IConfigurationSupport;
+import org.cfr.matcha.direct.spi.invoker.InvocationMode;
 
 import com.softwarementors.extjs.djn.config.GlobalConfiguration;
 import com.softwarementors.extjs.djn.gson.GsonBuilderConfigurator;
@@ -35,6 +36,12 @@ public class ConfigurationProvider implements IConfigurationSupport {
 
     private boolean createSourceFiles = GlobalConfiguration.DEFAULT_CREATE_SOURCE_FILES;
 
+    private InvocationMode invocationMode = InvocationMode.GENERATED;
+
+    private BatchExecutionMode batchExecutionMode = BatchExecutionMode.THREAD_POOL;
+
+    private long callTimeoutMillis = 0;
+
     private String providersUrl;
 
     private String contextPath;
@@ -252,4 +259,52 @@ public class ConfigurationProvider implements IConfigurationSupport {
         this.createSourceFiles = createSourceFiles;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public InvocationMode getInvocationMode() {
+        return invocationMode;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setInvocationMode(InvocationMode invocationMode) {
+        this.invocationMode = invocationMode;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public BatchExecutionMode getBatchExecutionMode() {
+        return batchExecutionMode;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setBatchExecutionMode(BatchExecutionMode batchExecutionMode) {
+        this.batchExecutionMode = batchExecutionMode;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getCallTimeoutMillis() {
+        return callTimeoutMillis;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setCallTimeoutMillis(long callTimeoutMillis) {
+        this.callTimeoutMillis = callTimeoutMillis;
+    }
+
 }
@@ -1,18 +1,48 @@
 package org.cfr.matcha.direct.spi;
 
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Map;
+import java.util.concurrent.CompletionStage;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
+import org.cfr.matcha.api.direct.DirectAction;
+import org.cfr.matcha.api.direct.DirectMethod;
+import org.cfr.matcha.direct.handler.processor.ProcessorUtil;
+import org.cfr.matcha.direct.spi.invoker.IJsonArgumentConverter;
+import org.cfr.matcha.direct.spi.invoker.IJsonMethodInvoker;
+import org.cfr.matcha.direct.spi.invoker.InvocationMode;
+
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Maps;
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.softwarementors.extjs.djn.api.RegisteredAction;
 import com.softwarementors.extjs.djn.api.RegisteredMethod;
+import com.softwarementors.extjs.djn.api.Registry;
+import com.softwarementors.extjs.djn.config.GlobalConfiguration;
 import com.softwarementors.extjs.djn.router.dispatcher.DispatcherBase;
+import com.softwarementors.extjs.djn.router.dispatcher.MethodExecutionException;
+import com.softwarementors.extjs.djn.router.processor.RequestException;
 
 public class DefaultDispatcher extends DispatcherBase {
 
     private Map<Class<? extends Object>, Object> mapActions;
 
+    private Map<RegisteredMethod, MethodEntry> entries = Collections.emptyMap();
+
+    /** the entries of the standard methods by action name, then by method name */
+    private Map<String, Map<String, MethodEntry>> methodTable = Collections.emptyMap();
+
+    private final CallCoalescer callCoalescer = new CallCoalescer();
+
     public DefaultDispatcher(Map<Class<? extends Object>, Object> mapActions) {
         this.mapActions = mapActions;
     }
@@ -25,6 +55,248 @@ public class DefaultDispatcher extends DispatcherBase {
         }
     }
 
+    /**
+     * Builds the method table of the registry: one {@link MethodEntry} per method, holding its action instance and
+     * the invoker used instead of reflection to dispatch the requests. Standard methods are indexed by their action
+     * name, then by their method name, so that a lookup builds no key. Methods of an action without instance in this dispatcher are left to the default
+     * reflective dispatch.
+     * <p>
+     * The concurrency limits declared by {@link DirectAction} and {@link DirectMethod} are enforced by the
+     * {@link Bulkhead}s of the entries. The {@link ResultCache}s of the entries convert the arguments to evict with
+     * the {@link Gson} instance configured by the registry.
+     * </p>
+     * @param registry the registry containing the methods to dispatch.
+     * @param invocationMode the way the methods are invoked.
+     * @throws IllegalAccessException if a method is not accessible.
+     */
+    public void initialize(@Nonnull final Registry registry, @Nonnull final InvocationMode invocationMode)
+            throws IllegalAccessException {
+        Map<RegisteredMethod, MethodEntry> entries = Maps.newIdentityHashMap();
+        ImmutableMap.Builder<String, Map<String, MethodEntry>> methodTable = ImmutableMap.builder();
+        GlobalConfiguration globalConfiguration = registry.getGlobalConfiguration();
+        Gson gson = globalConfiguration != null ? ProcessorUtil.createGson(globalConfiguration) : null;
+        for (RegisteredAction action : registry.getActions()) {
+            Bulkhead actionBulkhead = null;
+            Class<?> actionClass = action.getActionClass();
+            DirectAction actionAnnotation = actionClass != null ? actionClass.getAnnotation(DirectAction.class) : null;
+            if (actionAnnotation != null && actionAnnotation.maxConcurrentCalls() > 0) {
+                actionBulkhead = new Bulkhead(action.getName(), actionAnnotation.maxConcurrentCalls(),
+                        actionAnnotation.maxQueuedCalls());
+            }
+            ImmutableMap.Builder<String, MethodEntry> actionMethods = ImmutableMap.builder();
+            for (RegisteredMethod method : action.getStandardMethods()) {
+                MethodEntry entry = createEntry(method, invocationMode, actionBulkhead, gson);
+                if (entry != null) {
+                    entries.put(method, entry);
+                    actionMethods.put(method.getName(), entry);
+                }
+            }
+            methodTable.put(action.getName(), actionMethods.build());
+            for (RegisteredMethod method : action.getPollMethods()) {
+                MethodEntry entry = createEntry(method, invocationMode, actionBulkhead, gson);
+                if (entry != null) {
+                    entries.put(method, entry);
+                }
+            }
+        }
+        this.entries = Collections.unmodifiableMap(entries);
+        this.methodTable = methodTable.build();
+    }
+
+    @Nullable
+    private MethodEntry createEntry(RegisteredMethod method, InvocationMode invocationMode, Bulkhead actionBulkhead,
+                                    Gson gson) throws IllegalAccessException {
+        Method javaMethod = method.getMethod();
+        Object actionInstance = null;
+        if (!Modifier.isStatic(javaMethod.getModifiers())) {
+            actionInstance = mapActions.get(method.getActionClass());
+            if (actionInstance == null) {
+                return null;
+            }
+        }
+        Bulkhead methodBulkhead = null;
+        DirectMethod methodAnnotation = javaMethod.getAnnotation(DirectMethod.class);
+        if (methodAnnotation != null && methodAnnotation.maxConcurrentCalls() > 0) {
+            methodBulkhead = new Bulkhead(method.getFullName(), methodAnnotation.maxConcurrentCalls(),
+                    methodAnnotation.maxQueuedCalls());
+        }
+        return new MethodEntry(method, actionInstance, invocationMode.createInvoker(actionInstance, javaMethod),
+                actionBulkhead, methodBulkhead, gson);
+    }
+
+    /**
+     * Resolves a standard method in the method table, without building its full name.
+     * @param actionName the action name.
+     * @param methodName the method name.
+     * @return the entry of the method, <code>null</code> if the method is not in the table.
+     */
+    @Nullable
+    public MethodEntry getMethodEntry(@Nonnull final String actionName, @Nonnull final String methodName) {
+        Map<String, MethodEntry> actionMethods = methodTable.get(actionName);
+        return actionMethods != null ? actionMethods.get(methodName) : null;
+    }
+
+    /**
+     * Finds the result cache of a method, typically to evict the results made stale by another method.
+     * @param actionName the action name.
+     * @param methodName the method name.
+     * @return the cache of the results of the method, <code>null</code> if the results are not cached.
+     */
+    @Nullable
+    public ResultCache getResultCache(@Nonnull final String actionName, @Nonnull final String methodName) {
+        MethodEntry entry = getMethodEntry(actionName, methodName);
+        return entry != null ? entry.getResultCache() : null;
+    }
+
+    /**
+     * 
+     * @param method a registered method.
+     * @return the entry of the method, <code>null</code> if the method is not in the table.
+     */
+    @Nullable
+    public MethodEntry getMethodEntry(@Nonnull final RegisteredMethod method) {
+        return entries.get(method);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Object dispatch(RegisteredMethod method, Object[] parameters) {
+        MethodEntry entry = entries.get(method);
+        if (entry == null) {
+            return super.dispatch(method, parameters);
+        }
+        return dispatch(entry, parameters);
+    }
+
+    /**
+     * Dispatches a method of the method table.
+     * @param entry the entry of the method.
+     * @param parameters the method parameters, already converted to the declared parameter types.
+     * @return the value returned by the method.
+     */
+    public Object dispatch(@Nonnull final MethodEntry entry, @Nonnull final Object[] parameters) {
+        if (parameters.length != entry.getParameterCount()) {
+            throw RequestException.forWrongMethodArgumentCount(entry.getMethod(), parameters.length);
+        }
+        acquirePermits(entry);
+        Object result = null;
+        try {
+            result = entry.getInvoker().invoke(parameters);
+        } catch (Exception ex) {
+            releasePermits(entry);
+            throw MethodExecutionException.forJavaMethodInvocationError(entry.getMethod(), ex);
+        }
+        return releasePermitsOnCompletion(entry, result);
+    }
+
+    /**
+     * Dispatches a method with the arguments of a JSON request, without converting them first to an array of
+     * objects.
+     * @param entry the entry of the method to dispatch, {@link MethodEntry#isJsonInvoker()} must be
+     *            <code>true</code>.
+     * @param arguments the JSON arguments, already checked against the parameter types.
+     * @param converter converts the arguments which are not primitive.
+     * @return the value returned by the method.
+     */
+    public Object dispatchJson(@Nonnull final MethodEntry entry, final JsonArray arguments,
+                               @Nonnull final IJsonArgumentConverter converter) {
+        int argumentCount = arguments == null ? 0 : arguments.size();
+        if (argumentCount != entry.getParameterCount()) {
+            throw RequestException.forWrongMethodArgumentCount(entry.getMethod(), argumentCount);
+        }
+        acquirePermits(entry);
+        Object result = null;
+        try {
+            result = ((IJsonMethodInvoker) entry.getInvoker()).invoke(arguments, converter);
+        } catch (InvocationTargetException ex) {
+            releasePermits(entry);
+            throw MethodExecutionException.forJavaMethodInvocationError(entry.getMethod(), ex);
+        } catch (RuntimeException ex) {
+            releasePermits(entry);
+            throw ex;
+        } catch (Exception ex) {
+            releasePermits(entry);
+            throw MethodExecutionException.forJavaMethodInvocationError(entry.getMethod(), ex);
+        }
+        return releasePermitsOnCompletion(entry, result);
+    }
+
+    /**
+     * Dispatches a call of a method coalescing its identical calls, see {@link CallCoalescer}.
+     * @param entry the entry of the method, {@link MethodEntry#isCoalesced()} should be <code>true</code>.
+     * @param arguments the JSON arguments of the call.
+     * @param call dispatches the call.
+     * @return the value returned by the call, or a {@link java.util.concurrent.CompletableFuture} of the result of
+     *         an identical call in flight.
+     */
+    public Object dispatchCoalesced(@Nonnull final MethodEntry entry, @Nullable final JsonArray arguments,
+                                    @Nonnull final Supplier<Object> call) {
+        return callCoalescer.call(CallCoalescer.createKey(entry.getFullName(), arguments), call);
+    }
+
+    /**
+     * 
+     * @return the coalescer of the identical calls.
+     */
+    @Nonnull
+    public CallCoalescer getCallCoalescer() {
+        return callCoalescer;
+    }
+
+    /**
+     * Takes the permits of the bulkheads of a method, the action one first.
+     */
+    private static void acquirePermits(MethodEntry entry) {
+        Bulkhead actionBulkhead = entry.getActionBulkhead();
+        if (actionBulkhead != null) {
+            actionBulkhead.acquire();
+        }
+        Bulkhead methodBulkhead = entry.getMethodBulkhead();
+        if (methodBulkhead != null) {
+            try {
+                methodBulkhead.acquire();
+            } catch (RuntimeException ex) {
+                if (actionBulkhead != null) {
+                    actionBulkhead.release();
+                }
+                throw ex;
+            }
+        }
+    }
+
+    private static void releasePermits(MethodEntry entry) {
+        if (entry.getMethodBulkhead() != null) {
+            entry.getMethodBulkhead().release();
+        }
+        if (entry.getActionBulkhead() != null) {
+            entry.getActionBulkhead().release();
+        }
+    }
+
+    /**
+     * Releases the permits of a method when its result is available: at once, or when an asynchronous result
+     * completes.
+     */
+    private static Object releasePermitsOnCompletion(final MethodEntry entry, Object result) {
+        if (entry.getActionBulkhead() == null && entry.getMethodBulkhead() == null) {
+            return result;
+        }
+        if (result instanceof CompletionStage) {
+            ((CompletionStage<?>) result).whenComplete(new BiConsumer<Object, Throwable>() {
+
+                @Override
+                public void accept(Object value, Throwable error) {
+                    releasePermits(entry);
+                }
+            });
+        } else {
+            releasePermits(entry);
+        }
+        return result;
+    }
+
     @Override
     protected Object getInvokeInstanceForNonStaticMethod(RegisteredMethod method) throws Exception {
         Object actionInstance = null;
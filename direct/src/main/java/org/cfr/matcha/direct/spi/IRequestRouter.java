@@ -2,14 +2,18 @@ package org.cfr.matcha.direct.spi;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.PrintWriter;
 import java.io.Reader;
 import java.io.Writer;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import org.apache.commons.fileupload.FileItem;
 import org.apache.commons.fileupload.FileUploadException;
 import org.cfr.matcha.direct.handler.processor.form.UploadFormPostRequestProcessor;
+import org.cfr.matcha.direct.handler.processor.poll.IPollEventSink;
+import org.cfr.matcha.direct.handler.processor.poll.PollEventStream;
 
 public interface IRequestRouter {
 
@@ -17,6 +21,15 @@ public interface IRequestRouter {
 
     void processSimpleFormPostRequest(Reader reader, Writer writer) throws IOException;
 
+    /**
+     * Processes a simple form post, parsed from the bytes of the request body.
+     * @param input the request body, URL encoded.
+     * @param characterSet the character encoding of the body, UTF-8 if <code>null</code>.
+     * @param writer the response writer.
+     * @throws IOException if an I/O error occurs.
+     */
+    void processSimpleFormPostRequest(InputStream input, String characterSet, Writer writer) throws IOException;
+
     UploadFormPostRequestProcessor createUploadFromProcessor();
 
     void
@@ -27,8 +40,45 @@ public interface IRequestRouter {
 
     void processPollRequest(Reader reader, Writer writer, String pathInfo) throws IOException;
 
+    /**
+     * Processes a poll request without waiting for the response of a long poll.
+     * @param reader the request body, read before returning.
+     * @param writer the response writer.
+     * @param pathInfo the path of the request, naming the event.
+     * @return completed when the response is written, once the event is available or the long poll expires, and
+     *         exceptionally if the write fails.
+     * @throws IOException if an I/O error occurs.
+     */
+    CompletableFuture<Void> processPollRequestAsync(Reader reader, Writer writer, String pathInfo) throws IOException;
+
+    /**
+     * Creates the stream of the events of a poll method, sent as Server-Sent Events.
+     * @param requestString the poll parameters, URL encoded.
+     * @param pathInfo the path of the request, naming the event.
+     * @param writer the response writer.
+     * @param pollInterval the time in milliseconds between two calls of a poll method which is not long-polled.
+     * @return the stream, not started.
+     */
+    PollEventStream createPollEventStream(String requestString, String pathInfo, Writer writer, long pollInterval);
+
+    /**
+     * Creates the stream of the events of a poll method, sent to the client by a sink.
+     * @param requestString the poll parameters, URL encoded.
+     * @param pathInfo the path of the request, naming the event.
+     * @param sink sends the poll responses to the client.
+     * @param pollInterval the time in milliseconds between two calls of a poll method which is not long-polled.
+     * @return the stream, not started.
+     */
+    PollEventStream createPollEventStream(String requestString, String pathInfo, IPollEventSink sink,
+                                          long pollInterval);
+
     void handleFileUploadException(UploadFormPostRequestProcessor processor, FileUploadException e);
 
     void processSourceRequest(BufferedReader reader, PrintWriter writer, String pathInfo);
 
+    /**
+     * Releases the threads of the router, once its context is destroyed.
+     */
+    void destroy();
+
 }
\ No newline at end of file
@@ -0,0 +1,265 @@
+package org.cfr.matcha.direct.spi;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.util.concurrent.CompletionStage;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.cfr.matcha.api.direct.DirectMethod;
+import org.cfr.matcha.direct.spi.invoker.IJsonMethodInvoker;
+import org.cfr.matcha.direct.spi.invoker.IMethodInvoker;
+
+import com.google.gson.Gson;
+import com.softwarementors.extjs.djn.api.RegisteredMethod;
+import com.softwarementors.extjs.djn.api.RegisteredStandardMethod;
+import com.softwarementors.extjs.djn.api.Registry;
+
+/**
+ * Immutable entry of the method table of {@link DefaultDispatcher}: everything needed to call a Direct method,
+ * computed once when the dispatcher is initialized.
+ * @author devacfr
+ * @since 1.0
+ */
+public final class MethodEntry {
+
+    private final RegisteredMethod method;
+
+    private final Object instance;
+
+    private final IMethodInvoker invoker;
+
+    private final Class<?>[] parameterTypes;
+
+    private final Type[] gsonParameterTypes;
+
+    private final boolean handleParametersAsJsonArray;
+
+    private final boolean async;
+
+    private final boolean parallelSafe;
+
+    private final boolean coalesced;
+
+    private final boolean background;
+
+    private final long timeoutMillis;
+
+    private final ResultCache resultCache;
+
+    private final Bulkhead actionBulkhead;
+
+    private final Bulkhead methodBulkhead;
+
+    /**
+     * 
+     * @param method the registered method.
+     * @param instance the action instance, <code>null</code> for a static method.
+     * @param invoker the invoker of the method.
+     */
+    public MethodEntry(@Nonnull final RegisteredMethod method, @Nullable final Object instance,
+            @Nonnull final IMethodInvoker invoker) {
+        this(method, instance, invoker, null, null);
+    }
+
+    /**
+     * 
+     * @param method the registered method.
+     * @param instance the action instance, <code>null</code> for a static method.
+     * @param invoker the invoker of the method.
+     * @param actionBulkhead the bulkhead shared by the methods of the action, <code>null</code> if none.
+     * @param methodBulkhead the bulkhead of the method, <code>null</code> if none.
+     */
+    public MethodEntry(@Nonnull final RegisteredMethod method, @Nullable final Object instance,
+            @Nonnull final IMethodInvoker invoker, @Nullable final Bulkhead actionBulkhead,
+            @Nullable final Bulkhead methodBulkhead) {
+        this(method, instance, invoker, actionBulkhead, methodBulkhead, null);
+    }
+
+    /**
+     * 
+     * @param method the registered method.
+     * @param instance the action instance, <code>null</code> for a static method.
+     * @param invoker the invoker of the method.
+     * @param actionBulkhead the bulkhead shared by the methods of the action, <code>null</code> if none.
+     * @param methodBulkhead the bulkhead of the method, <code>null</code> if none.
+     * @param gson the configured {@link Gson} instance, used by the {@link ResultCache} of the method.
+     *            <code>null</code> for a default instance.
+     */
+    public MethodEntry(@Nonnull final RegisteredMethod method, @Nullable final Object instance,
+            @Nonnull final IMethodInvoker invoker, @Nullable final Bulkhead actionBulkhead,
+            @Nullable final Bulkhead methodBulkhead, @Nullable final Gson gson) {
+        this.method = method;
+        this.actionBulkhead = actionBulkhead;
+        this.methodBulkhead = methodBulkhead;
+        this.instance = instance;
+        this.invoker = invoker;
+        this.parameterTypes = method.getParameterTypes();
+        this.gsonParameterTypes = Registry.getParameterTypes(method.getMethod());
+        this.handleParametersAsJsonArray = method instanceof RegisteredStandardMethod
+                && ((RegisteredStandardMethod) method).getHandleParametersAsJsonArray();
+        Method javaMethod = method.getMethod();
+        this.async = CompletionStage.class.isAssignableFrom(javaMethod.getReturnType());
+        DirectMethod annotation = javaMethod.getAnnotation(DirectMethod.class);
+        this.parallelSafe = annotation != null && annotation.parallelSafe();
+        this.coalesced = annotation != null && annotation.coalesce();
+        this.background = annotation != null && annotation.background();
+        this.timeoutMillis = annotation != null ? annotation.timeoutMillis() : 0;
+        this.resultCache = annotation != null && annotation.cacheTtlMillis() > 0 ? new ResultCache(method.getFullName(),
+                annotation.cacheTtlMillis(), annotation.cacheMaxEntries(), gson) : null;
+    }
+
+    /**
+     * 
+     * @return the registered method.
+     */
+    @Nonnull
+    public RegisteredMethod getMethod() {
+        return method;
+    }
+
+    /**
+     * 
+     * @return the action instance, <code>null</code> for a static method.
+     */
+    @Nullable
+    public Object getInstance() {
+        return instance;
+    }
+
+    /**
+     * 
+     * @return the invoker of the method.
+     */
+    @Nonnull
+    public IMethodInvoker getInvoker() {
+        return invoker;
+    }
+
+    /**
+     * 
+     * @return <code>true</code> if the method can be invoked with the JSON arguments of a request.
+     */
+    public boolean isJsonInvoker() {
+        return invoker instanceof IJsonMethodInvoker;
+    }
+
+    /**
+     * 
+     * @return the parameter types of the method, shared by all calls: it must not be modified.
+     */
+    @Nonnull
+    public Class<?>[] getParameterTypes() {
+        return parameterTypes;
+    }
+
+    /**
+     * 
+     * @return the number of parameters of the method.
+     */
+    public int getParameterCount() {
+        return parameterTypes.length;
+    }
+
+    /**
+     * 
+     * @return the generic types registered for the parameters, <code>null</code> if none. It must not be modified.
+     */
+    @Nullable
+    public Type[] getGsonParameterTypes() {
+        return gsonParameterTypes;
+    }
+
+    /**
+     * 
+     * @return <code>true</code> if the method receives the JSON arguments as a single JSON array.
+     */
+    public boolean isHandleParametersAsJsonArray() {
+        return handleParametersAsJsonArray;
+    }
+
+    /**
+     * 
+     * @return <code>true</code> if the method returns a {@link CompletionStage}, the response being completed with
+     *         its value.
+     */
+    public boolean isAsync() {
+        return async;
+    }
+
+    /**
+     * 
+     * @return <code>true</code> if the calls of the method can run at the same time as the other calls of a batch.
+     * @see DirectMethod#parallelSafe()
+     */
+    public boolean isParallelSafe() {
+        return parallelSafe;
+    }
+
+    /**
+     * 
+     * @return <code>true</code> if the identical calls of the method running at the same time are coalesced.
+     * @see DirectMethod#coalesce()
+     */
+    public boolean isCoalesced() {
+        return coalesced;
+    }
+
+    /**
+     * 
+     * @return <code>true</code> if the calls of the method run in the background lane of a batch.
+     * @see DirectMethod#background()
+     */
+    public boolean isBackground() {
+        return background;
+    }
+
+    /**
+     * 
+     * @return the deadline of a call of the method in milliseconds, zero to use the default call timeout, negative for
+     *         no deadline.
+     * @see DirectMethod#timeoutMillis()
+     */
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    /**
+     * 
+     * @return the cache of the results of the method, <code>null</code> if the results are not cached.
+     * @see DirectMethod#cacheTtlMillis()
+     */
+    @Nullable
+    public ResultCache getResultCache() {
+        return resultCache;
+    }
+
+    /**
+     * 
+     * @return the bulkhead shared by the methods of the action, <code>null</code> if none.
+     */
+    @Nullable
+    public Bulkhead getActionBulkhead() {
+        return actionBulkhead;
+    }
+
+    /**
+     * 
+     * @return the bulkhead of the method, <code>null</code> if none.
+     */
+    @Nullable
+    public Bulkhead getMethodBulkhead() {
+        return methodBulkhead;
+    }
+
+    /**
+     * 
+     * @return the "Action.method" name of the method.
+     */
+    @Nonnull
+    public String getFullName() {
+        return method.getFullName();
+    }
+
+}
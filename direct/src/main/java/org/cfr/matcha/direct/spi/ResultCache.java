@@ -0,0 +1,303 @@
+package org.cfr.matcha.direct.spi;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.cfr.matcha.api.direct.DirectMethod;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+
+/**
+ * Bounded cache of the results of a Direct method, keyed by the canonical JSON arguments of the calls.
+ * <p>
+ * The results are kept already serialized to JSON, so that a hit skips both the invocation of the method and the
+ * serialization of its result. An entry expires once its time to live has elapsed; when the cache is full, the least
+ * recently used entry is evicted. The entries are read without locking, a put filling the cache scanning the entries
+ * for the one to evict.
+ * </p>
+ * <p>
+ * An action changing the data returned by a cached method evicts the stale results with
+ * {@link #invalidate(Object...)} or {@link #invalidateAll()}, the cache being found with
+ * {@link DefaultDispatcher#getResultCache(String, String)}. A result computed while the cache was invalidated may
+ * be stale: it is dropped by {@link #put(String, String, long)}, given the {@link #getGeneration() generation} of
+ * the cache read before the call.
+ * </p>
+ * @author devacfr
+ * @since 1.0
+ * @see DirectMethod#cacheTtlMillis()
+ */
+public final class ResultCache {
+
+    private final Gson gson;
+
+    private final String name;
+
+    private final long timeToLiveNanos;
+
+    private final int maxEntries;
+
+    private final ConcurrentMap<String, CachedResult> entries = new ConcurrentHashMap<String, CachedResult>();
+
+    /** guards the eviction of the least recently used entries */
+    private final Object evictionLock = new Object();
+
+    /** incremented by each invalidation */
+    private final AtomicLong generation = new AtomicLong();
+
+    private final AtomicLong hitCount = new AtomicLong();
+
+    private final AtomicLong missCount = new AtomicLong();
+
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    /**
+     * Creates a cache converting the arguments given to {@link #invalidate(Object...)} with a default {@link Gson}
+     * instance.
+     * @param name the "Action.method" name of the method.
+     * @param timeToLiveMillis the time to live of the entries in milliseconds, greater than zero.
+     * @param maxEntries the maximum number of entries, greater than zero.
+     */
+    public ResultCache(@Nonnull final String name, final long timeToLiveMillis, final int maxEntries) {
+        this(name, timeToLiveMillis, maxEntries, null);
+    }
+
+    /**
+     *
+     * @param name the "Action.method" name of the method.
+     * @param timeToLiveMillis the time to live of the entries in milliseconds, greater than zero.
+     * @param maxEntries the maximum number of entries, greater than zero.
+     * @param gson the {@link Gson} instance converting the arguments given to {@link #invalidate(Object...)}, the one
+     *            used to read the arguments of the calls. <code>null</code> for a default instance.
+     */
+    public ResultCache(@Nonnull final String name, final long timeToLiveMillis, final int maxEntries,
+            @Nullable final Gson gson) {
+        if (timeToLiveMillis <= 0) {
+            throw new IllegalArgumentException("timeToLiveMillis must be greater than zero");
+        }
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be greater than zero");
+        }
+        this.name = name;
+        this.gson = gson != null ? gson : new Gson();
+        this.timeToLiveNanos = TimeUnit.MILLISECONDS.toNanos(timeToLiveMillis);
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     *
+     * @param arguments the JSON arguments of a call, <code>null</code> or empty for a call without arguments.
+     * @return the key of the call.
+     */
+    @Nonnull
+    public static String createKey(@Nullable final JsonArray arguments) {
+        if (arguments == null || arguments.size() == 0) {
+            // a call without arguments has no data, the same key for both forms
+            return "[]";
+        }
+        StringBuilder key = new StringBuilder();
+        CanonicalJson.append(key, arguments);
+        return key.toString();
+    }
+
+    /**
+     *
+     * @param key the key of a call.
+     * @return the JSON result of the call, <code>null</code> if not cached or expired.
+     */
+    @Nullable
+    public String get(@Nonnull final String key) {
+        long now = System.nanoTime();
+        CachedResult result = entries.get(key);
+        if (result != null && result.isExpired(now)) {
+            if (entries.remove(key, result)) {
+                evictionCount.incrementAndGet();
+            }
+            result = null;
+        }
+        if (result == null) {
+            missCount.incrementAndGet();
+            return null;
+        }
+        result.lastAccessTime = now;
+        hitCount.incrementAndGet();
+        return result.json;
+    }
+
+    /**
+     *
+     * @return the generation of the cache, changed by each invalidation.
+     */
+    public long getGeneration() {
+        return generation.get();
+    }
+
+    /**
+     * Caches the result of a call, whatever the invalidations made during the call.
+     * @param key the key of a call.
+     * @param json the JSON result of the call.
+     */
+    public void put(@Nonnull final String key, @Nonnull final String json) {
+        put(key, json, generation.get());
+    }
+
+    /**
+     * Caches the result of a call, unless the cache has been invalidated since the call started.
+     * @param key the key of a call.
+     * @param json the JSON result of the call.
+     * @param callGeneration the {@link #getGeneration() generation} of the cache read before the call.
+     * @return <code>false</code> if the result is dropped, possibly stale.
+     */
+    public boolean put(@Nonnull final String key, @Nonnull final String json, final long callGeneration) {
+        if (generation.get() != callGeneration) {
+            return false;
+        }
+        long now = System.nanoTime();
+        CachedResult result = new CachedResult(json, now + timeToLiveNanos, now);
+        entries.put(key, result);
+        // an invalidation racing with the put has changed the generation before evicting
+        if (generation.get() != callGeneration) {
+            entries.remove(key, result);
+            return false;
+        }
+        if (entries.size() > maxEntries) {
+            evictLeastRecentlyUsed();
+        }
+        return true;
+    }
+
+    private void evictLeastRecentlyUsed() {
+        synchronized (evictionLock) {
+            while (entries.size() > maxEntries) {
+                Map.Entry<String, CachedResult> eldest = null;
+                for (Map.Entry<String, CachedResult> entry : entries.entrySet()) {
+                    if (eldest == null || entry.getValue().lastAccessTime - eldest.getValue().lastAccessTime < 0) {
+                        eldest = entry;
+                    }
+                }
+                if (eldest != null && entries.remove(eldest.getKey(), eldest.getValue())) {
+                    evictionCount.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    /**
+     * Evicts the result of a call.
+     * @param arguments the JSON arguments of the call, <code>null</code> or empty for a call without arguments.
+     */
+    public void invalidate(@Nullable final JsonArray arguments) {
+        generation.incrementAndGet();
+        entries.remove(createKey(arguments));
+    }
+
+    /**
+     * Evicts the result of a call, the arguments being converted to JSON with the {@link Gson} instance of the cache.
+     * @param arguments the arguments of the call, none for a call without arguments.
+     */
+    public void invalidate(@Nullable final Object... arguments) {
+        if (arguments == null || arguments.length == 0) {
+            invalidate((JsonArray) null);
+        } else {
+            invalidate(gson.toJsonTree(arguments).getAsJsonArray());
+        }
+    }
+
+    /**
+     * Evicts all the results.
+     */
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        entries.clear();
+    }
+
+    /**
+     * Evicts the expired results. The expired results are otherwise evicted when they are read, or when the cache is
+     * full.
+     */
+    public void cleanUp() {
+        long now = System.nanoTime();
+        for (Iterator<Map.Entry<String, CachedResult>> it = entries.entrySet().iterator(); it.hasNext();) {
+            Map.Entry<String, CachedResult> entry = it.next();
+            if (entry.getValue().isExpired(now) && entries.remove(entry.getKey(), entry.getValue())) {
+                evictionCount.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     *
+     * @return the "Action.method" name of the method.
+     */
+    @Nonnull
+    public String getName() {
+        return name;
+    }
+
+    /**
+     *
+     * @return the number of entries, including the expired ones not evicted yet.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     *
+     * @return the maximum number of entries.
+     */
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     *
+     * @return the number of calls answered from the cache.
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     *
+     * @return the number of calls not found in the cache.
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     *
+     * @return the number of entries evicted because they expired or the cache was full.
+     */
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    private static final class CachedResult {
+
+        private final String json;
+
+        private final long expirationTime;
+
+        /** written by the readers without locking, the order of the accesses being approximate */
+        private volatile long lastAccessTime;
+
+        public CachedResult(final String json, final long expirationTime, final long lastAccessTime) {
+            this.json = json;
+            this.expirationTime = expirationTime;
+            this.lastAccessTime = lastAccessTime;
+        }
+
+        public boolean isExpired(long now) {
+            return now - expirationTime >= 0;
+        }
+    }
+}
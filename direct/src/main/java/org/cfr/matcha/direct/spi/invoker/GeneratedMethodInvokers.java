@@ -0,0 +1,330 @@
+package org.cfr.matcha.direct.spi.invoker;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.LongFunction;
+import java.util.function.Supplier;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonPrimitive;
+import com.softwarementors.extjs.djn.api.Registry;
+
+/**
+ * Creates invokers whose class is generated with {@link LambdaMetafactory}, calling the action method directly with
+ * typed arguments.
+ * <p>
+ * Supported methods return a value, are public in a public class and take no parameter, one <code>int</code>,
+ * <code>long</code> or object parameter, or two object parameters. Other methods, and methods the generated class
+ * can not link to, use a {@link MethodHandleMethodInvoker}.
+ * </p>
+ * <p>
+ * An <code>int</code> or <code>long</code> argument is read directly from an integral JSON number in the range of
+ * the parameter, any other argument being converted as for the other invokers.
+ * </p>
+ * @author devacfr
+ * @since 1.0
+ */
+public final class GeneratedMethodInvokers {
+
+    private static final Logger logger = LoggerFactory.getLogger(GeneratedMethodInvokers.class);
+
+    private GeneratedMethodInvokers() {
+    }
+
+    /**
+     * Creates the invoker of a method.
+     * @param instance the action instance, <code>null</code> for a static method.
+     * @param method the method to invoke.
+     * @return a generated invoker if the method is supported, otherwise a {@link MethodHandleMethodInvoker}.
+     * @throws IllegalAccessException if the method is not accessible.
+     */
+    public static IMethodInvoker create(@Nullable final Object instance, @Nonnull final Method method)
+            throws IllegalAccessException {
+        if (isSupported(method)) {
+            try {
+                return generate(instance, method);
+            } catch (Throwable ex) {
+                logger.debug("unable to generate the invoker of " + method + ", method handle is used", ex);
+            }
+        }
+        return new MethodHandleMethodInvoker(instance, method);
+    }
+
+    private static boolean isSupported(Method method) {
+        if (method.getReturnType() == void.class || !Modifier.isPublic(method.getModifiers())) {
+            return false;
+        }
+        for (Class<?> cls = method.getDeclaringClass(); cls != null; cls = cls.getEnclosingClass()) {
+            if (!Modifier.isPublic(cls.getModifiers())) {
+                return false;
+            }
+        }
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        switch (parameterTypes.length) {
+            case 0:
+                return true;
+            case 1:
+                return parameterTypes[0] == int.class || parameterTypes[0] == long.class
+                        || !parameterTypes[0].isPrimitive();
+            case 2:
+                return !parameterTypes[0].isPrimitive() && !parameterTypes[1].isPrimitive();
+            default:
+                return false;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static IJsonMethodInvoker generate(Object instance, Method method) throws Throwable {
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        Type[] gsonTypes = Registry.getParameterTypes(method);
+        if (parameterTypes.length == 0) {
+            return new NoArgumentInvoker(generate(Supplier.class, "get", instance, method));
+        }
+        if (parameterTypes.length == 1) {
+            if (parameterTypes[0] == int.class) {
+                return new IntArgumentInvoker(generate(IntFunction.class, "apply", instance, method));
+            }
+            if (parameterTypes[0] == long.class) {
+                return new LongArgumentInvoker(generate(LongFunction.class, "apply", instance, method));
+            }
+            return new ObjectArgumentInvoker(generate(Function.class, "apply", instance, method),
+                    parameterTypes[0], gsonTypes != null ? gsonTypes[0] : null);
+        }
+        return new ObjectObjectArgumentInvoker(generate(BiFunction.class, "apply", instance, method), parameterTypes,
+                gsonTypes);
+    }
+
+    private static <T> T generate(Class<T> functionalInterface, String name, Object instance, Method method)
+            throws Throwable {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        MethodHandle target = lookup.unreflect(method);
+        boolean isStatic = Modifier.isStatic(method.getModifiers());
+
+        MethodType factoryType = isStatic ? MethodType.methodType(functionalInterface) : MethodType.methodType(
+            functionalInterface, method.getDeclaringClass());
+        Class<?> returnType = MethodType.methodType(method.getReturnType()).wrap().returnType();
+        MethodType instantiatedType = MethodType.methodType(returnType, method.getParameterTypes());
+        // the functional interface method erases object types, keeps primitive ones
+        MethodType interfaceType = instantiatedType.generic();
+        for (int i = 0; i < method.getParameterTypes().length; i++) {
+            if (method.getParameterTypes()[i].isPrimitive()) {
+                interfaceType = interfaceType.changeParameterType(i, method.getParameterTypes()[i]);
+            }
+        }
+
+        CallSite site = LambdaMetafactory.metafactory(lookup,
+            name,
+            factoryType,
+            interfaceType,
+            target,
+            instantiatedType);
+        Object function = isStatic ? site.getTarget().invoke() : site.getTarget().invoke(instance);
+        return functionalInterface.cast(function);
+    }
+
+    /**
+     * 
+     * @param argument a JSON argument.
+     * @return the digits of the argument if it is a JSON number without fraction nor exponent, <code>null</code>
+     *         otherwise.
+     */
+    @Nullable
+    private static String getIntegralNumber(JsonElement argument) {
+        if (!argument.isJsonPrimitive()) {
+            return null;
+        }
+        JsonPrimitive primitive = argument.getAsJsonPrimitive();
+        if (!primitive.isNumber()) {
+            return null;
+        }
+        String number = primitive.getAsString();
+        for (int i = 0; i < number.length(); i++) {
+            char c = number.charAt(i);
+            if ((c < '0' || c > '9') && (i > 0 || c != '-')) {
+                return null;
+            }
+        }
+        return number;
+    }
+
+    private static final class NoArgumentInvoker implements IJsonMethodInvoker {
+
+        private final Supplier<Object> function;
+
+        NoArgumentInvoker(Supplier<Object> function) {
+            this.function = function;
+        }
+
+        @Override
+        public Object invoke(JsonArray arguments, IJsonArgumentConverter converter) throws Exception {
+            return invoke((Object[]) null);
+        }
+
+        @Override
+        public Object invoke(Object[] parameters) throws Exception {
+            try {
+                return function.get();
+            } catch (Throwable ex) {
+                throw new InvocationTargetException(ex);
+            }
+        }
+    }
+
+    private static final class IntArgumentInvoker implements IJsonMethodInvoker {
+
+        private final IntFunction<Object> function;
+
+        IntArgumentInvoker(IntFunction<Object> function) {
+            this.function = function;
+        }
+
+        @Override
+        public Object invoke(JsonArray arguments, IJsonArgumentConverter converter) throws Exception {
+            JsonElement argument = arguments.get(0);
+            String number = getIntegralNumber(argument);
+            if (number != null) {
+                try {
+                    return invoke(Integer.parseInt(number));
+                } catch (NumberFormatException ex) {
+                    // out of range
+                }
+            }
+            return invoke(new Object[] { converter.convert(argument, int.class, null) });
+        }
+
+        @Override
+        public Object invoke(Object[] parameters) throws Exception {
+            return invoke(((Integer) parameters[0]).intValue());
+        }
+
+        private Object invoke(int value) throws InvocationTargetException {
+            try {
+                return function.apply(value);
+            } catch (Throwable ex) {
+                throw new InvocationTargetException(ex);
+            }
+        }
+    }
+
+    private static final class LongArgumentInvoker implements IJsonMethodInvoker {
+
+        private final LongFunction<Object> function;
+
+        LongArgumentInvoker(LongFunction<Object> function) {
+            this.function = function;
+        }
+
+        @Override
+        public Object invoke(JsonArray arguments, IJsonArgumentConverter converter) throws Exception {
+            JsonElement argument = arguments.get(0);
+            String number = getIntegralNumber(argument);
+            if (number != null) {
+                try {
+                    return invoke(Long.parseLong(number));
+                } catch (NumberFormatException ex) {
+                    // out of range
+                }
+            }
+            return invoke(new Object[] { converter.convert(argument, long.class, null) });
+        }
+
+        @Override
+        public Object invoke(Object[] parameters) throws Exception {
+            return invoke(((Long) parameters[0]).longValue());
+        }
+
+        private Object invoke(long value) throws InvocationTargetException {
+            try {
+                return function.apply(value);
+            } catch (Throwable ex) {
+                throw new InvocationTargetException(ex);
+            }
+        }
+    }
+
+    private static final class ObjectArgumentInvoker implements IJsonMethodInvoker {
+
+        private final Function<Object, Object> function;
+
+        private final Class<?> parameterType;
+
+        private final Type gsonType;
+
+        ObjectArgumentInvoker(Function<Object, Object> function, Class<?> parameterType, Type gsonType) {
+            this.function = function;
+            this.parameterType = parameterType;
+            this.gsonType = gsonType;
+        }
+
+        @Override
+        public Object invoke(JsonArray arguments, IJsonArgumentConverter converter) throws Exception {
+            return invoke(converter.convert(arguments.get(0), parameterType, gsonType));
+        }
+
+        @Override
+        public Object invoke(Object[] parameters) throws Exception {
+            return invoke(parameterType.cast(parameters[0]));
+        }
+
+        private Object invoke(Object value) throws InvocationTargetException {
+            try {
+                return function.apply(value);
+            } catch (Throwable ex) {
+                throw new InvocationTargetException(ex);
+            }
+        }
+    }
+
+    private static final class ObjectObjectArgumentInvoker implements IJsonMethodInvoker {
+
+        private final BiFunction<Object, Object, Object> function;
+
+        private final Class<?>[] parameterTypes;
+
+        private final Type[] gsonTypes;
+
+        ObjectObjectArgumentInvoker(BiFunction<Object, Object, Object> function, Class<?>[] parameterTypes,
+                Type[] gsonTypes) {
+            this.function = function;
+            this.parameterTypes = parameterTypes;
+            this.gsonTypes = gsonTypes != null ? gsonTypes : new Type[parameterTypes.length];
+        }
+
+        @Override
+        public Object invoke(JsonArray arguments, IJsonArgumentConverter converter) throws Exception {
+            Object first = converter.convert(arguments.get(0), parameterTypes[0], gsonTypes[0]);
+            Object second = converter.convert(arguments.get(1), parameterTypes[1], gsonTypes[1]);
+            return invoke(first, second);
+        }
+
+        @Override
+        public Object invoke(Object[] parameters) throws Exception {
+            return invoke(parameterTypes[0].cast(parameters[0]), parameterTypes[1].cast(parameters[1]));
+        }
+
+        private Object invoke(Object first, Object second) throws InvocationTargetException {
+            try {
+                return function.apply(first, second);
+            } catch (Throwable ex) {
+                throw new InvocationTargetException(ex);
+            }
+        }
+    }
+}
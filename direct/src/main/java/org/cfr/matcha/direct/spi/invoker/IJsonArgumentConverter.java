@@ -0,0 +1,25 @@
+package org.cfr.matcha.direct.spi.invoker;
+
+import java.lang.reflect.Type;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import com.google.gson.JsonElement;
+
+/**
+ * Converts a JSON method argument to its Java value.
+ * @author devacfr
+ * @since 1.0
+ */
+public interface IJsonArgumentConverter {
+
+    /**
+     * 
+     * @param value the JSON argument.
+     * @param parameterType the declared type of the method parameter.
+     * @param gsonType the generic type registered for the parameter, if any.
+     * @return the converted value.
+     */
+    Object convert(@Nonnull JsonElement value, @Nonnull Class<?> parameterType, @Nullable Type gsonType);
+}
@@ -0,0 +1,28 @@
+package org.cfr.matcha.direct.spi.invoker;
+
+import java.lang.reflect.InvocationTargetException;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import com.google.gson.JsonArray;
+
+/**
+ * {@link IMethodInvoker} able to read its arguments directly from the JSON <code>data</code> array of a request, so
+ * primitive parameters are passed to the method without boxing.
+ * @author devacfr
+ * @since 1.0
+ */
+public interface IJsonMethodInvoker extends IMethodInvoker {
+
+    /**
+     * Invokes the method with the arguments of a JSON request.
+     * @param arguments the JSON arguments, already checked against the parameter types, <code>null</code> for a method
+     *            without parameter.
+     * @param converter converts the arguments which are not primitive.
+     * @return the value returned by the method.
+     * @throws InvocationTargetException if the method throws an exception.
+     * @throws Exception if the method can not be invoked.
+     */
+    Object invoke(@Nullable JsonArray arguments, @Nonnull IJsonArgumentConverter converter) throws Exception;
+}
@@ -0,0 +1,25 @@
+package org.cfr.matcha.direct.spi.invoker;
+
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * Invokes a single Direct method on its action instance.
+ * <p>
+ * An invoker is created once per registered method when the registry is built, and is shared by all requests.
+ * Implementations must therefore be thread-safe.
+ * </p>
+ * @author devacfr
+ * @since 1.0
+ */
+public interface IMethodInvoker {
+
+    /**
+     * Invokes the method with the given parameters.
+     * @param parameters the method parameters, already converted to the declared parameter types.
+     * @return the value returned by the method, or <code>null</code> for a <code>void</code> method.
+     * @throws InvocationTargetException if the method throws an exception, so that the error is reported like a
+     *             reflective call.
+     * @throws Exception if the method can not be invoked.
+     */
+    Object invoke(Object[] parameters) throws Exception;
+}
@@ -0,0 +1,58 @@
+package org.cfr.matcha.direct.spi.invoker;
+
+import java.lang.reflect.Method;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Defines how the dispatcher invokes the Direct methods.
+ * @author devacfr
+ * @since 1.0
+ */
+public enum InvocationMode {
+
+    /**
+     * Plain reflection, through {@link Method#invoke(Object, Object...)}.
+     */
+    REFLECTION {
+
+        @Override
+        public IMethodInvoker createInvoker(Object instance, Method method) {
+            return new ReflectionMethodInvoker(instance, method);
+        }
+    },
+
+    /**
+     * {@link java.lang.invoke.MethodHandle MethodHandle} bound to the action instance.
+     */
+    METHOD_HANDLE {
+
+        @Override
+        public IMethodInvoker createInvoker(Object instance, Method method) throws IllegalAccessException {
+            return new MethodHandleMethodInvoker(instance, method);
+        }
+    },
+
+    /**
+     * Class generated for each method, calling it directly with typed arguments (default).
+     * @see GeneratedMethodInvokers
+     */
+    GENERATED {
+
+        @Override
+        public IMethodInvoker createInvoker(Object instance, Method method) throws IllegalAccessException {
+            return GeneratedMethodInvokers.create(instance, method);
+        }
+    };
+
+    /**
+     * Creates the invoker of a method.
+     * @param instance the action instance, <code>null</code> for a static method.
+     * @param method the method to invoke.
+     * @return a new thread-safe invoker.
+     * @throws IllegalAccessException if the method is not accessible.
+     */
+    public abstract IMethodInvoker createInvoker(@Nullable Object instance, @Nonnull Method method)
+            throws IllegalAccessException;
+}
@@ -0,0 +1,57 @@
+package org.cfr.matcha.direct.spi.invoker;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * {@link IMethodInvoker} calling the method through a {@link MethodHandle} bound to the action instance.
+ * <p>
+ * The handle is adapted once to the <code>(Object[])Object</code> type, so each call is a single
+ * {@link MethodHandle#invokeExact(Object...) invokeExact} the JIT can inline, without the access and argument checks
+ * of {@link Method#invoke(Object, Object...)}.
+ * </p>
+ * @author devacfr
+ * @since 1.0
+ */
+public final class MethodHandleMethodInvoker implements IMethodInvoker {
+
+    private static final MethodType INVOKER_TYPE = MethodType.methodType(Object.class, Object[].class);
+
+    private final MethodHandle handle;
+
+    /**
+     * 
+     * @param instance the action instance, <code>null</code> for a static method.
+     * @param method the method to invoke.
+     * @throws IllegalAccessException if the method is not accessible.
+     */
+    public MethodHandleMethodInvoker(@Nullable final Object instance, @Nonnull final Method method)
+            throws IllegalAccessException {
+        method.setAccessible(true);
+        MethodHandle mh = MethodHandles.lookup().unreflect(method).asFixedArity();
+        if (!Modifier.isStatic(method.getModifiers())) {
+            mh = mh.bindTo(instance);
+        }
+        this.handle = mh.asSpreader(Object[].class, method.getParameterTypes().length).asType(INVOKER_TYPE);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Object invoke(Object[] parameters) throws Exception {
+        try {
+            return (Object) handle.invokeExact(parameters);
+        } catch (Throwable ex) {
+            throw new InvocationTargetException(ex);
+        }
+    }
+
+}
@@ -0,0 +1,41 @@
+package org.cfr.matcha.direct.spi.invoker;
+
+import java.lang.reflect.Method;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * {@link IMethodInvoker} calling the method through {@link Method#invoke(Object, Object...)}.
+ * <p>
+ * The accessibility check is suppressed once at construction, instead of for every call.
+ * </p>
+ * @author devacfr
+ * @since 1.0
+ */
+public final class ReflectionMethodInvoker implements IMethodInvoker {
+
+    private final Object instance;
+
+    private final Method method;
+
+    /**
+     * 
+     * @param instance the action instance, <code>null</code> for a static method.
+     * @param method the method to invoke.
+     */
+    public ReflectionMethodInvoker(@Nullable final Object instance, @Nonnull final Method method) {
+        this.instance = instance;
+        this.method = method;
+        this.method.setAccessible(true);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Object invoke(Object[] parameters) throws Exception {
+        return method.invoke(instance, parameters);
+    }
+
+}
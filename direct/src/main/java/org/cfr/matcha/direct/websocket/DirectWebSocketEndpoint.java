@@ -0,0 +1,533 @@
+package org.cfr.matcha.direct.websocket;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.PreDestroy;
+import javax.websocket.CloseReason;
+import javax.websocket.Endpoint;
+import javax.websocket.EndpointConfig;
+import javax.websocket.MessageHandler;
+import javax.websocket.Session;
+import javax.websocket.server.ServerEndpointConfig;
+
+import org.cfr.commons.util.Assert;
+import org.cfr.matcha.direct.IDirectContext;
+import org.cfr.matcha.direct.handler.processor.poll.IPollEventSink;
+import org.cfr.matcha.direct.handler.processor.poll.PollEventStream;
+import org.cfr.matcha.direct.handler.processor.poll.PollRequestProcessor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Charsets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.softwarementors.extjs.djn.ExceptionUtils;
+import com.softwarementors.extjs.djn.router.TransferType;
+
+/**
+ * WebSocket endpoint carrying the Direct requests, their responses and the events of the poll methods over a single
+ * connection.
+ * <p>
+ * A text message holding a Direct JSON request or batch is processed as if it had been posted to the router, and
+ * answered by a text message holding the responses. The client matches the responses by transaction id, so that the
+ * messages of a connection are processed at the same time and answered as soon as they are ready.
+ * </p>
+ * <p>
+ * The number of messages of a connection being processed at the same time is bounded: a client sending more
+ * messages without waiting for their responses, or a message rejected by the executor, closes the connection with
+ * the code <code>1013</code> (try again later).
+ * </p>
+ * <p>
+ * A message failing as a whole, a malformed request or batch, is answered by an exception response for each of its
+ * transaction ids. Without transaction id to answer, the connection is closed with the code <code>1007</code> if the
+ * message is not a JSON object or array, <code>1011</code> otherwise.
+ * </p>
+ * <p>
+ * The message <code>{"type":"subscribe","name":"event","data":{...}}</code> streams the responses of the poll method
+ * of the event, called with the given parameters, until the message <code>{"type":"unsubscribe","name":"event"}</code>
+ * or the connection closes.
+ * </p>
+ * <p>
+ * The endpoint is deployed with the server container of the web application, once the Direct context is initialized:
+ * </p>
+ *
+ * <pre>
+ * ServerContainer container = (ServerContainer) servletContext.getAttribute(ServerContainer.class.getName());
+ * container.addEndpoint(DirectWebSocketEndpoint.createEndpointConfig(&quot;/direct/websocket&quot;,
+ *     new DirectWebSocketEndpoint(directContext)));
+ * </pre>
+ * <p>
+ * An endpoint created without executor owns its executor, shut down by {@link #destroy()} when the web application
+ * stops.
+ * </p>
+ * @author devacfr
+ * @since 1.0
+ */
+public class DirectWebSocketEndpoint extends Endpoint {
+
+    private static final Logger logger = LoggerFactory.getLogger(DirectWebSocketEndpoint.class);
+
+    /**
+     * the type of the message subscribing to the events of a poll method.
+     */
+    public static final String SUBSCRIBE_TYPE = "subscribe";
+
+    /**
+     * the type of the message unsubscribing from the events of a poll method.
+     */
+    public static final String UNSUBSCRIBE_TYPE = "unsubscribe";
+
+    /**
+     * the default maximum number of threads of the executor owned by an endpoint.
+     */
+    public static final int DEFAULT_MAX_THREADS = 64;
+
+    /**
+     * the default maximum number of tasks waiting for a thread of the executor owned by an endpoint.
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 1000;
+
+    /**
+     * the default maximum number of messages of a connection processed at the same time.
+     */
+    public static final int DEFAULT_MAX_IN_FLIGHT_MESSAGES = 16;
+
+    private static final String CONNECTION_PROPERTY = DirectWebSocketEndpoint.class.getName() + ".connection";
+
+    private final IDirectContext context;
+
+    private final Executor executor;
+
+    /** the executor created by the endpoint, <code>null</code> if given */
+    private final ExecutorService ownedExecutor;
+
+    private final long pollInterval;
+
+    private final int maxInFlightMessages;
+
+    /**
+     * Creates an endpoint processing the messages with its own bounded executor.
+     * @param context the Direct context, initialized before the first connection.
+     */
+    public DirectWebSocketEndpoint(@Nonnull final IDirectContext context) {
+        this(context, createExecutor(DEFAULT_MAX_THREADS, DEFAULT_QUEUE_CAPACITY), true,
+                PollEventStream.DEFAULT_POLL_INTERVAL, DEFAULT_MAX_IN_FLIGHT_MESSAGES);
+    }
+
+    /**
+     *
+     * @param context the Direct context, initialized before the first connection.
+     * @param executor the executor processing the messages and sending the events.
+     * @param pollInterval the time in milliseconds between two calls of a poll method which is not long-polled.
+     */
+    public DirectWebSocketEndpoint(@Nonnull final IDirectContext context, @Nonnull final Executor executor,
+            final long pollInterval) {
+        this(context, executor, pollInterval, DEFAULT_MAX_IN_FLIGHT_MESSAGES);
+    }
+
+    /**
+     *
+     * @param context the Direct context, initialized before the first connection.
+     * @param executor the executor processing the messages and sending the events, shut down by its owner.
+     * @param pollInterval the time in milliseconds between two calls of a poll method which is not long-polled.
+     * @param maxInFlightMessages the maximum number of messages of a connection processed at the same time, greater
+     *            than zero.
+     */
+    public DirectWebSocketEndpoint(@Nonnull final IDirectContext context, @Nonnull final Executor executor,
+            final long pollInterval, final int maxInFlightMessages) {
+        this(context, executor, false, pollInterval, maxInFlightMessages);
+    }
+
+    private DirectWebSocketEndpoint(final IDirectContext context, final Executor executor, final boolean owned,
+            final long pollInterval, final int maxInFlightMessages) {
+        Assert.notNull(context);
+        Assert.notNull(executor);
+        if (maxInFlightMessages <= 0) {
+            throw new IllegalArgumentException("maxInFlightMessages must be greater than zero");
+        }
+        this.context = context;
+        this.executor = executor;
+        this.ownedExecutor = owned ? (ExecutorService) executor : null;
+        this.pollInterval = pollInterval;
+        this.maxInFlightMessages = maxInFlightMessages;
+    }
+
+    /**
+     * Creates the bounded executor of an endpoint: its threads are created on demand and stop once idle.
+     * @param maxThreads the maximum number of threads.
+     * @param queueCapacity the maximum number of tasks waiting for a thread.
+     * @return a new executor, rejecting the tasks once saturated.
+     */
+    @Nonnull
+    public static ExecutorService createExecutor(final int maxThreads, final int queueCapacity) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(maxThreads, maxThreads, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(queueCapacity),
+                new ThreadFactoryBuilder().setNameFormat("matcha-direct-websocket-%d").setDaemon(true).build());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Shuts down the executor created by the endpoint, if any.
+     */
+    @PreDestroy
+    public void destroy() {
+        if (ownedExecutor != null) {
+            ownedExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Creates the configuration deploying an endpoint instance, shared by all connections.
+     * @param path the path of the endpoint, relative to the web application.
+     * @param endpoint the endpoint.
+     * @return the configuration, to be added to the server container.
+     */
+    @Nonnull
+    public static ServerEndpointConfig createEndpointConfig(@Nonnull final String path,
+                                                            @Nonnull final DirectWebSocketEndpoint endpoint) {
+        Assert.hasText(path);
+        Assert.notNull(endpoint);
+        return ServerEndpointConfig.Builder.create(endpoint.getClass(), path)
+                .configurator(new ServerEndpointConfig.Configurator() {
+
+                    @Override
+                    public <T> T getEndpointInstance(Class<T> endpointClass) throws InstantiationException {
+                        return endpointClass.cast(endpoint);
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onOpen(Session session, EndpointConfig config) {
+        Connection connection = new Connection(session);
+        session.getUserProperties().put(CONNECTION_PROPERTY, connection);
+        session.addMessageHandler(connection);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onClose(Session session, CloseReason closeReason) {
+        Connection connection = (Connection) session.getUserProperties().remove(CONNECTION_PROPERTY);
+        if (connection != null) {
+            connection.close();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onError(Session session, Throwable error) {
+        logger.warn("WebSocket error on session " + session.getId(), error);
+    }
+
+    /**
+     *
+     * @param message a text message.
+     * @return the message if it subscribes or unsubscribes, <code>null</code> if it is a Direct request.
+     */
+    @Nullable
+    private static JsonObject parseControlMessage(String message) {
+        // a Direct request is either a batch or a single call
+        if (!message.trim().startsWith("{")) {
+            return null;
+        }
+        try {
+            JsonObject object = new JsonParser().parse(message).getAsJsonObject();
+            JsonElement type = object.get("type");
+            if (type != null && type.isJsonPrimitive()
+                    && (SUBSCRIBE_TYPE.equals(type.getAsString()) || UNSUBSCRIBE_TYPE.equals(type.getAsString()))) {
+                return object;
+            }
+        } catch (JsonParseException ex) {
+            // answered as a request
+        }
+        return null;
+    }
+
+    /**
+     *
+     * @param message a text message failing as a whole.
+     * @param error the failure.
+     * @return the exception responses of the transactions of the message, as a JSON array if the message is a batch,
+     *         <code>null</code> if the message has no transaction id, or is not a JSON object or array.
+     */
+    @Nullable
+    private static JsonElement createErrorResponses(String message, Throwable error) {
+        JsonElement json = parseRequests(message);
+        if (json == null) {
+            return null;
+        }
+        JsonArray requests = json.isJsonArray() ? json.getAsJsonArray() : new JsonArray();
+        if (json.isJsonObject()) {
+            requests.add(json);
+        }
+        Throwable reported = ExceptionUtils.getFirstRelevantExceptionToReport(error);
+        JsonArray responses = new JsonArray();
+        for (JsonElement request : requests) {
+            JsonElement tid = request.isJsonObject() ? request.getAsJsonObject().get("tid") : null;
+            if (tid == null || !tid.isJsonPrimitive()) {
+                continue;
+            }
+            JsonObject response = new JsonObject();
+            response.add("tid", tid);
+            for (String member : new String[] { "action", "method" }) {
+                JsonElement value = request.getAsJsonObject().get(member);
+                if (value != null) {
+                    response.add(member, value);
+                }
+            }
+            response.addProperty("type", TransferType.SERVER_EXCEPTION);
+            response.addProperty("message", ExceptionUtils.getExceptionMessage(reported));
+            response.addProperty("where", "");
+            responses.add(response);
+        }
+        if (responses.size() == 0) {
+            return null;
+        }
+        return json.isJsonArray() ? responses : responses.get(0);
+    }
+
+    /**
+     *
+     * @param message a text message.
+     * @return the message if it is a JSON object or array, <code>null</code> otherwise.
+     */
+    @Nullable
+    private static JsonElement parseRequests(String message) {
+        try {
+            JsonElement json = new JsonParser().parse(message);
+            return json.isJsonObject() || json.isJsonArray() ? json : null;
+        } catch (JsonParseException ex) {
+            return null;
+        }
+    }
+
+    /**
+     *
+     * @param data the poll parameters, as a JSON object.
+     * @return the URL encoded parameters.
+     */
+    private static String encodeParameters(@Nullable JsonElement data) {
+        if (data == null || !data.isJsonObject()) {
+            return "";
+        }
+        StringBuilder requestString = new StringBuilder();
+        try {
+            for (Map.Entry<String, JsonElement> entry : data.getAsJsonObject().entrySet()) {
+                JsonElement value = entry.getValue();
+                if (requestString.length() > 0) {
+                    requestString.append('&');
+                }
+                requestString.append(URLEncoder.encode(entry.getKey(), Charsets.UTF_8.name()))
+                        .append('=')
+                        .append(URLEncoder.encode(value.isJsonPrimitive() ? value.getAsString() : value.toString(),
+                            Charsets.UTF_8.name()));
+            }
+        } catch (UnsupportedEncodingException ex) {
+            throw new IllegalStateException(ex);
+        }
+        return requestString.toString();
+    }
+
+    /**
+     * State of a connection, receiving its messages.
+     */
+    private final class Connection implements MessageHandler.Whole<String> {
+
+        private final Session session;
+
+        private final ConcurrentMap<String, Subscription> subscriptions = new ConcurrentHashMap<String, Subscription>();
+
+        /** the number of messages being processed */
+        private final AtomicInteger inFlightMessages = new AtomicInteger();
+
+        public Connection(final Session session) {
+            this.session = session;
+        }
+
+        @Override
+        public void onMessage(final String message) {
+            if (inFlightMessages.incrementAndGet() > maxInFlightMessages) {
+                inFlightMessages.decrementAndGet();
+                tryAgainLater("Too many messages in flight");
+                return;
+            }
+            try {
+                executor.execute(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        try {
+                            process(message);
+                        } finally {
+                            inFlightMessages.decrementAndGet();
+                        }
+                    }
+                });
+            } catch (RejectedExecutionException ex) {
+                inFlightMessages.decrementAndGet();
+                logger.error(ex.getMessage(), ex);
+                tryAgainLater("Server busy");
+            }
+        }
+
+        /**
+         * Closes the connection of a client which can not be served, its pending requests being lost.
+         */
+        private void tryAgainLater(String reason) {
+            close(CloseReason.CloseCodes.TRY_AGAIN_LATER, reason);
+        }
+
+        private void close(CloseReason.CloseCode code, String reason) {
+            logger.warn("Closing session " + session.getId() + ": " + reason);
+            close();
+            try {
+                session.close(new CloseReason(code, reason));
+            } catch (IOException ex) {
+                logger.debug("Failed to close session " + session.getId(), ex);
+            }
+        }
+
+        public void close() {
+            for (Subscription subscription : subscriptions.values()) {
+                subscription.closed = true;
+            }
+            subscriptions.clear();
+        }
+
+        private void process(String message) {
+            try {
+                JsonObject control = parseControlMessage(message);
+                if (control == null) {
+                    StringWriter writer = new StringWriter();
+                    context.getRequestRouter().processJsonRequest(new StringReader(message), writer);
+                    send(writer.toString());
+                } else if (SUBSCRIBE_TYPE.equals(control.get("type").getAsString())) {
+                    subscribe(control.get("name").getAsString(), control.get("data"));
+                } else {
+                    unsubscribe(control.get("name").getAsString());
+                }
+            } catch (IOException ex) {
+                logger.error(ex.getMessage(), ex);
+                fail(message, ex);
+            } catch (RuntimeException ex) {
+                logger.error(ex.getMessage(), ex);
+                fail(message, ex);
+            }
+        }
+
+        /**
+         * Answers a message failing as a whole, the client waiting for the responses of its transactions.
+         */
+        private void fail(String message, Exception error) {
+            JsonElement responses = createErrorResponses(message, error);
+            if (responses != null) {
+                send(responses.toString());
+            } else if (parseRequests(message) == null) {
+                close(CloseReason.CloseCodes.NOT_CONSISTENT, "Malformed message");
+            } else {
+                // a request without transaction can not be answered
+                close(CloseReason.CloseCodes.UNEXPECTED_CONDITION, "Message without transaction id");
+            }
+        }
+
+        private void subscribe(final String eventName, JsonElement data) {
+            final Subscription subscription = new Subscription();
+            Subscription previous = subscriptions.put(eventName, subscription);
+            if (previous != null) {
+                previous.closed = true;
+            }
+            context.getRequestRouter()
+                    .createPollEventStream(encodeParameters(data),
+                        PollRequestProcessor.PATHINFO_POLL_PREFIX + eventName,
+                        subscription,
+                        pollInterval)
+                    .start(executor)
+                    .whenComplete(new BiConsumer<Void, Throwable>() {
+
+                        @Override
+                        public void accept(Void value, Throwable error) {
+                            if (error != null) {
+                                logger.error(error.getMessage(), error);
+                            }
+                            subscriptions.remove(eventName, subscription);
+                        }
+                    });
+        }
+
+        private void unsubscribe(String eventName) {
+            Subscription subscription = subscriptions.remove(eventName);
+            if (subscription != null) {
+                subscription.closed = true;
+            }
+        }
+
+        /**
+         * Sends a text message, the messages of a session being sent one at a time.
+         * @return <code>false</code> if the connection is closed.
+         */
+        private boolean send(String text) {
+            synchronized (session) {
+                if (!session.isOpen()) {
+                    return false;
+                }
+                try {
+                    session.getBasicRemote().sendText(text);
+                    return true;
+                } catch (IOException ex) {
+                    logger.debug("Failed to send a message on session " + session.getId(), ex);
+                    return false;
+                }
+            }
+        }
+
+        /**
+         * Sends the events of a poll method on the connection, until it is unsubscribed.
+         */
+        private final class Subscription implements IPollEventSink {
+
+            private volatile boolean closed;
+
+            @Override
+            public boolean send(String response) {
+                if (closed) {
+                    return false;
+                }
+                // an expired long poll: the connection has its own keep-alive
+                if (response == null) {
+                    return session.isOpen();
+                }
+                return Connection.this.send(response);
+            }
+        }
+    }
+}
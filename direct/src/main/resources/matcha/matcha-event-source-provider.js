@@ -0,0 +1,70 @@
+/*
+ * Provider feeding Ext Direct with the events of a poll method streamed as Server-Sent Events.
+ *
+ *   Ext.direct.Manager.addProvider({
+ *       type: 'eventsource',
+ *       url: 'direct/poll/message',
+ *       baseParams: { clientId: 'client-1' }
+ *   });
+ *
+ * Each message of the stream holds the JSON poll response of the method, decoded and fired as the events of a
+ * polling provider would be. The browser reconnects by itself when the connection is lost.
+ */
+Ext.define('Matcha.direct.EventSourceProvider', {
+    extend: 'Ext.direct.JsonProvider',
+    alias: 'direct.eventsourceprovider',
+
+    /**
+     * @cfg {String} url the URL of the poll method, ending with the name of the event.
+     */
+
+    /**
+     * @cfg {Object} baseParams the poll parameters, sent in the query string.
+     */
+
+    constructor: function(config) {
+        this.callParent(arguments);
+        this.addEvents('beforepoll', 'poll');
+    },
+
+    isConnected: function() {
+        return !!this.eventSource;
+    },
+
+    connect: function() {
+        var me = this, url = me.url;
+        if (!url) {
+            Ext.Error.raise('Error initializing EventSourceProvider, no url configured.');
+        }
+        if (me.eventSource || me.fireEvent('beforepoll', me) === false) {
+            return;
+        }
+        if (me.baseParams) {
+            url = Ext.urlAppend(url, Ext.Object.toQueryString(me.baseParams));
+        }
+        me.eventSource = new EventSource(url);
+        me.eventSource.onmessage = function(message) {
+            me.onMessage(message);
+        };
+        me.fireEvent('connect', me);
+    },
+
+    disconnect: function() {
+        var me = this;
+        if (me.eventSource) {
+            me.eventSource.close();
+            delete me.eventSource;
+            me.fireEvent('disconnect', me);
+        }
+    },
+
+    onMessage: function(message) {
+        var me = this,
+            events = me.createEvents({ responseText: message.data }),
+            i, len;
+        for (i = 0, len = events.length; i < len; ++i) {
+            me.fireEvent('data', me, events[i]);
+        }
+        me.fireEvent('poll', me);
+    }
+});
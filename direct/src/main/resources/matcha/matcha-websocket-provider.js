@@ -0,0 +1,111 @@
+/*
+ * Remoting provider sending the Direct calls over a WebSocket, and receiving the events of poll methods on the same
+ * connection.
+ *
+ *   var provider = Ext.direct.Manager.addProvider(Ext.apply({
+ *       type: 'websocket',
+ *       url: 'ws://' + location.host + '/app/direct/websocket'
+ *   }, Ns.REMOTING_API));
+ *   provider.subscribe('message', { clientId: 'client-1' });
+ *
+ * The calls are batched as by the remoting provider, and answered in any order: the responses are matched by
+ * transaction id. The calls made before the connection is open are sent once it is.
+ */
+Ext.define('Matcha.direct.WebSocketProvider', {
+    extend: 'Ext.direct.RemotingProvider',
+    alias: 'direct.websocketprovider',
+
+    /**
+     * @cfg {String} url the ws:// or wss:// URL of the endpoint.
+     */
+
+    constructor: function(config) {
+        var me = this;
+        me.callParent(arguments);
+        me.pendingMessages = [];
+        me.subscriptions = {};
+    },
+
+    isConnected: function() {
+        return !!this.webSocket && this.webSocket.readyState === 1;
+    },
+
+    connect: function() {
+        var me = this;
+        if (!me.url) {
+            Ext.Error.raise('Error initializing WebSocketProvider, no url configured.');
+        }
+        if (me.webSocket) {
+            return;
+        }
+        me.webSocket = new WebSocket(me.url);
+        me.webSocket.onopen = function() {
+            var messages = me.pendingMessages, name;
+            me.pendingMessages = [];
+            for (name in me.subscriptions) {
+                if (me.subscriptions.hasOwnProperty(name)) {
+                    me.send(me.subscriptions[name]);
+                }
+            }
+            Ext.each(messages, me.send, me);
+            me.fireEvent('connect', me);
+        };
+        me.webSocket.onmessage = function(message) {
+            me.onData({ transaction: [] }, true, { responseText: message.data });
+        };
+        me.webSocket.onclose = function() {
+            delete me.webSocket;
+            me.fireEvent('disconnect', me);
+        };
+    },
+
+    disconnect: function() {
+        var me = this;
+        if (me.webSocket) {
+            me.webSocket.close();
+            delete me.webSocket;
+        }
+    },
+
+    /**
+     * Receives the events of a poll method on the connection.
+     * @param {String} name the name of the event.
+     * @param {Object} params the poll parameters.
+     */
+    subscribe: function(name, params) {
+        var message = Ext.encode({ type: 'subscribe', name: name, data: params || {} });
+        this.subscriptions[name] = message;
+        this.send(message);
+    },
+
+    /**
+     * @param {String} name the name of the event.
+     */
+    unsubscribe: function(name) {
+        delete this.subscriptions[name];
+        this.send(Ext.encode({ type: 'unsubscribe', name: name }));
+    },
+
+    sendRequest: function(data) {
+        var me = this, callData, i, len;
+        if (Ext.isArray(data)) {
+            callData = [];
+            for (i = 0, len = data.length; i < len; ++i) {
+                callData.push(me.getCallData(data[i]));
+            }
+        } else {
+            callData = me.getCallData(data);
+        }
+        me.send(Ext.encode(callData));
+    },
+
+    send: function(message) {
+        var me = this;
+        if (me.isConnected()) {
+            me.webSocket.send(message);
+        } else {
+            me.pendingMessages.push(message);
+            me.connect();
+        }
+    }
+});
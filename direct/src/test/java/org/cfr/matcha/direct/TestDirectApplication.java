@@ -0,0 +1,38 @@
+package org.cfr.matcha.direct;
+
+import org.cfr.matcha.direct.rs.JaxRsDirectApplication;
+
+/**
+ * A {@link JaxRsDirectApplication} set up for the tests and benchmarks, writing no source file.
+ * @author devacfr
+ * @since 1.0
+ */
+public class TestDirectApplication extends JaxRsDirectApplication {
+
+    /**
+     * Creates an application, not initialised yet, registering the given actions.
+     * @param actions the direct actions.
+     */
+    public TestDirectApplication(Object... actions) {
+        setName("test");
+        setNamespace("ns");
+        setProvidersUrl("direct");
+        setCreateSourceFiles(false);
+        setMinify(false);
+        for (Object action : actions) {
+            registerAction(action);
+        }
+    }
+
+    /**
+     * Creates an initialised application registering the given actions.
+     * @param actions the direct actions.
+     * @return the application.
+     * @throws Exception if the application can not be initialised.
+     */
+    public static TestDirectApplication create(Object... actions) throws Exception {
+        TestDirectApplication application = new TestDirectApplication(actions);
+        application.init();
+        return application;
+    }
+}
@@ -0,0 +1,130 @@
+package org.cfr.matcha.direct.benchmark;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.cfr.matcha.api.direct.DirectAction;
+import org.cfr.matcha.api.direct.DirectMethod;
+import org.cfr.matcha.api.direct.DirectPollMethod;
+import org.cfr.matcha.direct.TestDirectApplication;
+import org.cfr.matcha.direct.handler.impl.DirectRequestRouter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.softwarementors.extjs.djn.api.Registry;
+import com.softwarementors.extjs.djn.config.GlobalConfiguration;
+import com.softwarementors.extjs.djn.router.dispatcher.Dispatcher;
+import com.softwarementors.extjs.djn.router.processor.poll.PollRequestProcessor;
+import com.softwarementors.extjs.djn.router.processor.standard.json.JsonRequestProcessor;
+
+/**
+ * Compares the cost of a Direct request when the processors are created for each request (previous behaviour) and
+ * when the router shares its processors.
+ * <p>
+ * Run with the GC profiler to get the bytes allocated per request (<code>gc.alloc.rate.norm</code>):
+ * </p>
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *    -Dexec.mainClass=org.cfr.matcha.direct.benchmark.DirectRequestRouterBenchmark
+ * </pre>
+ * @author devacfr
+ * @since 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DirectRequestRouterBenchmark {
+
+    private static final String JSON_REQUEST = "{\"action\":\"BenchmarkAction\",\"method\":\"echo\",\"data\":[\"value\"],\"type\":\"rpc\",\"tid\":1}";
+
+    private static final String POLL_PATH_INFO = "/poll/message";
+
+    private Registry registry;
+
+    private Dispatcher dispatcher;
+
+    private GlobalConfiguration globalConfiguration;
+
+    private DirectRequestRouter router;
+
+    @DirectAction
+    public static class BenchmarkAction {
+
+        @DirectMethod
+        public String echo(String data) {
+            return data;
+        }
+
+        @DirectPollMethod
+        public String message(Map<String, String> parameters) {
+            return "message";
+        }
+    }
+
+    @Setup
+    public void setUp() throws Exception {
+        TestDirectApplication context = TestDirectApplication.create(new BenchmarkAction());
+
+        this.registry = context.getRegistry();
+        this.dispatcher = context.getDirectDispatcher();
+        this.globalConfiguration = context.getGlobalConfiguration();
+        this.router = (DirectRequestRouter) context.getRequestRouter();
+    }
+
+    @Benchmark
+    public String jsonPerRequestProcessor() throws IOException {
+        StringWriter writer = new StringWriter();
+        new JsonRequestProcessor(registry, dispatcher, globalConfiguration).process(new StringReader(JSON_REQUEST),
+            writer);
+        return writer.toString();
+    }
+
+    @Benchmark
+    public String jsonSharedProcessor() throws IOException {
+        StringWriter writer = new StringWriter();
+        router.processJsonRequest(new StringReader(JSON_REQUEST), writer);
+        return writer.toString();
+    }
+
+    @Benchmark
+    public String pollPerRequestProcessor() throws IOException {
+        StringWriter writer = new StringWriter();
+        new PollRequestProcessor(registry, dispatcher, globalConfiguration).process(new StringReader(""),
+            writer,
+            POLL_PATH_INFO);
+        return writer.toString();
+    }
+
+    @Benchmark
+    public String pollSharedProcessor() throws IOException {
+        StringWriter writer = new StringWriter();
+        router.processPollRequest(new StringReader(""), writer, POLL_PATH_INFO);
+        return writer.toString();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder().include(DirectRequestRouterBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,100 @@
+package org.cfr.matcha.direct.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.fileupload.FileItem;
+import org.cfr.matcha.api.direct.DirectAction;
+import org.cfr.matcha.api.direct.DirectFormPostMethod;
+import org.cfr.matcha.api.form.Form;
+import org.cfr.matcha.direct.TestDirectApplication;
+import org.cfr.matcha.direct.handler.impl.DirectRequestRouter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.google.common.base.Charsets;
+
+/**
+ * Compares the cost of a simple form post read from the characters of the body (previous behaviour) and from its
+ * bytes.
+ * <p>
+ * Run with the GC profiler to get the bytes allocated per request (<code>gc.alloc.rate.norm</code>):
+ * </p>
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *    -Dexec.mainClass=org.cfr.matcha.direct.benchmark.FormPostBenchmark
+ * </pre>
+ * @author devacfr
+ * @since 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FormPostBenchmark {
+
+    private static final String FORM_REQUEST = "extAction=BenchmarkAction&extMethod=save&extTID=1&extType=rpc"
+            + "&extUpload=false&firstName=Jos%C3%A9&lastName=Garc%C3%ADa&email=jose.garcia%40example.com"
+            + "&company=Example+Inc.&street=12+rue+de+la+Paix&city=Paris&zip=75002&country=France"
+            + "&comment=Lorem+ipsum+dolor+sit+amet%2C+consectetur+adipiscing+elit";
+
+    private final byte[] formBytes = FORM_REQUEST.getBytes(Charsets.UTF_8);
+
+    private DirectRequestRouter router;
+
+    @DirectAction
+    public static class BenchmarkAction {
+
+        @DirectFormPostMethod
+        public String save(Form form, Map<String, FileItem> fileFields) {
+            return form.getFirst("lastName").getValue();
+        }
+    }
+
+    @Setup
+    public void setUp() throws Exception {
+        TestDirectApplication context = TestDirectApplication.create(new BenchmarkAction());
+
+        this.router = (DirectRequestRouter) context.getRequestRouter();
+    }
+
+    @Benchmark
+    public String formReader() throws IOException {
+        StringWriter writer = new StringWriter();
+        router.processSimpleFormPostRequest(new StringReader(FORM_REQUEST), writer);
+        return writer.toString();
+    }
+
+    @Benchmark
+    public String formInputStream() throws IOException {
+        StringWriter writer = new StringWriter();
+        router.processSimpleFormPostRequest(new ByteArrayInputStream(formBytes), "UTF-8", writer);
+        return writer.toString();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder().include(FormPostBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
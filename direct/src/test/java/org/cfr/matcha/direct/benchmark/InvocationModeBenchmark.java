@@ -0,0 +1,158 @@
+package org.cfr.matcha.direct.benchmark;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.util.concurrent.TimeUnit;
+
+import org.cfr.matcha.direct.spi.invoker.IJsonArgumentConverter;
+import org.cfr.matcha.direct.spi.invoker.IJsonMethodInvoker;
+import org.cfr.matcha.direct.spi.invoker.IMethodInvoker;
+import org.cfr.matcha.direct.spi.invoker.InvocationMode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+
+/**
+ * Compares the cost of a Direct method call for each {@link InvocationMode}, against a direct Java call. The
+ * <code>Json</code> benchmarks include the conversion of the JSON arguments.
+ * @author devacfr
+ * @since 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InvocationModeBenchmark {
+
+    public static class BenchmarkAction {
+
+        public String echo(String data) {
+            return data;
+        }
+
+        public long find(long id) {
+            return id;
+        }
+    }
+
+    private BenchmarkAction action;
+
+    private IMethodInvoker reflectionEcho;
+
+    private IMethodInvoker methodHandleEcho;
+
+    private IMethodInvoker reflectionFind;
+
+    private IMethodInvoker methodHandleFind;
+
+    private IMethodInvoker generatedEcho;
+
+    private IMethodInvoker generatedFind;
+
+    private final Gson gson = new Gson();
+
+    private final IJsonArgumentConverter converter = new IJsonArgumentConverter() {
+
+        @Override
+        public Object convert(JsonElement value, Class<?> parameterType, Type gsonType) {
+            return gson.fromJson(value, parameterType);
+        }
+    };
+
+    private JsonArray findJsonArguments;
+
+    private final Object[] echoParameters = new Object[] { "value" };
+
+    private final Object[] findParameters = new Object[] { Long.valueOf(42L) };
+
+    @Setup
+    public void setUp() throws Exception {
+        action = new BenchmarkAction();
+        Method echo = BenchmarkAction.class.getMethod("echo", String.class);
+        Method find = BenchmarkAction.class.getMethod("find", long.class);
+        reflectionEcho = InvocationMode.REFLECTION.createInvoker(action, echo);
+        methodHandleEcho = InvocationMode.METHOD_HANDLE.createInvoker(action, echo);
+        reflectionFind = InvocationMode.REFLECTION.createInvoker(action, find);
+        methodHandleFind = InvocationMode.METHOD_HANDLE.createInvoker(action, find);
+        generatedEcho = InvocationMode.GENERATED.createInvoker(action, echo);
+        generatedFind = InvocationMode.GENERATED.createInvoker(action, find);
+        findJsonArguments = (JsonArray) new JsonParser().parse("[42]");
+    }
+
+    @Benchmark
+    public Object echoDirect() {
+        return action.echo((String) echoParameters[0]);
+    }
+
+    @Benchmark
+    public Object echoReflection() throws Exception {
+        return reflectionEcho.invoke(echoParameters);
+    }
+
+    @Benchmark
+    public Object echoMethodHandle() throws Exception {
+        return methodHandleEcho.invoke(echoParameters);
+    }
+
+    @Benchmark
+    public Object echoGenerated() throws Exception {
+        return generatedEcho.invoke(echoParameters);
+    }
+
+    @Benchmark
+    public long findDirect() {
+        return action.find((Long) findParameters[0]);
+    }
+
+    @Benchmark
+    public Object findReflection() throws Exception {
+        return reflectionFind.invoke(findParameters);
+    }
+
+    @Benchmark
+    public Object findMethodHandle() throws Exception {
+        return methodHandleFind.invoke(findParameters);
+    }
+
+    @Benchmark
+    public Object findGenerated() throws Exception {
+        return generatedFind.invoke(findParameters);
+    }
+
+    @Benchmark
+    public Object findJsonMethodHandle() throws Exception {
+        Object id = gson.fromJson(findJsonArguments.get(0), long.class);
+        return methodHandleFind.invoke(new Object[] { id });
+    }
+
+    @Benchmark
+    public Object findJsonGenerated() throws Exception {
+        return ((IJsonMethodInvoker) generatedFind).invoke(findJsonArguments, converter);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder().include(InvocationModeBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
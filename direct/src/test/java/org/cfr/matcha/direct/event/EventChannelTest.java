@@ -0,0 +1,102 @@
+package org.cfr.matcha.direct.event;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.cfr.direct.testing.EasyMockTestCase;
+import org.junit.Test;
+
+public class EventChannelTest extends EasyMockTestCase {
+
+    @Test
+    public void drainTest() {
+        EventChannel channel = new EventChannel("message", 8, 60000);
+        channel.publish("before");
+        // the first poll subscribes
+        assertEquals(Collections.emptyList(), channel.drain("a"));
+        channel.publish("one");
+        assertEquals(Collections.emptyList(), channel.drain("b"));
+        channel.publish("two");
+
+        assertEquals(Arrays.asList("one", "two"), channel.drain("a"));
+        assertEquals(Arrays.asList("two"), channel.drain("b"));
+        assertEquals(Collections.emptyList(), channel.drain("a"));
+        assertEquals(3, channel.getPublishedCount());
+        assertEquals(2, channel.getSubscriberCount());
+    }
+
+    @Test
+    public void drainOverwrittenEventsTest() {
+        EventChannel channel = new EventChannel("message", 3, 60000);
+        channel.drain("a");
+        for (int i = 0; i < 5; i++) {
+            channel.publish(i);
+        }
+        // the two oldest events have been overwritten
+        assertEquals(Arrays.<Object> asList(2, 3, 4), channel.drain("a"));
+    }
+
+    @Test
+    public void awaitTest() throws Exception {
+        EventChannel channel = new EventChannel("message", 8, 60000);
+        channel.drain("a");
+        channel.publish("one");
+        assertEquals(Arrays.asList("one"), channel.await("a").get());
+
+        CompletableFuture<List<Object>> pending = channel.await("a");
+        assertFalse(pending.isDone());
+        channel.publish("two");
+        assertEquals(Arrays.asList("two"), pending.get());
+    }
+
+    @Test
+    public void awaitCancelledKeepsEventsTest() throws Exception {
+        EventChannel channel = new EventChannel("message", 8, 60000);
+        channel.drain("a");
+        CompletableFuture<List<Object>> pending = channel.await("a");
+        // a long poll timeout
+        pending.cancel(false);
+        channel.publish("one");
+        assertEquals(Arrays.asList("one"), channel.drain("a"));
+    }
+
+    @Test
+    public void awaitTimeoutRemovesWaiterTest() throws Exception {
+        EventChannel channel = new EventChannel("message", 8, 60000);
+        channel.drain("a");
+        for (int i = 0; i < 100; i++) {
+            // long polls timing out without any event published
+            channel.await("a").cancel(false);
+        }
+        assertEquals(0, channel.getWaiterCount());
+
+        CompletableFuture<List<Object>> pending = channel.await("a");
+        assertEquals(1, channel.getWaiterCount());
+        channel.publish("one");
+        assertEquals(Arrays.asList("one"), pending.get());
+        assertEquals(0, channel.getWaiterCount());
+    }
+
+    @Test
+    public void removeIdleSubscribersTest() throws Exception {
+        EventChannel channel = new EventChannel("message", 8, 0);
+        channel.drain("a");
+        Thread.sleep(5);
+        channel.drain("b");
+        assertEquals(1, channel.getSubscriberCount());
+    }
+
+    @Test
+    public void eventBusTest() {
+        EventBus bus = new EventBus();
+        bus.setChannelCapacity(4);
+        assertNull(bus.findChannel("message"));
+        bus.drain("message", "a");
+        bus.publish("message", "one");
+        assertEquals(Arrays.asList("one"), bus.drain("message", "a"));
+        assertSame(bus.getChannel("message"), bus.findChannel("message"));
+        assertEquals(4, bus.getChannel("message").getCapacity());
+    }
+}
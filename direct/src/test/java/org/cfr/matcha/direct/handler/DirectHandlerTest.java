@@ -1,21 +1,29 @@
 package org.cfr.matcha.direct.handler;
 
 import java.io.BufferedReader;
+import java.io.FilterWriter;
+import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringReader;
 import java.io.StringWriter;
+import java.io.Writer;
 import java.util.Enumeration;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.TimeUnit;
 
+import javax.servlet.ServletInputStream;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.cfr.direct.testing.EasyMockTestCase;
+import org.cfr.matcha.direct.TestDirectApplication;
 import org.cfr.matcha.direct.handler.context.IDirectHandlerContext;
 import org.cfr.matcha.direct.handler.impl.DirectHandler;
 import org.cfr.matcha.direct.handler.impl.DirectHandlerException;
 import org.cfr.matcha.direct.handler.impl.DirectRequestRouter;
+import org.cfr.matcha.direct.handler.processor.poll.PollEventStreamTest;
+import org.cfr.matcha.direct.rs.context.DirectJaxRsEventStreamHandlerContext;
 import org.cfr.matcha.direct.servlet.ServletUtil;
 import org.cfr.matcha.direct.servlet.context.DirectHandlerContext;
 import org.cfr.matcha.direct.spi.BaseDirectContext;
@@ -34,11 +42,13 @@ public class DirectHandlerTest extends EasyMockTestCase {
 
     private HttpServletResponse response;
 
+    private DirectRequestRouter requestRouter;
+
     @Override
     public void setUp() throws Exception {
         super.setUp();
         context = mock(BaseDirectContext.class);
-        DirectRequestRouter requestRouter = mock(DirectRequestRouter.class);
+        requestRouter = mock(DirectRequestRouter.class);
 
         EasyMock.expect(context.getRequestRouter()).andReturn(requestRouter).anyTimes();
 
@@ -69,6 +79,46 @@ public class DirectHandlerTest extends EasyMockTestCase {
         }
     }
 
+    @Test
+    public void processSimpleFormPostFromInputStreamTest() throws Exception {
+        DirectHandler handler = new DirectHandler();
+        ServletInputStream input = mock(ServletInputStream.class);
+        expect(request.getInputStream()).andReturn(input);
+        expect(request.getCharacterEncoding()).andReturn("UTF-8");
+        requestRouter.processSimpleFormPostRequest(EasyMock.same(input),
+            EasyMock.eq("UTF-8"),
+            EasyMock.anyObject(Writer.class));
+        EasyMock.expectLastCall().once();
+        replay();
+        handler.process(new DirectHandlerContext(context, RequestType.FORM_SIMPLE_POST, request, response));
+        verify();
+    }
+
+    @Test
+    public void processAsyncEventStreamTest() throws Exception {
+        DirectHandler handler = new DirectHandler();
+        StringWriter events = new StringWriter();
+        PrintWriter writer = new PrintWriter(new FilterWriter(events) {
+
+            @Override
+            public void flush() throws IOException {
+                super.flush();
+                // the client is gone after the first event
+                throw new IOException("closed");
+            }
+        });
+        TestDirectApplication application = TestDirectApplication.create(new PollEventStreamTest.StreamAction());
+
+        // streamed in the calling thread, without executor
+        handler.processAsync(new DirectJaxRsEventStreamHandlerContext(application, "/poll/message", "name=world",
+                writer, 10)).toCompletableFuture().get(10, TimeUnit.SECONDS);
+        assertEquals("data: {\"data\":\"hello world\",\"name\":\"message\",\"type\":\"event\"}\n\n",
+            events.toString());
+
+        // the other requests are processed synchronously
+        assertNull(handler.processAsync(new DirectHandlerContext(application, RequestType.JSON, request, response)));
+    }
+
     @Test(expected = DirectHandlerException.class)
     public void DirectHandlerExceptionTest() {
         DirectHandler handler = new DirectHandler();
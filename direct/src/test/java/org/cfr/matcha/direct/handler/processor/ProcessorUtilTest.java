@@ -0,0 +1,77 @@
+package org.cfr.matcha.direct.handler.processor;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.cfr.direct.testing.EasyMockTestCase;
+import org.junit.Test;
+
+public class ProcessorUtilTest extends EasyMockTestCase {
+
+    private static byte[] body(int length) {
+        byte[] body = new byte[length];
+        for (int i = 0; i < length; i++) {
+            body[i] = (byte) i;
+        }
+        return body;
+    }
+
+    /**
+     * @return a stream of the body returning at most the given number of bytes per read.
+     */
+    private static InputStream input(byte[] body, final int chunk) {
+        return new ByteArrayInputStream(body) {
+
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, chunk));
+            }
+        };
+    }
+
+    private static void assertBody(byte[] expected, ByteBuffer actual) {
+        assertEquals(0, actual.position());
+        assertEquals(expected.length, actual.limit());
+        assertArrayEquals(expected, Arrays.copyOf(actual.array(), actual.limit()));
+    }
+
+    @Test
+    public void readBodyTest() throws Exception {
+        byte[] body = body(3000);
+        ByteBuffer buffer = ProcessorUtil.readBody(input(body, 100), body.length);
+        assertBody(body, buffer);
+        // sized with the announced length
+        assertEquals(body.length, buffer.array().length);
+    }
+
+    @Test
+    public void readBodyOfUnknownLengthTest() throws Exception {
+        byte[] body = body(3000);
+        assertBody(body, ProcessorUtil.readBody(input(body, 100), -1));
+        assertBody(body, ProcessorUtil.readBody(input(body, 100), 0));
+        assertBody(new byte[0], ProcessorUtil.readBody(input(new byte[0], 100), -1));
+    }
+
+    @Test
+    public void readBodyLongerThanAnnouncedTest() throws Exception {
+        byte[] body = body(3000);
+        assertBody(body, ProcessorUtil.readBody(input(body, 100), 10));
+        assertBody(body, ProcessorUtil.readBody(input(body, 100), body.length - 1));
+    }
+
+    @Test
+    public void readBodyShorterThanAnnouncedTest() throws Exception {
+        byte[] body = body(10);
+        ByteBuffer buffer = ProcessorUtil.readBody(input(body, 3), Integer.MAX_VALUE);
+        assertBody(body, buffer);
+        // a forged length does not allocate more than the initial maximum
+        assertEquals(ProcessorUtil.MAX_INITIAL_BUFFER_SIZE, buffer.array().length);
+
+        body = body(ProcessorUtil.MAX_INITIAL_BUFFER_SIZE * 3);
+        buffer = ProcessorUtil.readBody(input(body, 1000), Integer.MAX_VALUE);
+        assertBody(body, buffer);
+        assertEquals(ProcessorUtil.MAX_INITIAL_BUFFER_SIZE * 4, buffer.array().length);
+    }
+}
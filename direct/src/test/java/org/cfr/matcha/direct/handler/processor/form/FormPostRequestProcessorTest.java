@@ -0,0 +1,145 @@
+package org.cfr.matcha.direct.handler.processor.form;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.fileupload.FileItem;
+import org.cfr.direct.testing.EasyMockTestCase;
+import org.cfr.matcha.api.direct.DirectAction;
+import org.cfr.matcha.api.direct.DirectFormPostMethod;
+import org.cfr.matcha.api.form.Form;
+import org.cfr.matcha.direct.TestDirectApplication;
+import org.junit.Test;
+
+import com.softwarementors.extjs.djn.router.processor.RequestException;
+
+public class FormPostRequestProcessorTest extends EasyMockTestCase {
+
+    private static final String EXT_PARAMETERS = "extAction=FormAction&extMethod=echo&extTID=1&extType=rpc&extUpload=false";
+
+    @DirectAction
+    public static class FormAction {
+
+        @DirectFormPostMethod
+        public String echo(Form form, Map<String, FileItem> fileFields) {
+            return form.getFirst("name").getValue() + " (" + form.size() + ")";
+        }
+
+        private volatile CompletableFuture<String> pending;
+
+        @DirectFormPostMethod
+        public CompletableFuture<String> hang(Form form, Map<String, FileItem> fileFields) {
+            pending = new CompletableFuture<String>();
+            return pending;
+        }
+    }
+
+    private static FormPostRequestProcessor createProcessor() throws Exception {
+        TestDirectApplication context = TestDirectApplication.create(new FormAction());
+        return new FormPostRequestProcessor(context.getRegistry(), context.getDirectDispatcher(),
+                context.getGlobalConfiguration());
+    }
+
+    private static String process(FormPostRequestProcessor processor, InputStream input, String characterSet)
+            throws Exception {
+        StringWriter writer = new StringWriter();
+        processor.process(input, characterSet, writer);
+        return writer.toString();
+    }
+
+    @Test
+    public void processInputStreamTest() throws Exception {
+        FormPostRequestProcessor processor = createProcessor();
+        String body = EXT_PARAMETERS + "&name=%C3%A9t%C3%A9+caf\u00e9";
+
+        StringWriter writer = new StringWriter();
+        processor.process(new StringReader(body), writer);
+        String expected = writer.toString();
+        assertTrue(expected, expected.contains("\"result\":\"\u00e9t\u00e9 caf\u00e9 (6)\""));
+
+        // the same response as the form read from the characters of the body, and UTF-8 by default
+        assertEquals(expected, process(processor, new ByteArrayInputStream(body.getBytes("UTF-8")), null));
+        assertEquals(expected, process(processor, new ByteArrayInputStream(body.getBytes("UTF-8")), "UTF-8"));
+    }
+
+    @Test
+    public void processAsyncPastDeadlineTest() throws Exception {
+        FormAction action = new FormAction();
+        TestDirectApplication context = TestDirectApplication.create(action);
+        FormPostRequestProcessor processor = new FormPostRequestProcessor(context.getRegistry(),
+                context.getDirectDispatcher(), context.getGlobalConfiguration(), 100);
+        String body = "extAction=FormAction&extMethod=hang&extTID=1&extType=rpc&extUpload=false";
+
+        long start = System.nanoTime();
+        String response = process(processor, new ByteArrayInputStream(body.getBytes("UTF-8")), null);
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 5000);
+        assertTrue(response, response.contains("CallTimeoutException"));
+        assertTrue(action.pending.isCancelled());
+    }
+
+    @Test
+    public void processRoutingFieldsAnywhereTest() throws Exception {
+        FormPostRequestProcessor processor = createProcessor();
+        String body = "name=first&extTID=1&extUpload=false&extMethod=echo&extAction=FormAction&extType=rpc"
+                + "&extAction=Other";
+
+        String response = process(processor, new ByteArrayInputStream(body.getBytes("UTF-8")), null);
+        assertTrue(response, response.contains("\"result\":\"first (7)\""));
+    }
+
+    @Test
+    public void processMissingRoutingFieldsTest() throws Exception {
+        FormPostRequestProcessor processor = createProcessor();
+        String body = "extAction=FormAction&extType=rpc&name=first";
+
+        try {
+            process(processor, new ByteArrayInputStream(body.getBytes("UTF-8")), null);
+            fail("missing parameters");
+        } catch (RequestException ex) {
+            assertTrue(ex.getMessage(), ex.getMessage().contains("extMethod"));
+            assertTrue(ex.getMessage(), ex.getMessage().contains("extTID"));
+            assertTrue(ex.getMessage(), ex.getMessage().contains("extUpload"));
+            assertFalse(ex.getMessage(), ex.getMessage().contains("extAction"));
+        }
+    }
+
+    @Test
+    public void processInputStreamCharacterSetTest() throws Exception {
+        FormPostRequestProcessor processor = createProcessor();
+        String body = EXT_PARAMETERS + "&name=%E9t%E9+caf\u00e9";
+
+        String response = process(processor, new ByteArrayInputStream(body.getBytes("ISO-8859-1")), "ISO-8859-1");
+        assertTrue(response, response.contains("\"result\":\"\u00e9t\u00e9 caf\u00e9 (6)\""));
+    }
+
+    @Test
+    public void processInputStreamOfUnknownLengthTest() throws Exception {
+        FormPostRequestProcessor processor = createProcessor();
+        StringBuilder value = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            value.append("abc");
+        }
+        String body = EXT_PARAMETERS + "&name=" + value;
+        // a servlet stream does not always know the length of the body
+        InputStream input = new ByteArrayInputStream(body.getBytes("UTF-8")) {
+
+            @Override
+            public synchronized int available() {
+                return 0;
+            }
+
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, 100));
+            }
+        };
+
+        String response = process(processor, input, "UTF-8");
+        assertTrue(response, response.contains("\"result\":\"" + value + " (6)\""));
+    }
+}
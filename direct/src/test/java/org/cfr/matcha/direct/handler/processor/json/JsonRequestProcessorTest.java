@@ -0,0 +1,566 @@
+package org.cfr.matcha.direct.handler.processor.json;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.cfr.direct.testing.EasyMockTestCase;
+import org.cfr.matcha.api.direct.DirectAction;
+import org.cfr.matcha.api.direct.DirectMethod;
+import org.cfr.matcha.direct.TestDirectApplication;
+import org.cfr.matcha.direct.spi.BatchExecutionMode;
+import org.cfr.matcha.direct.spi.DefaultDispatcher;
+import org.junit.Test;
+
+import com.google.gson.JsonSyntaxException;
+import com.softwarementors.extjs.djn.router.processor.RequestException;
+
+public class JsonRequestProcessorTest extends EasyMockTestCase {
+
+    @DirectAction
+    public static class EchoAction {
+
+        // read by the thread completing the pending call
+        private volatile int count;
+
+        private volatile CompletableFuture<String> pending;
+
+        private final Map<String, CompletableFuture<String>> sharedCalls = new ConcurrentHashMap<String, CompletableFuture<String>>();
+
+        private final CountDownLatch meeting = new CountDownLatch(3);
+
+        private volatile DefaultDispatcher dispatcher;
+
+        private final List<String> journal = Collections.synchronizedList(new ArrayList<String>());
+
+        @DirectMethod
+        public String echo(String value) {
+            count++;
+            return value;
+        }
+
+        @DirectMethod(maxConcurrentCalls = 1)
+        public CompletableFuture<String> later(String value) {
+            count++;
+            pending = new CompletableFuture<String>();
+            return pending;
+        }
+
+        @DirectMethod(parallelSafe = true)
+        public String meet(String value) throws InterruptedException {
+            // returns only if the other parallel-safe calls of the batch run at the same time
+            meeting.countDown();
+            return meeting.await(5, TimeUnit.SECONDS) ? value : "alone";
+        }
+
+        @DirectMethod
+        public String gated(String value) throws InterruptedException {
+            // returns only if the parallel-safe calls following it in the batch run meanwhile
+            return meeting.await(5, TimeUnit.SECONDS) ? value : "starved";
+        }
+
+        @DirectMethod
+        public String append(String value) {
+            journal.add(value);
+            // leaves time to a call running out of order
+            Thread.yield();
+            journal.add(value);
+            return value;
+        }
+
+        @DirectMethod(background = true)
+        public String report(String value) {
+            return Thread.currentThread().getName().startsWith("matcha-direct-background-") ? value : "foreground";
+        }
+
+        @DirectMethod(coalesce = true)
+        public CompletableFuture<String> shared(String value) {
+            count++;
+            CompletableFuture<String> result = new CompletableFuture<String>();
+            sharedCalls.put(value, result);
+            return result;
+        }
+
+        @DirectMethod(cacheTtlMillis = 60000)
+        public String cached(String value) {
+            count++;
+            return value + count;
+        }
+
+        @DirectMethod(cacheTtlMillis = 60000)
+        public String total() {
+            count++;
+            return "total" + count;
+        }
+
+        @DirectMethod
+        public String update(String value) {
+            // the results depending on the value are stale
+            dispatcher.getResultCache("EchoAction", "cached").invalidate(value);
+            dispatcher.getResultCache("EchoAction", "total").invalidate();
+            return value;
+        }
+
+        @DirectMethod(timeoutMillis = 100)
+        public String stall(String value) throws InterruptedException {
+            // interrupted at the deadline of the call
+            Thread.sleep(10000);
+            return value;
+        }
+
+        @DirectMethod(timeoutMillis = 50)
+        public String stubborn(String value) {
+            // ignores the interruption at its deadline
+            long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(300);
+            while (System.nanoTime() < end) {
+                Thread.yield();
+            }
+            journal.add(value);
+            return value;
+        }
+
+        @DirectMethod(timeoutMillis = 100)
+        public CompletableFuture<String> hang(String value) {
+            pending = new CompletableFuture<String>();
+            return pending;
+        }
+
+        @DirectMethod
+        public CompletionStage<String> failed(String value) {
+            CompletableFuture<String> result = new CompletableFuture<String>();
+            result.completeExceptionally(new IllegalStateException(value));
+            return result;
+        }
+    }
+
+    private static String request(int tid, String value) {
+        return "{\"action\":\"EchoAction\",\"method\":\"echo\",\"data\":[\"" + value + "\"],\"type\":\"rpc\",\"tid\":"
+                + tid + "}";
+    }
+
+    private static String response(int tid, String value) {
+        return "{\"tid\":" + tid + ",\"action\":\"EchoAction\",\"method\":\"echo\",\"result\":\"" + value
+                + "\",\"type\":\"rpc\"}";
+    }
+
+    private static JsonRequestProcessor createProcessor(EchoAction action, boolean multithreading) throws Exception {
+        return createProcessor(action, multithreading, BatchExecutionMode.THREAD_POOL);
+    }
+
+    private static JsonRequestProcessor createProcessor(EchoAction action, boolean multithreading,
+                                                        BatchExecutionMode batchExecutionMode) throws Exception {
+        TestDirectApplication context = new TestDirectApplication(action);
+        context.setBatchRequestsMultithreadingEnabled(multithreading);
+        context.init();
+        action.dispatcher = context.getDirectDispatcher();
+        return new JsonRequestProcessor(context.getRegistry(), context.getDirectDispatcher(),
+                context.getGlobalConfiguration(), batchExecutionMode);
+    }
+
+    /**
+     * Waits for the cancellation of a call, done by the deadline timer once the response is complete.
+     */
+    private static boolean isCancelled(CompletableFuture<String> call) throws InterruptedException {
+        for (int i = 0; i < 100 && !call.isCancelled(); i++) {
+            Thread.sleep(10);
+        }
+        return call.isCancelled();
+    }
+
+    private static String process(JsonRequestProcessor processor, String request) throws IOException {
+        StringWriter writer = new StringWriter();
+        // the responses are written as they are ready, not returned
+        assertNull(processor.process(new StringReader(request), writer));
+        return writer.toString();
+    }
+
+    @Test
+    public void processSingleRequestTest() throws Exception {
+        JsonRequestProcessor processor = createProcessor(new EchoAction(), false);
+        assertEquals(response(1, "a"), process(processor, request(1, "a")));
+    }
+
+    @Test
+    public void processSingleItemBatchTest() throws Exception {
+        JsonRequestProcessor processor = createProcessor(new EchoAction(), false);
+        assertEquals(response(1, "a"), process(processor, "[" + request(1, "a") + "]"));
+    }
+
+    @Test
+    public void processBatchTest() throws Exception {
+        String batch = "[" + request(1, "a") + "," + request(2, "b") + "," + request(3, "c") + "]";
+        String expected = "[\n" + response(1, "a") + "," + response(2, "b") + "," + response(3, "c") + "]";
+        for (boolean multithreading : new boolean[] { false, true }) {
+            for (BatchExecutionMode mode : BatchExecutionMode.values()) {
+                EchoAction action = new EchoAction();
+                JsonRequestProcessor processor = createProcessor(action, multithreading, mode);
+                assertEquals(expected, process(processor, batch));
+                assertEquals(3, action.count);
+            }
+        }
+    }
+
+    private static String call(int tid, String method, String value) {
+        return "{\"action\":\"EchoAction\",\"method\":\"" + method + "\",\"data\":[\"" + value
+                + "\"],\"type\":\"rpc\",\"tid\":" + tid + "}";
+    }
+
+    @Test
+    public void processBatchAfterShutdownTest() throws Exception {
+        String batch = "[" + request(1, "a") + "," + request(2, "b") + "]";
+        String expected = "[\n" + response(1, "a") + "," + response(2, "b") + "]";
+        EchoAction action = new EchoAction();
+        JsonRequestProcessor processor = createProcessor(action, true);
+        assertEquals(expected, process(processor, batch));
+        processor.shutdown();
+        // the calls run in the calling thread
+        assertEquals(expected, process(processor, batch));
+        assertEquals(4, action.count);
+    }
+
+    @Test
+    public void processBatchRunsParallelSafeCallsConcurrentlyTest() throws Exception {
+        EchoAction action = new EchoAction();
+        JsonRequestProcessor processor = createProcessor(action, true);
+        String batch = "[" + call(1, "meet", "a") + "," + call(2, "meet", "b") + "," + call(3, "meet", "c") + "]";
+        String result = process(processor, batch);
+        assertFalse(result, result.contains("alone"));
+    }
+
+    @Test
+    public void processBatchKeepsOrderOfOtherCallsTest() throws Exception {
+        EchoAction action = new EchoAction();
+        JsonRequestProcessor processor = createProcessor(action, true);
+        StringBuilder batch = new StringBuilder("[");
+        List<String> expected = new ArrayList<String>();
+        for (int i = 1; i <= 20; i++) {
+            if (i > 1) {
+                batch.append(',');
+            }
+            batch.append(call(i, "append", String.valueOf(i)));
+            expected.addAll(Arrays.asList(String.valueOf(i), String.valueOf(i)));
+        }
+        process(processor, batch.append(']').toString());
+        assertEquals(expected, action.journal);
+    }
+
+    @Test
+    public void processBatchQueuedCallsHoldNoThreadTest() throws Exception {
+        EchoAction action = new EchoAction();
+        TestDirectApplication context = new TestDirectApplication(action);
+        context.setBatchRequestsMultithreadingEnabled(true);
+        context.setBatchRequestsMaxThreadsPerRequest(4);
+        context.init();
+        JsonRequestProcessor processor = new JsonRequestProcessor(context.getRegistry(),
+                context.getDirectDispatcher(), context.getGlobalConfiguration(), BatchExecutionMode.THREAD_POOL);
+        // more calls waiting behind the running one than threads, followed by parallel-safe calls
+        StringBuilder batch = new StringBuilder("[").append(call(1, "gated", "a"));
+        for (int i = 2; i <= 7; i++) {
+            batch.append(',').append(request(i, String.valueOf(i)));
+        }
+        batch.append(',').append(call(8, "meet", "b")).append(',').append(call(9, "meet", "c")).append(',')
+                .append(call(10, "meet", "d")).append(']');
+        String result = process(processor, batch.toString());
+        assertFalse(result, result.contains("starved"));
+        assertFalse(result, result.contains("alone"));
+        assertTrue(result, result.contains(response(7, "7")));
+    }
+
+    @Test
+    public void processBatchRunsBackgroundCallsApartTest() throws Exception {
+        JsonRequestProcessor processor = createProcessor(new EchoAction(), true);
+        String batch = "[" + call(1, "report", "a") + "," + request(2, "b") + "]";
+        String result = process(processor, batch);
+        assertFalse(result, result.contains("foreground"));
+        assertTrue(result, result.contains(response(2, "b")));
+    }
+
+    @Test
+    public void processBatchCoalescesIdenticalCallsTest() throws Exception {
+        final EchoAction action = new EchoAction();
+        JsonRequestProcessor processor = createProcessor(action, false);
+        String batch = "[" + call(1, "shared", "a") + "," + call(2, "shared", "a") + "," + call(3, "shared", "b")
+                + "," + request(4, "c") + "]";
+
+        Thread completer = new Thread() {
+
+            @Override
+            public void run() {
+                // the shared calls are completed once the whole batch has been dispatched
+                while (action.count < 3) {
+                    Thread.yield();
+                }
+                for (Map.Entry<String, CompletableFuture<String>> call : action.sharedCalls.entrySet()) {
+                    call.getValue().complete(call.getKey() + "!");
+                }
+            }
+        };
+        completer.start();
+        String result = process(processor, batch);
+        completer.join();
+        // "a" is still in flight when the second call is dispatched
+        assertEquals(3, action.count);
+        assertTrue(result, result.contains("{\"tid\":1,\"action\":\"EchoAction\",\"method\":\"shared\",\"result\":\"a!\""));
+        assertTrue(result, result.contains("{\"tid\":2,\"action\":\"EchoAction\",\"method\":\"shared\",\"result\":\"a!\""));
+        assertTrue(result, result.contains("{\"tid\":3,\"action\":\"EchoAction\",\"method\":\"shared\",\"result\":\"b!\""));
+    }
+
+    @Test
+    public void processCoalescedCallsDeadlineTest() throws Exception {
+        final EchoAction action = new EchoAction();
+        JsonRequestProcessor processor = createProcessor(action, false);
+        String expiring = "{\"action\":\"EchoAction\",\"method\":\"shared\",\"data\":[\"a\"],\"type\":\"rpc\",\"timeout\":50,"
+                + "\"tid\":";
+        String batch = "[" + expiring + "1}," + expiring + "2}," + call(3, "shared", "a") + "]";
+
+        Thread completer = new Thread() {
+
+            @Override
+            public void run() {
+                while (action.count < 1) {
+                    Thread.yield();
+                }
+                try {
+                    // after the deadline of the first two calls
+                    Thread.sleep(500);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                action.sharedCalls.get("a").complete("a!");
+            }
+        };
+        completer.start();
+        String result = process(processor, batch);
+        completer.join();
+        assertEquals(1, action.count);
+        assertTrue(result, result.contains("{\"tid\":1,\"action\":\"EchoAction\",\"method\":\"shared\",\"message\":\"CallTimeoutException"));
+        assertTrue(result, result.contains("{\"tid\":2,\"action\":\"EchoAction\",\"method\":\"shared\",\"message\":\"CallTimeoutException"));
+        // the deadlines of the other calls do not cancel the shared call
+        assertFalse(action.sharedCalls.get("a").isCancelled());
+        assertTrue(result, result.contains("{\"tid\":3,\"action\":\"EchoAction\",\"method\":\"shared\",\"result\":\"a!\""));
+    }
+
+    @Test
+    public void processBatchWithCachedResultsTest() throws Exception {
+        EchoAction action = new EchoAction();
+        JsonRequestProcessor processor = createProcessor(action, false);
+        String batch = "[" + call(1, "cached", "a") + "," + call(2, "cached", "b") + "," + call(3, "cached", "a") + "]";
+        String expected = "[\n{\"tid\":1,\"action\":\"EchoAction\",\"method\":\"cached\",\"result\":\"a1\",\"type\":\"rpc\"},"
+                + "{\"tid\":2,\"action\":\"EchoAction\",\"method\":\"cached\",\"result\":\"b2\",\"type\":\"rpc\"},"
+                + "{\"tid\":3,\"action\":\"EchoAction\",\"method\":\"cached\",\"result\":\"a1\",\"type\":\"rpc\"}]";
+        assertEquals(expected, process(processor, batch));
+        assertEquals(2, action.count);
+    }
+
+    @Test
+    public void processCachedResultsEvictedByActionTest() throws Exception {
+        EchoAction action = new EchoAction();
+        JsonRequestProcessor processor = createProcessor(action, false);
+        String total = "{\"action\":\"EchoAction\",\"method\":\"total\",\"data\":null,\"type\":\"rpc\",\"tid\":";
+        String batch = "[" + call(1, "cached", "a") + "," + call(2, "cached", "b") + "," + total + "3}]";
+        assertEquals("[\n{\"tid\":1,\"action\":\"EchoAction\",\"method\":\"cached\",\"result\":\"a1\",\"type\":\"rpc\"},"
+                + "{\"tid\":2,\"action\":\"EchoAction\",\"method\":\"cached\",\"result\":\"b2\",\"type\":\"rpc\"},"
+                + "{\"tid\":3,\"action\":\"EchoAction\",\"method\":\"total\",\"result\":\"total3\",\"type\":\"rpc\"}]",
+            process(processor, batch));
+
+        batch = "[" + call(4, "update", "a") + "," + call(5, "cached", "a") + "," + call(6, "cached", "b") + ","
+                + total + "7}]";
+        String result = process(processor, batch);
+        assertTrue(result, result.contains("\"method\":\"cached\",\"result\":\"a4\""));
+        assertTrue(result, result.contains("\"method\":\"cached\",\"result\":\"b2\""));
+        assertTrue(result, result.contains("\"method\":\"total\",\"result\":\"total5\""));
+        assertEquals(5, action.count);
+    }
+
+    @Test
+    public void processAsyncRequestTest() throws Exception {
+        final EchoAction action = new EchoAction();
+        JsonRequestProcessor processor = createProcessor(action, false);
+        String later = "{\"action\":\"EchoAction\",\"method\":\"later\",\"data\":[\"a\"],\"type\":\"rpc\",\"tid\":1}";
+        String batch = "[" + later + "," + request(2, "b") + "]";
+        String expected = "[\n{\"tid\":1,\"action\":\"EchoAction\",\"method\":\"later\",\"result\":\"done\",\"type\":\"rpc\"},"
+                + response(2, "b") + "]";
+
+        Thread completer = new Thread() {
+
+            @Override
+            public void run() {
+                // completes the pending call once the whole batch has been dispatched
+                while (action.count < 2) {
+                    Thread.yield();
+                }
+                action.pending.complete("done");
+            }
+        };
+        completer.start();
+        assertEquals(expected, process(processor, batch));
+        completer.join();
+    }
+
+    @Test
+    public void processBatchOverBulkheadTest() throws Exception {
+        final EchoAction action = new EchoAction();
+        JsonRequestProcessor processor = createProcessor(action, false);
+        String later = "{\"action\":\"EchoAction\",\"method\":\"later\",\"data\":[\"a\"],\"type\":\"rpc\",\"tid\":";
+        String batch = "[" + later + "1}," + later + "2}," + request(3, "c") + "]";
+
+        Thread completer = new Thread() {
+
+            @Override
+            public void run() {
+                // the second call is rejected before the third one is dispatched
+                while (action.count < 2) {
+                    Thread.yield();
+                }
+                action.pending.complete("done");
+            }
+        };
+        completer.start();
+        String result = process(processor, batch);
+        completer.join();
+        assertTrue(result, result.contains("\"tid\":1,\"action\":\"EchoAction\",\"method\":\"later\",\"result\":\"done\""));
+        assertTrue(result, result.contains("BulkheadFullException"));
+        assertTrue(result, result.endsWith(response(3, "c") + "]"));
+        // the permit of the first call is given back once its result completes
+        completer = new Thread() {
+
+            @Override
+            public void run() {
+                while (action.count < 3) {
+                    Thread.yield();
+                }
+                action.pending.complete("again");
+            }
+        };
+        completer.start();
+        result = process(processor, later + "4}");
+        completer.join();
+        assertTrue(result, result.contains("\"result\":\"again\""));
+    }
+
+    @Test
+    public void processBatchWithStalledCallTest() throws Exception {
+        JsonRequestProcessor processor = createProcessor(new EchoAction(), true);
+        String batch = "[" + call(1, "stall", "a") + "," + request(2, "b") + "]";
+        long start = System.nanoTime();
+        String result = process(processor, batch);
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 5000);
+        assertTrue(result, result.contains("\"tid\":1,\"action\":\"EchoAction\",\"method\":\"stall\""));
+        assertTrue(result, result.contains("CallTimeoutException"));
+        assertTrue(result, result.endsWith(response(2, "b") + "]"));
+    }
+
+    @Test
+    public void processBatchHoldsCallsBehindExpiredCallTest() throws Exception {
+        EchoAction action = new EchoAction();
+        JsonRequestProcessor processor = createProcessor(action, true);
+        String result = process(processor, "[" + call(1, "stubborn", "a") + "," + call(2, "append", "b") + "]");
+        assertTrue(result, result.contains("CallTimeoutException"));
+        // the next call starts once the expired one has returned
+        assertEquals(Arrays.asList("a", "b", "b"), action.journal);
+    }
+
+    @Test
+    public void processAsyncRequestPastDeadlineTest() throws Exception {
+        EchoAction action = new EchoAction();
+        JsonRequestProcessor processor = createProcessor(action, false);
+        String result = process(processor, call(1, "hang", "a"));
+        assertTrue(result, result.contains("\"type\":\"exception\""));
+        assertTrue(result, result.contains("CallTimeoutException"));
+        assertTrue(isCancelled(action.pending));
+    }
+
+    @Test
+    public void processRequestWithClientTimeoutTest() throws Exception {
+        EchoAction action = new EchoAction();
+        JsonRequestProcessor processor = createProcessor(action, false);
+        String result = process(processor,
+            "{\"action\":\"EchoAction\",\"method\":\"later\",\"data\":[\"a\"],\"type\":\"rpc\",\"tid\":1,\"timeout\":50}");
+        assertTrue(result, result.contains("CallTimeoutException"));
+        assertTrue(isCancelled(action.pending));
+        // a call without timeout is not affected
+        assertEquals(response(2, "b"), process(processor, request(2, "b")));
+    }
+
+    @Test
+    public void processFailedAsyncRequestTest() throws Exception {
+        JsonRequestProcessor processor = createProcessor(new EchoAction(), false);
+        String result = process(processor,
+            "{\"action\":\"EchoAction\",\"method\":\"failed\",\"data\":[\"oops\"],\"type\":\"rpc\",\"tid\":1}");
+        assertTrue(result, result.contains("\"type\":\"exception\""));
+        assertTrue(result, result.contains("IllegalStateException: oops"));
+    }
+
+    @Test
+    public void asyncMethodEntryTest() throws Exception {
+        TestDirectApplication context = TestDirectApplication.create(new EchoAction());
+        assertTrue(context.getDirectDispatcher().getMethodEntry("EchoAction", "later").isAsync());
+        assertFalse(context.getDirectDispatcher().getMethodEntry("EchoAction", "echo").isAsync());
+    }
+
+    @Test
+    public void processBatchDispatchesCallsAsTheyAreReadTest() throws Exception {
+        EchoAction action = new EchoAction();
+        JsonRequestProcessor processor = createProcessor(action, false);
+        String response = process(processor, "[" + request(1, "a") + "," + request(2, "b") + ",42]");
+        // the calls before the invalid item have already been dispatched, the array being closed anyway
+        assertEquals(2, action.count);
+        assertTrue(response.startsWith("[\n" + response(1, "a") + "," + response(2, "b") + ",{\"tid\":null,"));
+        assertTrue(response.contains("\"type\":\"exception\""));
+        assertTrue(response.endsWith("}]"));
+    }
+
+    @Test
+    public void processBatchWithInvalidItemTest() throws Exception {
+        for (boolean multithreading : new boolean[] { false, true }) {
+            EchoAction action = new EchoAction();
+            JsonRequestProcessor processor = createProcessor(action, multithreading);
+            // the second item has no method, its transaction is answered by an error
+            String response = process(processor, "[" + request(1, "a")
+                    + ",{\"action\":\"EchoAction\",\"data\":[],\"type\":\"rpc\",\"tid\":2}," + request(3, "c") + "]");
+            assertEquals(1, action.count);
+            assertTrue(response.startsWith("[\n" + response(1, "a") + ",{\"tid\":2,\"action\":\"EchoAction\",\"method\":null,"));
+            assertTrue(response.endsWith("}]"));
+        }
+    }
+
+    @Test
+    public void processTruncatedBatchTest() throws Exception {
+        EchoAction action = new EchoAction();
+        JsonRequestProcessor processor = createProcessor(action, true);
+        String response = process(processor, "[" + request(1, "a") + "," + request(2, "b") + ",{\"action\":");
+        assertEquals(2, action.count);
+        assertTrue(response.startsWith("[\n" + response(1, "a") + "," + response(2, "b") + ",{\"tid\":null,"));
+        assertTrue(response.endsWith("}]"));
+    }
+
+    @Test(expected = RequestException.class)
+    public void processEmptyBatchTest() throws Exception {
+        process(createProcessor(new EchoAction(), false), "[]");
+    }
+
+    @Test(expected = RequestException.class)
+    public void processEmptyRequestTest() throws Exception {
+        process(createProcessor(new EchoAction(), false), "");
+    }
+
+    @Test(expected = RequestException.class)
+    public void processJsonPrimitiveRequestTest() throws Exception {
+        process(createProcessor(new EchoAction(), false), "42");
+    }
+
+    @Test(expected = JsonSyntaxException.class)
+    public void processTrailingContentTest() throws Exception {
+        process(createProcessor(new EchoAction(), false), request(1, "a") + " }");
+    }
+}
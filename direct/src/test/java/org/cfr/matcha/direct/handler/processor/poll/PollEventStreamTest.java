@@ -0,0 +1,233 @@
+package org.cfr.matcha.direct.handler.processor.poll;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.cfr.direct.testing.EasyMockTestCase;
+import org.cfr.matcha.api.direct.DirectAction;
+import org.cfr.matcha.api.direct.DirectPollMethod;
+import org.cfr.matcha.direct.TestDirectApplication;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+public class PollEventStreamTest extends EasyMockTestCase {
+
+    @DirectAction
+    public static class StreamAction {
+
+        @DirectPollMethod
+        public String message(Map<String, String> parameters) {
+            return "hello " + parameters.get("name");
+        }
+
+        @DirectPollMethod(longPollTimeoutMillis = 20)
+        public CompletableFuture<String> quiet(Map<String, String> parameters) {
+            return new CompletableFuture<String>();
+        }
+
+        @DirectPollMethod
+        public CompletableFuture<String> cached(Map<String, String> parameters) {
+            return CompletableFuture.completedFuture("cached");
+        }
+
+        @DirectPollMethod
+        public CompletableFuture<String> repeated(Map<String, String> parameters) {
+            final CompletableFuture<String> value = new CompletableFuture<String>();
+            PollRequestProcessor.schedule(new Runnable() {
+
+                @Override
+                public void run() {
+                    value.complete("repeated");
+                }
+            }, 1);
+            return value;
+        }
+
+        @DirectPollMethod
+        public String thread(Map<String, String> parameters) {
+            // the parameters are the poll method's own
+            String name = parameters.put("name", "changed");
+            return name + " from " + Thread.currentThread().getName();
+        }
+    }
+
+    /**
+     * Writer failing once a number of events have been flushed, as when the client is gone.
+     */
+    private static class ClosingWriter extends Writer {
+
+        private final StringBuilder content = new StringBuilder();
+
+        private int remainingFlushes;
+
+        public ClosingWriter(int flushes) {
+            this.remainingFlushes = flushes;
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            if (remainingFlushes <= 0) {
+                throw new IOException("closed");
+            }
+            content.append(cbuf, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            remainingFlushes--;
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public String toString() {
+            return content.toString();
+        }
+    }
+
+    private ExecutorService executor;
+
+    @Override
+    @Before
+    public void setUp() throws Exception {
+        super.setUp();
+        executor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder().setNameFormat("stream-%d").build());
+    }
+
+    @Override
+    @After
+    public void tearDown() throws Exception {
+        executor.shutdownNow();
+        super.tearDown();
+    }
+
+    private static PollRequestProcessor createProcessor() throws Exception {
+        TestDirectApplication context = TestDirectApplication.create(new StreamAction());
+        return new PollRequestProcessor(context.getRegistry(), context.getDirectDispatcher(),
+                context.getGlobalConfiguration());
+    }
+
+    @Test
+    public void startTest() throws Exception {
+        ClosingWriter writer = new ClosingWriter(2);
+        PollEventStream stream = new PollEventStream(createProcessor(), "name=world", "/poll/message", writer, 10);
+
+        stream.start(executor).get(10, TimeUnit.SECONDS);
+        String event = "data: {\"data\":\"hello world\",\"name\":\"message\",\"type\":\"event\"}\n\n";
+        assertEquals(event + event, writer.toString());
+    }
+
+    @Test
+    public void startPollsOnExecutorTest() throws Exception {
+        ClosingWriter writer = new ClosingWriter(3);
+        PollEventStream stream = new PollEventStream(createProcessor(), "name=world", "/poll/thread", writer, 10);
+
+        stream.start(executor).get(10, TimeUnit.SECONDS);
+        // not on the timer of the polls
+        String event = "data: {\"data\":\"world from stream-0\",\"name\":\"thread\",\"type\":\"event\"}\n\n";
+        assertEquals(event + event + event, writer.toString());
+    }
+
+    @Test
+    public void startRejectedTest() throws Exception {
+        ClosingWriter writer = new ClosingWriter(10);
+        PollEventStream stream = new PollEventStream(createProcessor(), "name=world", "/poll/message", writer, 10);
+        final AtomicInteger accepted = new AtomicInteger(2);
+        Executor saturated = new Executor() {
+
+            @Override
+            public void execute(Runnable command) {
+                if (accepted.getAndDecrement() <= 0) {
+                    throw new RejectedExecutionException("saturated");
+                }
+                executor.execute(command);
+            }
+        };
+
+        try {
+            stream.start(saturated).get(10, TimeUnit.SECONDS);
+            fail("the stream ends when the executor rejects a poll");
+        } catch (ExecutionException ex) {
+            assertTrue(ex.getCause() instanceof RejectedExecutionException);
+        }
+        String event = "data: {\"data\":\"hello world\",\"name\":\"message\",\"type\":\"event\"}\n\n";
+        assertEquals(event, writer.toString());
+    }
+
+    @Test
+    public void startUnknownEventTest() throws Exception {
+        ClosingWriter writer = new ClosingWriter(2);
+        PollEventStream stream = new PollEventStream(createProcessor(), "", "/poll/unknown", writer, 10);
+
+        stream.start(executor).get(10, TimeUnit.SECONDS);
+        assertTrue(writer.toString(), writer.toString().startsWith("data: {\"message\":\"RequestException: "));
+        assertTrue(writer.toString(), writer.toString().contains("\"type\":\"exception\"}\n\n"));
+    }
+
+    @Test
+    public void startLongPollTimeoutTest() throws Exception {
+        ClosingWriter writer = new ClosingWriter(2);
+        PollEventStream stream = new PollEventStream(createProcessor(), "", "/poll/quiet", writer, 10);
+
+        stream.start(executor).get(10, TimeUnit.SECONDS);
+        // an expired long poll keeps the connection alive
+        assertEquals(": keep-alive\n\n: keep-alive\n\n", writer.toString());
+    }
+
+    @Test
+    public void startCompletedLongPollTest() throws Exception {
+        ClosingWriter writer = new ClosingWriter(3);
+        PollEventStream stream = new PollEventStream(createProcessor(), "", "/poll/cached", writer, 100);
+
+        long start = System.nanoTime();
+        stream.start(executor).get(10, TimeUnit.SECONDS);
+        // a stage already complete is polled again after the poll interval, not in a loop
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 200);
+        String event = "data: {\"data\":\"cached\",\"name\":\"cached\",\"type\":\"event\"}\n\n";
+        assertEquals(event + event + event, writer.toString());
+    }
+
+    @Test
+    public void startRepeatedLongPollTest() throws Exception {
+        ClosingWriter writer = new ClosingWriter(3);
+        PollEventStream stream = new PollEventStream(createProcessor(), "", "/poll/repeated", writer, 100);
+
+        long start = System.nanoTime();
+        stream.start(executor).get(10, TimeUnit.SECONDS);
+        // the same response is polled again after the poll interval
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 200);
+    }
+
+    @Test
+    public void runCompletedLongPollTest() throws Exception {
+        ClosingWriter writer = new ClosingWriter(3);
+        PollEventStream stream = new PollEventStream(createProcessor(), "", "/poll/cached", writer, 100);
+
+        long start = System.nanoTime();
+        stream.run();
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 200);
+    }
+
+    @Test
+    public void runTest() throws Exception {
+        ClosingWriter writer = new ClosingWriter(1);
+        PollEventStream stream = new PollEventStream(createProcessor(), "name=world", "/poll/message", writer, 10);
+
+        stream.run();
+        assertEquals("data: {\"data\":\"hello world\",\"name\":\"message\",\"type\":\"event\"}\n\n", writer.toString());
+    }
+}
@@ -0,0 +1,200 @@
+package org.cfr.matcha.direct.handler.processor.poll;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.cfr.direct.testing.EasyMockTestCase;
+import org.cfr.matcha.api.direct.DirectAction;
+import org.cfr.matcha.api.direct.DirectPollMethod;
+import org.cfr.matcha.direct.TestDirectApplication;
+import org.cfr.matcha.direct.event.EventBus;
+import org.junit.Test;
+
+public class PollRequestProcessorTest extends EasyMockTestCase {
+
+    @DirectAction
+    public static class EventAction {
+
+        private volatile CompletableFuture<String> pending;
+
+        private volatile String status = "idle";
+
+        private final EventBus eventBus = new EventBus();
+
+        @DirectPollMethod
+        public String message(Map<String, String> parameters) {
+            return "hello " + parameters.get("name");
+        }
+
+        @DirectPollMethod(suppressUnchanged = true)
+        public String status(Map<String, String> parameters) {
+            return status;
+        }
+
+        @DirectPollMethod
+        public CompletableFuture<String> event(Map<String, String> parameters) {
+            pending = new CompletableFuture<String>();
+            return pending;
+        }
+
+        @DirectPollMethod(longPollTimeoutMillis = 50)
+        public CompletableFuture<String> quiet(Map<String, String> parameters) {
+            pending = new CompletableFuture<String>();
+            return pending;
+        }
+
+        @DirectPollMethod
+        public List<Object> news(Map<String, String> parameters) {
+            return eventBus.drain("news", parameters.get("clientId"));
+        }
+
+        @DirectPollMethod(longPollTimeoutMillis = 50)
+        public CompletableFuture<List<Object>> feed(Map<String, String> parameters) {
+            return eventBus.await("news", parameters.get("clientId"));
+        }
+    }
+
+    private static PollRequestProcessor createProcessor(EventAction action) throws Exception {
+        TestDirectApplication context = TestDirectApplication.create(action);
+        return new PollRequestProcessor(context.getRegistry(), context.getDirectDispatcher(),
+                context.getGlobalConfiguration());
+    }
+
+    private static String process(PollRequestProcessor processor, String request, String pathInfo)
+            throws Exception {
+        StringWriter writer = new StringWriter();
+        processor.process(new StringReader(request), writer, pathInfo);
+        return writer.toString();
+    }
+
+    private static String processAsync(PollRequestProcessor processor, String request, String pathInfo)
+            throws Exception {
+        StringWriter writer = new StringWriter();
+        processor.processAsync(new StringReader(request), writer, pathInfo).get(10, TimeUnit.SECONDS);
+        return writer.toString();
+    }
+
+    @Test
+    public void processTest() throws Exception {
+        PollRequestProcessor processor = createProcessor(new EventAction());
+        StringWriter writer = new StringWriter();
+        processor.process(new StringReader("name=world"), writer, "/poll/message");
+        assertEquals("{\"data\":\"hello world\",\"name\":\"message\",\"type\":\"event\"}", writer.toString());
+    }
+
+    @Test
+    public void processSuppressUnchangedTest() throws Exception {
+        EventAction action = new EventAction();
+        PollRequestProcessor processor = createProcessor(action);
+        String idle = "{\"data\":\"idle\",\"name\":\"status\",\"type\":\"event\"}";
+
+        assertEquals(idle, process(processor, "clientId=a", "/poll/status"));
+        assertEquals(PollRequestProcessor.UNCHANGED_RESPONSE, process(processor, "clientId=a", "/poll/status"));
+        // each client has its own fingerprint
+        assertEquals(idle, process(processor, "clientId=b", "/poll/status"));
+        // a client without identifier always gets the event
+        assertEquals(idle, process(processor, "", "/poll/status"));
+
+        action.status = "busy";
+        assertEquals("{\"data\":\"busy\",\"name\":\"status\",\"type\":\"event\"}",
+            process(processor, "clientId=a", "/poll/status"));
+        assertEquals(PollRequestProcessor.UNCHANGED_RESPONSE, process(processor, "clientId=a", "/poll/status"));
+    }
+
+    @Test
+    public void processAsyncUnchangedTest() throws Exception {
+        PollRequestProcessor processor = createProcessor(new EventAction());
+
+        PollResponse response = processor.processAsync("clientId=a", "/poll/status", true).get(10, TimeUnit.SECONDS);
+        assertNotNull(response.getJson());
+        response.delivered();
+        // nothing to send in an event stream
+        assertNull(processor.processAsync("clientId=a", "/poll/status", true).get(10, TimeUnit.SECONDS).getJson());
+    }
+
+    @Test
+    public void processAsyncUndeliveredTest() throws Exception {
+        PollRequestProcessor processor = createProcessor(new EventAction());
+        String idle = "{\"data\":\"idle\",\"name\":\"status\",\"type\":\"event\"}";
+
+        // a response lost with its write is sent again
+        assertEquals(idle, processor.processAsync("clientId=a", "/poll/status", true).get(10, TimeUnit.SECONDS)
+            .getJson());
+        assertEquals(idle, processAsync(processor, "clientId=a", "/poll/status"));
+        assertEquals(PollRequestProcessor.UNCHANGED_RESPONSE, process(processor, "clientId=a", "/poll/status"));
+    }
+
+    @Test
+    public void processAsyncLongPollTest() throws Exception {
+        EventAction action = new EventAction();
+        PollRequestProcessor processor = createProcessor(action);
+        StringWriter writer = new StringWriter();
+        CompletableFuture<Void> response = processor.processAsync(new StringReader(""), writer, "/poll/event");
+        assertFalse(response.isDone());
+
+        action.pending.complete("news");
+        response.get(10, TimeUnit.SECONDS);
+        assertEquals("{\"data\":\"news\",\"name\":\"event\",\"type\":\"event\"}", writer.toString());
+    }
+
+    @Test
+    public void processEventBusTest() throws Exception {
+        EventAction action = new EventAction();
+        PollRequestProcessor processor = createProcessor(action);
+        String empty = "{\"data\":[],\"name\":\"news\",\"type\":\"event\"}";
+
+        // the first poll of a client subscribes it
+        assertEquals(empty, process(processor, "clientId=a", "/poll/news"));
+        action.eventBus.publish("news", "one");
+        assertEquals(empty, process(processor, "clientId=b", "/poll/news"));
+        action.eventBus.publish("news", "two");
+
+        assertEquals("{\"data\":[\"one\",\"two\"],\"name\":\"news\",\"type\":\"event\"}",
+            process(processor, "clientId=a", "/poll/news"));
+        assertEquals("{\"data\":[\"two\"],\"name\":\"news\",\"type\":\"event\"}",
+            process(processor, "clientId=b", "/poll/news"));
+        assertEquals(empty, process(processor, "clientId=a", "/poll/news"));
+    }
+
+    @Test
+    public void processAsyncEventBusTest() throws Exception {
+        EventAction action = new EventAction();
+        PollRequestProcessor processor = createProcessor(action);
+        action.eventBus.drain("news", "a");
+
+        // no event within the long poll timeout
+        assertEquals("{\"data\":null,\"name\":\"feed\",\"type\":\"event\"}",
+            processAsync(processor, "clientId=a", "/poll/feed"));
+        // the cancelled long poll no longer waits, once the poll is answered
+        long deadline = System.currentTimeMillis() + 10000;
+        while (action.eventBus.getChannel("news").getWaiterCount() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.yield();
+        }
+        assertEquals(0, action.eventBus.getChannel("news").getWaiterCount());
+
+        StringWriter writer = new StringWriter();
+        CompletableFuture<Void> response = processor.processAsync(new StringReader("clientId=a"), writer, "/poll/feed");
+        assertFalse(response.isDone());
+        action.eventBus.publish("news", "one");
+        response.get(10, TimeUnit.SECONDS);
+        assertEquals("{\"data\":[\"one\"],\"name\":\"feed\",\"type\":\"event\"}", writer.toString());
+    }
+
+    @Test
+    public void processAsyncLongPollTimeoutTest() throws Exception {
+        EventAction action = new EventAction();
+        PollRequestProcessor processor = createProcessor(action);
+        assertEquals("{\"data\":null,\"name\":\"quiet\",\"type\":\"event\"}",
+            processAsync(processor, "", "/poll/quiet"));
+        // the action is told to stop waiting, once the poll is answered
+        long deadline = System.currentTimeMillis() + 10000;
+        while (!action.pending.isCancelled() && System.currentTimeMillis() < deadline) {
+            Thread.yield();
+        }
+        assertTrue(action.pending.isCancelled());
+    }
+}
@@ -1,13 +1,19 @@
 package org.cfr.matcha.direct.rs;
 
+import java.io.ByteArrayOutputStream;
 import java.io.FileNotFoundException;
+import java.io.OutputStream;
 
 import javax.ws.rs.core.UriInfo;
 
 import org.cfr.commons.util.log.Log4jConfigurer;
 import org.cfr.direct.testing.EasyMockTestCase;
+import org.cfr.matcha.direct.MyAction;
+import org.cfr.matcha.direct.TestDirectApplication;
 import org.junit.Test;
 
+import com.softwarementors.extjs.djn.router.RequestType;
+
 public class DirectHandlerResourceTest extends EasyMockTestCase {
 
     static {
@@ -62,6 +68,50 @@ public class DirectHandlerResourceTest extends EasyMockTestCase {
         verify();
     }
 
+    @Test
+    public void handleJSONPostStreamsResponseTest() throws Exception {
+        DirectHandlerResource resource = new DirectHandlerResource();
+
+        IJaxRsDirectApplication directManager = getMockFullDirectManager();
+        resource.setDirectApplication(directManager);
+
+        String json = "myInput";
+        UriInfo uriInfo = mock(UriInfo.class);
+        OutputStream output = new ByteArrayOutputStream();
+        directManager.handleProcess(json, uriInfo, RequestType.JSON, output);
+        expectLastCall();
+
+        replay();
+        resource.handleJSONPost(uriInfo, json).write(output);
+        verify();
+    }
+
+    @Test
+    public void handleJSONPostWritesBatchTest() throws Exception {
+        TestDirectApplication application = TestDirectApplication.create(new MyAction());
+
+        DirectHandlerResource resource = new DirectHandlerResource();
+        resource.setDirectApplication(application);
+        UriInfo uriInfo = mock(UriInfo.class);
+        String batch = "[{\"action\":\"MyAction\",\"method\":\"myMethod\",\"data\":[\"a\"],\"type\":\"rpc\",\"tid\":1},"
+                + "{\"action\":\"MyAction\",\"method\":\"unknown\",\"data\":[\"b\"],\"type\":\"rpc\",\"tid\":2},"
+                + "{\"action\":\"MyAction\",\"method\":\"myMethod\",\"data\":[\"c\"],\"type\":\"rpc\",\"tid\":3}]";
+
+        replay();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        resource.handleJSONPost(uriInfo, batch).write(output);
+        String response = new String(output.toByteArray(), "UTF-8");
+
+        assertTrue(response, response.startsWith("["));
+        assertTrue(response, response.endsWith("]"));
+        assertTrue(response, response.contains("called with data a\""));
+        assertTrue(response, response.contains("called with data c\""));
+        // an error is answered in the body, the response being already committed
+        assertTrue(response, response.contains("\"type\":\"exception\""));
+        assertTrue(response.indexOf("\"tid\":1") < response.indexOf("\"tid\":2"));
+        assertTrue(response.indexOf("\"tid\":2") < response.indexOf("\"tid\":3"));
+    }
+
     @Test
     public void handlePollGetTest() {
         DirectHandlerResource resource = new DirectHandlerResource();
@@ -88,4 +138,21 @@ public class DirectHandlerResourceTest extends EasyMockTestCase {
         verify();
     }
 
+    @Test
+    public void handlePollEventStreamTest() throws Exception {
+        DirectHandlerResource resource = new DirectHandlerResource();
+
+        IJaxRsDirectApplication directManager = getMockFullDirectManager();
+        resource.setDirectApplication(directManager);
+
+        UriInfo uriInfo = mock(UriInfo.class);
+        OutputStream output = new ByteArrayOutputStream();
+        directManager.handleEventStream(uriInfo, output);
+        expectLastCall();
+
+        replay();
+        resource.handlePollEventStream(uriInfo).write(output);
+        verify();
+    }
+
 }
@@ -67,6 +67,30 @@ public class DirectJSResourceTest extends EasyMockTestCase {
 
     }
 
+    @Test
+    public void retrieveFILE_EVENT_SOURCE_PROVIDER_Test() {
+
+        DirectJSResource resource = new DirectJSResource();
+        String fileName = DirectJSResource.FILE_EVENT_SOURCE_PROVIDER;
+        String response = resource.getDjnJSResource(fileName);
+
+        String expected = resource.readFile(DirectJSResource.PATH_EVENT_SOURCE_PROVIDER);
+        assertEquals(expected, response);
+
+    }
+
+    @Test
+    public void retrieveFILE_WEBSOCKET_PROVIDER_Test() {
+
+        DirectJSResource resource = new DirectJSResource();
+        String fileName = DirectJSResource.FILE_WEBSOCKET_PROVIDER;
+        String response = resource.getDjnJSResource(fileName);
+
+        String expected = resource.readFile(DirectJSResource.PATH_WEBSOCKET_PROVIDER);
+        assertEquals(expected, response);
+
+    }
+
     @Test
     public void retrieveFILE_DIRECT_API_Test() {
 
@@ -0,0 +1,251 @@
+package org.cfr.matcha.direct.servlet;
+
+import java.io.BufferedReader;
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.cfr.direct.testing.EasyMockTestCase;
+import org.cfr.matcha.direct.handler.IDirectHandler;
+import org.cfr.matcha.direct.handler.context.IDirectHandlerContext;
+import org.cfr.matcha.direct.handler.impl.DirectHandler;
+import org.cfr.matcha.direct.handler.processor.poll.PollEventStream;
+import org.cfr.matcha.direct.spi.IRequestRouter;
+import org.junit.Test;
+
+import com.softwarementors.extjs.djn.router.RequestType;
+
+public class ServletDirectContextTest extends EasyMockTestCase {
+
+    @Test
+    public void handleProcessTest() {
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        HttpServletResponse response = mock(HttpServletResponse.class);
+        IDirectHandler handler = mock(IDirectHandler.class);
+
+        handler.process(anyObject(IDirectHandlerContext.class));
+        expectLastCall().once();
+
+        replay();
+        ServletDirectContext context = new ServletDirectContext();
+        context.setDirectHandlers(Collections.singletonList(handler));
+        context.handleProcess(request, response, RequestType.JSON);
+        verify();
+    }
+
+    @Test
+    public void handleProcessAsyncTest() throws Exception {
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        HttpServletResponse response = mock(HttpServletResponse.class);
+        AsyncContext asyncContext = mock(AsyncContext.class);
+        IDirectHandler handler = mock(IDirectHandler.class);
+
+        expect(request.isAsyncSupported()).andReturn(true);
+        expect(request.startAsync(request, response)).andReturn(asyncContext);
+        asyncContext.setTimeout(1000L);
+        expectLastCall().once();
+        expect(asyncContext.getRequest()).andReturn(request).anyTimes();
+        expect(asyncContext.getResponse()).andReturn(response).anyTimes();
+        handler.process(anyObject(IDirectHandlerContext.class));
+        expectLastCall().once();
+        asyncContext.complete();
+        expectLastCall().once();
+
+        replay();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        ServletDirectContext context = new ServletDirectContext();
+        context.setAsyncEnabled(true);
+        context.setAsyncTimeout(1000L);
+        context.setAsyncExecutor(executor);
+        context.setDirectHandlers(Collections.singletonList(handler));
+        context.handleProcess(request, response, RequestType.JSON);
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        verify();
+    }
+
+    @Test
+    public void handleProcessAsyncPollTest() throws Exception {
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        HttpServletResponse response = mock(HttpServletResponse.class);
+        AsyncContext asyncContext = mock(AsyncContext.class);
+        IRequestRouter router = mock(IRequestRouter.class);
+        IDirectHandler handler = mock(IDirectHandler.class);
+        BufferedReader reader = new BufferedReader(new StringReader(""));
+        PrintWriter writer = new PrintWriter(new StringWriter());
+        CompletableFuture<Void> pollResponse = new CompletableFuture<Void>();
+
+        expect(request.isAsyncSupported()).andReturn(true);
+        expect(request.startAsync(request, response)).andReturn(asyncContext);
+        asyncContext.setTimeout(0L);
+        expectLastCall().once();
+        expect(asyncContext.getRequest()).andReturn(request).anyTimes();
+        expect(asyncContext.getResponse()).andReturn(response).anyTimes();
+        // the handlers set are run for an asynchronous poll as well
+        handler.process(anyObject(IDirectHandlerContext.class));
+        expectLastCall().once();
+        expect(request.getReader()).andReturn(reader);
+        expect(request.getPathInfo()).andReturn("/poll/event");
+        response.setContentType(IDirectHandler.JSON_CONTENT_TYPE);
+        expectLastCall().once();
+        expect(response.getWriter()).andReturn(writer);
+        expect(router.processPollRequestAsync(reader, writer, "/poll/event")).andReturn(pollResponse);
+        asyncContext.complete();
+        expectLastCall().once();
+
+        replay();
+        ServletDirectContext context = new ServletDirectContext();
+        context.setAsyncEnabled(true);
+        context.setRequestRouter(router);
+        context.setDirectHandlers(Arrays.asList(handler, new DirectHandler()));
+        // no thread is needed to wait for the event
+        context.handleProcess(request, response, RequestType.POLL);
+        // the request completes once the router has written the response
+        pollResponse.complete(null);
+        verify();
+    }
+
+    @Test
+    public void handleProcessEventStreamTest() throws Exception {
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        HttpServletResponse response = mock(HttpServletResponse.class);
+        AsyncContext asyncContext = mock(AsyncContext.class);
+        IRequestRouter router = mock(IRequestRouter.class);
+        ExecutorService executor = mock(ExecutorService.class);
+        IDirectHandler handler = mock(IDirectHandler.class);
+        PollEventStream stream = mock(PollEventStream.class);
+        PrintWriter writer = new PrintWriter(new StringWriter());
+        CompletableFuture<Void> end = new CompletableFuture<Void>();
+
+        expect(request.isAsyncSupported()).andReturn(true);
+        expect(request.getHeader("Accept")).andReturn(PollEventStream.CONTENT_TYPE);
+        expect(request.startAsync(request, response)).andReturn(asyncContext);
+        asyncContext.setTimeout(0L);
+        expectLastCall().once();
+        expect(asyncContext.getRequest()).andReturn(request).anyTimes();
+        expect(asyncContext.getResponse()).andReturn(response).anyTimes();
+        // the handlers set are run for an event stream as well
+        handler.process(anyObject(IDirectHandlerContext.class));
+        expectLastCall().once();
+        response.setContentType(PollEventStream.CONTENT_TYPE);
+        expectLastCall().once();
+        response.setCharacterEncoding("UTF-8");
+        expectLastCall().once();
+        response.setHeader("Cache-Control", "no-cache");
+        expectLastCall().once();
+        expect(request.getQueryString()).andReturn("clientId=1").anyTimes();
+        expect(request.getPathInfo()).andReturn("/poll/event");
+        expect(response.getWriter()).andReturn(writer);
+        expect(router.createPollEventStream("clientId=1", "/poll/event", writer, 500L)).andReturn(stream);
+        expect(stream.start(executor)).andReturn(end);
+        asyncContext.complete();
+        expectLastCall().once();
+
+        replay();
+        ServletDirectContext context = new ServletDirectContext();
+        context.setAsyncEnabled(true);
+        context.setAsyncExecutor(executor);
+        context.setEventStreamPollInterval(500L);
+        context.setRequestRouter(router);
+        context.setDirectHandlers(Arrays.asList(handler, new DirectHandler()));
+        context.handleProcess(request, response, RequestType.POLL);
+        // the request is completed when the client is gone
+        end.complete(null);
+        verify();
+    }
+
+    @Test
+    public void handleProcessAsyncRejectedTest() throws Exception {
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        HttpServletResponse response = mock(HttpServletResponse.class);
+        AsyncContext asyncContext = mock(AsyncContext.class);
+        IDirectHandler handler = mock(IDirectHandler.class);
+        ExecutorService executor = mock(ExecutorService.class);
+
+        expect(request.isAsyncSupported()).andReturn(true);
+        expect(request.startAsync(request, response)).andReturn(asyncContext);
+        executor.execute(anyObject(Runnable.class));
+        expectLastCall().andThrow(new RejectedExecutionException("full"));
+        response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        expectLastCall().once();
+        asyncContext.complete();
+        expectLastCall().once();
+
+        replay();
+        ServletDirectContext context = new ServletDirectContext();
+        context.setAsyncEnabled(true);
+        context.setAsyncExecutor(executor);
+        context.setDirectHandlers(Collections.singletonList(handler));
+        context.handleProcess(request, response, RequestType.JSON);
+        verify();
+    }
+
+    @Test
+    public void createAsyncExecutorIsBoundedTest() throws Exception {
+        ServletDirectContext context = new ServletDirectContext();
+        context.setAsyncMaxThreads(1);
+        context.setAsyncQueueCapacity(1);
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) context.createAsyncExecutor();
+        final CountDownLatch release = new CountDownLatch(1);
+        Runnable blocked = new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        try {
+            assertEquals(1, executor.getMaximumPoolSize());
+            executor.execute(blocked);
+            executor.execute(blocked);
+            try {
+                executor.execute(blocked);
+                fail("a third request must be rejected");
+            } catch (RejectedExecutionException ex) {
+                // answered by a 503
+            }
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void handleProcessAsyncNotSupportedTest() {
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        HttpServletResponse response = mock(HttpServletResponse.class);
+        IDirectHandler handler = mock(IDirectHandler.class);
+        ExecutorService executor = mock(ExecutorService.class);
+
+        expect(request.isAsyncSupported()).andReturn(false);
+        handler.process(anyObject(IDirectHandlerContext.class));
+        expectLastCall().once();
+
+        replay();
+        ServletDirectContext context = new ServletDirectContext();
+        context.setAsyncEnabled(true);
+        context.setAsyncExecutor(executor);
+        context.setDirectHandlers(Collections.singletonList(handler));
+        context.handleProcess(request, response, RequestType.JSON);
+        verify();
+    }
+
+}
@@ -1,13 +1,19 @@
 package org.cfr.matcha.direct.spi;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 
 import org.cfr.direct.testing.EasyMockTestCase;
+import org.cfr.matcha.direct.handler.IAsyncDirectHandler;
 import org.cfr.matcha.direct.handler.IDirectHandler;
+import org.cfr.matcha.direct.handler.context.IDirectHandlerContext;
 import org.cfr.matcha.direct.handler.impl.DirectHandler;
 import org.cfr.matcha.direct.handler.impl.DirectRequestRouter;
+import org.cfr.matcha.direct.rs.context.DirectJaxRsHandlerContext;
 import org.easymock.EasyMock;
 import org.junit.Before;
 import org.junit.Test;
@@ -15,6 +21,7 @@ import org.junit.Test;
 import com.google.common.collect.Sets;
 import com.softwarementors.extjs.djn.api.Registry;
 import com.softwarementors.extjs.djn.config.ApiConfiguration;
+import com.softwarementors.extjs.djn.router.RequestType;
 
 public class BaseDirectContextTest extends EasyMockTestCase {
 
@@ -290,6 +297,71 @@ public class BaseDirectContextTest extends EasyMockTestCase {
         assertTrue(context.getApiConfigurations().size() == 1);
     }
 
+    @Test
+    public void processAsyncTest() throws Exception {
+        final List<String> processed = new ArrayList<String>();
+        final CompletableFuture<Void> response = new CompletableFuture<Void>();
+        BaseDirectContext context = new BaseDirectContext();
+        context.setDirectHandlers(Arrays.asList(handler("before", processed),
+            new IAsyncDirectHandler() {
+
+                @Override
+                public void process(IDirectHandlerContext handlerContext) {
+                    processed.add("sync");
+                }
+
+                @Override
+                public CompletionStage<Void> processAsync(IDirectHandlerContext handlerContext) {
+                    processed.add("async");
+                    return handlerContext.getRequestType() == RequestType.POLL ? response : null;
+                }
+            },
+            handler("after", processed)));
+
+        // a handler processing the request asynchronously holds the following ones
+        CompletableFuture<Void> poll = context.processAsync(new DirectJaxRsHandlerContext(context, RequestType.POLL,
+                "/poll/event", null, null));
+        assertEquals(Arrays.asList("before", "async"), processed);
+        assertFalse(poll.isDone());
+        response.complete(null);
+        assertTrue(poll.isDone());
+        assertEquals(Arrays.asList("before", "async", "after"), processed);
+
+        // a handler not processing the request asynchronously is run synchronously
+        processed.clear();
+        assertTrue(context.processAsync(new DirectJaxRsHandlerContext(context, RequestType.JSON, null, null, null))
+                .isDone());
+        assertEquals(Arrays.asList("before", "async", "sync", "after"), processed);
+    }
+
+    @Test
+    public void processAsyncFailureTest() throws Exception {
+        final List<String> processed = new ArrayList<String>();
+        BaseDirectContext context = new BaseDirectContext();
+        context.setDirectHandlers(Arrays.asList(new IDirectHandler() {
+
+            @Override
+            public void process(IDirectHandlerContext handlerContext) {
+                throw new IllegalStateException("rejected");
+            }
+        }, handler("after", processed)));
+
+        CompletableFuture<Void> poll = context.processAsync(new DirectJaxRsHandlerContext(context, RequestType.POLL,
+                "/poll/event", null, null));
+        assertTrue(poll.isCompletedExceptionally());
+        assertTrue(processed.isEmpty());
+    }
+
+    private static IDirectHandler handler(final String name, final List<String> processed) {
+        return new IDirectHandler() {
+
+            @Override
+            public void process(IDirectHandlerContext handlerContext) {
+                processed.add(name);
+            }
+        };
+    }
+
     private List<IDirectHandler> getMockDirectHandlers() {
         DirectHandler handler = mock(DirectHandler.class);
         List<IDirectHandler> directHandlers = new ArrayList<IDirectHandler>();
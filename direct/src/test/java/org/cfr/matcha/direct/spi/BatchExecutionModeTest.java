@@ -0,0 +1,58 @@
+package org.cfr.matcha.direct.spi;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.cfr.direct.testing.EasyMockTestCase;
+import org.junit.Test;
+
+import com.softwarementors.extjs.djn.config.GlobalConfiguration;
+
+public class BatchExecutionModeTest extends EasyMockTestCase {
+
+    private static GlobalConfiguration createConfiguration() {
+        ConfigurationProvider provider = new ConfigurationProvider();
+        provider.setProvidersUrl("direct");
+        return provider.createConfiguration();
+    }
+
+    @Test
+    public void createExecutorTest() throws Exception {
+        GlobalConfiguration configuration = createConfiguration();
+        for (BatchExecutionMode mode : BatchExecutionMode.values()) {
+            ExecutorService executor = mode.createExecutor(configuration);
+            assertNotNull(mode.name(), executor);
+            // an executor per router, shut down with its context
+            ExecutorService other = mode.createExecutor(configuration);
+            assertNotSame(mode.name(), executor, other);
+            other.shutdown();
+            assertEquals(mode.name(), "done", executor.submit(new Callable<String>() {
+
+                @Override
+                public String call() throws Exception {
+                    return "done";
+                }
+            }).get());
+            executor.shutdown();
+            assertTrue(mode.name(), executor.awaitTermination(10, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void createBackgroundExecutorTest() throws Exception {
+        GlobalConfiguration configuration = createConfiguration();
+        ExecutorService executor = BatchExecutionMode.createBackgroundExecutor(configuration);
+        Thread thread = executor.submit(new Callable<Thread>() {
+
+            @Override
+            public Thread call() throws Exception {
+                return Thread.currentThread();
+            }
+        }).get();
+        assertEquals(Thread.MIN_PRIORITY, thread.getPriority());
+        assertTrue(thread.isDaemon());
+        executor.shutdown();
+    }
+
+}
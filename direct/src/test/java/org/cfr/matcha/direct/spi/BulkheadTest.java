@@ -0,0 +1,64 @@
+package org.cfr.matcha.direct.spi;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.cfr.direct.testing.EasyMockTestCase;
+import org.junit.Test;
+
+public class BulkheadTest extends EasyMockTestCase {
+
+    @Test(expected = IllegalArgumentException.class)
+    public void createWithoutConcurrentCallsTest() {
+        new Bulkhead("Action.method", 0, 0);
+    }
+
+    @Test
+    public void acquireFailsFastWhenQueueIsFullTest() {
+        Bulkhead bulkhead = new Bulkhead("Action.method", 1, 0);
+        bulkhead.acquire();
+        assertEquals(0, bulkhead.getAvailablePermits());
+        try {
+            bulkhead.acquire();
+            fail("no permit is free and the queue is full");
+        } catch (BulkheadFullException ex) {
+            assertTrue(ex.getMessage(), ex.getMessage().contains("Action.method"));
+        }
+        bulkhead.release();
+        bulkhead.acquire();
+        bulkhead.release();
+        assertEquals(1, bulkhead.getAvailablePermits());
+        assertEquals(0, bulkhead.getQueuedCalls());
+    }
+
+    @Test
+    public void acquireWaitsInQueueTest() throws Exception {
+        final Bulkhead bulkhead = new Bulkhead("Action", 1, 1);
+        final CountDownLatch acquired = new CountDownLatch(1);
+        bulkhead.acquire();
+        Thread queued = new Thread() {
+
+            @Override
+            public void run() {
+                bulkhead.acquire();
+                acquired.countDown();
+                bulkhead.release();
+            }
+        };
+        queued.start();
+        while (bulkhead.getQueuedCalls() == 0) {
+            Thread.yield();
+        }
+        try {
+            bulkhead.acquire();
+            fail("the only slot of the queue is taken");
+        } catch (BulkheadFullException ex) {
+            // expected
+        }
+        assertEquals(1, acquired.getCount());
+        bulkhead.release();
+        acquired.await();
+        queued.join();
+        assertEquals(1, bulkhead.getAvailablePermits());
+        assertEquals(0, bulkhead.getQueuedCalls());
+    }
+}
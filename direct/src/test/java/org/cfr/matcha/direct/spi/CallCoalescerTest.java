@@ -0,0 +1,125 @@
+package org.cfr.matcha.direct.spi;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import org.cfr.direct.testing.EasyMockTestCase;
+import org.junit.Test;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonParser;
+
+public class CallCoalescerTest extends EasyMockTestCase {
+
+    private static JsonArray json(String arguments) {
+        return new JsonParser().parse(arguments).getAsJsonArray();
+    }
+
+    @Test
+    public void createKeyTest() {
+        assertEquals(CallCoalescer.createKey("Action.method", json("[{\"b\":1,\"a\":[{\"d\":null,\"c\":\"x\"}]}]")),
+            CallCoalescer.createKey("Action.method", json("[{\"a\":[{\"c\":\"x\",\"d\":null}],\"b\":1}]")));
+        assertFalse(CallCoalescer.createKey("Action.method", json("[1,2]"))
+                .equals(CallCoalescer.createKey("Action.method", json("[2,1]"))));
+        assertFalse(CallCoalescer.createKey("Action.method", json("[1]"))
+                .equals(CallCoalescer.createKey("Action.other", json("[1]"))));
+        assertEquals("Action.method:null", CallCoalescer.createKey("Action.method", null));
+    }
+
+    @Test
+    public void callCoalescesIdenticalCallsInFlightTest() throws Exception {
+        final CallCoalescer coalescer = new CallCoalescer();
+        final Object[] attached = new Object[1];
+        Object result = coalescer.call("key", new Supplier<Object>() {
+
+            @Override
+            public Object get() {
+                // an identical call arriving while this one is in flight
+                attached[0] = coalescer.call("key", new Supplier<Object>() {
+
+                    @Override
+                    public Object get() {
+                        fail("the identical call must not be invoked");
+                        return null;
+                    }
+                });
+                return "result";
+            }
+        });
+        assertEquals("result", result);
+        assertEquals("result", ((CompletableFuture<?>) attached[0]).get());
+        assertEquals(0, coalescer.getInFlightCallCount());
+    }
+
+    @Test
+    public void callCoalescesUntilAsynchronousResultCompletesTest() throws Exception {
+        CallCoalescer coalescer = new CallCoalescer();
+        final CompletableFuture<String> pending = new CompletableFuture<String>();
+        final int[] count = new int[1];
+        Supplier<Object> call = new Supplier<Object>() {
+
+            @Override
+            public Object get() {
+                count[0]++;
+                return pending;
+            }
+        };
+        assertSame(pending, coalescer.call("key", call));
+        CompletableFuture<?> attached = (CompletableFuture<?>) coalescer.call("key", call);
+        assertFalse(attached.isDone());
+        assertEquals(1, coalescer.getInFlightCallCount());
+
+        pending.complete("done");
+        assertEquals("done", attached.get());
+        assertEquals(0, coalescer.getInFlightCallCount());
+        // the result is not cached
+        coalescer.call("key", call);
+        assertEquals(2, count[0]);
+    }
+
+    @Test
+    public void callCancelAttachedCallTest() throws Exception {
+        CallCoalescer coalescer = new CallCoalescer();
+        final CompletableFuture<String> pending = new CompletableFuture<String>();
+        Supplier<Object> call = new Supplier<Object>() {
+
+            @Override
+            public Object get() {
+                return pending;
+            }
+        };
+        coalescer.call("key", call);
+        CompletableFuture<?> first = (CompletableFuture<?>) coalescer.call("key", call);
+        CompletableFuture<?> second = (CompletableFuture<?>) coalescer.call("key", call);
+        assertNotSame(first, second);
+
+        // at the deadline of the call
+        first.cancel(true);
+        assertFalse(pending.isDone());
+        assertFalse(second.isDone());
+        assertEquals(1, coalescer.getInFlightCallCount());
+
+        pending.complete("done");
+        assertEquals("done", second.get());
+    }
+
+    @Test
+    public void callShareErrorTest() throws Exception {
+        final CallCoalescer coalescer = new CallCoalescer();
+        final CompletableFuture<?>[] attached = new CompletableFuture<?>[1];
+        try {
+            coalescer.call("key", new Supplier<Object>() {
+
+                @Override
+                public Object get() {
+                    attached[0] = (CompletableFuture<?>) coalescer.call("key", this);
+                    throw new IllegalStateException("failed");
+                }
+            });
+            fail("the call fails");
+        } catch (IllegalStateException ex) {
+            assertTrue(attached[0].isCompletedExceptionally());
+            assertEquals(0, coalescer.getInFlightCallCount());
+        }
+    }
+}
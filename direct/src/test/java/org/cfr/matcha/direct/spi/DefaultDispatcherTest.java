@@ -8,13 +8,16 @@ import java.util.Map;
 
 import org.cfr.direct.testing.EasyMockTestCase;
 import org.cfr.matcha.direct.MyAction;
+import org.cfr.matcha.direct.spi.invoker.InvocationMode;
 import org.easymock.EasyMock;
 import org.easymock.internal.ReflectionUtils;
 import org.junit.Test;
 
 import com.google.common.collect.Lists;
 import com.softwarementors.extjs.djn.api.RegisteredAction;
+import com.softwarementors.extjs.djn.api.RegisteredPollMethod;
 import com.softwarementors.extjs.djn.api.RegisteredStandardMethod;
+import com.softwarementors.extjs.djn.api.Registry;
 
 public class DefaultDispatcherTest extends EasyMockTestCase {
 
@@ -67,4 +70,61 @@ public class DefaultDispatcherTest extends EasyMockTestCase {
 
     }
 
+    @Test
+    public void dispatchWithMethodHandleInvokerTest() throws Exception {
+        dispatchWithInvoker(InvocationMode.METHOD_HANDLE);
+    }
+
+    @Test
+    public void dispatchWithReflectionInvokerTest() throws Exception {
+        dispatchWithInvoker(InvocationMode.REFLECTION);
+    }
+
+    @Test
+    public void dispatchWithGeneratedInvokerTest() throws Exception {
+        dispatchWithInvoker(InvocationMode.GENERATED);
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private void dispatchWithInvoker(InvocationMode invocationMode) throws Exception {
+        List<Object> actions = new ArrayList<Object>();
+        MyAction action = new MyAction();
+        actions.add(action);
+
+        Class actionClass = action.getClass();
+        RegisteredStandardMethod registeredStandardMethod = mock(RegisteredStandardMethod.class);
+        Method m = ReflectionUtils.findMethod(action.getClass(), "myMethod", new Class<?>[] { String.class });
+        expect(registeredStandardMethod.getParameterCount()).andReturn(1).anyTimes();
+        expect(registeredStandardMethod.getMethod()).andReturn(m).anyTimes();
+        expect(registeredStandardMethod.getActionClass()).andReturn(actionClass).anyTimes();
+        expect(registeredStandardMethod.getParameterTypes()).andReturn(new Class<?>[] { String.class }).anyTimes();
+        expect(registeredStandardMethod.getName()).andReturn("myMethod").anyTimes();
+
+        RegisteredAction registeredAction = mock(RegisteredAction.class);
+        expect(registeredAction.getName()).andReturn("MyAction").anyTimes();
+        expect(registeredAction.getActionClass()).andReturn(actionClass).anyTimes();
+        expect(registeredAction.getStandardMethods()).andReturn(Lists.newArrayList(registeredStandardMethod));
+        expect(registeredAction.getPollMethods()).andReturn(Lists.<RegisteredPollMethod> newArrayList());
+
+        Registry registry = mock(Registry.class);
+        expect(registry.getActions()).andReturn(Lists.newArrayList(registeredAction));
+
+        replay();
+        DefaultDispatcher dispatcher = new DefaultDispatcher(actions);
+        dispatcher.initialize(registry, invocationMode);
+
+        Object result = dispatcher.dispatch(registeredStandardMethod, new Object[] { "parameter" });
+        MethodEntry entry = dispatcher.getMethodEntry("MyAction", "myMethod");
+        verify();
+
+        assertEquals("class org.cfr.matcha.direct.MyActioncalled with data parameter", result);
+        assertNotNull(entry);
+        assertSame(registeredStandardMethod, entry.getMethod());
+        assertSame(action, entry.getInstance());
+        assertSame(entry, dispatcher.getMethodEntry(registeredStandardMethod));
+        assertNull(dispatcher.getMethodEntry("MyAction", "unknown"));
+        assertEquals("class org.cfr.matcha.direct.MyActioncalled with data parameter",
+            dispatcher.dispatch(entry, new Object[] { "parameter" }));
+    }
+
 }
@@ -0,0 +1,125 @@
+package org.cfr.matcha.direct.spi;
+
+import org.cfr.direct.testing.EasyMockTestCase;
+import org.junit.Test;
+
+import com.google.gson.FieldNamingPolicy;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonParser;
+
+public class ResultCacheTest extends EasyMockTestCase {
+
+    public static class Customer {
+
+        private final String name;
+
+        public Customer(String name) {
+            this.name = name;
+        }
+    }
+
+    private static JsonArray json(String arguments) {
+        return new JsonParser().parse(arguments).getAsJsonArray();
+    }
+
+    @Test
+    public void getTest() {
+        ResultCache cache = new ResultCache("Action.method", 60000, 10);
+        String key = ResultCache.createKey(json("[{\"b\":1,\"a\":2}]"));
+        assertNull(cache.get(key));
+        cache.put(key, "\"result\"");
+        assertEquals("\"result\"", cache.get(ResultCache.createKey(json("[{\"a\":2,\"b\":1}]"))));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void putEvictsLeastRecentlyUsedTest() {
+        ResultCache cache = new ResultCache("Action.method", 60000, 2);
+        cache.put("a", "1");
+        cache.put("b", "2");
+        assertEquals("1", cache.get("a"));
+        cache.put("c", "3");
+        assertEquals(2, cache.size());
+        assertNull(cache.get("b"));
+        assertEquals("1", cache.get("a"));
+        assertEquals("3", cache.get("c"));
+        assertEquals(1, cache.getEvictionCount());
+    }
+
+    @Test
+    public void getExpiredTest() throws Exception {
+        ResultCache cache = new ResultCache("Action.method", 1, 10);
+        cache.put("a", "1");
+        Thread.sleep(10);
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+
+        cache.put("b", "2");
+        Thread.sleep(10);
+        cache.cleanUp();
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void invalidateTest() {
+        ResultCache cache = new ResultCache("Action.method", 60000, 10);
+        cache.put(ResultCache.createKey(json("[\"a\",1]")), "1");
+        cache.put(ResultCache.createKey(json("[\"b\",2]")), "2");
+        cache.invalidate("a", 1);
+        assertEquals(1, cache.size());
+        assertNull(cache.get(ResultCache.createKey(json("[\"a\",1]"))));
+        cache.invalidateAll();
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void putAfterInvalidateTest() {
+        ResultCache cache = new ResultCache("Action.method", 60000, 10);
+        long generation = cache.getGeneration();
+        // the data changes while the result is computed
+        cache.invalidate("a");
+        assertFalse(cache.put("a", "stale", generation));
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+
+        generation = cache.getGeneration();
+        assertTrue(cache.put("a", "1", generation));
+        assertEquals("1", cache.get("a"));
+        cache.invalidateAll();
+        assertFalse(cache.put("b", "stale", generation));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void invalidateWithoutArgumentsTest() {
+        ResultCache cache = new ResultCache("Action.method", 60000, 10);
+        // a call without arguments has no data
+        cache.put(ResultCache.createKey(null), "1");
+        assertEquals("1", cache.get(ResultCache.createKey(new JsonArray())));
+        cache.invalidate();
+        assertEquals(0, cache.size());
+
+        cache.put(ResultCache.createKey(new JsonArray()), "1");
+        cache.invalidate((JsonArray) null);
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void invalidateWithConfiguredGsonTest() {
+        ResultCache cache = new ResultCache("Action.method", 60000, 10,
+                new GsonBuilder().setFieldNamingPolicy(FieldNamingPolicy.UPPER_CAMEL_CASE).create());
+        cache.put(ResultCache.createKey(json("[{\"Name\":\"a\"}]")), "1");
+        cache.invalidate(new Customer("b"));
+        assertEquals(1, cache.size());
+        cache.invalidate(new Customer("a"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void createWithoutTimeToLiveTest() {
+        new ResultCache("Action.method", 0, 10);
+    }
+}
@@ -0,0 +1,135 @@
+package org.cfr.matcha.direct.spi.invoker;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Type;
+
+import org.cfr.direct.testing.EasyMockTestCase;
+import org.junit.Test;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+
+public class GeneratedMethodInvokersTest extends EasyMockTestCase {
+
+    public static class Action {
+
+        public long find(long id) {
+            return id * 2;
+        }
+
+        public String name(int id) {
+            return "name" + id;
+        }
+
+        public String concat(String first, Integer second) {
+            return first + second;
+        }
+
+        public String none() {
+            return "none";
+        }
+
+        public void touch(String value) {
+        }
+
+        public String fail(String value) {
+            throw new IllegalStateException(value);
+        }
+    }
+
+    private final IJsonArgumentConverter converter = new IJsonArgumentConverter() {
+
+        @Override
+        public Object convert(JsonElement value, Class<?> parameterType, Type gsonType) {
+            return new Gson().fromJson(value, parameterType);
+        }
+    };
+
+    @Test
+    public void generatedInvokerTest() throws Exception {
+        assertTrue(create("find", long.class) instanceof IJsonMethodInvoker);
+        assertTrue(create("name", int.class) instanceof IJsonMethodInvoker);
+        assertTrue(create("concat", String.class, Integer.class) instanceof IJsonMethodInvoker);
+        assertTrue(create("none") instanceof IJsonMethodInvoker);
+    }
+
+    @Test
+    public void voidMethodUseMethodHandleTest() throws Exception {
+        assertTrue(create("touch", String.class) instanceof MethodHandleMethodInvoker);
+    }
+
+    @Test
+    public void invokeJsonArgumentsTest() throws Exception {
+        assertEquals(Long.valueOf(84L), invokeJson(create("find", long.class), "[42]"));
+        assertEquals("name7", invokeJson(create("name", int.class), "[7]"));
+        assertEquals("a1", invokeJson(create("concat", String.class, Integer.class), "[\"a\",1]"));
+        assertEquals("none", ((IJsonMethodInvoker) create("none")).invoke(null, converter));
+    }
+
+    @Test
+    public void invokeIntegralArgumentsTest() throws Exception {
+        IJsonArgumentConverter rejecting = new IJsonArgumentConverter() {
+
+            @Override
+            public Object convert(JsonElement value, Class<?> parameterType, Type gsonType) {
+                throw new IllegalArgumentException("converted " + value);
+            }
+        };
+        assertEquals("name-7", invokeJson(create("name", int.class), "[-7]", rejecting));
+        assertEquals(Long.valueOf(-84L), invokeJson(create("find", long.class), "[-42]", rejecting));
+        assertEquals(Long.valueOf(6000000000L), invokeJson(create("find", long.class), "[3000000000]", rejecting));
+
+        // neither truncated nor wrapped: the converter decides
+        String[] intArguments = { "[1.5]", "[1e2]", "[3000000000]", "[-2147483649]", "[\"7\"]" };
+        for (String arguments : intArguments) {
+            assertConverted(create("name", int.class), arguments, rejecting);
+        }
+        String[] longArguments = { "[1.5]", "[9223372036854775808]", "[\"7\"]" };
+        for (String arguments : longArguments) {
+            assertConverted(create("find", long.class), arguments, rejecting);
+        }
+        assertEquals("name7", invokeJson(create("name", int.class), "[\"7\"]"));
+    }
+
+    private static void assertConverted(IMethodInvoker invoker, String arguments, IJsonArgumentConverter converter)
+            throws Exception {
+        try {
+            invokeJson(invoker, arguments, converter);
+            fail(arguments);
+        } catch (IllegalArgumentException ex) {
+            assertTrue(ex.getMessage(), ex.getMessage().startsWith("converted "));
+        }
+    }
+
+    @Test
+    public void invokeObjectArgumentsTest() throws Exception {
+        assertEquals(Long.valueOf(84L), create("find", long.class).invoke(new Object[] { 42L }));
+        assertEquals("a1", create("concat", String.class, Integer.class).invoke(new Object[] { "a", 1 }));
+    }
+
+    @Test
+    public void invokeThrowingMethodTest() throws Exception {
+        try {
+            invokeJson(create("fail", String.class), "[\"failed\"]");
+            fail();
+        } catch (InvocationTargetException ex) {
+            assertTrue(ex.getCause() instanceof IllegalStateException);
+        }
+    }
+
+    private Object invokeJson(IMethodInvoker invoker, String arguments) throws Exception {
+        return invokeJson(invoker, arguments, converter);
+    }
+
+    private static Object invokeJson(IMethodInvoker invoker, String arguments, IJsonArgumentConverter converter)
+            throws Exception {
+        JsonArray json = (JsonArray) new JsonParser().parse(arguments);
+        return ((IJsonMethodInvoker) invoker).invoke(json, converter);
+    }
+
+    private static IMethodInvoker create(String name, Class<?>... parameterTypes) throws Exception {
+        return GeneratedMethodInvokers.create(new Action(), Action.class.getMethod(name, parameterTypes));
+    }
+}
@@ -0,0 +1,86 @@
+package org.cfr.matcha.direct.spi.invoker;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+import org.cfr.direct.testing.EasyMockTestCase;
+import org.junit.Test;
+
+public class InvocationModeTest extends EasyMockTestCase {
+
+    public static class Action {
+
+        private int count;
+
+        public String echo(String value) {
+            return value;
+        }
+
+        public long increment(long id, int delta) {
+            return id + delta;
+        }
+
+        public void touch() {
+            count++;
+        }
+
+        public static String concat(String first, String second) {
+            return first + second;
+        }
+
+        public String fail() {
+            throw new IllegalStateException("failed");
+        }
+    }
+
+    @Test
+    public void invokeReferenceParameterTest() throws Exception {
+        for (InvocationMode mode : InvocationMode.values()) {
+            IMethodInvoker invoker = mode.createInvoker(new Action(), method("echo", String.class));
+            assertEquals(mode.name(), "value", invoker.invoke(new Object[] { "value" }));
+        }
+    }
+
+    @Test
+    public void invokePrimitiveParametersTest() throws Exception {
+        for (InvocationMode mode : InvocationMode.values()) {
+            IMethodInvoker invoker = mode.createInvoker(new Action(), method("increment", long.class, int.class));
+            assertEquals(mode.name(), Long.valueOf(12L), invoker.invoke(new Object[] { 10L, 2 }));
+        }
+    }
+
+    @Test
+    public void invokeVoidMethodTest() throws Exception {
+        for (InvocationMode mode : InvocationMode.values()) {
+            Action action = new Action();
+            IMethodInvoker invoker = mode.createInvoker(action, method("touch"));
+            assertNull(mode.name(), invoker.invoke(new Object[0]));
+            assertEquals(mode.name(), 1, action.count);
+        }
+    }
+
+    @Test
+    public void invokeStaticMethodTest() throws Exception {
+        for (InvocationMode mode : InvocationMode.values()) {
+            IMethodInvoker invoker = mode.createInvoker(null, method("concat", String.class, String.class));
+            assertEquals(mode.name(), "ab", invoker.invoke(new Object[] { "a", "b" }));
+        }
+    }
+
+    @Test
+    public void invokeThrowingMethodTest() throws Exception {
+        for (InvocationMode mode : InvocationMode.values()) {
+            IMethodInvoker invoker = mode.createInvoker(new Action(), method("fail"));
+            try {
+                invoker.invoke(new Object[0]);
+                fail(mode.name());
+            } catch (InvocationTargetException ex) {
+                assertTrue(mode.name(), ex.getCause() instanceof IllegalStateException);
+            }
+        }
+    }
+
+    private static Method method(String name, Class<?>... parameterTypes) throws NoSuchMethodException {
+        return Action.class.getMethod(name, parameterTypes);
+    }
+}
@@ -0,0 +1,260 @@
+package org.cfr.matcha.direct.websocket;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+import javax.websocket.CloseReason;
+import javax.websocket.EndpointConfig;
+import javax.websocket.MessageHandler;
+import javax.websocket.RemoteEndpoint;
+import javax.websocket.Session;
+
+import org.cfr.direct.testing.EasyMockTestCase;
+import org.cfr.matcha.api.direct.DirectAction;
+import org.cfr.matcha.api.direct.DirectMethod;
+import org.cfr.matcha.api.direct.DirectPollMethod;
+import org.cfr.matcha.direct.TestDirectApplication;
+import org.easymock.Capture;
+import org.junit.Test;
+
+public class DirectWebSocketEndpointTest extends EasyMockTestCase {
+
+    @DirectAction
+    public static class SocketAction {
+
+        @DirectMethod
+        public String echo(String value) {
+            return value;
+        }
+
+        @DirectPollMethod
+        public String message(Map<String, String> parameters) {
+            return "hello " + parameters.get("name");
+        }
+    }
+
+    /** runs the messages in the thread receiving them */
+    private static final Executor sameThreadExecutor = new Executor() {
+
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    private static DirectWebSocketEndpoint createEndpoint() throws Exception {
+        // the events are polled once during a test
+        return createEndpoint(sameThreadExecutor, DirectWebSocketEndpoint.DEFAULT_MAX_IN_FLIGHT_MESSAGES);
+    }
+
+    private static DirectWebSocketEndpoint createEndpoint(Executor executor, int maxInFlightMessages)
+            throws Exception {
+        TestDirectApplication context = TestDirectApplication.create(new SocketAction());
+        return new DirectWebSocketEndpoint(context, executor, 60000, maxInFlightMessages);
+    }
+
+    private static String request(int tid) {
+        return "{\"action\":\"SocketAction\",\"method\":\"echo\",\"data\":[\"a\"],\"type\":\"rpc\",\"tid\":" + tid + "}";
+    }
+
+    private static String response(int tid) {
+        return "{\"tid\":" + tid + ",\"action\":\"SocketAction\",\"method\":\"echo\",\"result\":\"a\",\"type\":\"rpc\"}";
+    }
+
+    @SuppressWarnings("unchecked")
+    private MessageHandler.Whole<String> open(DirectWebSocketEndpoint endpoint, Session session,
+                                              RemoteEndpoint.Basic remote) {
+        Capture<MessageHandler> handler = new Capture<MessageHandler>();
+        expect(session.getUserProperties()).andReturn(new HashMap<String, Object>()).anyTimes();
+        expect(session.isOpen()).andReturn(true).anyTimes();
+        expect(session.getBasicRemote()).andReturn(remote).anyTimes();
+        session.addMessageHandler(capture(handler));
+        expectLastCall().once();
+        return new MessageHandlerProxy(handler);
+    }
+
+    @Test
+    public void onMessageTest() throws Exception {
+        DirectWebSocketEndpoint endpoint = createEndpoint();
+        Session session = mock(Session.class);
+        RemoteEndpoint.Basic remote = mock(RemoteEndpoint.Basic.class);
+
+        MessageHandler.Whole<String> handler = open(endpoint, session, remote);
+        remote.sendText("{\"tid\":1,\"action\":\"SocketAction\",\"method\":\"echo\",\"result\":\"a\",\"type\":\"rpc\"}");
+        expectLastCall().once();
+
+        replay();
+        endpoint.onOpen(session, mock(EndpointConfig.class));
+        handler.onMessage("{\"action\":\"SocketAction\",\"method\":\"echo\",\"data\":[\"a\"],\"type\":\"rpc\",\"tid\":1}");
+        verify();
+    }
+
+    @Test
+    public void onMessageSubscribeTest() throws Exception {
+        DirectWebSocketEndpoint endpoint = createEndpoint();
+        Session session = mock(Session.class);
+        RemoteEndpoint.Basic remote = mock(RemoteEndpoint.Basic.class);
+
+        MessageHandler.Whole<String> handler = open(endpoint, session, remote);
+        remote.sendText("{\"data\":\"hello world\",\"name\":\"message\",\"type\":\"event\"}");
+        expectLastCall().once();
+
+        replay();
+        endpoint.onOpen(session, mock(EndpointConfig.class));
+        handler.onMessage("{\"type\":\"subscribe\",\"name\":\"message\",\"data\":{\"name\":\"world\"}}");
+        handler.onMessage("{\"type\":\"unsubscribe\",\"name\":\"message\"}");
+        verify();
+    }
+
+    @Test
+    public void onMessageTooManyInFlightTest() throws Exception {
+        // holds the messages until the test runs them
+        final List<Runnable> pending = new ArrayList<Runnable>();
+        DirectWebSocketEndpoint endpoint = createEndpoint(new Executor() {
+
+            @Override
+            public void execute(Runnable command) {
+                pending.add(command);
+            }
+        }, 2);
+        Session session = mock(Session.class);
+        RemoteEndpoint.Basic remote = mock(RemoteEndpoint.Basic.class);
+
+        MessageHandler.Whole<String> handler = open(endpoint, session, remote);
+        Capture<CloseReason> closeReason = new Capture<CloseReason>();
+        session.close(capture(closeReason));
+        expectLastCall().once();
+        remote.sendText(response(1));
+        expectLastCall().once();
+        remote.sendText(response(2));
+        expectLastCall().once();
+        remote.sendText(response(4));
+        expectLastCall().once();
+
+        replay();
+        endpoint.onOpen(session, mock(EndpointConfig.class));
+        handler.onMessage(request(1));
+        handler.onMessage(request(2));
+        // over the limit of the connection
+        handler.onMessage(request(3));
+        assertEquals(2, pending.size());
+        pending.remove(0).run();
+        pending.remove(0).run();
+        // once answered, the next message is processed
+        handler.onMessage(request(4));
+        pending.remove(0).run();
+        verify();
+
+        assertEquals(CloseReason.CloseCodes.TRY_AGAIN_LATER, closeReason.getValue().getCloseCode());
+    }
+
+    @Test
+    public void onMessageRejectedTest() throws Exception {
+        DirectWebSocketEndpoint endpoint = createEndpoint(new Executor() {
+
+            @Override
+            public void execute(Runnable command) {
+                throw new RejectedExecutionException("saturated");
+            }
+        }, 2);
+        Session session = mock(Session.class);
+        RemoteEndpoint.Basic remote = mock(RemoteEndpoint.Basic.class);
+
+        MessageHandler.Whole<String> handler = open(endpoint, session, remote);
+        session.close(anyObject(CloseReason.class));
+        expectLastCall().once();
+
+        replay();
+        endpoint.onOpen(session, mock(EndpointConfig.class));
+        handler.onMessage(request(1));
+        verify();
+    }
+
+    @Test
+    public void onMessageInvalidRequestTest() throws Exception {
+        DirectWebSocketEndpoint endpoint = createEndpoint();
+        Session session = mock(Session.class);
+        RemoteEndpoint.Basic remote = mock(RemoteEndpoint.Basic.class);
+
+        MessageHandler.Whole<String> handler = open(endpoint, session, remote);
+        Capture<String> response = new Capture<String>();
+        remote.sendText(capture(response));
+        expectLastCall().once();
+
+        replay();
+        endpoint.onOpen(session, mock(EndpointConfig.class));
+        // the request without method fails, its transaction is answered anyway
+        handler.onMessage("{\"action\":\"SocketAction\",\"data\":[\"a\"],\"type\":\"rpc\",\"tid\":2}");
+        verify();
+
+        assertTrue(response.getValue().startsWith("{\"tid\":2,\"action\":\"SocketAction\",\"type\":\"exception\""));
+    }
+
+    @Test
+    public void onMessageMalformedTest() throws Exception {
+        DirectWebSocketEndpoint endpoint = createEndpoint();
+        Session session = mock(Session.class);
+        RemoteEndpoint.Basic remote = mock(RemoteEndpoint.Basic.class);
+
+        MessageHandler.Whole<String> handler = open(endpoint, session, remote);
+        Capture<CloseReason> closeReason = new Capture<CloseReason>();
+        session.close(capture(closeReason));
+        expectLastCall().once();
+
+        replay();
+        endpoint.onOpen(session, mock(EndpointConfig.class));
+        handler.onMessage("[" + request(1));
+        verify();
+
+        assertEquals(CloseReason.CloseCodes.NOT_CONSISTENT, closeReason.getValue().getCloseCode());
+    }
+
+    @Test
+    public void createExecutorIsBoundedTest() throws Exception {
+        ExecutorService executor = DirectWebSocketEndpoint.createExecutor(1, 1);
+        final Object lock = new Object();
+        Runnable blocked = new Runnable() {
+
+            @Override
+            public void run() {
+                synchronized (lock) {
+                    // released by the test
+                }
+            }
+        };
+        synchronized (lock) {
+            executor.execute(blocked);
+            executor.execute(blocked);
+            try {
+                executor.execute(blocked);
+                fail("the executor is saturated");
+            } catch (RejectedExecutionException ex) {
+                // closes the connection
+            }
+        }
+        executor.shutdown();
+    }
+
+    /**
+     * Forwards the messages to the handler added by the endpoint, once it is opened.
+     */
+    private static class MessageHandlerProxy implements MessageHandler.Whole<String> {
+
+        private final Capture<MessageHandler> handler;
+
+        public MessageHandlerProxy(final Capture<MessageHandler> handler) {
+            this.handler = handler;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public void onMessage(String message) {
+            ((MessageHandler.Whole<String>) handler.getValue()).onMessage(message);
+        }
+    }
+}
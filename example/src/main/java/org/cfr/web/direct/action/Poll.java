@@ -1,26 +1,72 @@
 package org.cfr.web.direct.action;
 
 import java.text.SimpleDateFormat;
+import java.util.Collections;
 import java.util.Date;
+import java.util.List;
 import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
 import javax.inject.Named;
 
 import org.cfr.matcha.api.direct.DirectAction;
+import org.cfr.matcha.api.direct.DirectPollMethod;
+import org.cfr.matcha.direct.event.EventBus;
 import org.joda.time.DateTime;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
 @Named
 @DirectAction
 public class Poll {
 
-    public String message(Map<String, String> parameters) {
-        assert parameters != null;
+    private static final String MESSAGE_CHANNEL = "message";
+
+    @Inject
+    private EventBus eventBus;
+
+    private ScheduledExecutorService publisher;
 
-        Date now = new Date();
-        SimpleDateFormat formatter = new SimpleDateFormat("yyyy/MM/dd 'at' hh:mm:ss");
-        return "Current time in server: "
-                + formatter.format(now);
+    /**
+     * Publishes the time of the server every second, read by the polls of the clients.
+     */
+    @PostConstruct
+    public void start() {
+        publisher = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setNameFormat(
+            "example-publisher-%d").setDaemon(true).build());
+        publisher.scheduleAtFixedRate(new Runnable() {
+
+            @Override
+            public void run() {
+                SimpleDateFormat formatter = new SimpleDateFormat("yyyy/MM/dd 'at' hh:mm:ss");
+                eventBus.publish(MESSAGE_CHANNEL, "Current time in server: " + formatter.format(new Date()));
+            }
+        }, 0, 1, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        publisher.shutdownNow();
+    }
+
+    /**
+     * 
+     * @param parameters the parameters of the poll, <code>clientId</code> identifying the client.
+     * @return the messages published since the previous poll of the client.
+     */
+    @DirectPollMethod
+    public List<Object> message(Map<String, String> parameters) {
+        String clientId = parameters.get("clientId");
+        if (clientId == null) {
+            return Collections.emptyList();
+        }
+        return eventBus.drain(MESSAGE_CHANNEL, clientId);
     }
 
     public static class LiveUpdateState {
@@ -40,6 +86,7 @@ public class Poll {
 
     private final Random r = new Random();
 
+    @DirectPollMethod
     public LiveUpdateState liveUpdate(Map<String, String> parameters) {
         LiveUpdateState val = new LiveUpdateState();
         if (parameters.containsKey("startDate")) {
@@ -58,9 +58,15 @@ Ext
 			Ext.direct.Manager.addProvider(Ext.app.REMOTING_API, {
 				type : 'polling',
 				url : Ext.app.POLLING_URLS.message,
+				baseParams : {
+					// the server keeps the position of each client in the published messages
+					clientId : Ext.id(null, 'client-' + new Date().getTime() + '-')
+				},
 				listeners : {
 					data : function(provider, event) {
-						updateMain('<i>' + event.data + '</i>');
+						Ext.Array.each(event.data, function(message) {
+							updateMain('<i>' + message + '</i>');
+						});
 					}
 				}
 			});